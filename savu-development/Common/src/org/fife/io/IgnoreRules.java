@@ -0,0 +1,572 @@
+/*
+ * 10/17/2026
+ *
+ * IgnoreRules.java - Decides which files and directories to skip when
+ * walking a directory tree.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+
+/**
+ * Decides which files and directories should be skipped when walking a
+ * directory tree, for example when searching in files or listing a
+ * directory in a file tree.  Two sets of rules are applied:
+ *
+ * <ul>
+ *    <li>A set of default excludes, such as version control metadata and
+ *        Python caches and virtual environments.  These are matched
+ *        against file names, and apply everywhere.</li>
+ *    <li>The rules in <code>.gitignore</code> files in the directory
+ *        containing a file and its parents, up to the root of the
+ *        repository (the first directory containing <code>.git</code>).
+ *        Outside of a repository, only the ignore files in the directory
+ *        being searched and below it are used.
+ *        Deeper files take precedence over shallower ones, and later rules
+ *        over earlier ones, just like in git.  Negated ("<code>!</code>")
+ *        rules, directory-only rules, anchored rules, and the
+ *        <code>*</code>, <code>?</code>, <code>**</code> and
+ *        <code>[...]</code> wildcards are supported.</li>
+ * </ul>
+ *
+ * Callers walking a tree should ask for the rules of each directory once,
+ * via {@link #getRulesFor(Path, Path)}, and test that directory's children
+ * against them.  Ignored directories should not be descended into.<p>
+ *
+ * Parsed ignore files are cached.  A directory's ignore file is re-read
+ * when it changes, but changes to its parents' ignore files are only picked
+ * up after {@link #clearCache()} is called.  This class is thread safe.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class IgnoreRules {
+
+	/**
+	 * The name of the files containing ignore rules.
+	 */
+	public static final String IGNORE_FILE_NAME = ".gitignore";
+
+	/**
+	 * The default excludes.  These use the same syntax as lines in a
+	 * <code>.gitignore</code> file.
+	 */
+	public static final String[] DEFAULT_EXCLUDES = {
+		".git/", ".hg/", ".svn/", "__pycache__/", "venv/", ".venv/",
+		"node_modules/",
+	};
+
+	private String[] defaultExcludes;
+	private Rule[] defaultRules;
+	private boolean useIgnoreFiles;
+	private Map<Path, Level> levels;
+
+	/**
+	 * Whether file names are matched case-insensitively.
+	 */
+	private static final boolean IGNORE_CASE;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final Rule[] NO_RULES = new Rule[0];
+
+
+	/**
+	 * Constructor.  The default excludes are used, and
+	 * <code>.gitignore</code> files are honored.
+	 */
+	public IgnoreRules() {
+		this(DEFAULT_EXCLUDES, true);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param defaultExcludes Rules that apply everywhere, in
+	 *        <code>.gitignore</code> syntax.  This may be <code>null</code>
+	 *        or empty.
+	 * @param useIgnoreFiles Whether to honor <code>.gitignore</code> files.
+	 */
+	public IgnoreRules(String[] defaultExcludes, boolean useIgnoreFiles) {
+		this.defaultExcludes = defaultExcludes!=null ?
+				(String[])defaultExcludes.clone() : new String[0];
+		List<Rule> rules = new ArrayList<Rule>();
+		for (int i=0; i<this.defaultExcludes.length; i++) {
+			Rule rule = Rule.parse(this.defaultExcludes[i]);
+			if (rule!=null) {
+				rules.add(rule);
+			}
+		}
+		defaultRules = rules.toArray(new Rule[rules.size()]);
+		this.useIgnoreFiles = useIgnoreFiles;
+		levels = new ConcurrentHashMap<Path, Level>();
+	}
+
+
+	/**
+	 * Forgets all cached ignore files.
+	 */
+	public void clearCache() {
+		levels.clear();
+	}
+
+
+	/**
+	 * Returns the default excludes.
+	 *
+	 * @return The default excludes.  Modifying this array has no effect.
+	 */
+	public String[] getDefaultExcludes() {
+		return (String[])defaultExcludes.clone();
+	}
+
+
+	/**
+	 * Returns the level for a directory, (re)reading its ignore file if
+	 * necessary.
+	 */
+	private Level getLevel(Path dir) {
+
+		Level level = levels.get(dir);
+		Path ignoreFile = dir.resolve(IGNORE_FILE_NAME);
+		long modified = getLastModified(ignoreFile);
+
+		if (level==null || level.modified!=modified) {
+			Level parent = null;
+			Path parentDir = dir.getParent();
+			boolean repositoryRoot = level!=null ? level.repositoryRoot :
+									Files.exists(dir.resolve(".git"));
+			if (!repositoryRoot && parentDir!=null) {
+				parent = levels.get(parentDir);
+				if (parent==null) {
+					parent = getLevel(parentDir);
+				}
+			}
+			Rule[] rules = modified==-1 ? NO_RULES : readRules(ignoreFile);
+			level = new Level(dir, parent, repositoryRoot, modified, rules);
+			levels.put(dir, level);
+		}
+
+		return level;
+
+	}
+
+
+	/**
+	 * Returns the last modified time of a file.
+	 *
+	 * @return The last modified time, or <code>-1</code> if the file does
+	 *         not exist.
+	 */
+	private static long getLastModified(Path file) {
+		try {
+			BasicFileAttributes attrs = Files.readAttributes(file,
+										BasicFileAttributes.class);
+			return attrs.isRegularFile() ?
+					attrs.lastModifiedTime().toMillis() : -1;
+		} catch (IOException ioe) {
+			return -1;
+		}
+	}
+
+
+	/**
+	 * Returns the rules that apply to the children of a directory.  This
+	 * is the same as calling <code>getRulesFor(dir, dir)</code>.
+	 *
+	 * @param dir The directory.
+	 * @return The rules.
+	 * @see #getRulesFor(Path, Path)
+	 */
+	public DirectoryRules getRulesFor(Path dir) {
+		return getRulesFor(dir, dir);
+	}
+
+
+	/**
+	 * Returns the rules that apply to the children of a directory found
+	 * while walking a tree.  If the directory is in a repository, the
+	 * ignore files up to the repository root are used.  Otherwise, only
+	 * those in <code>top</code> and below it are.
+	 *
+	 * @param dir The directory.
+	 * @param top The directory the walk started at.  If this isn't
+	 *        <code>dir</code> or one of its parents, <code>dir</code> is
+	 *        used.
+	 * @return The rules.
+	 */
+	public DirectoryRules getRulesFor(Path dir, Path top) {
+		dir = dir.toAbsolutePath();
+		top = top.toAbsolutePath();
+		if (!dir.startsWith(top)) {
+			top = dir;
+		}
+		return new DirectoryRules(dir, top,
+				useIgnoreFiles ? getLevel(dir) : null);
+	}
+
+
+	/**
+	 * Returns whether <code>.gitignore</code> files are honored.
+	 *
+	 * @return Whether ignore files are honored.
+	 */
+	public boolean getUseIgnoreFiles() {
+		return useIgnoreFiles;
+	}
+
+
+	/**
+	 * Returns whether a single file or directory should be skipped.  If
+	 * you're checking many files in the same directory, it is faster to
+	 * use {@link #getRulesFor(Path)}.
+	 *
+	 * @param path The file or directory.
+	 * @param directory Whether it is a directory.
+	 * @return Whether it should be skipped.
+	 */
+	public boolean isIgnored(Path path, boolean directory) {
+		path = path.toAbsolutePath();
+		Path parent = path.getParent();
+		Path name = path.getFileName();
+		if (parent==null || name==null) {
+			return false; // A file system root
+		}
+		return getRulesFor(parent).isIgnored(name.toString(), directory);
+	}
+
+
+	/**
+	 * Reads the rules in an ignore file.
+	 */
+	private static Rule[] readRules(Path file) {
+		List<Rule> rules = new ArrayList<Rule>();
+		try {
+			for (String line : Files.readAllLines(file, UTF8)) {
+				Rule rule = Rule.parse(line);
+				if (rule!=null) {
+					rules.add(rule);
+				}
+			}
+		} catch (IOException ioe) { // Unreadable, or not UTF-8
+			return NO_RULES;
+		}
+		return rules.toArray(new Rule[rules.size()]);
+	}
+
+
+	static {
+		String os = System.getProperty("os.name");
+		os = os!=null ? os.toLowerCase() : "";
+		IGNORE_CASE = File.separatorChar=='\\' || os.indexOf("mac")>-1;
+	}
+
+
+	/**
+	 * The rules that apply to the children of a single directory.  These
+	 * are a snapshot; they are not updated if an ignore file changes.
+	 */
+	public final class DirectoryRules {
+
+		private Level[] chain;
+		private String[] prefixes;
+
+		private DirectoryRules(Path dir, Path top, Level level) {
+
+			// Outside of a repository, don't look above where we started.
+			boolean stopAtTop = level!=null && !level.inRepository;
+
+			List<Level> levelList = new ArrayList<Level>();
+			for (Level l=level; l!=null; l=l.parent) {
+				if (stopAtTop && !l.dir.startsWith(top)) {
+					break;
+				}
+				if (l.rules.length>0) {
+					levelList.add(l);
+				}
+			}
+			chain = levelList.toArray(new Level[levelList.size()]);
+
+			// The path of this directory relative to each ignore file.
+			prefixes = new String[chain.length];
+			for (int i=0; i<chain.length; i++) {
+				String prefix = chain[i].dir.relativize(dir).toString();
+				if (File.separatorChar!='/') {
+					prefix = prefix.replace(File.separatorChar, '/');
+				}
+				prefixes[i] = prefix.length()>0 ? (prefix + "/") : "";
+			}
+
+		}
+
+		/**
+		 * Returns whether a child of this directory should be skipped.
+		 *
+		 * @param name The name of the child.
+		 * @param directory Whether the child is a directory.
+		 * @return Whether it should be skipped.
+		 */
+		public boolean isIgnored(String name, boolean directory) {
+
+			for (int i=0; i<defaultRules.length; i++) {
+				if (defaultRules[i].matches(name, name, directory)) {
+					return !defaultRules[i].negated;
+				}
+			}
+
+			// Deeper ignore files, and later rules, win.
+			for (int i=0; i<chain.length; i++) {
+				Rule[] rules = chain[i].rules;
+				String path = null;
+				for (int j=rules.length-1; j>=0; j--) {
+					Rule rule = rules[j];
+					if (rule.anchored && path==null) {
+						path = prefixes[i] + name;
+					}
+					if (rule.matches(name, path, directory)) {
+						return !rule.negated;
+					}
+				}
+			}
+
+			return false;
+
+		}
+
+	}
+
+
+	/**
+	 * A directory, its ignore file's rules, and the directory above it.
+	 */
+	private static final class Level {
+
+		private Path dir;
+		private Level parent;
+		private boolean repositoryRoot;
+		private boolean inRepository;
+		private long modified;
+		private Rule[] rules;
+
+		Level(Path dir, Level parent, boolean repositoryRoot, long modified,
+				Rule[] rules) {
+			this.dir = dir;
+			this.parent = parent;
+			this.repositoryRoot = repositoryRoot;
+			inRepository = repositoryRoot ||
+					(parent!=null && parent.inRepository);
+			this.modified = modified;
+			this.rules = rules;
+		}
+
+	}
+
+
+	/**
+	 * A single line from an ignore file.
+	 */
+	private static final class Rule {
+
+		private Pattern pattern;
+		private boolean negated;
+		private boolean directoryOnly;
+		private boolean anchored;
+
+		Rule(Pattern pattern, boolean negated, boolean directoryOnly,
+				boolean anchored) {
+			this.pattern = pattern;
+			this.negated = negated;
+			this.directoryOnly = directoryOnly;
+			this.anchored = anchored;
+		}
+
+		/**
+		 * Returns whether this rule matches a file.
+		 *
+		 * @param name The file's name.
+		 * @param path The file's path relative to the directory containing
+		 *        this rule, with '<code>/</code>' separators.  This is only
+		 *        used for anchored rules.
+		 * @param directory Whether the file is a directory.
+		 * @return Whether this rule matches.
+		 */
+		boolean matches(String name, String path, boolean directory) {
+			if (directoryOnly && !directory) {
+				return false;
+			}
+			return pattern.matcher(anchored ? path : name).matches();
+		}
+
+		/**
+		 * Parses a line from an ignore file.
+		 *
+		 * @param line The line.
+		 * @return The rule, or <code>null</code> if the line is blank or
+		 *         a comment.
+		 */
+		static Rule parse(String line) {
+
+			// Trailing whitespace is ignored unless escaped.
+			int end = line.length();
+			while (end>0 && Character.isWhitespace(line.charAt(end-1)) &&
+					!(end>1 && line.charAt(end-2)=='\\')) {
+				end--;
+			}
+			line = line.substring(0, end);
+			if (line.length()==0 || line.charAt(0)=='#') {
+				return null;
+			}
+
+			boolean negated = false;
+			if (line.charAt(0)=='!') {
+				negated = true;
+				line = line.substring(1);
+			}
+			else if (line.startsWith("\\#") || line.startsWith("\\!")) {
+				line = line.substring(1);
+			}
+
+			boolean directoryOnly = false;
+			if (line.endsWith("/")) {
+				directoryOnly = true;
+				line = line.substring(0, line.length()-1);
+			}
+
+			// A slash anywhere but the end anchors the pattern to the
+			// directory containing the ignore file.
+			boolean anchored = line.indexOf('/')>-1;
+			if (line.startsWith("/")) {
+				line = line.substring(1);
+			}
+			if (line.length()==0) {
+				return null;
+			}
+
+			return new Rule(toPattern(line), negated, directoryOnly,
+							anchored);
+
+		}
+
+		/**
+		 * Converts a glob from an ignore file into a regular expression.
+		 */
+		private static Pattern toPattern(String glob) {
+
+			StringBuilder sb = new StringBuilder();
+			int len = glob.length();
+
+			for (int i=0; i<len; i++) {
+				char ch = glob.charAt(i);
+				switch (ch) {
+					case '*':
+						if (i+1<len && glob.charAt(i+1)=='*') {
+							boolean segmentStart = i==0 ||
+											glob.charAt(i-1)=='/';
+							if (segmentStart && i+2<len &&
+									glob.charAt(i+2)=='/') {
+								// "**/" matches zero or more directories.
+								sb.append("(?:.*/)?");
+								i += 2;
+							}
+							else {
+								sb.append(".*");
+								i++;
+							}
+						}
+						else {
+							sb.append("[^/]*");
+						}
+						break;
+					case '?':
+						sb.append("[^/]");
+						break;
+					case '[':
+						int classEnd = getCharClassEnd(glob, i);
+						if (classEnd==-1) {
+							sb.append("\\[");
+						}
+						else {
+							appendCharClass(glob, i+1, classEnd, sb);
+							i = classEnd;
+						}
+						break;
+					case '\\':
+						if (i+1<len) {
+							i++;
+							ch = glob.charAt(i);
+						}
+						appendLiteral(ch, sb);
+						break;
+					default:
+						appendLiteral(ch, sb);
+						break;
+				}
+			}
+
+			int flags = IGNORE_CASE ? Pattern.CASE_INSENSITIVE : 0;
+			return Pattern.compile(sb.toString(), flags);
+
+		}
+
+		private static void appendCharClass(String glob, int start, int end,
+										StringBuilder sb) {
+			sb.append('[');
+			int i = start;
+			if (glob.charAt(i)=='!' || glob.charAt(i)=='^') {
+				sb.append('^');
+				i++;
+			}
+			for (; i<end; i++) {
+				char ch = glob.charAt(i);
+				if (ch=='\\' || ch=='[' || ch==']' || ch=='&' ||
+						(ch=='^' && i==start)) {
+					sb.append('\\');
+				}
+				sb.append(ch);
+			}
+			sb.append(']');
+		}
+
+		private static void appendLiteral(char ch, StringBuilder sb) {
+			if ("\\.[]{}()*+-?^$|".indexOf(ch)>-1) {
+				sb.append('\\');
+			}
+			sb.append(ch);
+		}
+
+		/**
+		 * Returns the index of the '<code>]</code>' closing a character
+		 * class, or <code>-1</code> if it isn't closed.
+		 */
+		private static int getCharClassEnd(String glob, int start) {
+			int i = start + 1;
+			if (i<glob.length() &&
+					(glob.charAt(i)=='!' || glob.charAt(i)=='^')) {
+				i++;
+			}
+			if (i<glob.length() && glob.charAt(i)==']') {
+				i++; // A leading ']' is part of the class
+			}
+			return glob.indexOf(']', i);
+		}
+
+	}
+
+
+}
@@ -64,7 +64,7 @@ public class DirectoryTree extends FileSystemTree {
 		// sort them individually.  This part could be made more compact,
 		// but it isn't just for a tad more speed.
 		for (int i=0; i<num; i++) {
-			if (files[i].isDirectory())
+			if (isDirectory(files[i]))
 				dirList.add(files[i]);
 		}
 
@@ -15,12 +15,19 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.*;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import javax.swing.*;
 import javax.swing.filechooser.FileSystemView;
@@ -28,6 +35,7 @@ import javax.swing.tree.*;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 
+import org.fife.io.IgnoreRules;
 import org.fife.ui.SubstanceUtils;
 import org.fife.ui.ToolTipTree;
 
@@ -48,6 +56,11 @@ import org.fife.ui.ToolTipTree;
  *       could set the cursor back to the default.</li>
  * </ul>
  *
+ * If {@link IgnoreRules} are set via {@link #setIgnoreRules(IgnoreRules)},
+ * files and folders they match (version control metadata, Python caches,
+ * anything in a <code>.gitignore</code>, etc.) are not displayed, and each
+ * child of an expanded folder is only stat'ed once.
+ *
  * @author Robert Futrell
  * @version 0.8
  */
@@ -79,6 +92,15 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 
 	private TreeCellRenderer cellRenderer;
 
+	private IgnoreRules ignoreRules;
+
+	/**
+	 * Whether files are directories, as found while listing a directory
+	 * with ignore rules.  This is only populated while a node's children
+	 * are being created.
+	 */
+	private Map knownDirectories;
+
 	/**
 	 * Whether we're running in a Java 6 or higher JVM.
 	 */
@@ -273,7 +295,7 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 	 * @return The tree node for the file.
 	 */
 	public FileSystemTreeNode createTreeNodeFor(File file) {
-		return createTreeNodeForImpl(file, file.isDirectory());
+		return createTreeNodeForImpl(file, isDirectory(file));
 	}
 
 
@@ -360,7 +382,7 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 		// sort them individually.  This part could be made more compact,
 		// but it isn't just for a tad more speed.
 		for (int i=0; i<num; i++) {
-			if (files[i].isDirectory())
+			if (isDirectory(files[i]))
 				dirList.add(files[i]);
 			else
 				fileList.add(files[i]);
@@ -462,6 +484,17 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 	}
 
 
+	/**
+	 * Returns the rules deciding which files and folders are hidden.
+	 *
+	 * @return The rules, or <code>null</code> if all files are displayed.
+	 * @see #setIgnoreRules(IgnoreRules)
+	 */
+	public IgnoreRules getIgnoreRules() {
+		return ignoreRules;
+	}
+
+
 	/**
 	 * Returns the display name for a given file.
 	 *
@@ -473,6 +506,71 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 	}
 
 
+	/**
+	 * Returns whether a file is a directory.  While a folder's children are
+	 * being listed with ignore rules, this is answered from the attributes
+	 * read while listing, rather than by hitting the file system again.
+	 * Subclasses overriding {@link #filterAndSort(File[])} should use this
+	 * method rather than <code>File.isDirectory()</code>.
+	 *
+	 * @param file The file.
+	 * @return Whether it is a directory.
+	 */
+	protected boolean isDirectory(File file) {
+		Boolean known = knownDirectories!=null ?
+				(Boolean)knownDirectories.get(file) : null;
+		return known!=null ? known.booleanValue() : file.isDirectory();
+	}
+
+
+	/**
+	 * Lists the children of a directory that aren't ignored.  Each child is
+	 * only stat'ed once, and whether it is a directory is remembered in
+	 * <code>knownDirectories</code>.
+	 *
+	 * @param dir The directory.
+	 * @return The children.
+	 */
+	private File[] listUnignoredFiles(File dir) {
+
+		List files = new ArrayList();
+		knownDirectories = new HashMap();
+		Path dirPath = dir.toPath();
+		File top = root!=null ? root.getFile() : null;
+		Path topPath = top!=null ? top.toPath() : dirPath;
+		IgnoreRules.DirectoryRules rules = ignoreRules.getRulesFor(dirPath,
+															topPath);
+
+		try {
+			DirectoryStream<Path> stream = Files.newDirectoryStream(dirPath);
+			try {
+				for (Path child : stream) {
+					boolean directory = false;
+					try {
+						directory = Files.readAttributes(child,
+								BasicFileAttributes.class).isDirectory();
+					} catch (IOException ioe) {
+						// A broken link, etc.; display it as a file.
+					}
+					if (!rules.isIgnored(child.getFileName().toString(),
+										directory)) {
+						File file = child.toFile();
+						files.add(file);
+						knownDirectories.put(file, Boolean.valueOf(directory));
+					}
+				}
+			} finally {
+				stream.close();
+			}
+		} catch (IOException ioe) {
+			// Unreadable directory, same as File.listFiles()==null.
+		}
+
+		return (File[])files.toArray(new File[files.size()]);
+
+	}
+
+
 	/**
 	 * This method is overridden to ensure that this tree is given a little
 	 * bit of room if it is placed into a <code>JScrollPane</code> (which
@@ -683,10 +781,16 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 			node.removeAllChildren();
 			File file = node.getFile();
 			if (file.isDirectory()) {
-				File[] children = fileSystemView.getFiles(file, false);
-				File[] filteredChildren = filterAndSort(children);
-				for (int i=0; i<filteredChildren.length; i++) {
-					node.add(createTreeNodeFor(filteredChildren[i]));
+				try {
+					File[] children = ignoreRules!=null ?
+							listUnignoredFiles(file) :
+							fileSystemView.getFiles(file, false);
+					File[] filteredChildren = filterAndSort(children);
+					for (int i=0; i<filteredChildren.length; i++) {
+						node.add(createTreeNodeFor(filteredChildren[i]));
+					}
+				} finally {
+					knownDirectories = null;
 				}
 			}
 			((FileSystemTreeModel)getModel()).nodeStructureChanged(node);
@@ -721,15 +825,20 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 		else if (rootFile.isDirectory()) {
 
 			root = new FileSystemTreeNode(rootFile);
-			File[] children = rootFile.listFiles();
-			int count = children==null ? 0 : children.length;
-			if (count>0) {
-				children = filterAndSort(children);
-			}
-
-			for (int i=0; i<count; i++) {
-				root.add(createTreeNodeForImpl(children[i],
-											children[i].isDirectory()));
+			try {
+				File[] children = ignoreRules!=null ?
+						listUnignoredFiles(rootFile) : rootFile.listFiles();
+				int count = children==null ? 0 : children.length;
+				if (count>0) {
+					children = filterAndSort(children);
+					count = children.length;
+				}
+				for (int i=0; i<count; i++) {
+					root.add(createTreeNodeForImpl(children[i],
+											isDirectory(children[i])));
+				}
+			} finally {
+				knownDirectories = null;
 			}
 
 		}
@@ -745,6 +854,18 @@ public class FileSystemTree extends ToolTipTree implements FileSelector {
 	}
 
 
+	/**
+	 * Sets the rules deciding which files and folders are hidden.  This
+	 * only affects folders expanded or refreshed afterward.
+	 *
+	 * @param rules The rules, or <code>null</code> to display all files.
+	 * @see #getIgnoreRules()
+	 */
+	public void setIgnoreRules(IgnoreRules rules) {
+		ignoreRules = rules;
+	}
+
+
 	/**
 	 * Selects the given file in the tree.  If the file does not exist,
 	 * then the selection is cleared.
@@ -0,0 +1,163 @@
+/*
+ * 10/17/2026
+ *
+ * BenchmarkData.java - Generates the inputs used by the benchmarks.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+
+/**
+ * Generates the inputs used by the benchmarks: Python source files of a
+ * given size and directory trees to search.  The output only depends on the
+ * arguments, so runs on different machines or revisions are comparable.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class BenchmarkData {
+
+	/**
+	 * The string planted in the generated directory trees, once in every
+	 * tenth file.
+	 */
+	public static final String NEEDLE = "savu_needle_value";
+
+
+	private BenchmarkData() {
+	}
+
+
+	/**
+	 * Returns Python source code with the specified number of classes.
+	 * Each class is about 30 lines long and contains methods, string
+	 * literals, comments, docstrings, and assignments of the kinds the
+	 * completion provider looks for.
+	 *
+	 * @param classCount The number of classes to generate.
+	 * @return The source code.
+	 */
+	public static String createPythonSource(int classCount) {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("import os\n");
+		sb.append("import numpy as np\n");
+		sb.append("from collections import OrderedDict\n\n");
+		sb.append("GLOBAL_COUNT = 0\n");
+		sb.append("global_names = [\"alpha\", \"beta\", \"gamma\"]\n\n");
+
+		for (int i=0; i<classCount; i++) {
+			sb.append("class Widget").append(i).append("(object):\n");
+			sb.append("    \"\"\"A generated class, number ").append(i);
+			sb.append(".\n\n    Docstrings span several lines.\n    \"\"\"\n\n");
+			sb.append("    def __init__(self, name, size=").append(i).append("):\n");
+			sb.append("        self.name = name\n");
+			sb.append("        self.size = size\n");
+			sb.append("        self.items = []\n");
+			sb.append("        self.lookup = {'key': ").append(i).append("}\n\n");
+			sb.append("    def compute_total(self, factor):\n");
+			sb.append("        # Sum the items, scaled by the factor.\n");
+			sb.append("        total = 0\n");
+			sb.append("        for item in self.items:\n");
+			sb.append("            total += item * factor\n");
+			sb.append("        return total\n\n");
+			sb.append("    def describe(self):\n");
+			sb.append("        label = \"Widget %d: %s\" % (self.size, self.name)\n");
+			sb.append("        return label.upper()\n\n");
+			sb.append("def make_widget").append(i).append("(name):\n");
+			sb.append("    widget = Widget").append(i).append("(name)\n");
+			sb.append("    result = widget.compute_total(0x1F + ").append(i).append(")\n");
+			sb.append("    message = 'done'\n");
+			sb.append("    return widget\n\n");
+		}
+
+		sb.append("def main():\n");
+		sb.append("    w = make_widget0(\"main\")\n");
+		sb.append("    text = \"hello\"\n");
+		sb.append("    values = [1, 2, 3]\n");
+		sb.append("    w.");
+		return sb.toString();
+
+	}
+
+
+	/**
+	 * Creates a directory tree of Python files to search.
+	 *
+	 * @param dirCount The number of directories.
+	 * @param filesPerDir The number of files in each directory.
+	 * @param classesPerFile The number of classes in each file.
+	 * @return The root of the tree.  Callers should delete it with
+	 *         {@link #deleteTree(File)} when done.
+	 * @throws IOException If an error occurs.
+	 */
+	public static File createTree(int dirCount, int filesPerDir,
+							int classesPerFile) throws IOException {
+
+		File root = Files.createTempDirectory("savu-bench").toFile();
+		String source = createPythonSource(classesPerFile);
+		int fileIndex = 0;
+
+		for (int d=0; d<dirCount; d++) {
+			File dir = new File(root, "package" + (d%10) + File.separator +
+									"module" + d);
+			if (!dir.mkdirs()) {
+				throw new IOException("Couldn't create " + dir);
+			}
+			for (int f=0; f<filesPerDir; f++, fileIndex++) {
+				File file = new File(dir, "file" + f + ".py");
+				PrintWriter w = new PrintWriter(file, "UTF-8");
+				try {
+					w.print(source);
+					if (fileIndex%10==0) {
+						w.println();
+						w.println("    return " + NEEDLE + "(" + fileIndex + ")");
+					}
+				} finally {
+					w.close();
+				}
+			}
+		}
+
+		return root;
+
+	}
+
+
+	/**
+	 * Deletes a directory tree created by {@link #createTree(int, int, int)}.
+	 *
+	 * @param root The root of the tree.
+	 * @throws IOException If an error occurs.
+	 */
+	public static void deleteTree(File root) throws IOException {
+		Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult visitFile(Path file,
+						BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir,
+						IOException e) throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+
+}
@@ -0,0 +1,265 @@
+/*
+ * 10/17/2026
+ *
+ * SpaceControlFilterBenchmark.java - Measures typing into a document with
+ * a SpaceControlFilter installed.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Element;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
+import org.fife.ui.rsyntaxtextarea.SavuDefaultTokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures how many keystrokes a second a Python document can take with
+ * a {@link SpaceControlFilter} installed, compared to the old filter, which
+ * tokenized the edited line and used regular expressions on every edit.
+ * Keystrokes are made in the middle of the document: typing a line of code
+ * a character at a time, pressing Tab and Backspace in a line's indentation,
+ * and pasting a block of tab-indented code.  Each benchmark undoes its edits,
+ * so the document is the same for every invocation.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class SpaceControlFilterBenchmark {
+
+	/**
+	 * The number of classes in the generated file.  Each class is about
+	 * 30 lines.
+	 */
+	@Param({ "100", "1000" })
+	public int classCount;
+
+	/**
+	 * The filter installed: <code>"current"</code> for
+	 * {@link SpaceControlFilter}, or <code>"legacy"</code> for the old one.
+	 */
+	@Param({ "current", "legacy" })
+	public String filter;
+
+	private RSyntaxDocument document;
+	private int offset;
+	private String[] keystrokes;
+
+	private static final String LINE	= "total += compute(item, factor) * 2";
+
+	private static final String PASTE	= "if total > 0:\n" +
+			"\tfor item in self.items:\n" +
+			"\t\ttotal -= item\n" +
+			"\treturn total\n";
+
+	private static final int TAB_SIZE	= 4;
+
+
+	@Setup
+	public void setUp() throws BadLocationException {
+		String text = BenchmarkData.createPythonSource(classCount);
+		document = new RSyntaxDocument(new SavuDefaultTokenMakerFactory(),
+									SyntaxConstants.SYNTAX_STYLE_PYTHON);
+		document.insertString(0, text, null);
+		if ("legacy".equals(filter)) {
+			document.setDocumentFilter(new LegacyFilter());
+		}
+		else {
+			document.setDocumentFilter(new BenchmarkFilter());
+		}
+		// Just after the indentation of a line in the middle of a method.
+		offset = text.indexOf("        total = 0", text.length()/2) + 8;
+		keystrokes = new String[LINE.length()];
+		for (int i=0; i<keystrokes.length; i++) {
+			keystrokes[i] = LINE.substring(i, i+1);
+		}
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(4)
+	public void backspaceIndent() throws BadLocationException {
+		// Tab twice, then Backspace twice, each removing a whole indent.
+		document.replace(offset, 0, "\t", null);
+		document.replace(offset+TAB_SIZE, 0, "\t", null);
+		document.remove(offset+2*TAB_SIZE-1, 1);
+		document.remove(offset+TAB_SIZE-1, 1);
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(1)
+	public void pasteBlock() throws BadLocationException {
+		int len = document.getLength();
+		document.replace(offset, 0, PASTE, null);
+		document.remove(offset, document.getLength()-len);
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(34)
+	public void typeLine() throws BadLocationException {
+		for (int i=0; i<keystrokes.length; i++) {
+			document.replace(offset+i, 0, keystrokes[i], null);
+		}
+		document.remove(offset, keystrokes.length);
+	}
+
+
+	/**
+	 * The filter, set up as it is in a text area that has no breakpoints.
+	 */
+	private static class BenchmarkFilter extends SpaceControlFilter {
+
+		@Override
+		protected int getTabSize() {
+			return TAB_SIZE;
+		}
+
+		@Override
+		protected boolean isEditingAllowed() {
+			return true;
+		}
+
+		@Override
+		protected void textChanged() {
+		}
+
+	}
+
+
+	/**
+	 * The work the old filter did on each edit, with the text area methods
+	 * it called replaced by their document equivalents.
+	 */
+	private static class LegacyFilter extends DocumentFilter {
+
+		private int emptiedLines;
+		private int commentedLines;
+
+		private static String spaces(int count) {
+			StringBuilder spaces = new StringBuilder();
+			for (int i=0; i<count; i++) {
+				spaces.append(" ");
+			}
+			return spaces.toString();
+		}
+
+		@Override
+		public void insertString(DocumentFilter.FilterBypass fb, int offset,
+				String string, AttributeSet attr) throws BadLocationException {
+			super.insertString(fb, offset,
+					string.replaceAll("\t", spaces(TAB_SIZE)), attr);
+		}
+
+		@Override
+		public void remove(DocumentFilter.FilterBypass fb, int offset,
+				int length) throws BadLocationException {
+			Document d = fb.getDocument();
+			Element root = d.getDefaultRootElement();
+			Element elem = root.getElement(root.getElementIndex(offset));
+			int start = elem.getStartOffset();
+			String text = d.getText(start, elem.getEndOffset()-start).trim();
+			String removedText = "";
+			try {
+				removedText = text.substring(offset - start,
+									offset - start + length).trim();
+			} catch (StringIndexOutOfBoundsException e) {
+			}
+			if (text.equals(removedText)) { // Breakpoints were removed here
+				emptiedLines++;
+			}
+			if (length>1) {
+				super.remove(fb, offset, length);
+			}
+			else if (d.getText(offset, length).equals(" ")) {
+				int lineLength = offset - start;
+				String lineText = d.getText(start, lineLength);
+				if (!lineText.matches("^ +$")) {
+					super.remove(fb, offset, length);
+				}
+				else {
+					int distFromStop = lineLength % TAB_SIZE;
+					super.remove(fb, offset-distFromStop, length+distFromStop);
+				}
+			}
+			else {
+				super.remove(fb, offset, length);
+			}
+		}
+
+		@Override
+		public void replace(DocumentFilter.FilterBypass fb, int offset,
+				int length, String text, AttributeSet attrs)
+				throws BadLocationException {
+			RSyntaxDocument rd = (RSyntaxDocument)fb.getDocument();
+			Element root = rd.getDefaultRootElement();
+			int line = root.getElementIndex(offset);
+			Token t = rd.getTokenListForLine(line);
+			if (t!=null && t.getType()==TokenTypes.COMMENT_EOL) {
+				commentedLines++; // Breakpoints were removed here
+			}
+			if (text.contains("\t")) {
+				if (length!=0) {
+					text = text.replaceAll("\t", spaces(TAB_SIZE));
+					super.replace(fb, offset, length, text, attrs);
+				}
+				else {
+					Element elem = root.getElement(line);
+					int start = elem.getStartOffset();
+					String lineText = rd.getText(start,
+										elem.getEndOffset() - start);
+					Matcher m = Pattern.compile("[^ ]").matcher(lineText);
+					int firstNonWhitespaceOffset = m.find() ? m.start() : 0;
+					int whitespaceToInsert = TAB_SIZE -
+								firstNonWhitespaceOffset % TAB_SIZE;
+					text = text.replaceAll("\t", spaces(whitespaceToInsert));
+					if (text.contains("\n")) {
+						super.replace(fb, offset, length, text, attrs);
+					}
+					else {
+						super.replace(fb, start, length, text, attrs);
+					}
+				}
+			}
+			else {
+				super.replace(fb, offset, length, text, attrs);
+			}
+		}
+
+	}
+
+
+}
@@ -0,0 +1,164 @@
+/*
+ * 10/17/2026
+ *
+ * SyntaxFiltersBenchmark.java - Measures the cost of looking up a file's
+ * syntax style.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures the per-lookup cost of
+ * {@link SyntaxFilters#getSyntaxStyleForFile(String, boolean)}, compared to
+ * the old approach of compiling every filter into a <code>Pattern</code> on
+ * every lookup.  Each invocation looks up every file name in
+ * {@link #FILE_NAMES}, so scores are per lookup.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class SyntaxFiltersBenchmark {
+
+	/**
+	 * File names looked up: extensions, exact names, files only matched by
+	 * wildcard filters, and files that match nothing.
+	 */
+	private static final String[] FILE_NAMES = {
+		"Foo.java", "module.py", "setup.py", "Makefile", "build.xml",
+		"script.ksh", "README", "notes.txt", "data.tar.gz", "test.cpp",
+		"/home/user/project/src/org/fife/rtext/Savu.java",
+		"C:\\temp\\backup.py.bak",
+	};
+
+	private SyntaxFilters filters;
+	private String[] styles;
+
+
+	@Setup
+	public void setUp() {
+		filters = new SyntaxFilters();
+		// A plugin-added language, to exercise the secondary filter map.
+		filters.addFileFilter("text/custom", "*.custom");
+		filters.addFileFilter("text/custom", "custom-*.cfg");
+		styles = getStyles();
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(12)
+	public void compiledLookup(Blackhole bh) {
+		for (int i=0; i<FILE_NAMES.length; i++) {
+			bh.consume(filters.getSyntaxStyleForFile(FILE_NAMES[i], true));
+		}
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(12)
+	public void patternPerLookup(Blackhole bh) {
+		for (int i=0; i<FILE_NAMES.length; i++) {
+			bh.consume(legacyLookup(filters, styles, FILE_NAMES[i]));
+		}
+	}
+
+
+	private static String[] getStyles() {
+		String[] styles = {
+			SyntaxConstants.SYNTAX_STYLE_ACTIONSCRIPT,
+			SyntaxConstants.SYNTAX_STYLE_ASSEMBLER_X86,
+			SyntaxConstants.SYNTAX_STYLE_BBCODE,
+			SyntaxConstants.SYNTAX_STYLE_C,
+			SyntaxConstants.SYNTAX_STYLE_CLOJURE,
+			SyntaxConstants.SYNTAX_STYLE_CPLUSPLUS,
+			SyntaxConstants.SYNTAX_STYLE_CSHARP,
+			SyntaxConstants.SYNTAX_STYLE_CSS,
+			SyntaxConstants.SYNTAX_STYLE_DELPHI,
+			SyntaxConstants.SYNTAX_STYLE_DTD,
+			SyntaxConstants.SYNTAX_STYLE_FORTRAN,
+			SyntaxConstants.SYNTAX_STYLE_GROOVY,
+			SyntaxConstants.SYNTAX_STYLE_HTML,
+			SyntaxConstants.SYNTAX_STYLE_JAVA,
+			SyntaxConstants.SYNTAX_STYLE_JAVASCRIPT,
+			SyntaxConstants.SYNTAX_STYLE_JSP,
+			SyntaxConstants.SYNTAX_STYLE_JSON,
+			SyntaxConstants.SYNTAX_STYLE_LATEX,
+			SyntaxConstants.SYNTAX_STYLE_LISP,
+			SyntaxConstants.SYNTAX_STYLE_LUA,
+			SyntaxConstants.SYNTAX_STYLE_MAKEFILE,
+			SyntaxConstants.SYNTAX_STYLE_MXML,
+			SyntaxConstants.SYNTAX_STYLE_NSIS,
+			SyntaxConstants.SYNTAX_STYLE_PERL,
+			SyntaxConstants.SYNTAX_STYLE_PHP,
+			SyntaxConstants.SYNTAX_STYLE_PROPERTIES_FILE,
+			SyntaxConstants.SYNTAX_STYLE_PYTHON,
+			SyntaxConstants.SYNTAX_STYLE_RUBY,
+			SyntaxConstants.SYNTAX_STYLE_SAS,
+			SyntaxConstants.SYNTAX_STYLE_SCALA,
+			SyntaxConstants.SYNTAX_STYLE_SQL,
+			SyntaxConstants.SYNTAX_STYLE_TCL,
+			SyntaxConstants.SYNTAX_STYLE_UNIX_SHELL,
+			SyntaxConstants.SYNTAX_STYLE_VISUAL_BASIC,
+			SyntaxConstants.SYNTAX_STYLE_WINDOWS_BATCH,
+			SyntaxConstants.SYNTAX_STYLE_XML,
+			"text/custom",
+		};
+		return styles;
+	}
+
+
+	/**
+	 * The lookup as it was done before filters were compiled.
+	 */
+	private static String legacyLookup(SyntaxFilters filters,
+									String[] styles, String fileName) {
+		int lastSlash = Math.max(fileName.lastIndexOf('/'),
+									fileName.lastIndexOf('\\'));
+		if (lastSlash>-1) {
+			fileName = fileName.substring(lastSlash+1);
+		}
+		fileName = RTextUtilities.stripBackupExtensions(
+										fileName.toLowerCase());
+		for (int i=0; i<styles.length; i++) {
+			StringTokenizer st = new StringTokenizer(
+									filters.getFilterString(styles[i]));
+			while (st.hasMoreTokens()) {
+				Pattern p = RTextUtilities.getPatternForFileFilter(
+											st.nextToken(), false);
+				if (p!=null && p.matcher(fileName).matches()) {
+					return styles[i];
+				}
+			}
+		}
+		return SyntaxConstants.SYNTAX_STYLE_NONE;
+	}
+
+
+}
@@ -0,0 +1,148 @@
+/*
+ * 10/17/2026
+ *
+ * DebuggerOutputBenchmark.java - Measures parsing of the debugger's output.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext.plugins.debug;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the two halves of the debugger's output processing:
+ * {@link VariableParser#parse(String)} on variable dumps in the format
+ * written by <code>lib/LocalVariables.py</code>, and {@link PDBRecognizer}
+ * on a stream of <code>savupdb.py</code> output, checked one character at
+ * a time the way <code>PythonDebugger</code> does.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class DebuggerOutputBenchmark {
+
+	/**
+	 * The number of variables in the dump, and the number of times the
+	 * sample debugger output is repeated.
+	 */
+	@Param({ "10", "200" })
+	public int size;
+
+	private String variables;
+	private String output;
+
+
+	@Setup
+	public void setUp() {
+
+		StringBuilder sb = new StringBuilder("tdict{");
+		for (int i=0; i<size; i++) {
+			if (i>0) {
+				sb.append(',');
+			}
+			sb.append("str('var").append(i).append("'):");
+			switch (i%4) {
+				case 0:
+					sb.append("int(").append(i).append(')');
+					break;
+				case 1:
+					sb.append("str('a, string: with {delimiters}')");
+					break;
+				case 2:
+					sb.append("list[int(1),float(2.5),str('x'),list[int(3)]]");
+					break;
+				default:
+					sb.append("fWidget<str('name'):str('w").append(i).
+						append("'),str('items'):tdict{int(1):bool(True)}>");
+					break;
+			}
+		}
+		variables = sb.append('}').toString();
+
+		String prefix = PDBRecognizer.pdbPrefix;
+		sb.setLength(0);
+		for (int i=0; i<size; i++) {
+			sb.append(prefix).append("> /home/user/project/module.py(").
+				append(i).append(")compute_total()\n");
+			sb.append(prefix).append("-> total += item * factor\n");
+			sb.append("Program output, line ").append(i).append('\n');
+			sb.append(prefix).append("--Call--\n");
+			sb.append(prefix).append("(Pdb) ");
+		}
+		output = sb.toString();
+
+	}
+
+
+	@Benchmark
+	public Variable parseVariables() {
+		return VariableParser.parse(variables);
+	}
+
+
+	/**
+	 * Classifies the output the way <code>PythonDebugger</code> does: every
+	 * partial line is checked for a prompt and whether it could still be
+	 * debugger output, and every complete line is classified.
+	 */
+	@Benchmark
+	public int recognizeOutput() {
+
+		StringBuilder charBuffer = new StringBuilder();
+		boolean lineCouldBePDB = true;
+		int count = 0;
+
+		for (int i=0; i<output.length(); i++) {
+			char ch = output.charAt(i);
+			charBuffer.append(ch);
+			String lineFragment = charBuffer.toString();
+			if (ch=='\n') {
+				if (lineCouldBePDB && (
+						PDBRecognizer.isIgnorablePDBLine(lineFragment) ||
+						PDBRecognizer.isPartialCodePosition(lineFragment) ||
+						PDBRecognizer.isPartialBreakpoint(lineFragment) ||
+						PDBRecognizer.isPartialException(lineFragment) ||
+						PDBRecognizer.isPartialDone(lineFragment) ||
+						PDBRecognizer.isPartialError(lineFragment))) {
+					count++;
+				}
+				charBuffer.setLength(0);
+				lineCouldBePDB = true;
+			}
+			else if (PDBRecognizer.isPDBPrompt(lineFragment)) {
+				count++;
+				charBuffer.setLength(0);
+				lineCouldBePDB = true;
+			}
+			else if (!PDBRecognizer.isPartialPDBLine(lineFragment)) {
+				lineCouldBePDB = false;
+			}
+		}
+
+		return count;
+
+	}
+
+
+}
@@ -0,0 +1,181 @@
+/*
+ * 10/17/2026
+ *
+ * PythonCompletionProviderBenchmark.java - Measures gathering and looking up
+ * Python completions.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+import org.fife.rtext.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the work <code>RTextEditorPane.populateAutoComplete()</code> and
+ * the completion popup do on every keystroke: gathering local, global and
+ * class completions from the document text with a
+ * {@link PythonCompletionProvider}, and looking up the completions for the
+ * text at the caret with {@link AbstractCompletionProvider#getCompletionsImpl}.
+ * Typing a character is measured too, since that is where a
+ * {@link PythonSymbolTable} does its work.<p>
+ *
+ * The built-in completions are read from <code>lib/built-ins.txt</code>, so
+ * this must be run from the RText directory.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(value=1, jvmArgsAppend="-Djava.awt.headless=true")
+public class PythonCompletionProviderBenchmark {
+
+	/**
+	 * The number of classes in the edited file.  Each class is about
+	 * 30 lines.
+	 */
+	@Param({ "10", "100" })
+	public int classCount;
+
+	/**
+	 * What is being completed: an attribute of a variable ("w."), a plain
+	 * identifier prefix, or an abbreviation matched fuzzily
+	 * ("m12n" for "module12_name...").
+	 */
+	@Param({ "member", "prefix", "fuzzy" })
+	public String context;
+
+	/**
+	 * Whether the provider uses a {@link PythonSymbolTable} instead of
+	 * scanning the text.
+	 */
+	@Param({ "false", "true" })
+	public boolean symbolTable;
+
+	/**
+	 * The number of imported modules, each adding a hundred attribute
+	 * completions, as if imported with <code>import x</code>, and fifty
+	 * global ones, as if imported with <code>from x import *</code>.
+	 * 1000 modules give 50,000 global completions.
+	 */
+	@Param({ "0", "200", "1000" })
+	public int importedModules;
+
+	private PythonCompletionProvider provider;
+	private JTextArea textArea;
+	private String text;
+
+
+	@Setup
+	public void setUp() {
+
+		text = BenchmarkData.createPythonSource(classCount);
+		if ("prefix".equals(context)) {
+			text = text.substring(0, text.length()-2) + "make_w";
+		}
+		else if ("fuzzy".equals(context)) {
+			text = text.substring(0, text.length()-2) + "m12n";
+		}
+		textArea = new JTextArea(text);
+		textArea.setCaretPosition(text.length());
+
+		provider = new PythonCompletionProvider();
+		if (symbolTable) {
+			provider.installSymbolTable(textArea);
+		}
+		int caret = text.length();
+		HashSet<Completion> completionOptions =
+				provider.getLocalCompletionOptions(text, caret);
+		completionOptions.addAll(provider.getGlobalCompletionOptions(text,
+														caret));
+		completionOptions.addAll(provider.getClassCompletionOptions(text));
+		completionOptions.addAll(provider.getBuiltInCompletionOptions());
+		for (int i=0; i<importedModules; i++) {
+			String module = "module" + i;
+			for (int j=0; j<100; j++) {
+				completionOptions.add(new AttributeCompletion(provider,
+						"function" + j + "(x, y)", module));
+			}
+			for (int j=0; j<50; j++) {
+				completionOptions.add(new BasicCompletion(provider,
+						module + "_name" + j));
+			}
+		}
+		provider.addCompletions(new ArrayList<Completion>(completionOptions));
+
+	}
+
+
+	@Benchmark
+	public HashSet<Completion> getLocalCompletionOptions() {
+		return provider.getLocalCompletionOptions(text, text.length());
+	}
+
+
+	@Benchmark
+	public HashSet<Completion> getGlobalCompletionOptions() {
+		return provider.getGlobalCompletionOptions(text, text.length());
+	}
+
+
+	@Benchmark
+	public HashSet<Completion> getClassCompletionOptions() {
+		return provider.getClassCompletionOptions(text);
+	}
+
+
+	@Benchmark
+	public List<Completion> getCompletionsImpl() {
+		return provider.getCompletionsImpl(textArea);
+	}
+
+
+	/**
+	 * What the completion popup asks for: the matches, ranked.
+	 */
+	@Benchmark
+	public List<Completion> getCompletions() {
+		return provider.getCompletions(textArea);
+	}
+
+
+	/**
+	 * Types a character in the middle of the file, then deletes it.
+	 */
+	@Benchmark
+	public int typeCharacter() throws BadLocationException {
+		Document doc = textArea.getDocument();
+		int offs = text.indexOf("        total = 0", text.length()/2) + 16;
+		doc.insertString(offs, "1", null);
+		doc.remove(offs, 1);
+		return doc.getLength();
+	}
+
+
+}
@@ -0,0 +1,181 @@
+/*
+ * 10/17/2026
+ *
+ * SavuPythonTokenMakerBenchmark.java - Measures Python syntax highlighting.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.rsyntaxtextarea;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
+
+import org.fife.rtext.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures {@link SavuPythonTokenMaker} over a whole Python file, the way
+ * <code>RSyntaxDocument</code> drives it: once to compute the token type each
+ * line ends in, as is done after an edit, and once to build the token list
+ * for each line, as is done when painting.  It also measures scrolling
+ * through a document a page at a time, which asks for the token list of each
+ * visible line more than once, and opening and closing a triple-quoted
+ * string at the top of a document, which changes the state every line after
+ * it ends in.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=5, time=1)
+@Measurement(iterations=5, time=1)
+@Fork(1)
+public class SavuPythonTokenMakerBenchmark {
+
+	/**
+	 * The number of classes in the generated file.  Each class is about
+	 * 30 lines.
+	 */
+	@Param({ "100", "1000" })
+	public int classCount;
+
+	private SavuPythonTokenMaker tokenMaker;
+	private Segment[] lines;
+	private int[] lineStarts;
+	private int[] initialTokenTypes;
+	private RSyntaxDocument document;
+
+	/**
+	 * The number of lines visible at once when scrolling.
+	 */
+	private static final int PAGE_SIZE		= 50;
+
+
+	@Setup
+	public void setUp() {
+
+		tokenMaker = new SavuPythonTokenMaker();
+		char[] text = BenchmarkData.createPythonSource(classCount).
+												toCharArray();
+
+		int lineCount = 1;
+		for (int i=0; i<text.length; i++) {
+			if (text[i]=='\n') {
+				lineCount++;
+			}
+		}
+
+		lines = new Segment[lineCount];
+		lineStarts = new int[lineCount];
+		int start = 0;
+		int line = 0;
+		for (int i=0; i<=text.length; i++) {
+			if (i==text.length || text[i]=='\n') {
+				lines[line] = new Segment(text, start, i-start);
+				lineStarts[line++] = start;
+				start = i + 1;
+			}
+		}
+
+		initialTokenTypes = new int[lineCount];
+		int type = TokenTypes.NULL;
+		for (int i=0; i<lineCount; i++) {
+			initialTokenTypes[i] = type;
+			type = tokenMaker.getLastTokenTypeOnLine(lines[i], type);
+		}
+
+		document = new RSyntaxDocument(new SavuDefaultTokenMakerFactory(),
+									SyntaxConstants.SYNTAX_STYLE_PYTHON);
+		try {
+			document.insertString(0, new String(text), null);
+		} catch (BadLocationException ble) { // Never happens
+			throw new RuntimeException(ble);
+		}
+
+	}
+
+
+	/**
+	 * Builds the token list for every line, as is done when painting.
+	 */
+	@Benchmark
+	public void getTokenList(Blackhole bh) {
+		for (int i=0; i<lines.length; i++) {
+			Token t = tokenMaker.getTokenList(lines[i], initialTokenTypes[i],
+											lineStarts[i]);
+			while (t!=null && t.isPaintable()) {
+				bh.consume(t.getType());
+				t = t.getNextToken();
+			}
+		}
+	}
+
+
+	/**
+	 * Scrolls through the document a page at a time.  Each visible line's
+	 * token list is asked for twice, once to paint it and once more as mark
+	 * occurrences or bracket matching would, and <code>RSyntaxDocument</code>
+	 * only keeps the last one.
+	 */
+	@Benchmark
+	public void scroll(Blackhole bh) {
+		int lineCount = lines.length;
+		for (int top=0; top+PAGE_SIZE<=lineCount; top+=PAGE_SIZE) {
+			for (int pass=0; pass<2; pass++) {
+				for (int i=top; i<top+PAGE_SIZE; i++) {
+					Token t = document.getTokenListForLine(i);
+					while (t!=null && t.isPaintable()) {
+						bh.consume(t.getType());
+						t = t.getNextToken();
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Types <code>"""</code> at the top of the document, then deletes it.
+	 */
+	@Benchmark
+	public int toggleLongString() throws BadLocationException {
+		document.insertString(0, "\"\"\"\n", null);
+		int type = document.getLastTokenTypeOnLine(
+							document.getDefaultRootElement().getElementCount()-1);
+		document.remove(0, 4);
+		return type;
+	}
+
+
+	/**
+	 * Computes the token type each line ends in, as is done after an edit.
+	 */
+	@Benchmark
+	public int getLastTokenTypeOnLine() {
+		int type = TokenTypes.NULL;
+		for (int i=0; i<lines.length; i++) {
+			type = tokenMaker.getLastTokenTypeOnLine(lines[i], type);
+		}
+		return type;
+	}
+
+
+}
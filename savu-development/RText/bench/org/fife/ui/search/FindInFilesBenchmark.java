@@ -0,0 +1,125 @@
+/*
+ * 10/17/2026
+ *
+ * FindInFilesBenchmark.java - Measures Find in Files over a generated tree.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.fife.io.IgnoreRules;
+import org.fife.rtext.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures a complete Find in Files operation - walking the directory and
+ * searching every file with {@link FindInFilesThread#searchFile(File)} on
+ * the {@link FindInFilesEngine}'s workers - over a generated tree of Python
+ * files.  The tree stays in the OS file cache between iterations, so this
+ * measures the CPU cost of searching, not disk speed.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=3, time=2)
+@Measurement(iterations=5, time=2)
+@Fork(1)
+public class FindInFilesBenchmark {
+
+	/**
+	 * Whether to do a literal or a regular expression search.
+	 */
+	@Param({ "literal", "regex" })
+	public String searchType;
+
+	/**
+	 * Whether the search is case sensitive.
+	 */
+	@Param({ "true", "false" })
+	public boolean matchCase;
+
+	private File root;
+	private Pattern[] filters;
+	private FindInFilesThread thread;
+
+	private static final int DIRECTORY_COUNT		= 50;
+	private static final int FILES_PER_DIRECTORY	= 20;
+	private static final int CLASSES_PER_FILE		= 10;
+
+
+	@Setup
+	public void setUp() throws IOException {
+		root = BenchmarkData.createTree(DIRECTORY_COUNT, FILES_PER_DIRECTORY,
+										CLASSES_PER_FILE);
+		filters = new Pattern[] {
+			Pattern.compile(FindInFilesThread.getRegexForFileFilter("*.py")),
+		};
+		boolean regex = "regex".equals(searchType);
+		String searchFor = regex ? "savu_\\w+_value\\(\\d+\\)" :
+								BenchmarkData.NEEDLE;
+		thread = new FindInFilesThread(searchFor, matchCase, false, regex,
+								true);
+	}
+
+
+	@TearDown
+	public void tearDown() throws IOException {
+		BenchmarkData.deleteTree(root);
+	}
+
+
+	@Benchmark
+	public int search() throws InterruptedException {
+
+		FindInFilesEngine engine = new FindInFilesEngine();
+		final int[] matchCount = new int[1];
+
+		try {
+			List<FindInFilesEngine.Entry> entries = engine.walk(root, true,
+											filters, new IgnoreRules());
+			engine.search(entries, new FindInFilesEngine.Callback() {
+				public List<MatchData> searchFile(File file) throws Exception {
+					return thread.searchFile(file);
+				}
+				public boolean entryDone(FindInFilesEngine.Entry entry,
+						int index, int count, List<MatchData> results,
+						Throwable error) {
+					if (results!=null) {
+						matchCount[0] += results.size();
+					}
+					return true;
+				}
+			});
+		} finally {
+			engine.shutdown();
+		}
+
+		return matchCount[0];
+
+	}
+
+
+}
@@ -0,0 +1,209 @@
+import inspect
+import json
+import os
+import pkgutil
+import re
+import sys
+
+'''
+A long-lived helper that answers Savu's questions about the Python modules available to this interpreter, so Savu doesn't have to start a new
+process (or scrape pydoc's output) for every module it completes.
+
+Requests are read from stdin and answered on stdout, one JSON object per line.  Every request has an "op" and an "id", and every line written in
+answer to it has the same "id".  The requests are:
+
+	{"id": 1, "op": "identify"}
+		Answered with {"id": 1, "executable": sys.executable, "version": sys.version}.
+	{"id": 2, "op": "stdlib"}
+		Answered with {"id": 2, "modules": [...]}, the names of the public top-level standard library modules.
+	{"id": 3, "op": "members", "modules": ["os", "math"]}
+		Answered with one line per module, followed by {"id": 3, "done": true}.  A module's line is a member (see below) of kind "module",
+		with an additional "stdlib" flag, or {"id": 3, "name": "x", "missing": true} if it can't be imported.
+
+A member is {"name": ..., "kind": ..., "signature": ..., "doc": ..., "members": [...]}, where kind is one of "module", "class", "function" or
+"data".  The signature is the argument list, e.g. "(path, mode=511)", or null if it isn't known; the members are only given for modules and
+classes.
+'''
+
+#Modules that do something when they're imported, so introspecting them would too
+SKIPPED_MODULES = set(["antigravity", "this", "idlelib", "test", "__main__"])
+
+#Finds the argument list at the start of a builtin's docstring, e.g. "sqrt(x)\n\nReturn the square root of x."
+DOC_SIGNATURE = re.compile(r"^\w+(\([^)]*\))")
+
+'''
+Returns the directory holding the standard library's Python modules
+'''
+def stdlibDirectory():
+	return os.path.normcase(os.path.dirname(os.path.abspath(os.__file__)))
+
+'''
+Returns the names of the public top-level standard library modules
+'''
+def stdlibModules():
+	names = getattr(sys, "stdlib_module_names", None)
+	if names is None:
+		#Before Python 3.10, look for the modules next to os.py
+		names = set(sys.builtin_module_names)
+		for importer, name, isPackage in pkgutil.iter_modules([stdlibDirectory()]):
+			names.add(name)
+	return sorted([name for name in names if not name.startswith("_") and name not in SKIPPED_MODULES])
+
+'''
+Returns whether the given module is part of the standard library
+'''
+def isStdlib(module):
+	fileName = getattr(module, "__file__", None)
+	if fileName is None:
+		#Built into the interpreter
+		return True
+	fileName = os.path.normcase(os.path.abspath(fileName))
+	stdlibDir = stdlibDirectory()
+	if not fileName.startswith(stdlibDir + os.sep):
+		return False
+	#Third party modules are installed under the standard library's directory too
+	relative = fileName[len(stdlibDir)+1:].split(os.sep)
+	return relative[0] not in ("site-packages", "dist-packages")
+
+'''
+Returns the argument list of a function or class as a string such as "(a, b=1, *args)", or None if it can't be found
+'''
+def signatureOf(obj):
+	if hasattr(inspect, "signature"):
+		try:
+			parameters = []
+			for parameter in inspect.signature(obj).parameters.values():
+				if parameter.kind == parameter.VAR_POSITIONAL:
+					parameters.append("*" + parameter.name)
+				elif parameter.kind == parameter.VAR_KEYWORD:
+					parameters.append("**" + parameter.name)
+				elif parameter.default is not parameter.empty:
+					parameters.append(parameter.name + "=" + repr(parameter.default))
+				else:
+					parameters.append(parameter.name)
+			return "(" + ", ".join(parameters) + ")"
+		except (TypeError, ValueError):
+			pass
+	else:
+		try:
+			function = obj.__init__ if inspect.isclass(obj) else obj
+			if inspect.ismethod(function):
+				function = function.im_func
+			if inspect.isfunction(function):
+				return inspect.formatargspec(*inspect.getargspec(function))
+		except (TypeError, AttributeError):
+			pass
+	#Builtins often start their docstring with their signature
+	match = DOC_SIGNATURE.match(inspect.getdoc(obj) or "")
+	if match is not None:
+		return match.group(1)
+	return None
+
+'''
+Returns a description of a single module attribute or class attribute
+'''
+def describe(name, obj, depth):
+	member = {"name": name, "signature": None, "doc": None}
+	if inspect.isclass(obj):
+		member["kind"] = "class"
+	elif inspect.isroutine(obj):
+		member["kind"] = "function"
+	else:
+		member["kind"] = "data"
+		return member
+	member["signature"] = signatureOf(obj)
+	member["doc"] = inspect.getdoc(obj)
+	if member["kind"] == "class" and depth == 0:
+		member["members"] = membersOf(obj, depth+1)
+	return member
+
+'''
+Returns descriptions of the public attributes of a module or class
+'''
+def membersOf(obj, depth):
+	names = getattr(obj, "__all__", None) if inspect.ismodule(obj) else None
+	if names is None:
+		names = [name for name in dir(obj) if not name.startswith("_")]
+	members = []
+	for name in names:
+		try:
+			value = getattr(obj, name)
+		except Exception:
+			continue
+		if inspect.ismodule(value):
+			continue
+		try:
+			members.append(describe(name, value, depth))
+		except Exception:
+			pass
+	return members
+
+'''
+Returns a description of a module, or None if it can't be imported
+'''
+def describeModule(name):
+	if name in SKIPPED_MODULES:
+		return None
+	try:
+		__import__(name)
+		module = sys.modules[name]
+	except Exception:
+		return None
+	except SystemExit:
+		return None
+	return {"name": name, "kind": "module", "signature": None, "doc": inspect.getdoc(module),
+		"stdlib": isStdlib(module), "members": membersOf(module, 0)}
+
+'''
+Answers a single request, writing every line of the answer
+'''
+def answer(request, write):
+	op = request.get("op")
+	id = request.get("id")
+	if op == "identify":
+		write({"id": id, "executable": sys.executable, "version": sys.version.replace("\n", " ")})
+	elif op == "stdlib":
+		write({"id": id, "modules": stdlibModules()})
+	elif op == "members":
+		for name in request.get("modules", []):
+			module = describeModule(name)
+			if module is None:
+				module = {"name": name, "missing": True}
+			module["id"] = id
+			write(module)
+		write({"id": id, "done": True})
+	else:
+		write({"id": id, "error": "Unknown op: " + str(op)})
+
+def main():
+	out = sys.stdout
+	requests = sys.stdin
+	#Keep anything the modules print while being imported out of our answers, and don't let them read our requests
+	devnull = open(os.devnull, "w")
+	sys.stdout = devnull
+	sys.stderr = devnull
+	sys.stdin = open(os.devnull)
+
+	def write(obj):
+		#repr() is used for anything JSON can't represent, just in case
+		out.write(json.dumps(obj, default=repr) + "\n")
+		out.flush()
+
+	while True:
+		line = requests.readline()
+		if not line:
+			break
+		line = line.strip()
+		if not line:
+			continue
+		try:
+			request = json.loads(line)
+		except ValueError:
+			write({"id": None, "error": "Bad request"})
+			continue
+		answer(request, write)
+
+if __name__ == "__main__":
+	main()
+	#Don't wait for threads started by imported modules
+	os._exit(0)
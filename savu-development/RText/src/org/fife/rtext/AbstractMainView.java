@@ -34,6 +34,7 @@ import javax.swing.event.HyperlinkListener;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Caret;
 
+import org.fife.io.IgnoreRules;
 import org.fife.io.UnicodeWriter;
 import org.fife.rsta.ui.GoToDialog;
 import org.fife.rsta.ui.search.*;
@@ -103,6 +104,7 @@ public abstract class AbstractMainView extends JPanel implements
 	public static final String DEFAULT_ENCODING_PROPERTY = "MainView.defaultEncoding";
 	public static final String FILE_SIZE_CHECK_PROPERTY = "MainView.fileSizeCheck";
 	public static final String FRACTIONAL_METRICS_PROPERTY = "MainView.fractionalMetrics";
+	public static final String IGNORE_RULES_PROPERTY = "MainView.ignoreRules";
 	public static final String MARK_ALL_COLOR_PROPERTY = "MainView.markAllColor";
 	public static final String MARK_OCCURRENCES_COLOR_PROPERTY = "MainView.markOccurrencesColor";
 	public static final String MARK_OCCURRENCES_PROPERTY = "MainView.markOccurrences";
@@ -212,7 +214,12 @@ public abstract class AbstractMainView extends JPanel implements
 	private boolean doFileSizeCheck;
 	private float maxFileSize; // In MB.
 
+	private boolean convertTabsOnOpen;
+	private FileLoader fileLoader; // Reads files opened in the background.
+
 	private boolean ignoreBackupExtensions;
+	private boolean skipIgnoredFiles; // Honor .gitignore and ignoredFileNames.
+	private String ignoredFileNames; // Space-separated, .gitignore syntax.
 
 	private Font textAreaFont;
 	private boolean textAreaUnderline;
@@ -682,7 +689,12 @@ public abstract class AbstractMainView extends JPanel implements
 		doFileSizeCheck = fromPanel.doFileSizeCheck;
 		maxFileSize = fromPanel.maxFileSize;
 
+		convertTabsOnOpen = fromPanel.convertTabsOnOpen;
+		fileLoader = fromPanel.fileLoader;
+
 		ignoreBackupExtensions = fromPanel.ignoreBackupExtensions;
+		skipIgnoredFiles = fromPanel.skipIgnoredFiles;
+		ignoredFileNames = fromPanel.ignoredFileNames;
 
 		textAreaFont = fromPanel.textAreaFont;
 		textAreaUnderline = fromPanel.textAreaUnderline;
@@ -736,6 +748,25 @@ public abstract class AbstractMainView extends JPanel implements
 		spellingSupport = fromPanel.spellingSupport;
 
 	}
+
+	/**
+	 * Returns the rules deciding which files and folders are skipped by Find
+	 * in Files and the file system tree.  A new instance is returned each
+	 * time, so changes to <code>.gitignore</code> files are picked up.
+	 * 
+	 * @return The rules, or <code>null</code> if nothing should be skipped.
+	 * @see #getSkipIgnoredFiles()
+	 * @see #getIgnoredFileNames()
+	 */
+	public IgnoreRules createIgnoreRules() {
+		if (!skipIgnoredFiles) {
+			return null;
+		}
+		String names = ignoredFileNames == null ? "" : ignoredFileNames.trim();
+		String[] excludes = names.length() == 0 ? new String[0] : names
+				.split("\\s+");
+		return new IgnoreRules(excludes, true);
+	}
 //Removed for Savu
 	/*
 	protected ErrorStrip createErrorStrip(RTextEditorPane textArea) {
@@ -773,10 +804,32 @@ public abstract class AbstractMainView extends JPanel implements
 	 */
 	private RTextEditorPane createRTextEditorPane(FileLocation loc,
 			String encoding) throws IOException {
+		return createRTextEditorPane(loc, encoding, false);
+	}
+
+	/**
+	 * Returns an editor pane to add to this main view.
+	 * 
+	 * @param loc
+	 *            The location of the file to add.
+	 * @param encoding
+	 *            The encoding of the file.
+	 * @param readLater
+	 *            Whether to leave the file to be read by the
+	 *            {@link FileLoader}, rather than reading it now.
+	 * @return An editor pane.
+	 * @throws IOException
+	 *             If an IO error occurs reading the file to load.
+	 */
+	private RTextEditorPane createRTextEditorPane(FileLocation loc,
+			String encoding, boolean readLater) throws IOException {
 
 		String style = getSyntaxStyleForFile(loc.getFileName());
-		RTextEditorPane pane = new RTextEditorPane(owner, lineWrapEnabled,
-				textMode, loc, encoding);
+		RTextEditorPane pane = readLater ?
+				new RTextEditorPane(owner, lineWrapEnabled, textMode, loc,
+						encoding, true) :
+				new RTextEditorPane(owner, lineWrapEnabled, textMode, loc,
+						encoding);
 
 		// Set some properties.
 		pane.setFont(getTextAreaFont());
@@ -948,6 +1001,41 @@ public abstract class AbstractMainView extends JPanel implements
 		}
 	}
 
+	/**
+	 * Called on the EDT when the {@link FileLoader} has read a file opened by
+	 * {@link #openFileInBackground(String, String)}. The file's text area is
+	 * given its text, or closed if the file could not be read.
+	 * 
+	 * @param load
+	 *            The file that was read.
+	 */
+	void fileLoaded(FileLoader.Load load) {
+
+		RTextEditorPane textArea = load.getTextArea();
+		int index = getTextAreaIndex(textArea);
+		if (index == -1) {
+			return; // Closed while it was being read.
+		}
+
+		Throwable error = load.getError();
+		if (error != null) {
+			setSelectedIndex(index);
+			closeCurrentDocument();
+			if (error instanceof IOException) {
+				FileLocation loc = FileLocation.create(textArea
+						.getFileFullPath());
+				handleAddTextFileIOException(loc, (IOException) error, true);
+			} else {
+				owner.displayException(error);
+			}
+			return;
+		}
+
+		textArea.setLoadedText(load.getText(), load.getLineSeparator(),
+				getConvertTabsOnOpen() && load.getContainsTabs());
+
+	}
+
 	/**
 	 * Called when the user selects a file in a listened-to find-in-files
 	 * dialog.
@@ -970,34 +1058,18 @@ public abstract class AbstractMainView extends JPanel implements
 		FindInFilesDialog fnfd = (FindInFilesDialog) e.getSource();
 		String desc = owner.getString("FileOpened", fileName);
 		fnfd.setStatusText(desc);
-		int line = e.getLine();
-		if (line != -1) {
-			try {
-
-				// currentTextArea is updated here. Highlight the searched-for
-				// text.
-				int start = currentTextArea.getLineStartOffset(line - 1);
-				int end = currentTextArea.getLineEndOffset(line - 1) - 1;
-				currentTextArea.setCaretPosition(end);
-				currentTextArea.moveCaretPosition(start);
-				currentTextArea.getCaret().setSelectionVisible(true);
-
-				// The editor isn't visible initially, must wait to do this
-				SwingUtilities.invokeLater(new Runnable() {
-					public void run() {
-						RTextUtilities
-								.centerSelectionVertically(currentTextArea);
-					}
-				});
-
-			} catch (Exception exc) {
-				owner.displayException(exc);
-				moveToTopOfCurrentDocument();
+		// currentTextArea is updated here. If its file is still being read,
+		// wait until it has been to select the line.
+		final RTextEditorPane textArea = currentTextArea;
+		final int line = e.getLine();
+		textArea.runWhenLoaded(new Runnable() {
+			public void run() {
+				selectFoundLine(textArea, line);
 			}
-		} else
-			moveToTopOfCurrentDocument();
+		});
 	}
 
+
 	/**
 	 * Notifies all registered <code>CurrentTextAreaListener</code>s of a change
 	 * in the current text area.
@@ -1167,6 +1239,18 @@ public abstract class AbstractMainView extends JPanel implements
 		return sb.toString();
 	}
 
+	/**
+	 * Returns whether tabs in files are converted to spaces when the files
+	 * are opened. Files without tabs are left untouched, and converted files
+	 * are only marked as modified, not saved.
+	 * 
+	 * @return Whether tabs are converted when files are opened.
+	 * @see #setConvertTabsOnOpen(boolean)
+	 */
+	public boolean getConvertTabsOnOpen() {
+		return convertTabsOnOpen;
+	}
+
 	/**
 	 * Returns the color being used to highlight the current line. Note that if
 	 * highlighting the current line is turned off, you will not be seeing this
@@ -1255,29 +1339,58 @@ public abstract class AbstractMainView extends JPanel implements
 	}
 
 	/**
-	 * If the user has set a maximum file size to open, they are prompted
-	 * whether they are "sure" they want to open the file if it is over their
-	 * set size.
+	 * Returns the index of the specified text area.
+	 * 
+	 * @param textArea
+	 *            The text area.
+	 * @return The index of the text area, or <code>-1</code> if it is not in
+	 *         this view.
+	 */
+	private int getTextAreaIndex(RTextEditorPane textArea) {
+		for (int i = 0; i < getNumDocuments(); i++) {
+			if (getRTextEditorPaneAt(i) == textArea)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * If the user has set a maximum file size to open, they are asked
+	 * whether they want to view the file read-only in a
+	 * {@link LargeFileViewer}, which does not load it into memory, or open
+	 * it in an editor anyway, if it is over their set size.
 	 * 
 	 * @param fileName
 	 *            The file to check.
+	 * @param charSet
+	 *            The encoding of the file, or <code>null</code> to use the
+	 *            default.
 	 * @return If they do not want to check files of a certain size, this method
 	 *         will return <code>false</code>. Otherwise, it will return
 	 *         <code>true</code> if and only if this file is larger than their
-	 *         threshold and they chose not to open it.
+	 *         threshold and they chose to view it read-only or not to open it.
 	 */
-	private boolean getFileIsTooLarge(String fileName) {
+	private boolean getFileIsTooLarge(String fileName, String charSet) {
 		if (getDoFileSizeCheck()) {
 			File file = new File(fileName);
 			float fileSizeMB = file.length() / 1000000.0f;
 			float maxFileSizeMB = getMaxFileSize();
 			if (fileSizeMB > maxFileSizeMB) {
-				String desc = owner.getString("OpeningLargeFile",
+				String desc = owner.getString("OpeningLargeFileView",
 						file.getAbsolutePath());
-				int rc = JOptionPane.showConfirmDialog(this, desc,
+				String[] options = {
+						owner.getString("OpeningLargeFileView.View"),
+						owner.getString("OpeningLargeFileView.Open"),
+						UIManager.getString("OptionPane.cancelButtonText") };
+				int rc = JOptionPane.showOptionDialog(this, desc,
 						owner.getString("ConfDialogTitle"),
-						JOptionPane.YES_NO_OPTION);
-				if (rc != JOptionPane.YES_OPTION) {
+						JOptionPane.YES_NO_CANCEL_OPTION,
+						JOptionPane.QUESTION_MESSAGE, null, options,
+						options[0]);
+				if (rc == JOptionPane.YES_OPTION) {
+					viewLargeFile(file, charSet);
+				}
+				if (rc != JOptionPane.NO_OPTION) {
 					// Keep at least 1 document open.
 					ensureFilesAreOpened();
 					return true;
@@ -1375,6 +1488,19 @@ public abstract class AbstractMainView extends JPanel implements
 		return ignoreBackupExtensions;
 	}
 
+	/**
+	 * Returns the names of files and folders that are always skipped when
+	 * {@link #getSkipIgnoredFiles()} is <code>true</code>, even outside of
+	 * a git repository.
+	 * 
+	 * @return The names, separated by spaces.  These use the same syntax as
+	 *         lines in a <code>.gitignore</code> file.
+	 * @see #setIgnoredFileNames(String)
+	 */
+	public String getIgnoredFileNames() {
+		return ignoredFileNames;
+	}
+
 	/**
 	 * Sets the color used for line numbers.
 	 * 
@@ -1746,6 +1872,19 @@ public abstract class AbstractMainView extends JPanel implements
 		return showTabLines;
 	}
 
+	/**
+	 * Returns whether Find in Files and the file system tree skip files
+	 * matched by <code>.gitignore</code> files and by
+	 * {@link #getIgnoredFileNames()}.
+	 * 
+	 * @return Whether ignored files are skipped.
+	 * @see #setSkipIgnoredFiles(boolean)
+	 * @see #createIgnoreRules()
+	 */
+	public boolean getSkipIgnoredFiles() {
+		return skipIgnoredFiles;
+	}
+
 	/**
 	 * Returns the spell checking support for RText.
 	 * 
@@ -2200,7 +2339,11 @@ public abstract class AbstractMainView extends JPanel implements
 		setGuessFileContentType(prefs.guessFileContentType);
 		setDoFileSizeCheck(prefs.doFileSizeCheck);
 		setMaxFileSize(prefs.maxFileSize);
+		setConvertTabsOnOpen(prefs.convertTabsOnOpen);
 		setIgnoreBackupExtensions(prefs.ignoreBackupExtensions);
+		setSkipIgnoredFiles(prefs.skipIgnoredFiles);
+		setIgnoredFileNames(prefs.ignoredFileNames);
+
 		setTextAreaFont(prefs.textAreaFont, prefs.textAreaUnderline);
 		setTextAreaForeground(prefs.textAreaForeground);
 		setTextAreaOrientation(prefs.textAreaOrientation);
@@ -2365,25 +2508,12 @@ public abstract class AbstractMainView extends JPanel implements
 
 		// If the only document open is untitled and empty, remove
 		// (and thus replace) replace it.
-		if (getNumDocuments() == 1
-				&& currentTextArea.getFileName().equals(owner.getNewFileName())
-				&& currentTextArea.getDocument().getLength() == 0
-				&& currentTextArea.isDirty() == false) {
-			removeComponentAt(0);
-		}
+		removeEmptyUntitledFile();
 
 		// If desired, reuse a text area already opened to this file if
 		// there is one.
-		if (reuse) {
-			String fileNameAndPath = loc.getFileFullPath();
-			int count = getNumDocuments(); // May have changed from above.
-			for (int i = 0; i < count; i++) {
-				RTextEditorPane textArea = getRTextEditorPaneAt(i);
-				if (textArea.getFileFullPath().equals(fileNameAndPath)) {
-					setSelectedIndex(i);
-					return true;
-				}
-			}
+		if (reuse && selectFile(loc.getFileFullPath())) {
+			return true;
 		}
 
 		String fileFullPath = loc.getFileFullPath();
@@ -2391,7 +2521,7 @@ public abstract class AbstractMainView extends JPanel implements
 		// If opening a local file that exists, or a remote file...
 		if (loc.isLocalAndExists() || loc.isRemote()) {
 
-			if (loc.isLocal() && getFileIsTooLarge(fileFullPath)) {
+			if (loc.isLocal() && getFileIsTooLarge(fileFullPath, charSet)) {
 				return false;
 			}
 
@@ -2399,14 +2529,8 @@ public abstract class AbstractMainView extends JPanel implements
 				RTextEditorPane tempTextArea = createRTextEditorPane(loc,
 						charSet);
 				addTextArea(tempTextArea);
-				//remove tabs and spaces
-				tempTextArea.convertTabsToSpaces();
-				try {
-					tempTextArea.save();
-				} catch (Exception e) {
-					String temp = owner.getString("ErrorWritingFile", tempTextArea.getFileFullPath(), e.getMessage());
-					JOptionPane.showMessageDialog(this, temp, owner.getString("ErrorDialogTitle"), JOptionPane.ERROR_MESSAGE);
-					owner.setMessages(null, "ERROR:  Could not save file!");
+				if (getConvertTabsOnOpen() && tempTextArea.containsTabs()) {
+					tempTextArea.convertTabsToSpaces();
 				}
 			} catch (IOException ioe) {
 				handleAddTextFileIOException(loc, ioe, true);
@@ -2452,6 +2576,7 @@ public abstract class AbstractMainView extends JPanel implements
 	 *         user chose NOT to create it, for example).
 	 * @throws InvalidCharSetException
 	 *             If the specified character set is invalid.
+	 * @see #openFileInBackground(String, String)
 	 */
 	public boolean openFile(String fileNameAndPath, String charSet) {
 		return openFile(fileNameAndPath, charSet, true); //TODO I changed this from false to true; if we are seeing problems with opening files, change it back.
@@ -2483,6 +2608,65 @@ public abstract class AbstractMainView extends JPanel implements
 		return openFile(FileLocation.create(fileNameAndPath), charSet, reuse);
 	}
 
+	/**
+	 * Adds an already-created text file to this tabbed pane, reading it on a
+	 * background thread. A tab for the file is added right away, but it stays
+	 * empty and not editable until the file has been read, so opening many
+	 * files at once doesn't block the UI. If the file is already open, its
+	 * tab is simply selected.
+	 * <p>
+	 * 
+	 * Remote files, and local files that don't exist yet, are opened as by
+	 * {@link #openFile(String, String)}.
+	 * 
+	 * @param fileNameAndPath
+	 *            The full path and name of the file to add.
+	 * @param charSet
+	 *            The encoding to use when reading/writing this file. If this
+	 *            value is <code>null</code>, the file is checked for Unicode;
+	 *            if it is Unicode, it is opened properly. If it is not Unicode,
+	 *            a system default encoding is used.
+	 * @return <code>true</code> if the file is being opened (or was switched
+	 *         to), <code>false</code> otherwise (if the file is too large and
+	 *         the user chose not to open it, for example).
+	 * @see #openFile(String, String)
+	 */
+	public boolean openFileInBackground(String fileNameAndPath, String charSet) {
+
+		FileLocation loc = FileLocation.create(fileNameAndPath);
+		if (!loc.isLocalAndExists()) {
+			return openFile(loc, charSet, true);
+		}
+
+		removeEmptyUntitledFile();
+		String fileFullPath = loc.getFileFullPath();
+		if (selectFile(fileFullPath)) {
+			return true;
+		}
+
+		if (getFileIsTooLarge(fileFullPath, charSet)) {
+			ensureFilesAreOpened();
+			return false;
+		}
+
+		try {
+			RTextEditorPane textArea = createRTextEditorPane(loc, charSet,
+					true);
+			addTextArea(textArea);
+			if (fileLoader == null) {
+				fileLoader = new FileLoader(owner);
+			}
+			fileLoader.load(textArea);
+		} catch (IOException ioe) {
+			handleAddTextFileIOException(loc, ioe, true);
+			ensureFilesAreOpened();
+			return false;
+		}
+
+		return true;
+
+	}
+
 	/**
 	 * If the current editor is dirty, the user is prompted whether they want to
 	 * save it. If they choose "yes", the file is saved, otherwise it is not.
@@ -2548,20 +2732,29 @@ public abstract class AbstractMainView extends JPanel implements
 
 		// If the file's modification status is changing...
 		else if (propertyName.equals(RTextEditorPane.DIRTY_PROPERTY)) {
-			int selectedIndex = getSelectedIndex();
-			String oldTitle = getDocumentDisplayNameAt(selectedIndex);
+			// Files opened in the background can be modified when their
+			// tabs aren't selected.
+			int index = getTextAreaIndex((RTextEditorPane) e.getSource());
+			if (index == -1) {
+				return;
+			}
+			String oldTitle = getDocumentDisplayNameAt(index);
 			if (((Boolean) e.getNewValue()).booleanValue() == true)
-				setDocumentDisplayNameAt(selectedIndex, oldTitle + "*");
+				setDocumentDisplayNameAt(index, oldTitle + "*");
 			else {
-				setDocumentDisplayNameAt(selectedIndex,
+				setDocumentDisplayNameAt(index,
 						oldTitle.substring(0, oldTitle.length() - 1)); // Get
 																		// rid
 																		// of
 																		// the
 																		// "*".
 			}
-			fireCurrentTextAreaEvent(CurrentTextAreaEvent.IS_MODIFIED_CHANGED,
-					e.getOldValue(), e.getNewValue());
+			if (e.getSource() == currentTextArea) {
+				fireCurrentTextAreaEvent(
+						CurrentTextAreaEvent.IS_MODIFIED_CHANGED,
+						e.getOldValue(), e.getNewValue());
+			}
+
 		}
 
 		// If the highlighting style of the current file changed...
@@ -2657,6 +2850,35 @@ public abstract class AbstractMainView extends JPanel implements
 		listenerList.remove(CurrentTextAreaListener.class, l);
 	}
 
+	/**
+	 * If the only document open is untitled, empty and unmodified, removes
+	 * it, so a file being opened replaces it.
+	 */
+	private void removeEmptyUntitledFile() {
+		if (getNumDocuments() == 1
+				&& currentTextArea.getFileName().equals(owner.getNewFileName())
+				&& currentTextArea.getDocument().getLength() == 0
+				&& currentTextArea.isDirty() == false) {
+			removeComponentAt(0);
+		}
+	}
+
+	/**
+	 * Selects the text area editing a file, if the file is open.
+	 * 
+	 * @param fileFullPath
+	 *            The full path to the file.
+	 * @return Whether the file is open.
+	 */
+	private boolean selectFile(String fileFullPath) {
+		int index = getFileIndex(fileFullPath);
+		if (index > -1) {
+			setSelectedIndex(index);
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Attempts to save all currently-opened files. If any files have unsaved
 	 * changes, the user is prompted whether to save them.
@@ -2740,6 +2962,12 @@ public abstract class AbstractMainView extends JPanel implements
 	 */
 	public synchronized boolean saveCurrentFileAs() {
 
+		// Until a file has been read, there's nothing to save.
+		if (currentTextArea.isLoading()) {
+			UIManager.getLookAndFeel().provideErrorFeedback(currentTextArea);
+			return false;
+		}
+
 		// Ensures text area gets focus after save for saves that don't bring
 		// up an extra window (Save As, etc.). Without this, the text area
 		// would lose focus.
@@ -2859,6 +3087,44 @@ public abstract class AbstractMainView extends JPanel implements
 		}
 	}
 
+	/**
+	 * Selects a line found by Find in Files, or moves to the top of the
+	 * document if no line was given.
+	 * 
+	 * @param textArea
+	 *            The text area the file was opened in. Its file must have
+	 *            been read.
+	 * @param line
+	 *            The line to select, starting at 1, or <code>-1</code> for
+	 *            none.
+	 */
+	private void selectFoundLine(final RTextEditorPane textArea, int line) {
+		if (line != -1) {
+			try {
+
+				// Highlight the searched-for text.
+				int start = textArea.getLineStartOffset(line - 1);
+				int end = textArea.getLineEndOffset(line - 1) - 1;
+				textArea.setCaretPosition(end);
+				textArea.moveCaretPosition(start);
+				textArea.getCaret().setSelectionVisible(true);
+
+				// The editor isn't visible initially, must wait to do this
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						RTextUtilities.centerSelectionVertically(textArea);
+					}
+				});
+
+			} catch (Exception exc) {
+				owner.displayException(exc);
+				textArea.setCaretPosition(0);
+			}
+		} else
+			textArea.setCaretPosition(0);
+	}
+
+
 	/**
 	 * Sets whether anti-aliasing is enabled in text areas. This method fires a
 	 * property change event of type {@link #SMOOTH_TEXT_PROPERTY}.
@@ -3089,6 +3355,18 @@ public abstract class AbstractMainView extends JPanel implements
 		}
 	}
 
+	/**
+	 * Sets whether tabs in files are converted to spaces when the files are
+	 * opened.
+	 * 
+	 * @param convert
+	 *            Whether to convert tabs when files are opened.
+	 * @see #getConvertTabsOnOpen()
+	 */
+	public void setConvertTabsOnOpen(boolean convert) {
+		convertTabsOnOpen = convert;
+	}
+
 	/**
 	 * Sets the color to use to highlight the current line. Note that if
 	 * highlighting the current line is turned off, you will not be able to see
@@ -3384,6 +3662,24 @@ public abstract class AbstractMainView extends JPanel implements
 
 	}
 
+	/**
+	 * Sets the names of files and folders that are always skipped when
+	 * {@link #getSkipIgnoredFiles()} is <code>true</code>. This fires a
+	 * property change event of type {@link #IGNORE_RULES_PROPERTY}.
+	 * 
+	 * @param names
+	 *            The names, separated by spaces. These use the same syntax
+	 *            as lines in a <code>.gitignore</code> file.
+	 * @see #getIgnoredFileNames()
+	 */
+	public void setIgnoredFileNames(String names) {
+		if (names != null && !names.equals(ignoredFileNames)) {
+			String old = ignoredFileNames;
+			ignoredFileNames = names;
+			firePropertyChange(IGNORE_RULES_PROPERTY, old, names);
+		}
+	}
+
 	/**
 	 * Sets the color used for line numbers.
 	 * 
@@ -3855,6 +4151,23 @@ public abstract class AbstractMainView extends JPanel implements
 		}
 	}
 
+	/**
+	 * Sets whether Find in Files and the file system tree skip files matched
+	 * by <code>.gitignore</code> files and by {@link #getIgnoredFileNames()}.
+	 * This fires a property change event of type
+	 * {@link #IGNORE_RULES_PROPERTY}.
+	 * 
+	 * @param skip
+	 *            Whether to skip ignored files.
+	 * @see #getSkipIgnoredFiles()
+	 */
+	public void setSkipIgnoredFiles(boolean skip) {
+		if (skip != skipIgnoredFiles) {
+			skipIgnoredFiles = skip;
+			firePropertyChange(IGNORE_RULES_PROPERTY, !skip, skip);
+		}
+	}
+
 	/**
 	 * Sets the file filters used when opening documents to decide how to syntax
 	 * highlight documents. All currently open text files have their color
@@ -4202,4 +4515,23 @@ public abstract class AbstractMainView extends JPanel implements
 		}
 	}
 
+	/**
+	 * Opens a file read-only in a {@link LargeFileViewer}, which
+	 * memory-maps it rather than loading it into an editor.
+	 * 
+	 * @param file
+	 *            The file to view.
+	 * @param charSet
+	 *            The encoding of the file, or <code>null</code> to use the
+	 *            default.
+	 */
+	private void viewLargeFile(File file, String charSet) {
+		try {
+			LargeFileViewer viewer = new LargeFileViewer(owner, file, charSet);
+			viewer.setVisible(true);
+		} catch (IOException ioe) {
+			owner.displayException(ioe);
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+/*
+ * 10/17/2026
+ *
+ * FileLoader.java - Reads files to open on a background thread.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
+
+import org.fife.io.UnicodeReader;
+
+
+/**
+ * Reads the files opened by {@link AbstractMainView#openFileInBackground(
+ * String, String)}.  The main view adds a text area for each file right
+ * away, empty and not editable; this class reads, decodes and scans the file
+ * on a background thread, then hands the text back to the main view on the
+ * EDT to fill the text area with.  Files are read one at a time, in the order
+ * they were opened, so opening a whole folder doesn't flood the disk.<p>
+ *
+ * While reading, line terminators are normalized to <code>'\n'</code> just
+ * as <code>DefaultEditorKit</code> does when loading a document, and the
+ * file is checked for tabs, so neither has to be done on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class FileLoader {
+
+	private Savu owner;
+	private ExecutorService executor;
+
+	private static final int BUFFER_SIZE		= 8192;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param owner The parent application.
+	 */
+	FileLoader(Savu owner) {
+		this.owner = owner;
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "FileLoader");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+
+	/**
+	 * Queues a text area's file to be read.  When it has been, the main view
+	 * current at the time is passed the result via
+	 * {@link AbstractMainView#fileLoaded(Load)}.
+	 *
+	 * @param textArea A text area created to load its file later.  Its file
+	 *        and encoding are the ones read.
+	 */
+	void load(RTextEditorPane textArea) {
+		executor.execute(new Load(textArea));
+	}
+
+
+	/**
+	 * A file being read.
+	 */
+	class Load implements Runnable {
+
+		private RTextEditorPane textArea;
+		private File file;
+		private String encoding;
+		private String text;
+		private String lineSeparator;
+		private boolean containsTabs;
+		private Throwable error;
+
+		Load(RTextEditorPane textArea) {
+			this.textArea = textArea;
+			file = new File(textArea.getFileFullPath());
+			encoding = textArea.getEncoding();
+		}
+
+		/**
+		 * Returns whether the file contains tab characters.
+		 *
+		 * @return Whether the file contains tabs.
+		 */
+		boolean getContainsTabs() {
+			return containsTabs;
+		}
+
+		/**
+		 * Returns why the file could not be read.
+		 *
+		 * @return The <code>IOException</code> or
+		 *         <code>OutOfMemoryError</code> thrown reading the file, or
+		 *         <code>null</code> if it was read successfully.
+		 */
+		Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * Returns the line terminator the file uses.
+		 *
+		 * @return The line terminator.  As with <code>DefaultEditorKit</code>,
+		 *         this is <code>"\n"</code> for a file with no line
+		 *         terminators, and <code>"\r\n"</code> if a file with mixed
+		 *         terminators has any of those.
+		 */
+		String getLineSeparator() {
+			return lineSeparator;
+		}
+
+		/**
+		 * Returns the text of the file.
+		 *
+		 * @return The text, with lines terminated by <code>'\n'</code>.
+		 */
+		String getText() {
+			return text;
+		}
+
+		/**
+		 * Returns the text area the file is being loaded into.
+		 *
+		 * @return The text area.
+		 */
+		RTextEditorPane getTextArea() {
+			return textArea;
+		}
+
+		private void read() throws IOException {
+
+			// The text area was loaded with this encoding, so any BOM has
+			// already been accounted for; this reader skips it again.
+			UnicodeReader r = new UnicodeReader(new FileInputStream(file),
+											encoding);
+			StringBuilder sb = new StringBuilder(
+							(int)Math.min(file.length(), Integer.MAX_VALUE));
+			try {
+				char[] buf = new char[BUFFER_SIZE];
+				boolean lastWasCR = false;
+				boolean sawCR = false;
+				boolean sawCRLF = false;
+				int n;
+				while ((n=r.read(buf))!=-1) {
+					for (int i=0; i<n; i++) {
+						char ch = buf[i];
+						if (lastWasCR) {
+							lastWasCR = false;
+							if (ch=='\n') {
+								sawCRLF = true;
+								continue; // '\n' already appended for '\r'
+							}
+							sawCR = true;
+						}
+						switch (ch) {
+							case '\r':
+								sb.append('\n');
+								lastWasCR = true;
+								break;
+							case '\t':
+								containsTabs = true;
+								sb.append(ch);
+								break;
+							default:
+								sb.append(ch);
+								break;
+						}
+					}
+				}
+				sawCR |= lastWasCR;
+				// Same precedence as DefaultEditorKit.read().
+				if (sawCRLF) {
+					lineSeparator = "\r\n";
+				}
+				else if (sawCR) {
+					lineSeparator = "\r";
+				}
+				else {
+					lineSeparator = "\n";
+				}
+			} finally {
+				r.close();
+			}
+			text = sb.toString();
+
+		}
+
+		public void run() {
+			try {
+				read();
+			} catch (IOException ioe) {
+				error = ioe;
+			} catch (OutOfMemoryError oome) {
+				text = null;
+				error = oome;
+			}
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					owner.getMainView().fileLoaded(Load.this);
+				}
+			});
+		}
+
+	}
+
+
+}
@@ -0,0 +1,615 @@
+/*
+ * 10/17/2026
+ *
+ * LargeFileView.java - Shows the visible lines of a memory-mapped file.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.Map;
+import javax.swing.AbstractAction;
+import javax.swing.ActionMap;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.KeyStroke;
+import javax.swing.UIManager;
+import javax.swing.text.Segment;
+
+import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
+import org.fife.ui.rsyntaxtextarea.Style;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+
+
+/**
+ * Shows a {@link MappedTextFile}.  Only the lines in view are read, decoded
+ * and syntax highlighted, each time they are painted, so the file is never
+ * loaded onto the heap.  There is no <code>Document</code> and so no
+ * <code>JScrollPane</code> either: the vertical scroll bar's value is the
+ * top line, which keeps files with more lines than a component can be
+ * pixels tall scrollable.<p>
+ *
+ * Multi-line constructs (e.g. Python's triple-quoted strings) are only
+ * highlighted from the first line in view down, since the state each line
+ * starts in is not known without scanning everything above it.<p>
+ *
+ * Whole lines can be selected with the mouse and copied, up to
+ * {@link #MAX_COPY_CHARS} characters.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see LargeFileViewer
+ */
+class LargeFileView extends JPanel {
+
+	/**
+	 * The most characters that can be copied at once.
+	 */
+	static final int MAX_COPY_CHARS			= 16 * 1024 * 1024;
+
+	private static final int MARGIN			= 4;
+
+	private MappedTextFile file;
+	private MappedTextFile.LineReader reader;
+	private TokenMaker tokenMaker;
+	private SyntaxScheme scheme;
+	private Font font;
+	private Color selectionColor;
+	private Color matchColor;
+	private Color lineNumberColor;
+	private int tabSize;
+	private Map<?, ?> renderingHints;
+
+	private Canvas canvas;
+	private JScrollBar vbar;
+	private JScrollBar hbar;
+	private int topLine;
+	private int xOffset;
+	private int maxWidth;
+
+	private int anchorLine;
+	private int leadLine;
+	private int matchLine;
+	private int matchStart;
+	private int matchEnd;
+
+	private Segment seg;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file The file to show.
+	 * @param tokenMaker The token maker to highlight lines with, or
+	 *        <code>null</code> to not highlight them.
+	 * @param textArea A text area to take fonts and colors from.
+	 */
+	LargeFileView(MappedTextFile file, TokenMaker tokenMaker,
+			RSyntaxTextArea textArea) {
+
+		super(new BorderLayout());
+		this.file = file;
+		reader = file.new LineReader();
+		this.tokenMaker = tokenMaker;
+		scheme = (SyntaxScheme)textArea.getSyntaxScheme().clone();
+		font = textArea.getFont();
+		tabSize = textArea.getTabSize();
+		selectionColor = textArea.getSelectionColor();
+		matchColor = textArea.getMarkAllHighlightColor();
+		lineNumberColor = UIManager.getColor("Label.disabledForeground");
+		if (lineNumberColor==null) {
+			lineNumberColor = Color.GRAY;
+		}
+		renderingHints = (Map<?, ?>)Toolkit.getDefaultToolkit().
+								getDesktopProperty("awt/font/desktophints");
+		seg = new Segment();
+		anchorLine = leadLine = matchLine = -1;
+
+		canvas = new Canvas();
+		canvas.setBackground(textArea.getBackground());
+		canvas.setForeground(textArea.getForeground());
+		canvas.setOpaque(true);
+		canvas.setFocusable(true);
+		add(canvas);
+
+		Listener listener = new Listener();
+		vbar = new JScrollBar(JScrollBar.VERTICAL);
+		vbar.addAdjustmentListener(listener);
+		add(vbar, BorderLayout.LINE_END);
+		hbar = new JScrollBar(JScrollBar.HORIZONTAL);
+		hbar.addAdjustmentListener(listener);
+		add(hbar, BorderLayout.PAGE_END);
+		canvas.addMouseListener(listener);
+		canvas.addMouseMotionListener(listener);
+		canvas.addMouseWheelListener(listener);
+		canvas.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				updateScrollBars();
+			}
+		});
+
+		installKeyboardActions();
+
+	}
+
+
+	/**
+	 * Copies the selected lines to the clipboard.
+	 *
+	 * @return Whether the lines could be copied.  This is
+	 *         <code>false</code> if more than {@link #MAX_COPY_CHARS}
+	 *         characters are selected.
+	 */
+	boolean copy() {
+		if (anchorLine==-1) {
+			return true;
+		}
+		int first = Math.min(anchorLine, leadLine);
+		int last = Math.max(anchorLine, leadLine);
+		StringBuilder sb = new StringBuilder();
+		for (int line=first; line<=last; line++) {
+			reader.getLine(line, seg);
+			if (sb.length()+seg.count+1>MAX_COPY_CHARS) {
+				return false;
+			}
+			sb.append(seg.array, seg.offset, seg.count);
+			if (line<last) {
+				sb.append('\n');
+			}
+		}
+		StringSelection contents = new StringSelection(sb.toString());
+		getToolkit().getSystemClipboard().setContents(contents, contents);
+		return true;
+	}
+
+
+	/**
+	 * Draws text, expanding tabs, stopping once past the right edge of the
+	 * component.
+	 *
+	 * @return The x-coordinate the text ended at.
+	 */
+	private int drawText(Graphics g, FontMetrics fm, char[] text, int off,
+			int len, int x, int y, int x0, int tabWidth) {
+		int end = off + len;
+		int runStart = off;
+		int width = canvas.getWidth();
+		for (int i=off; i<end && x<width; i++) {
+			if (text[i]=='\t') {
+				if (i>runStart) {
+					g.drawChars(text, runStart, i-runStart, x, y);
+					x += fm.charsWidth(text, runStart, i-runStart);
+				}
+				x = x0 + ((x-x0)/tabWidth + 1)*tabWidth;
+				runStart = i + 1;
+			}
+		}
+		if (end>runStart && x<width) {
+			g.drawChars(text, runStart, end-runStart, x, y);
+			x += fm.charsWidth(text, runStart, end-runStart);
+		}
+		return x;
+	}
+
+
+	/**
+	 * Returns the text area that has the focus when this view does.
+	 *
+	 * @return The component.
+	 */
+	JComponent getCanvas() {
+		return canvas;
+	}
+
+
+	private int getGutterWidth(FontMetrics fm) {
+		int digits = Integer.toString(file.getLineCount()).length();
+		return fm.charWidth('0')*Math.max(digits, 3) + 2*MARGIN;
+	}
+
+
+	private int getLineHeight() {
+		return canvas.getFontMetrics(font).getHeight();
+	}
+
+
+	private int getLineAt(int y) {
+		int line = topLine + Math.max(y, 0)/getLineHeight();
+		return Math.min(line, file.getLineCount()-1);
+	}
+
+
+	/**
+	 * Returns the line after the current match, or the first line in view
+	 * if there is no match.  This is where searching starts.
+	 *
+	 * @return The line.
+	 * @see #getSearchStartColumn()
+	 */
+	int getSearchStartLine() {
+		return matchLine>-1 ? matchLine : topLine;
+	}
+
+
+	/**
+	 * Returns the column in {@link #getSearchStartLine()} to start
+	 * searching from.
+	 *
+	 * @return The column.
+	 */
+	int getSearchStartColumn() {
+		return matchLine>-1 ? matchEnd : 0;
+	}
+
+
+	/**
+	 * Returns the number of lines that fit in the view.
+	 */
+	private int getVisibleLineCount() {
+		return Math.max(canvas.getHeight()/getLineHeight(), 1);
+	}
+
+
+	/**
+	 * Returns the x-offset of a column in a line, expanding tabs.
+	 */
+	private int getColumnX(FontMetrics fm, Segment s, int column, int x0,
+			int tabWidth) {
+		int x = x0;
+		int end = s.offset + Math.min(column, s.count);
+		for (int i=s.offset; i<end; i++) {
+			char ch = s.array[i];
+			x = ch=='\t' ? x0 + ((x-x0)/tabWidth + 1)*tabWidth :
+							x + fm.charWidth(ch);
+		}
+		return x;
+	}
+
+
+	private void installKeyboardActions() {
+
+		InputMap im = canvas.getInputMap();
+		ActionMap am = canvas.getActionMap();
+		int ctrl = canvas.getToolkit().getMenuShortcutKeyMask();
+
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "up");
+		am.put("up", new ScrollAction(-1, false));
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "down");
+		am.put("down", new ScrollAction(1, false));
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "pageUp");
+		am.put("pageUp", new ScrollAction(-1, true));
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "pageDown");
+		am.put("pageDown", new ScrollAction(1, true));
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, ctrl), "top");
+		am.put("top", new ScrollAction(Integer.MIN_VALUE, false));
+		im.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, ctrl), "bottom");
+		am.put("bottom", new ScrollAction(Integer.MAX_VALUE, false));
+
+	}
+
+
+	@Override
+	public void requestFocus() {
+		canvas.requestFocus();
+	}
+
+
+	/**
+	 * Scrolls to a line, if it isn't already in view.
+	 *
+	 * @param line The line.
+	 * @param center Whether to center the line in the view, rather than
+	 *        scroll as little as possible.
+	 */
+	void scrollToLine(int line, boolean center) {
+		int visible = getVisibleLineCount();
+		if (center) {
+			if (line<topLine || line>=topLine+visible) {
+				setTopLine(line - visible/2);
+			}
+		}
+		else if (line<topLine) {
+			setTopLine(line);
+		}
+		else if (line>=topLine+visible) {
+			setTopLine(line - visible + 1);
+		}
+	}
+
+
+	/**
+	 * Highlights a match of a search, scrolling it into view.
+	 *
+	 * @param line The line of the match.
+	 * @param start The column the match starts at.
+	 * @param end The column the match ends at.
+	 */
+	void setMatch(int line, int start, int end) {
+
+		matchLine = line;
+		matchStart = start;
+		matchEnd = end;
+		anchorLine = leadLine = line;
+		scrollToLine(line, true);
+
+		// Scroll horizontally too, if needed.
+		FontMetrics fm = canvas.getFontMetrics(font);
+		reader.getLine(line, seg);
+		int tabWidth = Math.max(fm.charWidth(' ')*tabSize, 1);
+		int x = getColumnX(fm, seg, end, 0, tabWidth);
+		int width = canvas.getWidth() - getGutterWidth(fm) - 2*MARGIN;
+		if (x<xOffset || x>xOffset+width) {
+			maxWidth = Math.max(maxWidth, x);
+			updateScrollBars();
+			hbar.setValue(Math.max(x - width/2, 0));
+		}
+		canvas.repaint();
+
+	}
+
+
+	/**
+	 * Selects a line.
+	 *
+	 * @param line The line.
+	 */
+	void setSelectedLine(int line) {
+		anchorLine = leadLine = line;
+		matchLine = -1;
+		scrollToLine(line, true);
+		canvas.repaint();
+	}
+
+
+	private void setTopLine(int line) {
+		int max = Math.max(file.getLineCount() - getVisibleLineCount(), 0);
+		vbar.setValue(Math.max(0, Math.min(line, max)));
+	}
+
+
+	/**
+	 * Updates the scroll bars for the number of lines found so far and the
+	 * widest line painted so far.  This should be called as the file is
+	 * being indexed.
+	 */
+	void updateScrollBars() {
+		int visible = getVisibleLineCount();
+		int lineCount = file.getLineCount();
+		vbar.setValues(topLine, Math.min(visible, lineCount), 0, lineCount);
+		vbar.setBlockIncrement(Math.max(visible-1, 1));
+		int width = Math.max(canvas.getWidth(), 1);
+		hbar.setValues(xOffset, width, 0, Math.max(maxWidth+2*MARGIN, width));
+		hbar.setBlockIncrement(width);
+		hbar.setUnitIncrement(canvas.getFontMetrics(font).charWidth('m'));
+	}
+
+
+	/**
+	 * The component the lines are painted on.
+	 */
+	private class Canvas extends JComponent {
+
+		@Override
+		public Dimension getPreferredSize() {
+			FontMetrics fm = getFontMetrics(font);
+			return new Dimension(fm.charWidth('m')*100, fm.getHeight()*40);
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+
+			Graphics2D g2d = (Graphics2D)g;
+			if (renderingHints!=null) {
+				g2d.addRenderingHints(renderingHints);
+			}
+			else {
+				g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+							RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			}
+
+			Rectangle clip = g.getClipBounds();
+			g.setColor(getBackground());
+			g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+			FontMetrics fm = getFontMetrics(font);
+			int lineHeight = fm.getHeight();
+			int ascent = fm.getAscent();
+			int gutterWidth = getGutterWidth(fm);
+			int tabWidth = Math.max(fm.charWidth(' ')*tabSize, 1);
+			int x0 = gutterWidth + MARGIN - xOffset;
+			int lineCount = file.getLineCount();
+			int selFirst = Math.min(anchorLine, leadLine);
+			int selLast = Math.max(anchorLine, leadLine);
+			int width = getWidth();
+			int widest = maxWidth;
+			int state = TokenTypes.NULL;
+
+			for (int line=topLine, y=0; line<lineCount && y<getHeight();
+					line++, y+=lineHeight) {
+
+				if (line>=selFirst && line<=selLast) {
+					g.setColor(selectionColor);
+					g.fillRect(gutterWidth, y, width-gutterWidth, lineHeight);
+				}
+
+				boolean truncated = reader.getLine(line, seg);
+				Graphics lineGraphics = g.create(gutterWidth, 0,
+										width-gutterWidth, getHeight());
+				lineGraphics.translate(-gutterWidth, 0);
+
+				if (line==matchLine) {
+					int start = getColumnX(fm, seg, matchStart, x0, tabWidth);
+					int end = getColumnX(fm, seg, matchEnd, x0, tabWidth);
+					lineGraphics.setColor(matchColor);
+					lineGraphics.fillRect(start, y, Math.max(end-start, 2),
+										lineHeight);
+				}
+
+				int x = x0;
+				int baseline = y + ascent;
+				if (tokenMaker!=null) {
+					Token t = tokenMaker.getTokenList(seg, state, 0);
+					Token last = null;
+					for (; t!=null && t.isPaintable(); t=t.getNextToken()) {
+						Style style = scheme.getStyle(t.getType());
+						Font f = style.font!=null ? style.font : font;
+						lineGraphics.setFont(f);
+						lineGraphics.setColor(style.foreground!=null ?
+									style.foreground : getForeground());
+						x = drawText(lineGraphics, getFontMetrics(f),
+								t.getTextArray(), t.getTextOffset(),
+								t.length(), x, baseline, x0, tabWidth);
+						last = t;
+					}
+					// Lines not ending in a "null" token continue a
+					// multi-line construct.
+					state = t==null && last!=null ? last.getType() :
+												TokenTypes.NULL;
+				}
+				else {
+					lineGraphics.setFont(font);
+					lineGraphics.setColor(getForeground());
+					x = drawText(lineGraphics, fm, seg.array, seg.offset,
+								seg.count, x, baseline, x0, tabWidth);
+				}
+				if (truncated) {
+					lineGraphics.setFont(font);
+					lineGraphics.setColor(lineNumberColor);
+					lineGraphics.drawString("...", x, baseline);
+				}
+				lineGraphics.dispose();
+				widest = Math.max(widest, x - x0);
+
+				String number = Integer.toString(line+1);
+				g.setFont(font);
+				g.setColor(lineNumberColor);
+				g.drawString(number, gutterWidth - MARGIN -
+						fm.stringWidth(number), baseline);
+
+			}
+
+			if (widest>maxWidth) {
+				maxWidth = widest;
+				updateScrollBars();
+			}
+
+		}
+
+	}
+
+
+	/**
+	 * Listens for scrolling and mouse events.
+	 */
+	private class Listener extends MouseAdapter
+			implements AdjustmentListener {
+
+		public void adjustmentValueChanged(AdjustmentEvent e) {
+			if (e.getSource()==vbar) {
+				topLine = vbar.getValue();
+			}
+			else {
+				xOffset = hbar.getValue();
+			}
+			canvas.repaint();
+		}
+
+		@Override
+		public void mouseDragged(MouseEvent e) {
+			if (anchorLine>-1) {
+				int y = e.getY();
+				if (y<0) {
+					setTopLine(topLine - 1);
+				}
+				else if (y>canvas.getHeight()) {
+					setTopLine(topLine + 1);
+				}
+				leadLine = getLineAt(Math.min(y, canvas.getHeight()-1));
+				canvas.repaint();
+			}
+		}
+
+		@Override
+		public void mousePressed(MouseEvent e) {
+			canvas.requestFocusInWindow();
+			int line = getLineAt(e.getY());
+			if ((e.getModifiers()&InputEvent.SHIFT_MASK)!=0 &&
+					anchorLine>-1) {
+				leadLine = line;
+			}
+			else {
+				anchorLine = leadLine = line;
+			}
+			canvas.repaint();
+		}
+
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			if (e.getScrollType()==MouseWheelEvent.WHEEL_UNIT_SCROLL) {
+				setTopLine(topLine + e.getUnitsToScroll());
+			}
+			else {
+				setTopLine(topLine +
+						e.getWheelRotation()*vbar.getBlockIncrement());
+			}
+		}
+
+	}
+
+
+	/**
+	 * Scrolls by lines or pages.
+	 */
+	private class ScrollAction extends AbstractAction {
+
+		private int amount;
+		private boolean page;
+
+		ScrollAction(int amount, boolean page) {
+			this.amount = amount;
+			this.page = page;
+		}
+
+		public void actionPerformed(ActionEvent e) {
+			if (amount==Integer.MIN_VALUE || amount==Integer.MAX_VALUE) {
+				setTopLine(amount);
+			}
+			else {
+				int visible = getVisibleLineCount();
+				setTopLine(topLine + (page ? amount*(visible-1) : amount));
+			}
+		}
+
+	}
+
+
+}
@@ -0,0 +1,487 @@
+/*
+ * 10/17/2026
+ *
+ * LargeFileViewer.java - A read-only window for files too large to edit.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ResourceBundle;
+import javax.swing.AbstractAction;
+import javax.swing.Box;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JRootPane;
+import javax.swing.JTextField;
+import javax.swing.JToolBar;
+import javax.swing.KeyStroke;
+import javax.swing.Timer;
+import javax.swing.text.Segment;
+
+import org.fife.rsta.ui.GoToDialog;
+import org.fife.ui.GUIWorkerThread;
+import org.fife.ui.ResizableFrameContentPane;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+
+
+/**
+ * A read-only window for files too large to open in an editor, such as
+ * logs and data dumps hundreds of megabytes in size.  The file is
+ * memory-mapped (see {@link MappedTextFile}), and is indexed in the
+ * background while the window is open, so the first lines can be viewed
+ * right away.  Searching and going to a line work from the mapping too, and
+ * searching runs on a background thread.<p>
+ *
+ * {@link AbstractMainView} offers this window for files over the maximum
+ * file size set in the options.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see LargeFileView
+ */
+public class LargeFileViewer extends JDialog implements ActionListener {
+
+	private Savu owner;
+	private MappedTextFile file;
+	private LargeFileView view;
+	private JTextField searchField;
+	private JCheckBox matchCaseCB;
+	private JButton findNextButton;
+	private JLabel statusLabel;
+	private Timer timer;
+	private GoToDialog goToDialog;
+
+	private SearchThread searchThread;
+	private volatile int searchLine;
+	private String searchResult;
+
+	private static final String MSG = "org.fife.rtext.LargeFileViewer";
+	private static final ResourceBundle msg = ResourceBundle.getBundle(MSG);
+
+	/**
+	 * How often the status and scroll bars are updated while the file is
+	 * being indexed or searched, in milliseconds.
+	 */
+	private static final int UPDATE_DELAY		= 250;
+
+
+	/**
+	 * Constructor.  The file is indexed in the background once the window
+	 * is shown.
+	 *
+	 * @param owner The parent application.
+	 * @param file The file to view.
+	 * @param charSet The encoding of the file, or <code>null</code> to
+	 *        check for a UTF-8 byte order mark and otherwise use the
+	 *        platform's default encoding.
+	 * @throws IOException If the file cannot be mapped, or its encoding is
+	 *         not supported.
+	 */
+	public LargeFileViewer(Savu owner, File file, String charSet)
+			throws IOException {
+
+		super(owner);
+		this.owner = owner;
+		this.file = new MappedTextFile(file, charSet);
+		setTitle(getString("Title", file.getName()));
+
+		AbstractMainView mainView = owner.getMainView();
+		String style = mainView.getSyntaxStyleForFile(file.getName());
+		TokenMaker tokenMaker = null;
+		if (!SyntaxConstants.SYNTAX_STYLE_NONE.equals(style)) {
+			tokenMaker = TokenMakerFactory.getDefaultInstance().
+											getTokenMaker(style);
+		}
+
+		JPanel cp = new ResizableFrameContentPane(new BorderLayout());
+		setContentPane(cp);
+		view = new LargeFileView(this.file, tokenMaker,
+								mainView.getCurrentTextArea());
+		cp.add(view);
+		cp.add(createToolBar(), BorderLayout.NORTH);
+
+		installKeyboardActions();
+		timer = new Timer(UPDATE_DELAY, this);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				close();
+			}
+		});
+
+		setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+		applyComponentOrientation(owner.getComponentOrientation());
+		pack();
+		Dimension size = owner.getSize();
+		setSize(Math.max(getWidth(), size.width*3/4),
+				Math.max(getHeight(), size.height*3/4));
+		setLocationRelativeTo(owner);
+
+	}
+
+
+	/**
+	 * Called when the toolbar's buttons are pressed, and when the status
+	 * update timer fires.
+	 *
+	 * @param e The event.
+	 */
+	public void actionPerformed(ActionEvent e) {
+
+		Object source = e.getSource();
+
+		if (source==timer) {
+			updateStatus();
+		}
+		else if (source==findNextButton || source==searchField) {
+			findNext();
+		}
+		else if ("GoToLine".equals(e.getActionCommand())) {
+			goToLine();
+		}
+		else if ("Copy".equals(e.getActionCommand())) {
+			copy();
+		}
+
+	}
+
+
+	/**
+	 * Stops indexing and searching the file.
+	 */
+	private void close() {
+		timer.stop();
+		if (searchThread!=null) {
+			searchThread.interrupt();
+			searchThread = null;
+		}
+		file.close();
+	}
+
+
+	/**
+	 * Copies the selected lines, telling the user if there are too many.
+	 */
+	private void copy() {
+		if (!view.copy()) {
+			int mb = LargeFileView.MAX_COPY_CHARS / 1024 / 1024;
+			String text = getString("SelectionTooLarge", Integer.toString(mb));
+			JOptionPane.showMessageDialog(this, text,
+					owner.getString("ErrorDialogTitle"),
+					JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+
+	private JButton createButton(String key) {
+		JButton button = new JButton(msg.getString(key));
+		button.setActionCommand(key);
+		button.addActionListener(this);
+		return button;
+	}
+
+
+	private JToolBar createToolBar() {
+
+		JToolBar toolBar = new JToolBar();
+		toolBar.setFloatable(false);
+
+		toolBar.add(new JLabel(msg.getString("Find")));
+		toolBar.add(Box.createHorizontalStrut(5));
+		searchField = new JTextField(25);
+		searchField.setMaximumSize(searchField.getPreferredSize());
+		searchField.addActionListener(this);
+		toolBar.add(searchField);
+		matchCaseCB = new JCheckBox(msg.getString("MatchCase"));
+		toolBar.add(matchCaseCB);
+		findNextButton = createButton("FindNext");
+		toolBar.add(findNextButton);
+		toolBar.addSeparator();
+		toolBar.add(createButton("GoToLine"));
+		toolBar.add(createButton("Copy"));
+
+		toolBar.add(Box.createHorizontalGlue());
+		statusLabel = new JLabel();
+		toolBar.add(statusLabel);
+		toolBar.add(Box.createHorizontalStrut(5));
+
+		return toolBar;
+
+	}
+
+
+	/**
+	 * Searches for the next occurrence of the search text on a background
+	 * thread, starting just after the current match (or at the top of the
+	 * view) and wrapping around to the start of the file.
+	 */
+	private void findNext() {
+
+		String text = searchField.getText();
+		if (text.length()==0 || searchThread!=null) {
+			return;
+		}
+
+		searchResult = null;
+		searchThread = new SearchThread(text, matchCaseCB.isSelected(),
+				view.getSearchStartLine(), view.getSearchStartColumn());
+		findNextButton.setEnabled(false);
+		searchThread.start();
+		timer.start();
+		updateStatus();
+
+	}
+
+
+	private static String getString(String key, Object... params) {
+		return MessageFormat.format(msg.getString(key), params);
+	}
+
+
+	/**
+	 * Prompts for a line number and goes to it.
+	 */
+	private void goToLine() {
+		if (goToDialog==null) {
+			goToDialog = new GoToDialog(this);
+			goToDialog.setErrorDialogTitle(owner.getString("ErrorDialogTitle"));
+		}
+		goToDialog.setMaxLineNumberAllowed(file.getLineCount());
+		goToDialog.setVisible(true);
+		int line = goToDialog.getLineNumber();
+		if (line>0) {
+			searchResult = null;
+			view.setSelectedLine(line-1);
+			updateStatus();
+		}
+		view.requestFocus();
+	}
+
+
+	private void installKeyboardActions() {
+
+		int ctrl = getToolkit().getMenuShortcutKeyMask();
+		JRootPane rootPane = getRootPane();
+		rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+				KeyStroke.getKeyStroke(KeyEvent.VK_F, ctrl), "find");
+		rootPane.getActionMap().put("find", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				searchField.requestFocusInWindow();
+				searchField.selectAll();
+			}
+		});
+		rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+				KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "findNext");
+		rootPane.getActionMap().put("findNext", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				findNext();
+			}
+		});
+		rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+				KeyStroke.getKeyStroke(KeyEvent.VK_L, ctrl), "goToLine");
+		rootPane.getActionMap().put("goToLine", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				goToLine();
+			}
+		});
+
+		JComponent canvas = view.getCanvas();
+		canvas.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_C, ctrl),
+								"copy");
+		canvas.getActionMap().put("copy", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) {
+				copy();
+			}
+		});
+
+	}
+
+
+	/**
+	 * Overridden to start indexing the file when this window is first
+	 * shown.
+	 *
+	 * @param visible Whether this window should be visible.
+	 */
+	@Override
+	public void setVisible(boolean visible) {
+		if (visible && !isVisible() && !file.isIndexed() && !timer.isRunning()) {
+			file.startIndexing();
+			timer.start();
+			updateStatus();
+		}
+		super.setVisible(visible);
+		if (visible) {
+			view.requestFocus();
+		}
+	}
+
+
+	/**
+	 * Updates the status shown, and the view's scroll bars as more of the
+	 * file is indexed.  The update timer is stopped once there is nothing
+	 * left to update.
+	 */
+	private void updateStatus() {
+
+		view.updateScrollBars();
+
+		String lines = String.format("%,d", file.getLineCount());
+		String status;
+		if (searchThread!=null) {
+			status = getString("Searching", String.format("%,d", searchLine+1));
+		}
+		else if (searchResult!=null) {
+			status = searchResult;
+		}
+		else if (!file.isIndexed()) {
+			status = getString("Indexing", lines);
+		}
+		else {
+			status = getString("Lines", lines, file.getCharset().name());
+		}
+		statusLabel.setText(status);
+
+		if (file.isIndexed() && searchThread==null) {
+			timer.stop();
+		}
+
+	}
+
+
+	/**
+	 * Searches the file for text, line by line, on a background thread.
+	 * Lines past those indexed so far are read one after another, so
+	 * searching need not wait for indexing to finish.
+	 */
+	private class SearchThread extends GUIWorkerThread {
+
+		private String text;
+		private boolean matchCase;
+		private int startLine;
+		private int startColumn;
+
+		SearchThread(String text, boolean matchCase, int startLine,
+				int startColumn) {
+			this.text = text;
+			this.matchCase = matchCase;
+			this.startLine = startLine;
+			this.startColumn = startColumn;
+		}
+
+		@Override
+		public Object construct() {
+
+			MappedTextFile.LineReader reader = file.new LineReader();
+			Segment s = new Segment();
+			char[] pattern = text.toCharArray();
+
+			// From the start position to the end of the file, then from
+			// the top of the file back to where we started.
+			int column = startColumn;
+			for (int line=startLine; reader.exists(line); line++) {
+				if ((line&0xfff)==0) {
+					searchLine = line;
+					if (Thread.currentThread().isInterrupted()) {
+						return null;
+					}
+				}
+				reader.getLine(line, s);
+				int index = indexOf(s, pattern, column);
+				if (index>-1) {
+					return new int[] { line, index };
+				}
+				column = 0;
+			}
+			for (int line=0; line<=startLine; line++) {
+				if ((line&0xfff)==0) {
+					searchLine = line;
+					if (Thread.currentThread().isInterrupted()) {
+						return null;
+					}
+				}
+				reader.getLine(line, s);
+				int index = indexOf(s, pattern, 0);
+				if (index>-1 && (line<startLine || index<startColumn)) {
+					return new int[] { line, index };
+				}
+			}
+
+			return null;
+
+		}
+
+		@Override
+		public void finished() {
+			if (searchThread!=this) { // Canceled
+				return;
+			}
+			searchThread = null;
+			findNextButton.setEnabled(true);
+			int[] result = (int[])get();
+			if (result!=null) {
+				view.setMatch(result[0], result[1],
+							result[1]+text.length());
+			}
+			else {
+				searchResult = getString("NotFound", text);
+			}
+			updateStatus();
+		}
+
+		/**
+		 * Returns the column of the first occurrence of the pattern in a
+		 * line at or after a column, or <code>-1</code> if there is none.
+		 */
+		private int indexOf(Segment s, char[] pattern, int from) {
+			char[] array = s.array;
+			int last = s.offset + s.count - pattern.length;
+			char first = pattern[0];
+			for (int i=s.offset+from; i<=last; i++) {
+				if (matchCase ? array[i]!=first :
+						!equalsIgnoreCase(array[i], first)) {
+					continue;
+				}
+				int j = 1;
+				while (j<pattern.length && (matchCase ?
+						array[i+j]==pattern[j] :
+						equalsIgnoreCase(array[i+j], pattern[j]))) {
+					j++;
+				}
+				if (j==pattern.length) {
+					return i - s.offset;
+				}
+			}
+			return -1;
+		}
+
+		private boolean equalsIgnoreCase(char ch1, char ch2) {
+			return ch1==ch2 || Character.toLowerCase(ch1)==
+					Character.toLowerCase(ch2) || Character.toUpperCase(ch1)==
+					Character.toUpperCase(ch2);
+		}
+
+	}
+
+
+}
@@ -0,0 +1,118 @@
+/*
+ * 10/17/2026
+ *
+ * LoadState.java - Whether a text area's file is still being read.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Tracks whether an {@link RTextEditorPane}'s file is still being read by
+ * the {@link FileLoader}.  Until it has been, the text area's document is
+ * empty, so it must not be saved anywhere, and anything that depends on its
+ * text, such as selecting a line, has to wait.<p>
+ *
+ * This class is only used on the EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class LoadState {
+
+	private boolean loading;
+	private List<Runnable> whenLoaded;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param loading Whether the file is still to be read.
+	 */
+	LoadState(boolean loading) {
+		this.loading = loading;
+	}
+
+
+	/**
+	 * Throws an exception if the file is still being read, since saving it
+	 * under a new name would write an empty file.
+	 *
+	 * @param path The path of the file being read, for the error message.
+	 * @throws IOException If the file is still being read.
+	 */
+	void checkSaveAs(String path) throws IOException {
+		if (loading) {
+			throw new IOException("File is still being read: " + path);
+		}
+	}
+
+
+	/**
+	 * Returns whether the file is still being read.
+	 *
+	 * @return Whether the file is being read.
+	 * @see #loaded()
+	 */
+	boolean isLoading() {
+		return loading;
+	}
+
+
+	/**
+	 * Marks the file as read, and runs everything that was waiting for it,
+	 * in the order it was queued.
+	 *
+	 * @see #runWhenLoaded(Runnable)
+	 */
+	void loaded() {
+		loading = false;
+		if (whenLoaded!=null) {
+			List<Runnable> actions = whenLoaded;
+			whenLoaded = null;
+			for (Runnable action : actions) {
+				action.run();
+			}
+		}
+	}
+
+
+	/**
+	 * Runs an action once the file has been read.  If it already has been,
+	 * the action is run right away.
+	 *
+	 * @param action The action to run.
+	 * @see #loaded()
+	 */
+	void runWhenLoaded(Runnable action) {
+		if (!loading) {
+			action.run();
+			return;
+		}
+		if (whenLoaded==null) {
+			whenLoaded = new ArrayList<Runnable>(1);
+		}
+		whenLoaded.add(action);
+	}
+
+
+	/**
+	 * Returns whether saving the file in place should write anything.
+	 * While the file is still being read, the file on disk already holds
+	 * what the document will, so saving does nothing.
+	 *
+	 * @return Whether to write the document.
+	 */
+	boolean shouldSave() {
+		return !loading;
+	}
+
+
+}
@@ -134,7 +134,7 @@ class MainPanelTransferHandler extends TransferHandler {
 				for (int i = 0; i < count; i++) {
 					File file = (File) files.get(i);
 					// "null" encoding means check for Unicode first.
-					mainView.openFile(file.getAbsolutePath(), null);
+					mainView.openFileInBackground(file.getAbsolutePath(), null);
 				}
 				return true;
 			} catch (Exception e) {
@@ -0,0 +1,485 @@
+/*
+ * 10/17/2026
+ *
+ * MappedTextFile.java - A memory-mapped, read-only view of a text file.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import javax.swing.text.Segment;
+
+
+/**
+ * A read-only text file too large to load into a text component.  The file
+ * is memory-mapped, so its contents stay in the OS's page cache rather than
+ * on the heap, and only the lines asked for are ever decoded.<p>
+ *
+ * Lines are found with a sparse index: the byte offset of every
+ * {@link #INDEX_INTERVAL}th line, built by a background thread started with
+ * {@link #startIndexing()}.  Finding a line's start means looking up the
+ * closest indexed line before it and skipping forward at most that many
+ * lines, so the index of a file with a hundred million lines takes under a
+ * megabyte.  Lines can be read as soon as the index reaches them;
+ * {@link #getLineCount()} grows as indexing proceeds.<p>
+ *
+ * Only encodings in which a newline is the single byte <code>0x0A</code>
+ * and never part of another character are supported: UTF-8, ASCII, the
+ * ISO-8859 and Windows code pages, and most multi-byte Asian encodings.
+ * "<code>\n</code>" and "<code>\r\n</code>" are line terminators; a lone
+ * "<code>\r</code>" is not.<p>
+ *
+ * Lines are read with a {@link LineReader}, which is not thread safe; use
+ * one per thread.  The index itself may be read from any thread.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see LargeFileViewer
+ */
+class MappedTextFile {
+
+	/**
+	 * The number of lines between entries in the line index.
+	 */
+	static final int INDEX_INTERVAL			= 1024;
+
+	/**
+	 * At most this many bytes of a line are decoded.  Longer lines (e.g.
+	 * a single-line JSON dump) are shown truncated.
+	 */
+	static final int MAX_LINE_BYTES			= 16 * 1024;
+
+	/**
+	 * Files are mapped in regions of this many bytes (as a power of 2),
+	 * since a single mapping is limited to 2 GB.
+	 */
+	private static final int REGION_BITS	= 30;
+
+	private static final int REGION_MASK	= (1<<REGION_BITS) - 1;
+
+	/**
+	 * How many lines the indexer finds between publishing its progress.
+	 */
+	private static final int PUBLISH_INTERVAL	= 64 * 1024;
+
+	private File file;
+	private long length;
+	private MappedByteBuffer[] regions;
+	private Charset charset;
+	private int bomLength;
+
+	/**
+	 * The byte offset of every <code>INDEX_INTERVAL</code>th line.  This
+	 * is replaced, never modified in place below
+	 * <code>lineCount/INDEX_INTERVAL</code>, so readers can use it without
+	 * locking.
+	 */
+	private volatile long[] index;
+
+	/**
+	 * The number of lines whose start has been found so far.
+	 */
+	private volatile int lineCount;
+
+	private volatile boolean indexed;
+	private volatile boolean closed;
+	private Thread indexer;
+
+
+	/**
+	 * Maps a file.
+	 *
+	 * @param file The file.
+	 * @param charSet The encoding of the file.  If this is
+	 *        <code>null</code>, the file is checked for a UTF-8 byte order
+	 *        mark, and is otherwise assumed to be in the platform's default
+	 *        encoding.
+	 * @throws IOException If an I/O error occurs, or the file's encoding is
+	 *         not supported.
+	 * @see #isSupported(Charset)
+	 */
+	MappedTextFile(File file, String charSet) throws IOException {
+
+		this.file = file;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			length = channel.size();
+			int regionCount = (int)((length+REGION_MASK) >>> REGION_BITS);
+			regions = new MappedByteBuffer[Math.max(regionCount, 1)];
+			for (int i=0; i<regionCount; i++) {
+				long start = (long)i << REGION_BITS;
+				long size = Math.min(length-start, 1L<<REGION_BITS);
+				regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+										start, size);
+			}
+		} finally {
+			raf.close(); // Mappings stay valid after the channel is closed
+		}
+
+		charset = charSet!=null ? Charset.forName(charSet) : null;
+		int b0 = length>0 ? getByte(0) : -1;
+		int b1 = length>1 ? getByte(1) : -1;
+		int b2 = length>2 ? getByte(2) : -1;
+		if (b0==0xef && b1==0xbb && b2==0xbf) {
+			charset = Charset.forName("UTF-8");
+			bomLength = 3;
+		}
+		else if ((b0==0xfe && b1==0xff) || (b0==0xff && b1==0xfe)) {
+			charset = Charset.forName("UTF-16");
+		}
+		if (charset==null) {
+			charset = Charset.defaultCharset();
+		}
+		if (!isSupported(charset)) {
+			throw new IOException("Unsupported encoding for viewing: " +
+								charset.name());
+		}
+
+		index = new long[64];
+		index[0] = bomLength;
+		lineCount = 1;
+
+	}
+
+
+	/**
+	 * Stops indexing the file.  The file should not be used after this is
+	 * called; its mapping is released when it is garbage collected.
+	 */
+	void close() {
+		closed = true;
+		if (indexer!=null) {
+			indexer.interrupt();
+		}
+	}
+
+
+	/**
+	 * Returns the byte at an offset in the file, as an unsigned value.
+	 */
+	private int getByte(long offset) {
+		return regions[(int)(offset>>>REGION_BITS)].
+								get((int)(offset&REGION_MASK)) & 0xff;
+	}
+
+
+	/**
+	 * Returns the encoding the file is decoded with.
+	 *
+	 * @return The encoding.
+	 */
+	Charset getCharset() {
+		return charset;
+	}
+
+
+	/**
+	 * Returns the file.
+	 *
+	 * @return The file.
+	 */
+	File getFile() {
+		return file;
+	}
+
+
+	/**
+	 * Returns the length of the file.
+	 *
+	 * @return The length of the file, in bytes.
+	 */
+	long getLength() {
+		return length;
+	}
+
+
+	/**
+	 * Returns the number of lines found so far.  Until indexing completes,
+	 * this is a lower bound on the number of lines in the file.
+	 *
+	 * @return The number of lines.
+	 * @see #isIndexed()
+	 */
+	int getLineCount() {
+		return lineCount;
+	}
+
+
+	/**
+	 * Returns whether the line index has been built for the whole file.
+	 *
+	 * @return Whether the file has been indexed.
+	 * @see #startIndexing()
+	 */
+	boolean isIndexed() {
+		return indexed;
+	}
+
+
+	/**
+	 * Returns whether files in an encoding can be viewed.  That is whether
+	 * a newline is the single byte <code>0x0A</code> in it, and no other
+	 * character contains that byte.
+	 *
+	 * @param charset The encoding.
+	 * @return Whether the encoding is supported.
+	 */
+	static boolean isSupported(Charset charset) {
+		String name = charset.name().toUpperCase();
+		if (name.startsWith("UTF-16") || name.startsWith("UTF-32") ||
+				name.startsWith("X-UTF-16") || name.startsWith("X-UTF-32")) {
+			return false;
+		}
+		try {
+			return Arrays.equals("\n".getBytes(charset), new byte[] { '\n' });
+		} catch (UnsupportedOperationException uoe) { // Decode-only charset
+			return false;
+		}
+	}
+
+
+	/**
+	 * Builds the line index on a background thread.  This only needs to be
+	 * called once.
+	 *
+	 * @see #isIndexed()
+	 */
+	void startIndexing() {
+		indexer = new Thread("MappedTextFile indexer: " + file.getName()) {
+			@Override
+			public void run() {
+				buildIndex();
+			}
+		};
+		indexer.setDaemon(true);
+		indexer.setPriority(Thread.MIN_PRIORITY);
+		indexer.start();
+	}
+
+
+	/**
+	 * Scans the file for newlines, recording the start of every
+	 * <code>INDEX_INTERVAL</code>th line and publishing the number of lines
+	 * found every so often.
+	 */
+	private void buildIndex() {
+
+		long[] idx = index;
+		int count = 1;
+		int nextPublish = PUBLISH_INTERVAL;
+
+		long offset = bomLength;
+		for (int r=0; r<regions.length && !closed; r++) {
+			MappedByteBuffer region = regions[r];
+			if (region==null) {
+				break;
+			}
+			long regionStart = (long)r << REGION_BITS;
+			int end = region.limit();
+			for (int i=(int)(offset-regionStart); i<end; i++) {
+				if (region.get(i)=='\n') {
+					if (count%INDEX_INTERVAL==0) {
+						int k = count / INDEX_INTERVAL;
+						if (k==idx.length) {
+							idx = Arrays.copyOf(idx, 2*k);
+							index = idx;
+						}
+						idx[k] = regionStart + i + 1;
+					}
+					count++;
+					if (count==nextPublish) {
+						lineCount = count;
+						nextPublish += PUBLISH_INTERVAL;
+						if (closed) {
+							return;
+						}
+					}
+				}
+			}
+			offset = regionStart + end;
+		}
+
+		if (!closed) {
+			lineCount = count;
+			indexed = true;
+		}
+
+	}
+
+
+	/**
+	 * Reads lines of the file.  The text of each line is decoded into a
+	 * buffer that is reused for the next, and reading lines in order
+	 * (as painting and searching do) finds each one's start from the end of
+	 * the one before it, so searching need not wait for the index.
+	 * Instances are not thread safe.
+	 */
+	class LineReader {
+
+		private CharsetDecoder decoder;
+		private byte[] bytes;
+		private ByteBuffer byteBuf;
+		private CharBuffer charBuf;
+		private int lastLine;
+		private long lastStart;
+		private long lastEnd;
+		private long lastNext;
+
+		/**
+		 * Constructor.
+		 */
+		LineReader() {
+			decoder = charset.newDecoder().
+						onMalformedInput(CodingErrorAction.REPLACE).
+						onUnmappableCharacter(CodingErrorAction.REPLACE);
+			bytes = new byte[MAX_LINE_BYTES];
+			byteBuf = ByteBuffer.wrap(bytes);
+			charBuf = CharBuffer.allocate((int)Math.ceil(MAX_LINE_BYTES *
+									(double)decoder.maxCharsPerByte()));
+			lastLine = -1;
+		}
+
+		/**
+		 * Returns whether a line exists.  Lines past those indexed so far
+		 * can still be read in order, one after another, as searching does.
+		 *
+		 * @param line The line.
+		 * @return Whether the line exists.  This is <code>true</code> for
+		 *         lines less than {@link MappedTextFile#getLineCount()}, and
+		 *         for the line after the one last read if that line ended
+		 *         with a newline.
+		 */
+		boolean exists(int line) {
+			if (line<lineCount) {
+				return true;
+			}
+			return lastLine>=0 && line==lastLine+1 && lastNext>lastEnd;
+		}
+
+		/**
+		 * Returns the byte offset at which a line ends, not including its
+		 * terminator.
+		 *
+		 * @param line The line, which must exist.
+		 * @return The offset.
+		 */
+		long getLineEndOffset(int line) {
+			locate(line);
+			return lastEnd;
+		}
+
+		/**
+		 * Returns the byte offset at which a line starts.
+		 *
+		 * @param line The line, which must exist.
+		 * @return The offset.
+		 */
+		long getLineStartOffset(int line) {
+			locate(line);
+			return lastStart;
+		}
+
+		/**
+		 * Returns the text of a line.
+		 *
+		 * @param line The line, which must exist.
+		 * @param s The segment to point at the line's text, which is valid
+		 *        until the next line is read.  Lines longer than
+		 *        {@link MappedTextFile#MAX_LINE_BYTES} bytes are truncated.
+		 * @return Whether the line was truncated.
+		 */
+		boolean getLine(int line, Segment s) {
+
+			locate(line);
+			long byteCount = lastEnd - lastStart;
+			boolean truncated = byteCount>MAX_LINE_BYTES;
+			int count = (int)Math.min(byteCount, MAX_LINE_BYTES);
+			for (int i=0; i<count; i++) {
+				bytes[i] = (byte)getByte(lastStart+i);
+			}
+
+			byteBuf.clear().limit(count);
+			charBuf.clear();
+			decoder.reset();
+			decoder.decode(byteBuf, charBuf, true);
+			decoder.flush(charBuf);
+
+			s.array = charBuf.array();
+			s.offset = 0;
+			s.count = charBuf.position();
+			return truncated;
+
+		}
+
+		/**
+		 * Finds the start and end of a line, skipping forward from the line
+		 * last found if it's in the same index interval, and from the
+		 * closest indexed line otherwise.
+		 */
+		private void locate(int line) {
+
+			if (line==lastLine) {
+				return;
+			}
+
+			long offset;
+			int from;
+			if (lastLine>=0 && line>lastLine && (line==lastLine+1 ||
+					line/INDEX_INTERVAL==lastLine/INDEX_INTERVAL)) {
+				offset = lastNext;
+				from = lastLine + 1;
+			}
+			else {
+				offset = index[line/INDEX_INTERVAL];
+				from = line - line%INDEX_INTERVAL;
+			}
+
+			for (; from<line; from++) {
+				offset = skipLine(offset);
+			}
+
+			lastLine = line;
+			lastStart = offset;
+			lastNext = skipLine(offset);
+			long end = lastNext;
+			if (end>offset && getByte(end-1)=='\n') {
+				end--;
+				if (end>offset && getByte(end-1)=='\r') {
+					end--;
+				}
+			}
+			lastEnd = end;
+
+		}
+
+		/**
+		 * Returns the offset just past the newline ending the line at an
+		 * offset, or the end of the file.
+		 */
+		private long skipLine(long offset) {
+			while (offset<length) {
+				if (getByte(offset++)=='\n') {
+					break;
+				}
+			}
+			return offset;
+		}
+
+	}
+
+
+}
@@ -51,7 +51,7 @@ class OpenFileFromHistoryAction extends StandardAction {
 
 		// Attempt to add the old text file.
 		// "null" encoding means check for Unicode before using default.
-		mainView.openFile(fileFullPath, null);
+		mainView.openFileInBackground(fileFullPath, null);
 
 	}
 
@@ -18,10 +18,13 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.KeyEvent;
 import java.awt.print.PageFormat;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.regex.Matcher;
@@ -36,26 +39,24 @@ import javax.swing.event.DocumentListener;
 import org.fife.print.RPrintUtilities;
 import org.fife.rtext.actions.ToggleBreakpointAction;
 import org.fife.rtext.plugins.debug.Breakpoint;
-import org.fife.ui.autocomplete.AutoCompleteRunner;
+import org.fife.ui.autocomplete.AutoCompleteScheduler;
 import org.fife.ui.autocomplete.AutoCompletion;
 import org.fife.ui.autocomplete.Completion;
+import org.fife.ui.autocomplete.CompletionTimings;
 import org.fife.ui.rsyntaxtextarea.FileLocation;
-import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
 import org.fife.ui.rsyntaxtextarea.RSyntaxUtilities;
 import org.fife.ui.rsyntaxtextarea.TextEditorPane;
-import org.fife.ui.rsyntaxtextarea.Token;
-import org.fife.ui.rsyntaxtextarea.TokenTypes;
 import org.fife.ui.rtextarea.Gutter;
 import org.fife.ui.rtextarea.RTATextTransferHandler;
 
 import javax.swing.*;
 import javax.swing.text.AbstractDocument;
-import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Caret;
+import javax.swing.text.DefaultEditorKit;
 import javax.swing.text.Document;
 import javax.swing.text.DocumentFilter;
-import javax.swing.text.Element;
+import javax.swing.text.Segment;
 
 import org.fife.ui.autocomplete.*;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
@@ -86,6 +87,12 @@ public class RTextEditorPane extends TextEditorPane {
 	 */
 	private volatile boolean editingEnabled = true;
 
+	/**
+	 * Whether this text area's file is still being read in the background.
+	 * Until it has been, the document is empty and must not be saved.
+	 */
+	private LoadState loadState;
+
 	/**
 	 * Creates a new <code>RTextEditorPane</code>.  Syntax highlighting will
 	 * be selected as follows:  filenames ending in <code>".java"</code>
@@ -109,10 +116,189 @@ public class RTextEditorPane extends TextEditorPane {
 		setTransferHandler(new RTextEditorPaneTransferHandler());
 		setTabsEmulated(false); //Ensure that this text area uses tabs so we can catch them in our custom filter
 		//Add a document filter to provide custom spacing options and to control breakpoints
-		((AbstractDocument) this.getDocument()).setDocumentFilter(new SpaceControlFilter());
+		((AbstractDocument) this.getDocument()).setDocumentFilter(new EditorSpaceControlFilter());
+	}
+
+
+	/**
+	 * Creates a new <code>RTextEditorPane</code> whose file may be read
+	 * later.  If it is, the text area is given its file location and
+	 * encoding, but is left empty and not editable until
+	 * {@link #setLoadedText(String, String)} is called with the file's text.
+	 *
+	 * @param rtext The owning RText instance.
+	 * @param wordWrapEnabled Whether or not to use word wrap in this pane.
+	 * @param textMode Either <code>INSERT_MODE</code> or
+	 *        <code>OVERWRITE_MODE</code>.
+	 * @param loc The location of the file to open.
+	 * @param encoding The encoding of the file.
+	 * @param readLater Whether to leave the file to be read later, rather
+	 *        than reading it now.
+	 * @throws IOException If an IO error occurs reading the file, or when
+	 *         reading it later, checking it for a byte order mark.
+	 * @see #isLoading()
+	 */
+	RTextEditorPane(Savu rtext, boolean wordWrapEnabled, int textMode,
+			FileLocation loc, String encoding, boolean readLater)
+			throws IOException {
+		super(textMode, wordWrapEnabled);
+		this.rtext = rtext;
+		setTransferHandler(new RTextEditorPaneTransferHandler());
+		setTabsEmulated(false);
+		// When reading later, load() only looks for a byte order mark to
+		// pick the encoding; read() below skips reading the rest of the file.
+		loadState = new LoadState(readLater);
+		load(loc, encoding);
+		if (loc.isLocalAndExists()) {
+			syncLastSaveOrLoadTimeToActualFile();
+			setReadOnly(!new File(loc.getFileFullPath()).canWrite());
+		}
+		setEditable(!readLater);
+
+		((AbstractDocument) this.getDocument()).setDocumentFilter(new EditorSpaceControlFilter());
+	}
+
+
+	/**
+	 * Returns whether this text area's document contains any tabs.
+	 *
+	 * @return Whether the document contains tabs.
+	 */
+	public boolean containsTabs() {
+		Document doc = getDocument();
+		Segment s = new Segment();
+		s.setPartialReturn(true);
+		int offs = 0;
+		int end = doc.getLength();
+		try {
+			while (offs<end) {
+				doc.getText(offs, end-offs, s);
+				for (int i=s.offset; i<s.offset+s.count; i++) {
+					if (s.array[i]=='\t') {
+						return true;
+					}
+				}
+				offs += s.count;
+			}
+		} catch (BadLocationException ble) { // Never happens
+			ble.printStackTrace();
+		}
+		return false;
+	}
+
+
+	/**
+	 * Returns whether this text area's file is still being read in the
+	 * background.
+	 *
+	 * @return Whether the file is being read.
+	 * @see #setLoadedText(String, String)
+	 */
+	public boolean isLoading() {
+		return loadState!=null && loadState.isLoading();
+	}
+
+
+	/**
+	 * Overridden to skip reading the file while this text area is being
+	 * created to load it later.
+	 */
+	@Override
+	public void read(Reader in, Object desc) throws IOException {
+		if (!isLoading()) {
+			super.read(in, desc);
+		}
+	}
+
+
+	/**
+	 * Overridden to do nothing while this text area's file is still being
+	 * read, since until then the file on disk already holds what the
+	 * document will.
+	 */
+	@Override
+	public void save() throws IOException {
+		if (loadState==null || loadState.shouldSave()) {
+			super.save();
+		}
+	}
+
+
+	/**
+	 * Overridden to refuse to save while this text area's file is still
+	 * being read, since the document is still empty.
+	 *
+	 * @throws IOException If the file is still being read, or an IO error
+	 *         occurs.
+	 */
+	@Override
+	public void saveAs(FileLocation loc) throws IOException {
+		if (loadState!=null) {
+			loadState.checkSaveAs(getFileFullPath());
+		}
+		super.saveAs(loc);
 	}
 
 
+	/**
+	 * Runs an action once this text area's file has been read.  If it
+	 * already has been, or was never read in the background, the action is
+	 * run right away.
+	 *
+	 * @param action The action to run.
+	 * @see #isLoading()
+	 */
+	void runWhenLoaded(Runnable action) {
+		if (loadState!=null) {
+			loadState.runWhenLoaded(action);
+		}
+		else {
+			action.run();
+		}
+	}
+
+
+	/**
+	 * Gives this text area the text of its file, once it has been read in
+	 * the background.  The text is inserted as-is, without going through
+	 * the document filter, and the text area is left unmodified and
+	 * editable.  Actions waiting for the file are then run.
+	 *
+	 * @param text The text of the file, with lines terminated by
+	 *        <code>'\n'</code>.
+	 * @param lineSeparator The line terminator the file uses.
+	 * @param convertTabs Whether to convert the file's tabs to spaces.
+	 * @see #isLoading()
+	 * @see #runWhenLoaded(Runnable)
+	 */
+	void setLoadedText(String text, String lineSeparator,
+			boolean convertTabs) {
+		AbstractDocument doc = (AbstractDocument)getDocument();
+		DocumentFilter filter = doc.getDocumentFilter();
+		// Like load(), don't let the insertion mark us dirty.
+		doc.removeDocumentListener(this);
+		doc.setDocumentFilter(null);
+		try {
+			doc.insertString(0, text, null);
+		} catch (BadLocationException ble) { // Never happens
+			ble.printStackTrace();
+		} finally {
+			doc.setDocumentFilter(filter);
+			doc.addDocumentListener(this);
+		}
+		doc.putProperty(DefaultEditorKit.EndOfLineStringProperty,
+						lineSeparator);
+		setCaretPosition(0);
+		discardAllEdits();
+		setEditable(true);
+		if (convertTabs) {
+			convertTabsToSpaces();
+		}
+		loadState.loaded();
+	}
+
+
+
 	/**
 	 * Method called when it's time to print this badboy (the old-school, AWT
 	 * way).  This method overrides <code>RTextArea</code>'s <code>print</code>
@@ -153,19 +339,19 @@ public class RTextEditorPane extends TextEditorPane {
 
 	/**
 	 * Method called to add autocomplete objects to this pane
-	 * Also will start the <code>AutoCompleteRunner</code> running in the background
+	 * Also registers this pane with the shared <code>AutoCompleteScheduler</code>,
+	 * which keeps its completions up to date as it is edited
 	 * 
 	 */
 	public void addAutoComplete(){
 		provider = createCompletionProvider();
+		provider.installSymbolTable(this);
+		PythonModuleCache.getSharedInstance().prewarm();
 		provider.setAutoActivationRules(true, ".");
 		AutoCompletion ac = new AutoCompletion(provider);
 		ac.install(this);
 		ac.setAutoActivationEnabled(true);
-		AutoCompleteRunner runner = new AutoCompleteRunner(rtext, 200);
-		//Thread runnerThread = new Thread(runner);
-		runner.setUncaughtExceptionHandler(new AutoCompleteExceptionHandler());
-		runner.start();
+		AutoCompleteScheduler.getInstance().install(this);
 	}
 		
 	
@@ -182,34 +368,48 @@ public class RTextEditorPane extends TextEditorPane {
 	
 	
 	/**
-	 * Populates the autocompletion options 
+	 * Populates the autocompletion options.  This is called by the
+	 * <code>AutoCompleteScheduler</code> on its own thread, after this pane
+	 * has been edited or its caret has moved to another line.
 	 */
 	public void populateAutoComplete(){
-		Document doc = this.getDocument();
-		String text = "";
-		try {
-			// Only give it the text up to the current caret position
-			// Keeps things in scope
-			text = doc.getText(0, doc.getLength());
-		} catch (BadLocationException e) {
-			//Make sure the location exists (lol)
-			e.printStackTrace();
-		}
+		long start = System.nanoTime();
+		final Document doc = this.getDocument();
+		final String[] text = { "" };
+		final int[] caret = new int[1];
+		// Read the text and caret together, so they're consistent.
+		doc.render(new Runnable() {
+			public void run() {
+				try {
+					text[0] = doc.getText(0, doc.getLength());
+				} catch (BadLocationException e) {
+					//Make sure the location exists (lol)
+					e.printStackTrace();
+				}
+				caret[0] = Math.min(getCaretPosition(), text[0].length());
+			}
+		});
+		long time = CompletionTimings.DOCUMENT_COPY.recordSince(start);
 		
 		HashSet<Completion> completionOptions;
 
 		//All the methods return a hashset to make sure that duplicates don't get added
-		completionOptions = provider.getLocalCompletionOptions(text,this.getCaretPosition());
-		completionOptions.addAll(provider.getGlobalCompletionOptions(text, doc.getLength()));
-		completionOptions.addAll(provider.getClassCompletionOptions(text));
+		completionOptions = provider.getLocalCompletionOptions(text[0], caret[0]);
+		time = CompletionTimings.LOCAL_OPTIONS.recordSince(time);
+		completionOptions.addAll(provider.getGlobalCompletionOptions(text[0], text[0].length()));
+		time = CompletionTimings.GLOBAL_OPTIONS.recordSince(time);
+		completionOptions.addAll(provider.getClassCompletionOptions(text[0]));
+		time = CompletionTimings.CLASS_OPTIONS.recordSince(time);
 		completionOptions.addAll(provider.getBuiltInCompletionOptions());
-		String filePath = rtext.getMainView().getCurrentTextArea().getFileFullPath();
+		time = CompletionTimings.BUILT_IN_OPTIONS.recordSince(time);
+		String filePath = getFileFullPath();
 		String dirPath = "";
 		Matcher m = Pattern.compile("(.*)/.*[.].*").matcher(filePath);
 		if (m.find()){
 			dirPath = m.group(1);
 		}
-		completionOptions.addAll(provider.getImportCompletionOptions(text, this.getCaretPosition(), dirPath));
+		completionOptions.addAll(provider.getImportCompletionOptions(text[0], caret[0], dirPath));
+		time = CompletionTimings.IMPORT_OPTIONS.recordSince(time);
 		//need to convert to an arraylist at the end to feed to addCompletions
 		ArrayList<Completion> completions = new ArrayList<Completion>(completionOptions);
 		
@@ -222,11 +422,13 @@ public class RTextEditorPane extends TextEditorPane {
 		}
 		
 		
-		// Not too sure why this needs to be synchronized as no other thread should be accessing this, but I guess it is somehow
+		// Only the completions that changed are added or removed, so the
+		// provider doesn't re-sort everything on every update
 		synchronized(provider){
-			provider.clear();
-			provider.addCompletions(completions);
+			provider.updateCompletions(completions);
 		}
+		CompletionTimings.UPDATE_COMPLETIONS.recordSince(time);
+		CompletionTimings.POPULATE.recordSince(start);
 	}
 	
 	/**
@@ -272,170 +474,58 @@ public class RTextEditorPane extends TextEditorPane {
 	}
 	
 	/**
-	 * A class that extends <code>DocumentFilter</code> looking for times when the user removes a single space
-	 * at the start of a line and adding "back-tab" functionality.
-	 * 
-	 * @author PyDe
-	 *
+	 * The filter that controls spacing in this text area's document.  After
+	 * edits, it checks whether any of this text area's breakpoints are now
+	 * on lines that can't have one, such as a line that has been emptied or
+	 * commented out.  The check is done once for a whole batch of edits,
+	 * after they're done, and only if this text area has breakpoints.
 	 */
-	class SpaceControlFilter extends DocumentFilter {
-		
+	private class EditorSpaceControlFilter extends SpaceControlFilter
+											implements Runnable {
+
+		private boolean breakpointCheckPending;
+
 		@Override
-		public void insertString(DocumentFilter.FilterBypass fb, int offset, String string, AttributeSet attr) throws BadLocationException {
-			if (!editingEnabled || rtext.isGlobalEditingLocked())
-				return;
-			StringBuilder spaces = new StringBuilder();
-			for (int i = 0; i < rtext.getTabSize(); i++) {
-				spaces.append(" ");
-			}
-			String newString = string.replaceAll("\t", spaces.toString()); //Replace with a tab composed of spaces equal to the tab-stop size.
-			int charsAdded = newString.length() - string.length();
-			super.insertString(fb, offset, newString, attr);
+		protected int getTabSize() {
+			return rtext.getTabSize();
 		}
-		
+
 		@Override
-		public void replace(DocumentFilter.FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
-			if (!editingEnabled || rtext.isGlobalEditingLocked())
-				return;
-		
-			//Breakpoint updating code
-			int changedLine = getLineOfOffset(offset);	
-			int lineStart = getLineStartOffset(changedLine); 
-			int line = getLineOfOffset(lineStart);
-			//String fullLineText = getText(lineStart, getLineEndOffset(changedLine) - lineStart).trim();
-			RSyntaxDocument rd = (RSyntaxDocument) getDocument();
-			Token firstTokenInLine = null;
-			try {
-				firstTokenInLine = rd.getTokenListForLine(line); //Returns the first token on this line
-			} catch (NullPointerException ex) {
-				//Just continue; need to catch this due to an unknown bug in the RSyntaxTextArea code.
-			}
-			if (firstTokenInLine != null) {
-				switch (firstTokenInLine.getType()) {
-					case TokenTypes.COMMENT_DOCUMENTATION:
-					case TokenTypes.COMMENT_EOL:
-					case TokenTypes.COMMENT_MULTILINE:
-					case TokenTypes.COMMENT_KEYWORD:
-					case TokenTypes.COMMENT_MARKUP:
-					case TokenTypes.LITERAL_CHAR: //Line has become commented
-						updateBreakpoints(line+1);
-						break;
-					default:
-						break;
-				}
-			}
-			
-			//Tab replacement code
-			if (text.contains("\t")) { //Replacement contains a tab
-				if (length != 0) { //This is a replacement of a text selection on a single line
-					StringBuilder spaces = new StringBuilder();
-					for (int i = 0; i < rtext.getTabSize(); i++) {
-						spaces.append(" ");
-					}
-					text = text.replaceAll("\t", spaces.toString()); //Replace with a tab composed of spaces equal to the tab-stop size.
-					super.replace(fb, offset, length, text, attrs);
-				} else { //Normal tab key press
-					int tabSize = rtext.getTabSize();
-					Document d = getDocument();
-					Element root = d.getDefaultRootElement();
-					Element elem = root.getElement(root.getElementIndex(offset)); //Extract the element for this line from the text
-					int start = elem.getStartOffset();
-					String lineText = d.getText(start, elem.getEndOffset() - start); //Extract the line text itself
-					Matcher m = Pattern.compile("[^ ]").matcher(lineText);
-					int firstNonWhitespaceOffset;
-					if (m.find()) { //Found a non-space character on the line
-						firstNonWhitespaceOffset =  m.start();
-					} else { //Line contains only whitespace; appears to never happen, as each Element contains an implicit or literal \n
-						firstNonWhitespaceOffset = 0;
-					}
-					int distFromStop = firstNonWhitespaceOffset % tabSize;
-					int whitespaceToInsert = tabSize - distFromStop; //Use the separation between the first non-space character and the nearest tab stop as the number of spaces to insert
-					StringBuilder spaces = new StringBuilder();
-					for (int i = 0; i < whitespaceToInsert; i++) {
-						spaces.append(" ");
-					}
-					text = text.replaceAll("\t", spaces.toString()); //Replace any tabs
-					if (text.contains("\n")) {
-						super.replace(fb, offset, length, text, attrs); //Multi-line insert, so insert at cursor position
-					} else {
-						super.replace(fb, start, length, text, attrs); //insert at the start of the line
-					}
-				}
-			} else { //No tab
-				super.replace(fb, offset, length, text, attrs);	
-			}
+		protected boolean isEditingAllowed() {
+			return editingEnabled && !rtext.isGlobalEditingLocked();
 		}
-		
-		@Override
-		public void remove(DocumentFilter.FilterBypass fb, int offset, int length) throws BadLocationException{
-			if (!editingEnabled || rtext.isGlobalEditingLocked())
+
+		/**
+		 * Removes breakpoints on lines that can no longer have one.
+		 */
+		public void run() {
+			breakpointCheckPending = false;
+			ArrayList<Breakpoint> breakpoints = rtext.getBreakpointsDictionary().get(RTextEditorPane.this);
+			if (breakpoints==null) {
 				return;
-			
-			//Breakpoint updating code
-			int changedLine = getLineOfOffset(offset);	
-			int lineStart = getLineStartOffset(changedLine); 
-			String text = getText(lineStart, getLineEndOffset(changedLine) - lineStart).trim();
-			String removedText = "";
-			try {
-				removedText = text.substring(offset - lineStart, offset - lineStart + length).trim();
-			} catch (StringIndexOutOfBoundsException e) {
-				//can continue with removedText = ""
 			}
-			if (text.equals(removedText)) { //Line has become empty / only whitespace
-				updateBreakpoints(changedLine+1);
-			}
-			
-			//Tab deletion code
-			// If only greater than one character is removed, it's not a space and we can remove as normal
-			if (length > 1) {
-				super.remove(fb, offset, length);
-			}
-			// If only one character was removed, check if it's a space then proceed accordingly
-			else {
-				Document d = getDocument();
-				String deletedText = d.getText(offset, length);
-				// The character removed was a space
-				if (deletedText.equals(" ")) {
-					//Get the text on the line before the completion
-					Element root = d.getDefaultRootElement();
-					int index = root.getElementIndex(offset);
-					Element elem = root.getElement(index);
-					int start = elem.getStartOffset();
-					int lineLength = offset-start;
-					String lineText = d.getText(start, lineLength);
-					// Is entire line prior to this point whitespace? If not, remove as normal
-					if (!lineText.matches("^ +$")) {
-						super.remove(fb, offset, length);
-					} else {
-						// If entire line is whitespace, remove spaces until we're at the last tab stop
-						int tabSize = rtext.getTabSize();
-						int distFromStop = lineLength % tabSize;
-						super.remove(fb, offset-distFromStop, length+distFromStop);
+			Gutter g = RSyntaxUtilities.getGutter(RTextEditorPane.this);
+			for (Iterator<Breakpoint> i=breakpoints.iterator(); i.hasNext(); ) {
+				Breakpoint b = i.next();
+				if (!b.isLineValid()) {
+					i.remove();
+					if (g!=null) {
+						g.removeTrackingIcon(b.getGutterIconInfo());
 					}
-				} else { //A non-space character was deleted.
-					super.remove(fb, offset, length);
 				}
 			}
 		}
-		
-		private void updateBreakpoints(int line) {
-			ArrayList<Breakpoint> breakpoints = rtext.getBreakpointsDictionary().get(RTextEditorPane.this);
-			if (breakpoints == null)
-				return;
-			ArrayList<Breakpoint> toDel = new ArrayList<Breakpoint>();
-			//Search for breakpoints that may need to be removed
-			for (Breakpoint b : breakpoints) {
-				if (b.getLineNum() == line) {
 
-					toDel.add(b);
+		@Override
+		protected void textChanged() {
+			if (!breakpointCheckPending) {
+				List<Breakpoint> breakpoints = rtext.getBreakpointsDictionary().get(RTextEditorPane.this);
+				if (breakpoints!=null && !breakpoints.isEmpty()) {
+					breakpointCheckPending = true;
+					SwingUtilities.invokeLater(this);
 				}
 			}
-			//Actually remove the breakpoints
-			Gutter g = RSyntaxUtilities.getGutter(RTextEditorPane.this);
-			for (Breakpoint b : toDel) {
-				breakpoints.remove(b);
-				g.removeTrackingIcon(b.getGutterIconInfo());
-			}
 		}
+
 	}
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.KeyStroke;
 import javax.swing.UIManager;
 
+import org.fife.io.IgnoreRules;
 import org.fife.ui.StatusBar;
 import org.fife.ui.app.GUIApplicationPreferences;
 import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
@@ -57,6 +58,13 @@ public class RTextPreferences extends GUIApplicationPreferences
 	 */
 	public static final Color DEFAULT_SPELLING_ERROR_COLOR = new Color(255,128,64);
 
+	/**
+	 * The default names of files and folders skipped by Find in Files and
+	 * the file system tree, separated by spaces.
+	 */
+	public static final String DEFAULT_IGNORED_FILE_NAMES =
+							getDefaultIgnoredFileNames();
+
 	private static final String NOTHING_STRING = "-";
 
 
@@ -118,12 +126,15 @@ public class RTextPreferences extends GUIApplicationPreferences
 	public boolean doFileSizeCheck;
 	public float maxFileSize;					// In MB.
 	public boolean ignoreBackupExtensions;
+	public boolean skipIgnoredFiles;
+	public String ignoredFileNames;
 	public Font textAreaFont;					// Default text area font.
 	public boolean textAreaUnderline;				// Is default font underlined?
 	public Color textAreaForeground;
 	public ComponentOrientation textAreaOrientation;
 	public boolean showHostName;
 	public boolean bomInUtf8;
+	public boolean convertTabsOnOpen;
 	public boolean bookmarksEnabled;
 	public Font lineNumberFont;
 	public Color lineNumberColor;
@@ -240,12 +251,15 @@ public class RTextPreferences extends GUIApplicationPreferences
 		props.doFileSizeCheck			= mainView.getDoFileSizeCheck();
 		props.maxFileSize				= mainView.getMaxFileSize();
 		props.ignoreBackupExtensions	= mainView.getIgnoreBackupExtensions();
+		props.skipIgnoredFiles			= mainView.getSkipIgnoredFiles();
+		props.ignoredFileNames			= mainView.getIgnoredFileNames();
 		props.textAreaFont				= mainView.getTextAreaFont();
 		props.textAreaUnderline			= mainView.getTextAreaUnderline();
 		props.textAreaForeground			= mainView.getTextAreaForeground();
 		props.textAreaOrientation		= mainView.getTextAreaOrientation();
 		props.showHostName				= rtext.getShowHostName();
 		props.bomInUtf8				= mainView.getWriteBOMInUtf8Files();
+		props.convertTabsOnOpen		= mainView.getConvertTabsOnOpen();
 		props.bookmarksEnabled			= mainView.getBookmarksEnabled();
 		props.lineNumberFont			= mainView.getLineNumberFont();
 		props.lineNumberColor			= mainView.getLineNumberColor();
@@ -286,6 +300,15 @@ public class RTextPreferences extends GUIApplicationPreferences
 	}
 
 
+	private static String getDefaultIgnoredFileNames() {
+		StringBuilder sb = new StringBuilder();
+		for (String name : IgnoreRules.DEFAULT_EXCLUDES) {
+			sb.append(sb.length()>0 ? " " : "").append(name);
+		}
+		return sb.toString();
+	}
+
+
 	private static Font getFontImpl(String str) {
 		StringTokenizer t2 = new StringTokenizer(str, ",");
 		String fontName = t2.nextToken();
@@ -394,6 +417,7 @@ public class RTextPreferences extends GUIApplicationPreferences
 			props.dividerLocations[Savu.RIGHT]= prefs.getInt("pluginDividerLocation.right", props.dividerLocations[Savu.RIGHT]);
 			props.showHostName				= prefs.getBoolean("showHostName", props.showHostName);
 			props.bomInUtf8				= prefs.getBoolean("bomInUtf8", props.bomInUtf8);
+			props.convertTabsOnOpen		= prefs.getBoolean("convertTabsOnOpen", props.convertTabsOnOpen);
 			props.bookmarksEnabled			= prefs.getBoolean("bookmarksEnabled", props.bookmarksEnabled);
 			temp							= prefs.get("lineNumberFont", null);
 			if (temp!=null) {
@@ -491,6 +515,8 @@ public class RTextPreferences extends GUIApplicationPreferences
 			props.doFileSizeCheck		= prefs.getBoolean("fileSizeCheck", props.doFileSizeCheck);
 			props.maxFileSize			= prefs.getFloat("maxFileSize", props.maxFileSize);
 			props.ignoreBackupExtensions= prefs.getBoolean("ignoreBackupExtensions", props.ignoreBackupExtensions);
+			props.skipIgnoredFiles		= prefs.getBoolean("skipIgnoredFiles", props.skipIgnoredFiles);
+			props.ignoredFileNames		= prefs.get("ignoredFileNames", props.ignoredFileNames);
 			temp						= prefs.get("textAreaFont", null);
 			if (temp!=null) {
 				props.textAreaFont = getFontImpl(temp);
@@ -607,6 +633,7 @@ public class RTextPreferences extends GUIApplicationPreferences
 		prefs.putInt("pluginDividerLocation.right",		dividerLocations[Savu.RIGHT]);
 		prefs.putBoolean("showHostName",				showHostName);
 		prefs.putBoolean("bomInUtf8",					bomInUtf8);
+		prefs.putBoolean("convertTabsOnOpen",			convertTabsOnOpen);
 		prefs.putBoolean("bookmarksEnabled",			bookmarksEnabled);
 		prefs.put("lineNumberFont",					lineNumberFont==null ? "null" : lineNumberFont.getName() + ","
 													+ lineNumberFont.getSize() + "," + lineNumberFont.isBold() +
@@ -676,6 +703,8 @@ public class RTextPreferences extends GUIApplicationPreferences
 		prefs.putBoolean("fileSizeCheck",				doFileSizeCheck);
 		prefs.putFloat("maxFileSize",					maxFileSize);
 		prefs.putBoolean("ignoreBackupExtensions",		ignoreBackupExtensions);
+		prefs.putBoolean("skipIgnoredFiles",			skipIgnoredFiles);
+		prefs.put("ignoredFileNames",					ignoredFileNames);
 		prefs.put("textAreaFont",					textAreaFont==null ? "null" : textAreaFont.getName() + ","
 													+ textAreaFont.getSize() + "," + textAreaFont.isBold() +
 													"," + textAreaFont.isItalic());
@@ -796,12 +825,15 @@ public class RTextPreferences extends GUIApplicationPreferences
 		doFileSizeCheck	= true;
 		maxFileSize		= 10f;	// MB.
 		ignoreBackupExtensions = true;
+		skipIgnoredFiles = true;
+		ignoredFileNames = DEFAULT_IGNORED_FILE_NAMES;
 		textAreaFont		= RTextArea.getDefaultFont();
 		textAreaUnderline	= false;
 		textAreaForeground	= RTextArea.getDefaultForeground();
 		textAreaOrientation = ComponentOrientation.LEFT_TO_RIGHT;
 		showHostName		= false;
 		bomInUtf8			= false;
+		convertTabsOnOpen	= false;
 		bookmarksEnabled	= true;
 		lineNumberFont		= new Font("Monospaced", Font.PLAIN, 12);
 		lineNumberColor	= Color.GRAY;
@@ -796,7 +796,8 @@ public class RTextUtilities {
 				if (files[i].isDirectory()) {
 					openAllFilesIn(rtext, files[i]);
 				} else {
-					rtext.openFile(files[i].getAbsolutePath());
+					rtext.getMainView().openFileInBackground(
+							files[i].getAbsolutePath(), null);
 				}
 			}
 		}
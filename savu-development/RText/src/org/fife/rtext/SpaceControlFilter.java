@@ -0,0 +1,267 @@
+/*
+ * 10/17/2026
+ *
+ * SpaceControlFilter.java - A document filter that replaces tabs with spaces
+ * and makes indentation behave like tab stops.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+
+
+/**
+ * A <code>DocumentFilter</code> that keeps tabs out of a document by
+ * replacing them with spaces, makes the Tab key indent the caret's line to
+ * the next tab stop, and makes removing a single space from a line's leading
+ * whitespace remove back to the previous tab stop ("back-tab").<p>
+ *
+ * The filter runs on every keystroke, so ordinary typing takes a fast path:
+ * text without tabs is passed straight through, and a single-character
+ * removal only looks at the characters it needs to.  No regular expressions
+ * are used, the document's text is read into a reused <code>Segment</code>
+ * rather than copied into strings, and nothing is allocated unless a tab
+ * actually has to be expanded.  Work that doesn't have to happen before the
+ * edit, such as checking which breakpoints it invalidated, belongs in
+ * {@link #textChanged()}, which should only schedule it to be done later.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+abstract class SpaceControlFilter extends DocumentFilter {
+
+	/**
+	 * Strings of spaces, indexed by their length, for expanding tabs
+	 * without allocating.
+	 */
+	private static final String[] SPACES;
+
+	/**
+	 * The longest run of spaces kept in {@link #SPACES}.
+	 */
+	private static final int MAX_CACHED_SPACES		= 32;
+
+	/**
+	 * Reused to read the document's text.  The filter is only called on the
+	 * EDT, with the document locked.
+	 */
+	private Segment s;
+
+	static {
+		SPACES = new String[MAX_CACHED_SPACES+1];
+		StringBuilder sb = new StringBuilder(MAX_CACHED_SPACES);
+		for (int i=0; i<=MAX_CACHED_SPACES; i++) {
+			SPACES[i] = sb.toString();
+			sb.append(' ');
+		}
+	}
+
+
+	/**
+	 * Constructor.
+	 */
+	SpaceControlFilter() {
+		s = new Segment();
+		s.setPartialReturn(true);
+	}
+
+
+	/**
+	 * Returns the number of spaces at the start of a range of a document.
+	 *
+	 * @param doc The document.
+	 * @param offs The start of the range.
+	 * @param end The end of the range.
+	 * @return The number of spaces before the first other character in the
+	 *         range, or the length of the range if it is all spaces.
+	 * @throws BadLocationException If the range is invalid.
+	 */
+	private int countSpaces(Document doc, int offs, int end)
+			throws BadLocationException {
+		int count = 0;
+		while (offs<end) {
+			doc.getText(offs, end-offs, s);
+			for (int i=s.offset, segEnd=s.offset+s.count; i<segEnd; i++) {
+				if (s.array[i]!=' ') {
+					return count;
+				}
+				count++;
+			}
+			offs += s.count;
+		}
+		return count;
+	}
+
+
+	/**
+	 * Returns text with each of its tabs replaced by spaces.
+	 *
+	 * @param text The text.  This may be <code>null</code>.
+	 * @param width The number of spaces to replace each tab with.
+	 * @return The text with tabs replaced.  If the text contains no tabs, it
+	 *         is returned as-is.
+	 */
+	static String expandTabs(String text, int width) {
+		int tab = text==null ? -1 : text.indexOf('\t');
+		if (tab==-1) {
+			return text;
+		}
+		String spaces = getSpaces(width);
+		if (text.length()==1) { // The Tab key
+			return spaces;
+		}
+		StringBuilder sb = new StringBuilder(text.length() + 4*width);
+		int last = 0;
+		do {
+			sb.append(text, last, tab).append(spaces);
+			last = tab + 1;
+			tab = text.indexOf('\t', last);
+		} while (tab>-1);
+		sb.append(text, last, text.length());
+		return sb.toString();
+	}
+
+
+	/**
+	 * Returns the line of a document containing an offset.
+	 *
+	 * @param doc The document.
+	 * @param offs The offset.
+	 * @return The line's element.
+	 */
+	private static Element getLine(Document doc, int offs) {
+		Element root = doc.getDefaultRootElement();
+		return root.getElement(root.getElementIndex(offs));
+	}
+
+
+	/**
+	 * Returns a string of spaces.
+	 *
+	 * @param count The number of spaces.
+	 * @return The spaces.
+	 */
+	private static String getSpaces(int count) {
+		if (count<=MAX_CACHED_SPACES) {
+			return SPACES[count];
+		}
+		StringBuilder sb = new StringBuilder(count);
+		for (int i=0; i<count; i++) {
+			sb.append(' ');
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Returns the number of spaces a tab stands for.
+	 *
+	 * @return The tab size.
+	 */
+	protected abstract int getTabSize();
+
+
+	@Override
+	public void insertString(DocumentFilter.FilterBypass fb, int offset,
+			String string, AttributeSet attr) throws BadLocationException {
+		if (!isEditingAllowed()) {
+			return;
+		}
+		super.insertString(fb, offset, expandTabs(string, getTabSize()), attr);
+		textChanged();
+	}
+
+
+	/**
+	 * Returns whether the document may be edited.  If it may not, every
+	 * edit is silently dropped.
+	 *
+	 * @return Whether editing is allowed.
+	 */
+	protected abstract boolean isEditingAllowed();
+
+
+	@Override
+	public void remove(DocumentFilter.FilterBypass fb, int offset, int length)
+			throws BadLocationException {
+
+		if (!isEditingAllowed()) {
+			return;
+		}
+
+		// Removing a single space preceded only by spaces (e.g. Backspace in
+		// a line's indentation) removes back to the previous tab stop.
+		if (length==1) {
+			Document doc = fb.getDocument();
+			doc.getText(offset, 1, s);
+			if (s.count==1 && s.array[s.offset]==' ') {
+				int start = getLine(doc, offset).getStartOffset();
+				int lineLength = offset - start;
+				if (lineLength>0 &&
+						countSpaces(doc, start, offset)==lineLength) {
+					int distFromStop = lineLength % getTabSize();
+					offset -= distFromStop;
+					length += distFromStop;
+				}
+			}
+		}
+
+		super.remove(fb, offset, length);
+		textChanged();
+
+	}
+
+
+	@Override
+	public void replace(DocumentFilter.FilterBypass fb, int offset,
+			int length, String text, AttributeSet attrs)
+			throws BadLocationException {
+
+		if (!isEditingAllowed()) {
+			return;
+		}
+
+		// Ordinary typing and pastes without tabs need no work.
+		if (text!=null && text.indexOf('\t')>-1) {
+			int tabSize = getTabSize();
+			if (length!=0) { // Replacing a selection
+				text = expandTabs(text, tabSize);
+			}
+			else {
+				// Tabs go to the tab stop after the line's indentation.
+				Document doc = fb.getDocument();
+				Element line = getLine(doc, offset);
+				int start = line.getStartOffset();
+				int indent = countSpaces(doc, start, line.getEndOffset());
+				text = expandTabs(text, tabSize - indent%tabSize);
+				if (text.indexOf('\n')==-1) {
+					offset = start; // The Tab key indents the whole line
+				}
+			}
+		}
+
+		super.replace(fb, offset, length, text, attrs);
+		textChanged();
+
+	}
+
+
+	/**
+	 * Called after each edit that this filter lets through.  This is called
+	 * with the document still locked, so implementations should only queue
+	 * up any work they need to do, for example with
+	 * <code>SwingUtilities.invokeLater()</code>, coalescing it so it's done
+	 * once for a batch of edits.
+	 */
+	protected abstract void textChanged();
+
+
+}
@@ -16,6 +16,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
@@ -23,7 +24,16 @@ import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
 
 /**
  * Manages a list of wildcard file filters and what syntax highlighting
- * styles they map to.
+ * styles they map to.<p>
+ *
+ * Since a file's syntax style is looked up every time a file is opened, and
+ * for every file visited by Find in Files, the filters are compiled into a
+ * lookup structure, which is rebuilt whenever they change.  Filters without
+ * wildcards (e.g. <code>makefile</code>) and simple extension filters (e.g.
+ * <code>*.py</code>) are looked up in hash maps; all other filters are
+ * combined into a single regular expression.  If more than one filter
+ * matches a file, the first one wins, just as if they were tried one at a
+ * time.
  *
  * @author Robert Futrell
  * @version 0.1
@@ -41,6 +51,13 @@ public class SyntaxFilters implements SyntaxConstants {
 	 */
 	private Map addedFilters;
 
+	/**
+	 * The filters, compiled for fast lookups.  This is rebuilt whenever the
+	 * filters change, which is only done on the EDT, and is immutable, so
+	 * Find in Files worker threads can look up styles without locking.
+	 */
+	private volatile CompiledFilters compiled;
+
 	/**
 	 * Creates a new <code>SyntaxFilters</code> with default values for
 	 * all filters.
@@ -119,6 +136,7 @@ public class SyntaxFilters implements SyntaxConstants {
 	 */
 	public void addFileFilter(String style, String filter) {
 		getFiltersForStyle(style).add(filter);
+		compiled = new CompiledFilters(filters, addedFilters);
 	}
 
 
@@ -220,40 +238,12 @@ public class SyntaxFilters implements SyntaxConstants {
 			fileName = RTextUtilities.stripBackupExtensions(fileName);
 		}
 
-		String style = getSyntaxStyleForFileImpl(fileName, filters);
-		if (style==null && addedFilters!=null) {
-			style = getSyntaxStyleForFileImpl(fileName, addedFilters);
-		}
+		String style = compiled.getSyntaxStyle(fileName);
 		return style!=null ? style : SYNTAX_STYLE_NONE;
 
 	}
 
 
-	/**
-	 * Looks for a syntax style for a file name in a given map.
-	 *
-	 * @param fileName The file name.
-	 * @param filters The map of filters.
-	 * @return The syntax style for the file, or <code>null</code> if not found
-	 *         in that map.
-	 */
-	private static final String getSyntaxStyleForFileImpl(String fileName,
-			Map filters) {
-		for (Iterator i=filters.entrySet().iterator(); i.hasNext(); ) {
-			Map.Entry entry = (Map.Entry)i.next();
-			Iterator it = ((List)entry.getValue()).iterator();
-			while (it.hasNext()) {
-				Pattern p = RTextUtilities.getPatternForFileFilter(
-									(String)it.next(), true);
-				if (p!=null && p.matcher(fileName).matches()) {
-					return (String)entry.getKey();
-				}
-			}
-		}
-		return null;
-	}
-
-
 	/**
 	 * Returns <code>true</code> if and only if the file filter string passed
 	 * in is "valid".  Currently valid file filter strings contain only the
@@ -332,6 +322,8 @@ public class SyntaxFilters implements SyntaxConstants {
 		filters.put(SYNTAX_STYLE_WINDOWS_BATCH,		createValue(new String[] { "*.bat", "*.cmd" }));
 		filters.put(SYNTAX_STYLE_XML,				createValue(new String[] { "*.xml", "*.xsl", "*.xsd", "*.wsdl", "*.macro", "*.manifest" }));
 
+		compiled = new CompiledFilters(filters, addedFilters);
+
 		// Keep any filters added by the user
 
 	}
@@ -362,6 +354,7 @@ public class SyntaxFilters implements SyntaxConstants {
 		if (oldSpacePos<filterString.length()-1) {
 			filters.add(filterString.substring(oldSpacePos));
 		}
+		compiled = new CompiledFilters(this.filters, addedFilters);
 		
 	}
 
@@ -373,6 +366,7 @@ public class SyntaxFilters implements SyntaxConstants {
 	 */
 	public void setPreservingPluginAdded(SyntaxFilters filters) {
 		this.filters = new HashMap(filters.filters);
+		compiled = new CompiledFilters(this.filters, addedFilters);
 	}
 
 
@@ -394,4 +388,161 @@ public class SyntaxFilters implements SyntaxConstants {
 	}
 
 
+	/**
+	 * An immutable, compiled form of the filters.  Each filter is numbered
+	 * in the order the filters would be tried one at a time: built-in
+	 * filters first, then those added by plugins.  Filters without
+	 * wildcards and filters of the form "<code>*.ext</code>" are kept in
+	 * hash maps, and all remaining filters are combined into one regular
+	 * expression.  A lookup checks all three and returns the style of the
+	 * lowest numbered match, so a filter such as "<code>*.tar.gz</code>"
+	 * still beats a later "<code>*.gz</code>".
+	 */
+	private static final class CompiledFilters {
+
+		private Map<String, Integer> exactNames;
+		private Map<String, Integer> extensions;
+		private Pattern wildcards;
+		private int[] wildcardGroupIndices;
+		private List<String> styles;
+		private boolean caseSensitive;
+
+		CompiledFilters(Map<?, ?> filters, Map<?, ?> addedFilters) {
+
+			exactNames = new HashMap<String, Integer>();
+			extensions = new HashMap<String, Integer>();
+			styles = new ArrayList<String>();
+			caseSensitive = RTextUtilities.isFileSystemCaseSensitive();
+			List<Pattern> wildcardRegexes = new ArrayList<Pattern>();
+			List<Integer> wildcardIndices = new ArrayList<Integer>();
+
+			addFilters(filters, wildcardRegexes, wildcardIndices);
+			if (addedFilters!=null) {
+				addFilters(addedFilters, wildcardRegexes, wildcardIndices);
+			}
+
+			// Combine all other filters into "(regex1)|(regex2)|...", and
+			// remember which filter each capturing group maps to.  Since
+			// the alternatives are in filter order, the first group that
+			// matches is the first wildcard filter that does.
+			if (wildcardRegexes.size()>0) {
+				StringBuffer sb = new StringBuffer();
+				List<Integer> groupIndices = new ArrayList<Integer>();
+				groupIndices.add(-1); // Group 0 is the entire match
+				for (int i=0; i<wildcardRegexes.size(); i++) {
+					Pattern p = wildcardRegexes.get(i);
+					if (i>0) {
+						sb.append('|');
+					}
+					sb.append('(').append(p.pattern()).append(')');
+					Integer index = wildcardIndices.get(i);
+					int groupCount = p.matcher("").groupCount() + 1;
+					for (int j=0; j<groupCount; j++) {
+						groupIndices.add(index);
+					}
+				}
+				int flags = caseSensitive ? 0 :
+							(Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+				wildcards = Pattern.compile(sb.toString(), flags);
+				wildcardGroupIndices = new int[groupIndices.size()];
+				for (int i=0; i<wildcardGroupIndices.length; i++) {
+					wildcardGroupIndices[i] = groupIndices.get(i);
+				}
+			}
+
+		}
+
+		private void addFilters(Map<?, ?> filters,
+				List<Pattern> wildcardRegexes, List<Integer> wildcardIndices) {
+			for (Map.Entry<?, ?> entry : filters.entrySet()) {
+				String style = (String)entry.getKey();
+				for (Object o : (List<?>)entry.getValue()) {
+					String filter = (String)o;
+					Integer index = styles.size();
+					if (isExtensionFilter(filter)) {
+						putIfAbsent(extensions, filter.substring(2), index);
+					}
+					else if (!hasWildcards(filter)) {
+						putIfAbsent(exactNames, filter, index);
+					}
+					else {
+						Pattern p = RTextUtilities.getPatternForFileFilter(
+														filter, true);
+						if (p==null) {
+							continue;
+						}
+						wildcardRegexes.add(p);
+						wildcardIndices.add(index);
+					}
+					styles.add(style);
+				}
+			}
+		}
+
+		/**
+		 * Returns the syntax style for a file name.
+		 *
+		 * @param fileName The file name, without any path, in lower case.
+		 * @return The syntax style, or <code>null</code> if none matches.
+		 */
+		public String getSyntaxStyle(String fileName) {
+
+			int best = Integer.MAX_VALUE;
+
+			Integer index = exactNames.get(fileName);
+			if (index!=null) {
+				best = index;
+			}
+
+			int dot = fileName.lastIndexOf('.');
+			if (dot>-1) {
+				index = extensions.get(fileName.substring(dot+1));
+				if (index!=null && index<best) {
+					best = index;
+				}
+			}
+
+			if (wildcards!=null) {
+				Matcher m = wildcards.matcher(fileName);
+				if (m.matches()) {
+					for (int i=1; i<wildcardGroupIndices.length; i++) {
+						if (m.start(i)>-1) {
+							best = Math.min(best, wildcardGroupIndices[i]);
+							break;
+						}
+					}
+				}
+			}
+
+			return best<Integer.MAX_VALUE ? styles.get(best) : null;
+
+		}
+
+		private static final boolean hasWildcards(String filter) {
+			return filter.indexOf('*')>-1 || filter.indexOf('?')>-1;
+		}
+
+		/**
+		 * Returns whether a filter is of the form "<code>*.ext</code>",
+		 * where "<code>ext</code>" contains no wildcards or dots.
+		 */
+		private static final boolean isExtensionFilter(String filter) {
+			return filter.length()>2 && filter.startsWith("*.") &&
+					!hasWildcards(filter.substring(2)) &&
+					filter.indexOf('.', 2)==-1;
+		}
+
+		private void putIfAbsent(Map<String, Integer> map, String key,
+				Integer index) {
+			if (!caseSensitive) {
+				key = key.toLowerCase();
+			}
+			if (!map.containsKey(key)) {
+				map.put(key, index);
+			}
+		}
+
+	}
+
+
 }
\ No newline at end of file
@@ -68,7 +68,7 @@ class OpenAction extends StandardAction {
 		AbstractMainView mainView = owner.getMainView();
 		for (File filename : files) {
 			String fileFullPath = filename.getAbsolutePath();
-			mainView.openFile(fileFullPath, RTextFileChooser.getDefaultEncoding());
+			mainView.openFileInBackground(fileFullPath, RTextFileChooser.getDefaultEncoding());
 		}
 
 	}
@@ -22,12 +22,17 @@ import javax.swing.Box;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JComponent;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 
 import org.fife.rtext.AbstractMainView;
+import org.fife.rtext.RTextPreferences;
 import org.fife.rtext.Savu;
 import org.fife.rtext.SyntaxFilters;
 import org.fife.ui.OptionsDialogPanel;
@@ -45,12 +50,15 @@ import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
  * @version 0.2
  */
 class FileFilterOptionPanel extends OptionsDialogPanel
-					implements ActionListener, ModifiableTableListener {
+		implements ActionListener, DocumentListener, ModifiableTableListener {
 
 	private ModifiableTable filterTable;
 	private FilterTableModel model;
 	private JCheckBox guessTypeCB;
 	private JCheckBox ignoreExtsCB;
+	private JCheckBox skipIgnoredCB;
+	private JLabel ignoredNamesLabel;
+	private JTextField ignoredNamesField;
 	private Savu rtext;
 
 	private static final String DEFAULTS_RESTORED	= "defaultsRestored";
@@ -100,9 +108,24 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 		ignoreExtsCB.setActionCommand("IgnoreTheseExtensions");
 		ignoreExtsCB.addActionListener(this);
 
+		skipIgnoredCB = new JCheckBox(msg.getString("SkipIgnoredFiles"));
+		skipIgnoredCB.setActionCommand("SkipIgnoredFiles");
+		skipIgnoredCB.addActionListener(this);
+
+		ignoredNamesLabel = new JLabel(msg.getString("AlwaysIgnore"));
+		ignoredNamesField = new JTextField(30);
+		ignoredNamesField.getDocument().addDocumentListener(this);
+		ignoredNamesLabel.setLabelFor(ignoredNamesField);
+		JPanel ignoredNamesPanel = new JPanel(new BorderLayout(5,0));
+		ignoredNamesPanel.setBorder(BorderFactory.createEmptyBorder(0,20,0,0));
+		ignoredNamesPanel.add(ignoredNamesLabel, BorderLayout.LINE_START);
+		ignoredNamesPanel.add(ignoredNamesField);
+
 		Box box = Box.createVerticalBox();
 		addLeftAligned(box, guessTypeCB);
 		addLeftAligned(box, ignoreExtsCB);
+		addLeftAligned(box, skipIgnoredCB);
+		addLeftAligned(box, ignoredNamesPanel);
 		box.add(Box.createVerticalStrut(5)); // Distance from "Restore Defaults"
 //		box.add(Box.createVerticalGlue());
 		bottomPanel.add(box, BorderLayout.NORTH);
@@ -132,11 +155,17 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 			// Empty constructor returns defaults.
 			SyntaxFilters defaultFilters = new SyntaxFilters();
 			boolean changed = setSyntaxFilters(defaultFilters);
+			String defaultNames = RTextPreferences.DEFAULT_IGNORED_FILE_NAMES;
+
 			if (changed ||
 					!guessTypeCB.isSelected() ||
-					!ignoreExtsCB.isSelected()) {
+					!ignoreExtsCB.isSelected() ||
+					!skipIgnoredCB.isSelected() ||
+					!defaultNames.equals(ignoredNamesField.getText())) {
 				guessTypeCB.setSelected(true);
 				ignoreExtsCB.setSelected(true);
+				setSkipIgnoredFiles(true);
+				ignoredNamesField.setText(defaultNames);
 				hasUnsavedChanges = true;
 				firePropertyChange(DEFAULTS_RESTORED,
 								Boolean.FALSE,Boolean.TRUE);
@@ -153,6 +182,21 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 			firePropertyChange(DEFAULTS_RESTORED, false, true);
 		}
 
+		else if ("SkipIgnoredFiles".equals(command)) {
+			setSkipIgnoredFiles(skipIgnoredCB.isSelected());
+			hasUnsavedChanges = true;
+			firePropertyChange(DEFAULTS_RESTORED, false, true);
+		}
+
+	}
+
+
+	/**
+	 * Called when the ignored file names are edited.
+	 *
+	 * @param e The document event.
+	 */
+	public void changedUpdate(DocumentEvent e) {
 	}
 
 
@@ -168,6 +212,8 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 		mainView.setSyntaxFilters(getSyntaxFilters());
 		mainView.setGuessFileContentType(guessTypeCB.isSelected());
 		mainView.setIgnoreBackupExtensions(ignoreExtsCB.isSelected());
+		mainView.setSkipIgnoredFiles(skipIgnoredCB.isSelected());
+		mainView.setIgnoredFileNames(ignoredNamesField.getText().trim());
 	}
 
 
@@ -219,6 +265,17 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 	}
 
 
+	/**
+	 * Called when the ignored file names are edited.
+	 *
+	 * @param e The document event.
+	 */
+	public void insertUpdate(DocumentEvent e) {
+		hasUnsavedChanges = true;
+		firePropertyChange(DEFAULTS_RESTORED, false, true);
+	}
+
+
 	/**
 	 * Called whenever the extension/color mapping table is changed.
 	 *
@@ -231,6 +288,30 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 	}
 
 
+	/**
+	 * Called when the ignored file names are edited.
+	 *
+	 * @param e The document event.
+	 */
+	public void removeUpdate(DocumentEvent e) {
+		hasUnsavedChanges = true;
+		firePropertyChange(DEFAULTS_RESTORED, false, true);
+	}
+
+
+	/**
+	 * Sets whether ignored files are skipped, and enables the ignored file
+	 * names field accordingly.
+	 *
+	 * @param skip Whether ignored files are skipped.
+	 */
+	private void setSkipIgnoredFiles(boolean skip) {
+		skipIgnoredCB.setSelected(skip);
+		ignoredNamesLabel.setEnabled(skip);
+		ignoredNamesField.setEnabled(skip);
+	}
+
+
 	/**
 	 * Sets the syntax filters displayed for each file type.
 	 *
@@ -271,9 +352,12 @@ class FileFilterOptionPanel extends OptionsDialogPanel
 		setSyntaxFilters(mainView.getSyntaxFilters());
 		guessTypeCB.setSelected(mainView.getGuessFileContentType());
 		ignoreExtsCB.setSelected(mainView.getIgnoreBackupExtensions());
+		setSkipIgnoredFiles(mainView.getSkipIgnoredFiles());
+		ignoredNamesField.setText(mainView.getIgnoredFileNames());
 	}
 
 
+
 	/**
 	 * Table data for the "File filter" table.
 	 */
@@ -53,6 +53,7 @@ class GeneralOptionPanel extends OptionsDialogPanel
 	private SpecialValueComboBox terminatorCombo;
 	private JComboBox encCombo;
 	private JCheckBox utf8BomCB;
+	private JCheckBox convertTabsCB;
 	private JCheckBox sizeCheckCB;
 	private JFormattedTextField sizeField;
 	private JCheckBox dropShadowsInEditorCB;
@@ -175,6 +176,12 @@ class GeneralOptionPanel extends OptionsDialogPanel
 		JPanel temp2 = new JPanel(new BorderLayout());
 		temp2.add(utf8BomCB, BorderLayout.LINE_START);
 		otherPanel.add(temp2);
+		convertTabsCB = new JCheckBox(msg.getString("OptConvertTabsOnOpen"));
+		convertTabsCB.setActionCommand("ConvertTabsCB");
+		convertTabsCB.addActionListener(this);
+		temp2 = new JPanel(new BorderLayout());
+		temp2.add(convertTabsCB, BorderLayout.LINE_START);
+		otherPanel.add(temp2);
 		sizeCheckCB = new JCheckBox(msg.getString("OptWarnIfFileLargerThan"));
 		sizeCheckCB.setActionCommand("SizeCheckCB");
 		sizeCheckCB.addActionListener(this);
@@ -276,6 +283,12 @@ class GeneralOptionPanel extends OptionsDialogPanel
 			firePropertyChange(PROPERTY, !bom, bom);
 		}
 
+		else if ("ConvertTabsCB".equals(command)) {
+			hasUnsavedChanges = true;
+			boolean convert = convertTabsCB.isSelected();
+			firePropertyChange(PROPERTY, !convert, convert);
+		}
+
 		else if ("SizeCheckCB".equals(command)) {
 			hasUnsavedChanges = true;
 			boolean sizeCheck = sizeCheckCB.isSelected();
@@ -293,6 +306,7 @@ class GeneralOptionPanel extends OptionsDialogPanel
 			String defaultEncName = RTextFileChooser.getDefaultEncoding();
 			String defaultEnc = Charset.forName(defaultEncName).name();
 			boolean defaultUtf8BomSelected = false;
+			boolean defaultConvertTabsSelected = false;
 			final String defaultSizeFieldText = "10";
 			// Only default to this experimental option if > Java 6 and running
 			// on Windows
@@ -303,6 +317,7 @@ class GeneralOptionPanel extends OptionsDialogPanel
 				terminatorCombo.getSelectedIndex()!=0 ||
 				!encCombo.getSelectedItem().equals(defaultEnc) ||
 				utf8BomCB.isSelected()!=defaultUtf8BomSelected ||
+				convertTabsCB.isSelected()!=defaultConvertTabsSelected ||
 				!sizeCheckCB.isSelected() ||
 				!defaultSizeFieldText.equals(sizeField.getText()) ||
 				dropShadowsInEditorCB.isSelected()!=defaultDropShadowsInEditor) {
@@ -312,6 +327,7 @@ class GeneralOptionPanel extends OptionsDialogPanel
 				encCombo.setSelectedItem(defaultEnc);
 				setDefaultEncoding(defaultEncName);
 				utf8BomCB.setSelected(defaultUtf8BomSelected);
+				convertTabsCB.setSelected(defaultConvertTabsSelected);
 				setDoFileSizeCheck(true);
 				sizeField.setText(defaultSizeFieldText);
 				dropShadowsInEditorCB.setSelected(defaultDropShadowsInEditor);
@@ -344,6 +360,7 @@ class GeneralOptionPanel extends OptionsDialogPanel
 		mainView.setLineTerminator(getLineTerminator()); // Ditto.
 		mainView.setDefaultEncoding(getDefaultEncoding()); // Ditto.
 		mainView.setWriteBOMInUtf8Files(getWriteUtf8BOM()); // Ditto.
+		mainView.setConvertTabsOnOpen(getConvertTabsOnOpen()); // Ditto.
 		mainView.setDoFileSizeCheck(getDoFileSizeCheck()); // Ditto.
 		mainView.setMaxFileSize(getMaxFileSize());		// Ditto.
 
@@ -365,6 +382,17 @@ class GeneralOptionPanel extends OptionsDialogPanel
 	}
 
 
+	/**
+	 * Returns whether "Convert tabs to spaces when opening files" is
+	 * selected.
+	 *
+	 * @return Whether the value is selected.
+	 */
+	public boolean getConvertTabsOnOpen() {
+		return convertTabsCB.isSelected();
+	}
+
+
 	/**
 	 * Returns the encoding selected by the user to use for new text files.
 	 *
@@ -552,6 +580,7 @@ class GeneralOptionPanel extends OptionsDialogPanel
 		setLineTerminator(mainView.getLineTerminator());
 		setDefaultEncoding(mainView.getDefaultEncoding());
 		setWriteUtf8BOM(mainView.getWriteBOMInUtf8Files());
+		convertTabsCB.setSelected(mainView.getConvertTabsOnOpen());
 		setDoFileSizeCheck(mainView.getDoFileSizeCheck());
 		setMaxFileSize(mainView.getMaxFileSize());
 
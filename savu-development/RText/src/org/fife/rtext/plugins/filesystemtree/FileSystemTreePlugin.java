@@ -12,6 +12,8 @@ package org.fife.rtext.plugins.filesystemtree;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
@@ -50,6 +52,7 @@ public class FileSystemTreePlugin extends GUIPlugin {
 	private ForwardAction forwardAction;
 	private List rootHistory;
 	private int rootHistoryOffs;
+	private IgnoreRulesListener ignoreRulesListener;
 
 	static final String BUNDLE_NAME = "org/fife/rtext/plugins/filesystemtree/FileSystemTree";
 	private static final String VERSION_STRING = "2.0.7";
@@ -242,6 +245,13 @@ public class FileSystemTreePlugin extends GUIPlugin {
 	 */
 	public void install(AbstractPluggableGUIApplication app) {
 
+		// Hide the same files and folders Find in Files skips.
+		ignoreRulesListener = new IgnoreRulesListener();
+		AbstractMainView mainView = owner.getMainView();
+		mainView.addPropertyChangeListener(
+				AbstractMainView.IGNORE_RULES_PROPERTY, ignoreRulesListener);
+		refreshIgnoreRules();
+
 		// Add a menu item to toggle the visibility of the dockable window
 		owner.addAction(VIEW_FST_ACTION, viewAction);
 		RTextMenuBar mb = (RTextMenuBar) owner.getJMenuBar();
@@ -287,6 +297,15 @@ public class FileSystemTreePlugin extends GUIPlugin {
 		return prefs;
 	}
 
+	/**
+	 * Updates the tree to hide the files and folders currently configured to
+	 * be ignored.
+	 */
+	private void refreshIgnoreRules() {
+		tree.setIgnoreRules(owner.getMainView().createIgnoreRules());
+		tree.setRoot(tree.getRoot());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -310,6 +329,12 @@ public class FileSystemTreePlugin extends GUIPlugin {
 	 * @return Whether the uninstall went cleanly.
 	 */
 	public boolean uninstall() {
+		if (ignoreRulesListener != null) {
+			owner.getMainView().removePropertyChangeListener(
+					AbstractMainView.IGNORE_RULES_PROPERTY,
+					ignoreRulesListener);
+			ignoreRulesListener = null;
+		}
 		return true;
 	}
 
@@ -385,6 +410,17 @@ public class FileSystemTreePlugin extends GUIPlugin {
 
 	}
 
+	/**
+	 * Refreshes the tree when the user changes which files are ignored.
+	 */
+	private class IgnoreRulesListener implements PropertyChangeListener {
+
+		public void propertyChange(PropertyChangeEvent e) {
+			refreshIgnoreRules();
+		}
+
+	}
+
 	/**
 	 * Toggles the visibility of this file system tree.
 	 */
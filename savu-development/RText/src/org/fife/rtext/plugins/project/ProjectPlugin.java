@@ -86,6 +86,7 @@ public class ProjectPlugin extends GUIPlugin {
 			}
 		}
 		loadInitialWorkspace(prefs.openWorkspaceName);
+		refreshSearchIndex();
 
 		// Window MUST always be created for preference saving on shutdown
 		ProjectWindow window = new ProjectWindow(rtext, this, prefs);
@@ -368,6 +369,16 @@ public class ProjectPlugin extends GUIPlugin {
 	}
 
 
+	/**
+	 * Makes the Find in Files index cover the folders in the active
+	 * workspace.  This should be called whenever a folder is added to the
+	 * workspace.
+	 */
+	public void refreshSearchIndex() {
+		SearchIndexRootCollector.updateSearchIndex(workspace);
+	}
+
+
 	/**
 	 * Refreshes the workspace tree from the specified node down.
 	 *
@@ -431,6 +442,7 @@ public class ProjectPlugin extends GUIPlugin {
 		this.workspace = workspace;
 		getTree().setWorkspace(workspace);
 		refreshWorkspaceName();
+		refreshSearchIndex();
 	}
 
 
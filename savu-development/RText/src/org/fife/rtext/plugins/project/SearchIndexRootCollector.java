@@ -0,0 +1,94 @@
+/*
+ * 10/17/2026
+ *
+ * SearchIndexRootCollector.java - Feeds workspace folders to the Find in
+ * Files index.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext.plugins.project;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fife.rtext.plugins.project.model.FileProjectEntry;
+import org.fife.rtext.plugins.project.model.FolderProjectEntry;
+import org.fife.rtext.plugins.project.model.LogicalFolderProjectEntry;
+import org.fife.rtext.plugins.project.model.Project;
+import org.fife.rtext.plugins.project.model.Workspace;
+import org.fife.rtext.plugins.project.model.WorkspaceVisitor;
+import org.fife.ui.search.TrigramIndex;
+
+
+/**
+ * Collects the folders in a workspace so they can be indexed for Find in
+ * Files.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see TrigramIndex
+ */
+class SearchIndexRootCollector implements WorkspaceVisitor {
+
+	private List<File> roots;
+
+
+	private SearchIndexRootCollector() {
+		roots = new ArrayList<File>();
+	}
+
+
+	/**
+	 * Makes the shared Find in Files index cover all folders in a workspace.
+	 * The index is updated on a background thread.
+	 *
+	 * @param workspace The workspace.  This may be <code>null</code>.
+	 */
+	public static void updateSearchIndex(Workspace workspace) {
+		SearchIndexRootCollector collector = new SearchIndexRootCollector();
+		if (workspace!=null) {
+			workspace.accept(collector);
+		}
+		TrigramIndex.getSharedInstance().setRoots(collector.roots);
+	}
+
+
+	public void postVisit(Workspace workspace) {
+	}
+
+	public void postVisit(Project project) {
+	}
+
+	public void postVisit(FileProjectEntry entry) {
+	}
+
+	public void postVisit(FolderProjectEntry entry) {
+	}
+
+	public void postVisit(LogicalFolderProjectEntry entry) {
+	}
+
+	public void visit(Workspace workspace) {
+	}
+
+	public void visit(Project project) {
+	}
+
+	public void visit(FileProjectEntry entry) {
+	}
+
+	public void visit(FolderProjectEntry entry) {
+		File dir = entry.getFile();
+		if (!roots.contains(dir)) {
+			roots.add(dir);
+		}
+	}
+
+	public void visit(LogicalFolderProjectEntry entry) {
+	}
+
+
+}
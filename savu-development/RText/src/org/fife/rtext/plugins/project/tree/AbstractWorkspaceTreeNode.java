@@ -233,6 +233,7 @@ public abstract class AbstractWorkspaceTreeNode extends DefaultMutableTreeNode {
 						plugin, entry);
 				childNode.setFilterInfo(chooser.getFilterInfo());
 				plugin.insertTreeNodeInto(childNode, node);
+				plugin.refreshSearchIndex();
 			}
 		}
 
@@ -0,0 +1,260 @@
+package org.fife.rtext.plugins.timings;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ResourceBundle;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JMenu;
+import javax.swing.JPopupMenu;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+
+import org.fife.rtext.RTextMenuBar;
+import org.fife.rtext.RTextUtilities;
+import org.fife.rtext.Savu;
+import org.fife.ui.app.AbstractPluggableGUIApplication;
+import org.fife.ui.app.GUIPlugin;
+import org.fife.ui.app.PluginOptionsDialogPanel;
+import org.fife.ui.app.StandardAction;
+
+
+/**
+ * A plugin that shows how long each stage of code completion takes, so slow
+ * keystrokes can be traced to the stage that made them slow.  The timings
+ * themselves are always recorded, by
+ * {@link org.fife.ui.autocomplete.CompletionTimings}; this plugin only
+ * shows them, in a dockable window that is hidden by default.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class TimingsPlugin extends GUIPlugin {
+
+	private Savu app;
+	private TimingsWindow window;
+	private Icon icon;
+	private int windowPosition;
+
+	private static final String MSG = "org.fife.rtext.plugins.timings.Plugin";
+	static final ResourceBundle msg = ResourceBundle.getBundle(MSG);
+
+	private static final String VERSION					= "1.0";
+	private static final String VIEW_TIMINGS_ACTION		= "viewTimingsAction";
+	private static final String DOCKABLE_WINDOW_TIMINGS	= "timingsDockableWindow";
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param app The parent application.
+	 */
+	public TimingsPlugin(AbstractPluggableGUIApplication app) {
+
+		this.app = (Savu)app;
+
+		TimingsPrefs prefs = loadPrefs();
+		windowPosition = prefs.windowPosition;
+
+		URL url = getClass().getResource("timings.png");
+		if (url!=null) { // Should always be true
+			icon = new ImageIcon(url);
+		}
+
+		StandardAction a = new ViewTimingsAction(this.app, msg, this);
+		a.setAccelerator(prefs.windowVisibilityAccelerator);
+		app.addAction(VIEW_TIMINGS_ACTION, a);
+
+		if (prefs.windowVisible) {
+			setTimingsWindowVisible(true); // Will create and add the window
+		}
+
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public PluginOptionsDialogPanel getOptionsDialogPanel() {
+		return null;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getPluginAuthor() {
+		return "PyDe";
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Icon getPluginIcon() {
+		return icon;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getPluginName() {
+		return msg.getString("Plugin.Name");
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String getPluginVersion() {
+		return VERSION;
+	}
+
+
+	/**
+	 * Returns the file preferences for this plugin are saved in.
+	 *
+	 * @return The file.
+	 */
+	private static final File getPrefsFile() {
+		return new File(RTextUtilities.getPreferencesDirectory(),
+						"timings.properties");
+	}
+
+
+	/**
+	 * Returns the parent application.
+	 *
+	 * @return The parent application.
+	 */
+	Savu getRText() {
+		return app;
+	}
+
+
+	/**
+	 * Returns localized text.
+	 *
+	 * @param key The key for the localized text.
+	 * @return The localized text.
+	 */
+	String getString(String key) {
+		return msg.getString(key);
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void install(AbstractPluggableGUIApplication app) {
+
+		Savu rtext = (Savu)app;
+		RTextMenuBar mb = (RTextMenuBar)rtext.getJMenuBar();
+
+		// Add an item to the "Docked Windows" menu to toggle visibility
+		final JMenu menu = mb.getMenuByName(RTextMenuBar.MENU_DOCKED_WINDOWS);
+		final JCheckBoxMenuItem item = new JCheckBoxMenuItem(
+								rtext.getAction(VIEW_TIMINGS_ACTION));
+		item.setToolTipText(null);
+		item.setSelected(isTimingsWindowVisible());
+		item.applyComponentOrientation(app.getComponentOrientation());
+		menu.add(item);
+		JPopupMenu popup = menu.getPopupMenu();
+		popup.pack();
+		// Only needed for pre-1.6 support
+		popup.addPopupMenuListener(new PopupMenuListener() {
+			public void popupMenuCanceled(PopupMenuEvent e) {
+			}
+			public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+			}
+			public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+				item.setSelected(isTimingsWindowVisible());
+			}
+		});
+
+	}
+
+
+	/**
+	 * Returns whether the timings window is visible.
+	 *
+	 * @return Whether the timings window is visible.
+	 * @see #setTimingsWindowVisible(boolean)
+	 */
+	boolean isTimingsWindowVisible() {
+		return window!=null && window.isActive();
+	}
+
+
+	/**
+	 * Loads saved preferences.  If this is the first time through, default
+	 * values will be returned.
+	 *
+	 * @return The preferences.
+	 */
+	private TimingsPrefs loadPrefs() {
+		TimingsPrefs prefs = new TimingsPrefs();
+		File prefsFile = getPrefsFile();
+		if (prefsFile.isFile()) {
+			try {
+				prefs.load(prefsFile);
+			} catch (IOException ioe) {
+				app.displayException(ioe);
+				// (Some) defaults will be used
+			}
+		}
+		return prefs;
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void savePreferences() {
+		TimingsPrefs prefs = new TimingsPrefs();
+		prefs.windowVisible = isTimingsWindowVisible();
+		prefs.windowPosition = window!=null ? window.getPosition() :
+												windowPosition;
+		StandardAction a = (StandardAction)app.getAction(VIEW_TIMINGS_ACTION);
+		prefs.windowVisibilityAccelerator = a.getAccelerator();
+		File prefsFile = getPrefsFile();
+		try {
+			prefs.save(prefsFile);
+		} catch (IOException ioe) {
+			app.displayException(ioe);
+		}
+	}
+
+
+	/**
+	 * Sets the visibility of the timings window.  The window is created the
+	 * first time it is made visible.
+	 *
+	 * @param visible Whether the window should be visible.
+	 * @see #isTimingsWindowVisible()
+	 */
+	void setTimingsWindowVisible(boolean visible) {
+		if (visible!=isTimingsWindowVisible()) {
+			if (visible && window==null) {
+				window = new TimingsWindow(this);
+				window.setPosition(windowPosition);
+				app.addDockableWindow(window);
+				putDockableWindow(DOCKABLE_WINDOW_TIMINGS, window);
+			}
+			window.setActive(visible);
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean uninstall() {
+		return true;
+	}
+
+
+}
@@ -0,0 +1,57 @@
+package org.fife.rtext.plugins.timings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.swing.KeyStroke;
+
+import org.fife.ui.app.Prefs;
+import org.fife.ui.dockablewindows.DockableWindow;
+
+
+/**
+ * Preferences for the completion timings plugin.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class TimingsPrefs extends Prefs {
+
+	/**
+	 * Whether the GUI plugin window is active (visible).
+	 */
+	public boolean windowVisible;
+
+	/**
+	 * The location of the dockable timings window.
+	 */
+	public int windowPosition;
+
+	/**
+	 * Key stroke that toggles the timings window's visibility.
+	 */
+	public KeyStroke windowVisibilityAccelerator;
+
+
+	/**
+	 * Overridden to validate the dockable window position value.
+	 */
+	public void load(InputStream in) throws IOException {
+		super.load(in);
+		// Ensure window position is valid.
+		if (!DockableWindow.isValidPosition(windowPosition)) {
+			windowPosition = DockableWindow.BOTTOM;
+		}
+	}
+
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setDefaults() {
+		windowVisible = false;
+		windowPosition = DockableWindow.BOTTOM;
+		windowVisibilityAccelerator = null;
+	}
+
+
+}
@@ -0,0 +1,250 @@
+package org.fife.rtext.plugins.timings;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import javax.swing.Box;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JTable;
+import javax.swing.JToolBar;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import org.fife.rtext.RTextUtilities;
+import org.fife.rtext.Savu;
+import org.fife.ui.RScrollPane;
+import org.fife.ui.autocomplete.CompletionTimings;
+import org.fife.ui.autocomplete.LatencyHistogram;
+import org.fife.ui.dockablewindows.DockableWindow;
+import org.fife.ui.dockablewindows.DockableWindowScrollPane;
+import org.fife.ui.rtextfilechooser.RTextFileChooser;
+
+
+/**
+ * A dockable window showing how long each stage of code completion has
+ * taken, as a table of percentiles.  The table is refreshed every second
+ * while the window is showing.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+class TimingsWindow extends DockableWindow {
+
+	private TimingsPlugin plugin;
+	private TimingsTableModel model;
+	private Timer timer;
+
+	private static final int REFRESH_DELAY		= 1000;
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param plugin The parent plugin.
+	 */
+	public TimingsWindow(TimingsPlugin plugin) {
+
+		this.plugin = plugin;
+		Savu app = plugin.getRText();
+		setDockableWindowName(plugin.getString("DockableWindow.Title"));
+		setIcon(plugin.getPluginIcon());
+		setLayout(new BorderLayout());
+
+		model = new TimingsTableModel();
+		JTable table = new JTable(model);
+		table.getColumnModel().getColumn(0).setPreferredWidth(200);
+		RTextUtilities.removeTabbedPaneFocusTraversalKeyBindings(table);
+		RScrollPane sp = new DockableWindowScrollPane(table);
+		RTextUtilities.removeTabbedPaneFocusTraversalKeyBindings(sp);
+		add(sp);
+		setPrimaryComponent(table);
+
+		Listener listener = new Listener();
+		JToolBar toolbar = new JToolBar();
+		toolbar.setFloatable(false);
+		toolbar.add(new JLabel(plugin.getString("Units")));
+		toolbar.add(Box.createHorizontalGlue());
+		toolbar.add(createButton("Reset", listener));
+		toolbar.add(createButton("SaveJson", listener));
+		add(toolbar, BorderLayout.NORTH);
+
+		timer = new Timer(REFRESH_DELAY, listener);
+
+		applyComponentOrientation(app.getComponentOrientation());
+
+	}
+
+
+	/**
+	 * Overridden to start refreshing the timings.
+	 */
+	public void addNotify() {
+		super.addNotify();
+		model.fireTableDataChanged();
+		timer.start();
+	}
+
+
+	private JButton createButton(String key, ActionListener listener) {
+		JButton button = new JButton(plugin.getString(key));
+		button.setActionCommand(key);
+		button.addActionListener(listener);
+		return button;
+	}
+
+
+	/**
+	 * Overridden to stop refreshing the timings.
+	 */
+	public void removeNotify() {
+		timer.stop();
+		super.removeNotify();
+	}
+
+
+	/**
+	 * Prompts for a file and writes the timings to it as JSON.
+	 */
+	private void saveJson() {
+
+		Savu app = plugin.getRText();
+		RTextFileChooser chooser = new RTextFileChooser();
+		chooser.setCustomTitle(plugin.getString("SaveJson.Title"));
+		chooser.setEncoding("UTF-8");
+		chooser.setSelectedFile(new File("completion-timings.json"));
+		chooser.setComponentOrientation(app.getComponentOrientation());
+		if (chooser.showSaveDialog(app)!=JFileChooser.APPROVE_OPTION) {
+			return;
+		}
+
+		File file = chooser.getSelectedFile();
+		if (file.exists()) {
+			String temp = app.getString("FileAlreadyExists",
+										file.getAbsolutePath());
+			if (JOptionPane.NO_OPTION==JOptionPane.showConfirmDialog(app,
+					temp, app.getString("ConfDialogTitle"),
+					JOptionPane.YES_NO_OPTION)) {
+				return;
+			}
+		}
+
+		try {
+			CompletionTimings.writeJson(file);
+		} catch (IOException ioe) {
+			app.displayException(ioe);
+		}
+
+	}
+
+
+	/**
+	 * Listens for the buttons being pressed and the refresh timer firing.
+	 */
+	private class Listener implements ActionListener {
+
+		public void actionPerformed(ActionEvent e) {
+			Object source = e.getSource();
+			if (source==timer) {
+				if (isShowing()) {
+					model.fireTableDataChanged();
+				}
+			}
+			else if ("Reset".equals(e.getActionCommand())) {
+				CompletionTimings.reset();
+				model.fireTableDataChanged();
+			}
+			else if ("SaveJson".equals(e.getActionCommand())) {
+				saveJson();
+			}
+		}
+
+	}
+
+
+	/**
+	 * A row for each stage: its name, count, mean, percentiles and maximum.
+	 */
+	private class TimingsTableModel extends AbstractTableModel {
+
+		private List<LatencyHistogram> stages;
+
+		TimingsTableModel() {
+			stages = CompletionTimings.getStages();
+		}
+
+		public int getColumnCount() {
+			return 3 + PERCENTILES.length + 1;
+		}
+
+		public String getColumnName(int column) {
+			switch (column) {
+				case 0:
+					return plugin.getString("Column.Stage");
+				case 1:
+					return plugin.getString("Column.Count");
+				case 2:
+					return plugin.getString("Column.Mean");
+				default:
+					int index = column - 3;
+					if (index<PERCENTILES.length) {
+						double p = PERCENTILES[index];
+						return (p==(long)p ? Long.toString((long)p) :
+								Double.toString(p)) + "%";
+					}
+					return plugin.getString("Column.Max");
+			}
+		}
+
+		public Class<?> getColumnClass(int column) {
+			switch (column) {
+				case 0:
+					return String.class;
+				case 1:
+					return Long.class;
+				default:
+					return Double.class;
+			}
+		}
+
+		public int getRowCount() {
+			return stages.size();
+		}
+
+		public Object getValueAt(int row, int column) {
+			LatencyHistogram stage = stages.get(row);
+			switch (column) {
+				case 0:
+					return stage.getName();
+				case 1:
+					return stage.getCount();
+				case 2:
+					return toMillis(stage.getMean());
+				default:
+					int index = column - 3;
+					if (index<PERCENTILES.length) {
+						return toMillis(stage.getValueAtPercentile(
+													PERCENTILES[index]));
+					}
+					return toMillis(stage.getMax());
+			}
+		}
+
+		/**
+		 * Converts nanoseconds to milliseconds, rounded to microseconds.
+		 */
+		private Double toMillis(double nanos) {
+			return Math.round(nanos/1000) / 1000.0;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,48 @@
+package org.fife.rtext.plugins.timings;
+
+import java.awt.event.ActionEvent;
+import java.util.ResourceBundle;
+
+import org.fife.rtext.Savu;
+import org.fife.ui.app.StandardAction;
+
+
+/**
+ * Toggles visibility of the completion timings dockable window.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+class ViewTimingsAction extends StandardAction {
+
+	/**
+	 * The parent plugin.
+	 */
+	private TimingsPlugin plugin;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param owner The parent RText instance.
+	 * @param msg The resource bundle to use for localization.
+	 * @param plugin The parent plugin.
+	 */
+	public ViewTimingsAction(Savu owner, ResourceBundle msg,
+							TimingsPlugin plugin) {
+		super(owner, msg, "Action.ViewTimings");
+		this.plugin = plugin;
+	}
+
+
+	/**
+	 * Called when this action is performed.
+	 *
+	 * @param e The event.
+	 */
+	public void actionPerformed(ActionEvent e) {
+		plugin.setTimingsWindowVisible(!plugin.isTimingsWindowVisible());
+	}
+
+
+}
@@ -13,9 +13,12 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,8 +29,10 @@ import javax.swing.text.JTextComponent;
 /**
  * A base class for completion providers.  {@link Completion}s are kept in
  * a sorted list.  To get the list of completions that match a given input,
- * a binary search is done to find the first matching completion, then all
- * succeeding completions that also match are also returned.
+ * a {@link CompletionIndex} of the list is searched, which only looks at
+ * the global names or the attributes of a single class.  The input is
+ * matched fuzzily (see {@link FuzzyMatcher}), and only the best
+ * {@link #getMaxCompletionCount()} matches are returned, best first.
  *
  * @author Robert Futrell
  * @version 1.0
@@ -39,19 +44,36 @@ public abstract class AbstractCompletionProvider
 	 * The completions this provider is aware of.  Subclasses should ensure
 	 * that this list is sorted alphabetically (case-insensitively).
 	 */
-	protected List<Completion> completions;
+	protected volatile List<Completion> completions;
+
+	/**
+	 * An index of <code>completions</code>, or <code>null</code> if it
+	 * needs to be rebuilt.
+	 */
+	private volatile CompletionIndex index;
 
 	/**
 	 * Compares a {@link Completion} against a String.
 	 */
 	protected CaseInsensitiveComparator comparator;
 
+	/**
+	 * The maximum number of completions returned for a single input.
+	 */
+	private int maxCompletionCount;
+
+	/**
+	 * The default value of {@link #getMaxCompletionCount()}.
+	 */
+	public static final int DEFAULT_MAX_COMPLETION_COUNT	= 200;
+
 
 	/**
 	 * Constructor.
 	 */
 	public AbstractCompletionProvider() {
 		comparator = new CaseInsensitiveComparator();
+		maxCompletionCount = DEFAULT_MAX_COMPLETION_COUNT;
 		clearParameterizedCompletionParams();
 		completions = new ArrayList<Completion>();
 	}
@@ -72,6 +94,7 @@ public abstract class AbstractCompletionProvider
 	public void addCompletion(Completion c) {
 		checkProviderAndAdd(c);
 		Collections.sort(completions);
+		index = null;
 	}
 
 
@@ -92,6 +115,7 @@ public abstract class AbstractCompletionProvider
 			checkProviderAndAdd(c);
 		}
 		Collections.sort(this.completions);
+		index = null;
 	}
 
 
@@ -107,6 +131,7 @@ public abstract class AbstractCompletionProvider
 			completions.add(new BasicCompletion(this, words[i]));
 		}
 		Collections.sort(completions);
+		index = null;
 	}
 
 	/**
@@ -125,6 +150,7 @@ public abstract class AbstractCompletionProvider
 			throw new IllegalArgumentException("Invalid CompletionProvider");
 		}
 		completions.add(c);
+		index = null;
 	}
 
 
@@ -138,6 +164,7 @@ public abstract class AbstractCompletionProvider
 	 */
 	public void clear() {
 		completions.clear();
+		index = null;
 	}
 
 
@@ -194,58 +221,44 @@ public abstract class AbstractCompletionProvider
 			clazz = getClassOfObject(comp, object,comp.getCaret().getDot());
 		}
 		if (fullLine!=null) {
-
-			int index = Collections.binarySearch(completions, text, comparator);
-			if (index<0) { // No exact match
-				index = -index - 1;
-			}
-			else {
-				// If there are several overloads for the function being
-				// completed, Collections.binarySearch() will return the index
-				// of one of those overloads, but we must return all of them,
-				// so search backward until we find the first one.
-				int pos = index - 1;
-				while (pos>0 &&
-						comparator.compare(completions.get(pos), text)==0) {
-					retVal.add(completions.get(pos));
-					pos--;
-				}
-			}
-			if (!classCompletion){
-				while (index<completions.size()) {
-					Completion c = completions.get(index);
-					if (Util.startsWithIgnoreCase(c.getInputText(), text) && !(c instanceof AttributeCompletion)) {
-						retVal.add(c);
-						index++;
-					}
-					else {
-						//break;
-						index++;
-					}
-				}
-			}
-			else{
-				while (index<completions.size()) {
-					Completion c = completions.get(index);
-					AttributeCompletion attr;
-					if (Util.startsWithIgnoreCase(c.getInputText(), text) && (c instanceof AttributeCompletion) && ((AttributeCompletion)c).getClazz().equals(clazz)) {
-						attr = (AttributeCompletion)c;
-						retVal.add(attr);
-						index++;
-					}
-					else {
-						//break;
-						index++;
-					}
-				}
-			}
-
+			// Only the best matches for the text are kept, from either the
+			// global names or the attributes of the object's class.
+			getIndex().getBestCompletions(classCompletion ? clazz : null, text,
+									maxCompletionCount, retVal);
 		}
 		return retVal;
 
 	}
 	
 	
+	/**
+	 * Returns the index of the current completions, building it if they
+	 * changed since it was last built.
+	 *
+	 * @return The index.
+	 */
+	private CompletionIndex getIndex() {
+		List<Completion> completions = this.completions;
+		CompletionIndex index = this.index;
+		if (index==null || !index.isFor(completions)) {
+			index = new CompletionIndex(completions);
+			this.index = index;
+		}
+		return index;
+	}
+
+
+	/**
+	 * Returns the maximum number of completions returned for a single input.
+	 *
+	 * @return The maximum number of completions.
+	 * @see #setMaxCompletionCount(int)
+	 */
+	public int getMaxCompletionCount() {
+		return maxCompletionCount;
+	}
+
+
 	/**
 	 * Method to determine the class of a variable!
 	 * 
@@ -357,9 +370,97 @@ public abstract class AbstractCompletionProvider
 			return false;
 		}
 		completions.remove(index);
+		this.index = null;
 		return true;
 	}
 	
+	/**
+	 * Sets the maximum number of completions returned for a single input.
+	 * Only the best matches are returned, so this keeps the completion popup
+	 * quick to update no matter how many completions match.
+	 *
+	 * @param count The maximum number of completions.
+	 * @see #getMaxCompletionCount()
+	 */
+	public void setMaxCompletionCount(int count) {
+		maxCompletionCount = count;
+	}
+
+
+	/**
+	 * Makes this provider's completions equal to the specified ones, only
+	 * touching those that changed.  Completions no longer present are
+	 * dropped, and new ones are merged into the sorted list, so this is
+	 * much cheaper than {@link #clear()} followed by
+	 * {@link #addCompletions(List)} when few completions change.  The new
+	 * list is built on the side and swapped in at the end, so readers never
+	 * see a partially updated list.
+	 *
+	 * @param newCompletions The completions this provider should have.
+	 * @return Whether any completions were added or removed.
+	 * @throws IllegalArgumentException If a completion's provider isn't
+	 *         this <tt>CompletionProvider</tt>.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean updateCompletions(Collection<Completion> newCompletions) {
+
+		Set<Completion> wanted = newCompletions instanceof Set ?
+				(Set<Completion>)newCompletions :
+				new HashSet<Completion>(newCompletions);
+
+		// Keep the completions that are still wanted, in sorted order.
+		List<Completion> old = completions;
+		List<Completion> kept = new ArrayList<Completion>(old.size());
+		Set<Completion> keptSet = new HashSet<Completion>();
+		for (Completion c : old) {
+			if (wanted.contains(c) && keptSet.add(c)) {
+				kept.add(c);
+			}
+		}
+
+		List<Completion> added = new ArrayList<Completion>();
+		for (Completion c : wanted) {
+			if (!keptSet.contains(c)) {
+				if (c.getProvider()!=this) {
+					throw new IllegalArgumentException(
+									"Invalid CompletionProvider");
+				}
+				added.add(c);
+			}
+		}
+		if (added.isEmpty()) {
+			if (kept.size()==old.size()) {
+				return false;
+			}
+			completions = kept;
+			index = new CompletionIndex(kept);
+			return true;
+		}
+
+		// Merge the new completions into the sorted list.
+		Collections.sort(added);
+		List<Completion> merged = new ArrayList<Completion>(
+									kept.size() + added.size());
+		int i = 0, j = 0;
+		while (i<kept.size() && j<added.size()) {
+			if (kept.get(i).compareTo(added.get(j))<=0) {
+				merged.add(kept.get(i++));
+			}
+			else {
+				merged.add(added.get(j++));
+			}
+		}
+		merged.addAll(kept.subList(i, kept.size()));
+		merged.addAll(added.subList(j, added.size()));
+		completions = merged;
+		// Build the index here, rather than on the EDT the next time the
+		// completions are shown.
+		index = new CompletionIndex(merged);
+		return true;
+
+	}
+
+
 	/**
 	 * Utility method to reverse given text line by line, or flip it upside down
 	 * Useful for finding things in scope
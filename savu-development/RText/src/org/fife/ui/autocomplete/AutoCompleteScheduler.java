@@ -0,0 +1,217 @@
+package org.fife.ui.autocomplete;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.event.CaretEvent;
+import javax.swing.event.CaretListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+
+import org.fife.rtext.RTextEditorPane;
+
+
+/**
+ * Keeps the autocomplete possibilities of every open editor up to date, on
+ * a single background thread shared by all editors.<p>
+ *
+ * Nothing is polled.  An editor's completions are recomputed only after its
+ * document is edited or its caret moves to another line, and only once the
+ * user pauses for <code>delay</code> milliseconds, so bursts of typing cause
+ * a single update.  If neither the document nor the caret line changed since
+ * the last update, no work is done at all, so idle editors cost nothing no
+ * matter how many are open.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class AutoCompleteScheduler {
+
+	/**
+	 * The default delay, in milliseconds, between the last edit and
+	 * updating the completions.
+	 */
+	public static final long DEFAULT_DELAY = 300;
+
+	private static AutoCompleteScheduler instance;
+
+	private ScheduledThreadPoolExecutor executor;
+	private long delay;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param delay The delay, in milliseconds, between the last edit and
+	 *        updating the completions.
+	 */
+	public AutoCompleteScheduler(long delay) {
+		this.delay = delay;
+		executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "AutoCompleteScheduler");
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY - 1);
+				return t;
+			}
+		});
+		// Debouncing cancels lots of tasks; don't let them pile up.
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+
+	/**
+	 * Returns the delay between the last edit and updating the completions.
+	 *
+	 * @return The delay, in milliseconds.
+	 */
+	public long getDelay() {
+		return delay;
+	}
+
+
+	/**
+	 * Returns the scheduler shared by all editors.
+	 *
+	 * @return The shared scheduler.
+	 */
+	public static synchronized AutoCompleteScheduler getInstance() {
+		if (instance==null) {
+			instance = new AutoCompleteScheduler(DEFAULT_DELAY);
+		}
+		return instance;
+	}
+
+
+	/**
+	 * Starts keeping an editor's completions up to date.  Its completions
+	 * are populated once right away, then whenever it changes.  This method
+	 * should be called on the EDT.
+	 *
+	 * @param pane The editor.
+	 */
+	public void install(RTextEditorPane pane) {
+		PaneListener listener = new PaneListener(pane);
+		pane.getDocument().addDocumentListener(listener);
+		pane.addCaretListener(listener);
+		pane.addPropertyChangeListener("document", listener);
+		listener.schedule();
+	}
+
+
+	/**
+	 * Listens for changes to a single editor, and updates its completions
+	 * when it has been idle for <code>delay</code> milliseconds.
+	 */
+	private class PaneListener implements DocumentListener, CaretListener,
+							PropertyChangeListener, Runnable {
+
+		private RTextEditorPane pane;
+		private ScheduledFuture<?> pending;
+
+		/**
+		 * Incremented on every edit.  Only written on the EDT.
+		 */
+		private volatile int version;
+
+		/**
+		 * The line containing the caret.  Only written on the EDT.
+		 */
+		private volatile int caretLine;
+
+		/**
+		 * The values of <code>version</code> and <code>caretLine</code> the
+		 * last time completions were populated.  Only used on the
+		 * scheduler's thread.
+		 */
+		private int populatedVersion;
+		private int populatedCaretLine;
+
+		PaneListener(RTextEditorPane pane) {
+			this.pane = pane;
+			populatedVersion = -1;
+			populatedCaretLine = -1;
+		}
+
+		public void caretUpdate(CaretEvent e) {
+			// Completions depend on the scope the caret is in, which can
+			// only change when it moves to another line.
+			int line = pane.getDocument().getDefaultRootElement().
+										getElementIndex(e.getDot());
+			if (line!=caretLine) {
+				caretLine = line;
+				schedule();
+			}
+		}
+
+		public void changedUpdate(DocumentEvent e) {
+			// Attribute changes don't affect completions.
+		}
+
+		private void documentChanged() {
+			version++;
+			schedule();
+		}
+
+		public void insertUpdate(DocumentEvent e) {
+			documentChanged();
+		}
+
+		public void propertyChange(PropertyChangeEvent e) {
+			// The editor's document was replaced, e.g. when reloading.
+			Document old = (Document)e.getOldValue();
+			if (old!=null) {
+				old.removeDocumentListener(this);
+			}
+			Document doc = (Document)e.getNewValue();
+			if (doc!=null) {
+				doc.addDocumentListener(this);
+			}
+			documentChanged();
+		}
+
+		public void removeUpdate(DocumentEvent e) {
+			documentChanged();
+		}
+
+		/**
+		 * Populates the editor's completions, if it changed since the last
+		 * time.  This is called on the scheduler's thread.
+		 */
+		public void run() {
+			int version = this.version;
+			int caretLine = this.caretLine;
+			if (version==populatedVersion && caretLine==populatedCaretLine) {
+				return;
+			}
+			try {
+				pane.populateAutoComplete();
+			} catch (RuntimeException re) {
+				// Don't let one bad update stop updates for every editor.
+				re.printStackTrace();
+			}
+			// If the editor changed while populating, that change
+			// scheduled another update.
+			populatedVersion = version;
+			populatedCaretLine = caretLine;
+		}
+
+		/**
+		 * Restarts the countdown to updating this editor's completions.
+		 */
+		synchronized void schedule() {
+			if (pending!=null) {
+				pending.cancel(false);
+			}
+			pending = executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+		}
+
+	}
+
+
+}
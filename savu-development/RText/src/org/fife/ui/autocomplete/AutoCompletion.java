@@ -748,6 +748,21 @@ public class AutoCompletion {
 	 * @return The current line number of the caret.
 	 */
 	protected int refreshPopupWindow() {
+		long time = System.nanoTime();
+		try {
+			return refreshPopupWindowImpl();
+		} finally {
+			CompletionTimings.REFRESH_POPUP.recordSince(time);
+		}
+	}
+
+
+	/**
+	 * Does the work of {@link #refreshPopupWindow()}.
+	 *
+	 * @return The current line number of the caret.
+	 */
+	private int refreshPopupWindowImpl() {
 		// A return value of null => don't suggest completions
 		String text = provider.getAlreadyEnteredText(textComponent, true);
 		if (text == null && !isPopupVisible()) {
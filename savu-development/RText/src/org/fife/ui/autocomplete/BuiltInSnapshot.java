@@ -0,0 +1,307 @@
+package org.fife.ui.autocomplete;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.fife.rtext.RTextUtilities;
+
+
+/**
+ * The completions from <code>lib/built-ins.txt</code>, in a compact binary
+ * form shared by every {@link PythonCompletionProvider}.<p>
+ *
+ * The text file is parsed once, the first time Savu runs (or after it
+ * changes), and written to <code>builtins.bin</code> in the preferences
+ * directory.  After that, the file is memory-mapped and only the class and
+ * replacement text of each completion are read from it.  Descriptions stay
+ * in the mapped file until the description window asks for one.  The
+ * snapshot is loaded once per JVM; each provider just wraps its entries in
+ * completions of its own.<p>
+ *
+ * The file starts with {@link #MAGIC}, the size and modification time of
+ * the text file it was made from, and the number of entries.  Each entry is
+ * its class and replacement text (a length-prefixed UTF-8 string each) and
+ * the offset and length of its description, or <code>-1</code> for none.
+ * The descriptions follow, as UTF-8.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+class BuiltInSnapshot {
+
+	private ByteBuffer buffer;
+	private int descriptionStart;
+
+	private String[] classes;
+	private String[] names;
+	private int[] offsets;
+	private int[] lengths;
+
+	private static BuiltInSnapshot sharedInstance;
+
+	private static final int MAGIC = 0x53425331; // "SBS1"
+
+	private static final String SOURCE_FILE = "lib/built-ins.txt";
+	private static final String SNAPSHOT_FILE = "builtins.bin";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+
+	/**
+	 * Reads the entries of a snapshot.
+	 *
+	 * @param buffer The snapshot.
+	 * @throws IllegalArgumentException If the snapshot is corrupt.
+	 */
+	private BuiltInSnapshot(ByteBuffer buffer) {
+		this.buffer = buffer;
+		try {
+			buffer.position(4 + 8 + 8);
+			int count = buffer.getInt();
+			classes = new String[count];
+			names = new String[count];
+			offsets = new int[count];
+			lengths = new int[count];
+			for (int i=0; i<count; i++) {
+				classes[i] = readString(buffer);
+				names[i] = readString(buffer);
+				offsets[i] = buffer.getInt();
+				lengths[i] = buffer.getInt();
+			}
+			descriptionStart = buffer.position();
+		} catch (RuntimeException re) { // BufferUnderflowException, etc.
+			throw new IllegalArgumentException("Corrupt snapshot", re);
+		}
+	}
+
+
+	/**
+	 * Creates completions for every entry in this snapshot.
+	 *
+	 * @param provider The provider the completions are for.
+	 * @return The completions.
+	 */
+	public List<Completion> createCompletions(CompletionProvider provider) {
+		List<Completion> completions =
+						new ArrayList<Completion>(names.length);
+		for (int i=0; i<names.length; i++) {
+			completions.add(new BuiltInCompletion(provider, i));
+		}
+		return completions;
+	}
+
+
+	/**
+	 * Returns the description of an entry, reading it from the snapshot.
+	 *
+	 * @param index The entry.
+	 * @return The description, or <code>null</code> if it has none.
+	 */
+	public String getDescription(int index) {
+		if (lengths[index]<0) {
+			return null;
+		}
+		byte[] bytes = new byte[lengths[index]];
+		ByteBuffer b = buffer.duplicate(); // Keeps this thread-safe
+		b.position(descriptionStart + offsets[index]);
+		b.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+
+	/**
+	 * Returns the snapshot shared by all providers, creating it if it
+	 * doesn't exist or <code>lib/built-ins.txt</code> has changed.
+	 *
+	 * @param parser Parses <code>lib/built-ins.txt</code> if necessary.
+	 * @return The snapshot.
+	 */
+	public static synchronized BuiltInSnapshot getSharedInstance(
+									PythonCompletionProvider parser) {
+
+		if (sharedInstance!=null) {
+			return sharedInstance;
+		}
+
+		File source = new File(SOURCE_FILE);
+		File file = new File(RTextUtilities.getPreferencesDirectory(),
+								SNAPSHOT_FILE);
+		try {
+			sharedInstance = load(file, source);
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		} catch (IllegalArgumentException iae) { // Corrupt, regenerate it
+			iae.printStackTrace();
+		}
+
+		if (sharedInstance==null) {
+			byte[] bytes = toBytes(source,
+						parser.parseBuiltInCompletionOptions());
+			try {
+				write(file, bytes);
+			} catch (IOException ioe) {
+				ioe.printStackTrace(); // Try again next time
+			}
+			sharedInstance = new BuiltInSnapshot(ByteBuffer.wrap(bytes));
+		}
+
+		return sharedInstance;
+
+	}
+
+
+	/**
+	 * Maps a snapshot file into memory.
+	 *
+	 * @param file The snapshot file.
+	 * @param source The text file it should have been made from.
+	 * @return The snapshot, or <code>null</code> if the file doesn't exist
+	 *         or was made from a different version of the text file.
+	 * @throws IOException If an I/O error occurs.
+	 * @throws IllegalArgumentException If the file is corrupt.
+	 */
+	private static BuiltInSnapshot load(File file, File source)
+										throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		ByteBuffer buffer;
+		try {
+			FileChannel channel = raf.getChannel();
+			// The mapping stays valid after the channel is closed.
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+									channel.size());
+		} finally {
+			raf.close();
+		}
+		if (buffer.limit()<4+8+8+4 || buffer.getInt(0)!=MAGIC ||
+				buffer.getLong(4)!=source.length() ||
+				buffer.getLong(12)!=source.lastModified()) {
+			return null;
+		}
+		return new BuiltInSnapshot(buffer);
+	}
+
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xffff];
+		buffer.get(bytes);
+		return new String(bytes, UTF8).intern();
+	}
+
+
+	/**
+	 * Creates a snapshot of completions.
+	 *
+	 * @param source The text file they were parsed from.
+	 * @param completions The completions.  These should all be
+	 *        {@link AttributeCompletion}s.
+	 * @return The snapshot.
+	 */
+	private static byte[] toBytes(File source,
+								Collection<Completion> completions) {
+
+		ByteArrayOutputStream descriptions = new ByteArrayOutputStream();
+		ByteArrayOutputStream entries = new ByteArrayOutputStream();
+		try {
+
+			DataOutputStream out = new DataOutputStream(entries);
+			out.writeInt(MAGIC);
+			out.writeLong(source.length());
+			out.writeLong(source.lastModified());
+			out.writeInt(completions.size());
+			for (Completion c : completions) {
+				String clazz = c instanceof AttributeCompletion ?
+						((AttributeCompletion)c).getClazz() : "";
+				writeString(out, clazz);
+				writeString(out, c.getReplacementText());
+				String summary = c.getSummary();
+				if (summary==null) {
+					out.writeInt(0);
+					out.writeInt(-1);
+				}
+				else {
+					byte[] bytes = summary.getBytes(UTF8);
+					out.writeInt(descriptions.size());
+					out.writeInt(bytes.length);
+					descriptions.write(bytes);
+				}
+			}
+			descriptions.writeTo(out);
+			out.close();
+
+		} catch (IOException ioe) { // Never happens
+			throw new RuntimeException(ioe);
+		}
+		return entries.toByteArray();
+
+	}
+
+
+	/**
+	 * Writes a snapshot file, replacing it in one step so a half-written file
+	 * is never mapped.
+	 */
+	private static void write(File file, byte[] bytes) throws IOException {
+		File dir = file.getParentFile();
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Can't create " + dir);
+		}
+		Path temp = Files.createTempFile(dir.toPath(), file.getName(), ".tmp");
+		FileOutputStream out = new FileOutputStream(temp.toFile());
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+		Files.move(temp, file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+	private static void writeString(DataOutputStream out, String s)
+										throws IOException {
+		byte[] bytes = s.getBytes(UTF8);
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+
+	/**
+	 * A completion whose description is read from the snapshot whenever it's
+	 * asked for, rather than kept in memory.
+	 */
+	private class BuiltInCompletion extends AttributeCompletion {
+
+		private int index;
+
+		BuiltInCompletion(CompletionProvider provider, int index) {
+			super(provider, names[index], classes[index]);
+			this.index = index;
+		}
+
+		@Override
+		public String getSummary() {
+			String summary = super.getSummary();
+			return summary!=null ? summary : getDescription(index);
+		}
+
+	}
+
+
+}
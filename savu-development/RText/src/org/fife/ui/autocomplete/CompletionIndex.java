@@ -0,0 +1,325 @@
+/*
+ * 10/17/2026
+ *
+ * CompletionIndex.java - Finds the completions best matching typed text.
+ *
+ * This library is distributed under a modified BSD license.  See the included
+ * RSyntaxTextArea.License.txt file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An immutable index of a provider's completions, used to find those best
+ * matching what the user has typed.  The completions are split into global
+ * names and, for each class, that class's {@link AttributeCompletion}s.
+ * Each partition keeps the case-folded input texts in a sorted array, so
+ * the completions starting with the text typed are found with a binary
+ * search.  When there are enough of them, no other completions (e.g. from
+ * imported modules) are looked at.<p>
+ *
+ * Otherwise, the partition is searched with a {@link FuzzyMatcher}, for
+ * which it keeps each input text's case-folded characters,
+ * {@link FuzzyMatcher#mask(char[])} and
+ * {@link FuzzyMatcher#wordStarts(String)}.  Only the best few matches are
+ * kept while searching, in a bounded heap, so the cost of sorting and
+ * showing the results doesn't grow with the number of matches.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class CompletionIndex {
+
+	/**
+	 * The list this index was built from, and its size at the time, used to
+	 * detect changes made to it.
+	 */
+	private List<Completion> source;
+	private int sourceSize;
+
+	private Partition globals;
+	private Map<String, Partition> attributes;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param completions The completions to index.
+	 */
+	public CompletionIndex(List<Completion> completions) {
+
+		source = completions;
+		sourceSize = completions.size();
+
+		List<Completion> globalList = new ArrayList<Completion>();
+		Map<String, List<Completion>> attributeLists =
+								new HashMap<String, List<Completion>>();
+		for (Completion c : completions) {
+			if (c instanceof AttributeCompletion) {
+				String clazz = ((AttributeCompletion)c).getClazz();
+				List<Completion> list = attributeLists.get(clazz);
+				if (list==null) {
+					list = new ArrayList<Completion>();
+					attributeLists.put(clazz, list);
+				}
+				list.add(c);
+			}
+			else {
+				globalList.add(c);
+			}
+		}
+
+		globals = new Partition(globalList);
+		attributes = new HashMap<String, Partition>(attributeLists.size()*2);
+		for (Map.Entry<String, List<Completion>> entry :
+											attributeLists.entrySet()) {
+			attributes.put(entry.getKey(), new Partition(entry.getValue()));
+		}
+
+	}
+
+
+	/**
+	 * Case-folds text the same way
+	 * {@link Util#startsWithIgnoreCase(String, String)} compares it.
+	 */
+	private static String fold(String text) {
+		char[] chars = null;
+		for (int i=0; i<text.length(); i++) {
+			char ch = text.charAt(i);
+			char folded = Character.toLowerCase(ch);
+			if (folded!=ch) {
+				if (chars==null) {
+					chars = text.toCharArray();
+				}
+				chars[i] = folded;
+			}
+		}
+		return chars==null ? text : new String(chars);
+	}
+
+
+	/**
+	 * Adds the best fuzzy matches for what the user has typed to a list,
+	 * best first.  Matches scoring the same are added in order of their input
+	 * text.
+	 *
+	 * @param clazz The class whose attributes to look in, or
+	 *        <code>null</code> to look in the global names.
+	 * @param text The text typed.
+	 * @param max The maximum number of matches to add.
+	 * @param result The list to add to.
+	 * @see FuzzyMatcher
+	 */
+	public void getBestCompletions(String clazz, String text, int max,
+								List<Completion> result) {
+		Partition partition = clazz==null ? globals : attributes.get(clazz);
+		if (partition!=null && max>0) {
+			String prefix = fold(text);
+			partition.getBestCompletions(prefix, new FuzzyMatcher(prefix), max,
+										result);
+		}
+	}
+
+
+	/**
+	 * Returns whether this index is (still) up to date with a list of
+	 * completions.  This is only a sanity check for lists modified
+	 * directly; the provider should discard its index whenever it changes
+	 * its completions.
+	 *
+	 * @param completions The list.
+	 * @return Whether this index was built from that list, and it hasn't
+	 *         grown or shrunk since.
+	 */
+	public boolean isFor(List<Completion> completions) {
+		return completions==source && completions.size()==sourceSize;
+	}
+
+
+	/**
+	 * The completions of one partition, sorted by their case-folded input
+	 * text.
+	 */
+	private static final class Partition {
+
+		private String[] keys;
+		private Completion[] completions;
+		private char[][] folded;
+		private long[] masks;
+		private long[] wordStarts;
+
+		Partition(List<Completion> list) {
+
+			int count = list.size();
+			Entry[] entries = new Entry[count];
+			for (int i=0; i<count; i++) {
+				Completion c = list.get(i);
+				entries[i] = new Entry(fold(c.getInputText()), c);
+			}
+			Arrays.sort(entries); // Stable, so equal keys keep their order
+
+			keys = new String[count];
+			completions = new Completion[count];
+			folded = new char[count][];
+			masks = new long[count];
+			wordStarts = new long[count];
+			for (int i=0; i<count; i++) {
+				keys[i] = entries[i].key;
+				completions[i] = entries[i].completion;
+				folded[i] = keys[i].toCharArray();
+				masks[i] = FuzzyMatcher.mask(folded[i]);
+				wordStarts[i] = FuzzyMatcher.wordStarts(
+										completions[i].getInputText());
+			}
+
+		}
+
+		/**
+		 * Returns the index of the first key that is <code>&gt;=</code> a
+		 * prefix.  All keys starting with the prefix follow it.
+		 */
+		private int findFirst(String prefix) {
+			int low = 0;
+			int high = keys.length;
+			while (low<high) {
+				int mid = (low+high) >>> 1;
+				if (keys[mid].compareTo(prefix)<0) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		void getBestCompletions(String prefix, FuzzyMatcher matcher,
+								int max, List<Completion> result) {
+
+			// The keys starting with the prefix score higher than any
+			// others, and are cheap to score.  If there are enough of them,
+			// nothing else needs to be looked at.
+			int prefixStart = findFirst(prefix);
+			int prefixEnd = findFirst(prefix + Character.MAX_VALUE);
+			int capacity = Math.min(max, keys.length);
+			boolean prefixOnly = prefixEnd-prefixStart>=capacity;
+			int from = prefixOnly ? prefixStart : 0;
+			int to = prefixOnly ? prefixEnd : keys.length;
+
+			// A heap of the best matches so far, with the worst on top.
+			// Candidates are visited in key order, so a later candidate
+			// scoring the same as the worst isn't better than it.
+			int[] scores = new int[capacity];
+			int[] indices = new int[capacity];
+			int size = 0;
+
+			for (int i=from; i<to; i++) {
+				int score;
+				if (i>=prefixStart && i<prefixEnd) {
+					score = matcher.scorePrefix(folded[i].length,
+												wordStarts[i]);
+				}
+				else if (!matcher.accepts(masks[i]) || (score=
+						matcher.score(folded[i], wordStarts[i]))==
+							FuzzyMatcher.NO_MATCH) {
+					continue;
+				}
+				if (size<capacity) {
+					int pos = size++;
+					while (pos>0) { // Sift up
+						int parent = (pos-1) >>> 1;
+						if (!isWorse(score, i, scores[parent],
+										indices[parent])) {
+							break;
+						}
+						scores[pos] = scores[parent];
+						indices[pos] = indices[parent];
+						pos = parent;
+					}
+					scores[pos] = score;
+					indices[pos] = i;
+				}
+				else if (score>scores[0]) {
+					siftDown(scores, indices, size, score, i);
+				}
+			}
+
+			// Empty the heap, worst first, into the end of the results.
+			int start = result.size();
+			for (int i=0; i<size; i++) {
+				result.add(null);
+			}
+			while (size>0) {
+				result.set(start+size-1, completions[indices[0]]);
+				size--;
+				if (size>0) {
+					siftDown(scores, indices, size, scores[size],
+							indices[size]);
+				}
+			}
+
+		}
+
+		/**
+		 * Returns whether one match is worse than another.
+		 */
+		private static boolean isWorse(int score1, int index1, int score2,
+									int index2) {
+			return score1<score2 || (score1==score2 && index1>index2);
+		}
+
+		/**
+		 * Replaces the top of a heap, and moves the new entry down to where
+		 * it belongs.
+		 */
+		private static void siftDown(int[] scores, int[] indices, int size,
+								int score, int index) {
+			int pos = 0;
+			while (true) {
+				int child = 2*pos + 1;
+				if (child>=size) {
+					break;
+				}
+				if (child+1<size && isWorse(scores[child+1],
+						indices[child+1], scores[child], indices[child])) {
+					child++;
+				}
+				if (!isWorse(scores[child], indices[child], score, index)) {
+					break;
+				}
+				scores[pos] = scores[child];
+				indices[pos] = indices[child];
+				pos = child;
+			}
+			scores[pos] = score;
+			indices[pos] = index;
+		}
+
+	}
+
+
+	private static final class Entry implements Comparable<Entry> {
+
+		private String key;
+		private Completion completion;
+
+		Entry(String key, Completion completion) {
+			this.key = key;
+			this.completion = completion;
+		}
+
+		public int compareTo(Entry other) {
+			return key.compareTo(other.key);
+		}
+
+	}
+
+
+}
@@ -84,6 +84,18 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	private static final Comparator<Completion> sortByRelevanceComparator =
 								new SortByRelevanceComparator();
 
+	/**
+	 * Comparator used to sort completions by their relevance only.  Since
+	 * sorting is stable, completions with the same relevance keep the order
+	 * {@link #getCompletionsImpl(JTextComponent)} ranked them in.
+	 */
+	private static final Comparator<Completion> relevanceOnlyComparator =
+								new Comparator<Completion>() {
+		public int compare(Completion c1, Completion c2) {
+			return c2.getRelevance() - c1.getRelevance();
+		}
+	};
+
 
 	/**
 	 * {@inheritDoc}
@@ -99,18 +111,25 @@ public abstract class CompletionProviderBase implements CompletionProvider {
 	 */
 	public List<Completion> getCompletions(JTextComponent comp) {
 
+		long time = System.nanoTime();
 		List<Completion> completions = getCompletionsImpl(comp);
 		if (parent!=null) {
 			completions.addAll(parent.getCompletions(comp));
-			Collections.sort(completions);
 		}
+		time = CompletionTimings.LOOKUP.recordSince(time);
 
-		// NOTE: We can't sort by relevance prior to this; we need to have
-		// things alphabetical so we can easily narrow down completions to
-		// those starting with what was already typed.
-		if (/*sortByRelevance*/true) {
+		if (parent!=null) {
+			Collections.sort(completions);
+			// NOTE: We can't sort by relevance prior to this; we need to
+			// have things alphabetical so we can easily narrow down
+			// completions to those starting with what was already typed.
 			Collections.sort(completions, sortByRelevanceComparator);
 		}
+		else {
+			// Keep the best matches first.
+			Collections.sort(completions, relevanceOnlyComparator);
+		}
+		CompletionTimings.SORT.recordSince(time);
 
 		return completions;
 
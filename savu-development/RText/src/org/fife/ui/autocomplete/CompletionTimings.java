@@ -0,0 +1,250 @@
+package org.fife.ui.autocomplete;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * How long each stage of code completion takes, so a slow popup can be
+ * traced to the stage that made it slow.  Each stage is timed with a
+ * {@link LatencyHistogram} every time it runs:
+ *
+ * <ul>
+ *    <li>Updating a text area's completions, on the
+ *        {@link AutoCompleteScheduler}'s thread: copying its text, each of
+ *        the {@link PythonCompletionProvider}'s option builders, and giving
+ *        the options to the provider.</li>
+ *    <li>Asking <code>lib/Introspector.py</code> about modules.</li>
+ *    <li>Showing the popup, on the EDT: looking up the completions matching
+ *        what was typed, sorting them, and the whole refresh of the popup,
+ *        including rendering the list.</li>
+ * </ul>
+ *
+ * The timings can be seen in Savu's "Completion Timings" window, or written
+ * as JSON with {@link #writeJson(File)}.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public final class CompletionTimings {
+
+	private static final List<LatencyHistogram> stages =
+									new ArrayList<LatencyHistogram>();
+
+	private static volatile long resetTime = System.currentTimeMillis();
+
+	/**
+	 * All of {@link #DOCUMENT_COPY} through {@link #UPDATE_COMPLETIONS}.
+	 */
+	public static final LatencyHistogram POPULATE =
+									create("populate");
+
+	/**
+	 * Copying a text area's text to build completions from.
+	 */
+	public static final LatencyHistogram DOCUMENT_COPY =
+									create("populate.documentCopy");
+
+	/**
+	 * {@link PythonCompletionProvider#getLocalCompletionOptions(String, int)}.
+	 */
+	public static final LatencyHistogram LOCAL_OPTIONS =
+									create("populate.localOptions");
+
+	/**
+	 * {@link PythonCompletionProvider#getGlobalCompletionOptions(String, int)}.
+	 */
+	public static final LatencyHistogram GLOBAL_OPTIONS =
+									create("populate.globalOptions");
+
+	/**
+	 * {@link PythonCompletionProvider#getClassCompletionOptions(String)}.
+	 */
+	public static final LatencyHistogram CLASS_OPTIONS =
+									create("populate.classOptions");
+
+	/**
+	 * {@link PythonCompletionProvider#getBuiltInCompletionOptions()}.
+	 */
+	public static final LatencyHistogram BUILT_IN_OPTIONS =
+									create("populate.builtInOptions");
+
+	/**
+	 * {@link PythonCompletionProvider#getImportCompletionOptions(String, int,
+	 * String)}, including any modules it has to ask Python about.
+	 */
+	public static final LatencyHistogram IMPORT_OPTIONS =
+									create("populate.importOptions");
+
+	/**
+	 * Tidying the options built (e.g. removing <code>self</code> from
+	 * parameter lists) and giving them to the provider, see
+	 * {@link AbstractCompletionProvider#updateCompletions(java.util.Collection)}.
+	 */
+	public static final LatencyHistogram UPDATE_COMPLETIONS =
+									create("populate.updateCompletions");
+
+	/**
+	 * One request to <code>lib/Introspector.py</code> for descriptions of
+	 * modules, see {@link PythonIntrospector#getModules(List)}.
+	 */
+	public static final LatencyHistogram INTROSPECTION =
+									create("introspection");
+
+	/**
+	 * The whole of {@link AutoCompletion#refreshPopupWindow()}, including
+	 * {@link #LOOKUP} and {@link #SORT}.
+	 */
+	public static final LatencyHistogram REFRESH_POPUP =
+									create("popup.refresh");
+
+	/**
+	 * Finding the completions that match what was typed, see
+	 * {@link AbstractCompletionProvider#getCompletionsImpl(
+	 * javax.swing.text.JTextComponent)}.
+	 */
+	public static final LatencyHistogram LOOKUP =
+									create("popup.lookup");
+
+	/**
+	 * Sorting the completions found, see
+	 * {@link CompletionProviderBase#getCompletions(
+	 * javax.swing.text.JTextComponent)}.
+	 */
+	public static final LatencyHistogram SORT =
+									create("popup.sort");
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private CompletionTimings() {
+	}
+
+
+	private static LatencyHistogram create(String name) {
+		LatencyHistogram histogram = new LatencyHistogram(name);
+		stages.add(histogram);
+		return histogram;
+	}
+
+
+	/**
+	 * Returns when the timings were last reset.
+	 *
+	 * @return The time, in milliseconds since the epoch.
+	 * @see #reset()
+	 */
+	public static long getResetTime() {
+		return resetTime;
+	}
+
+
+	/**
+	 * Returns the timings of every stage, in the order they run in.
+	 *
+	 * @return The timings.
+	 */
+	public static List<LatencyHistogram> getStages() {
+		return Collections.unmodifiableList(stages);
+	}
+
+
+	/**
+	 * Forgets all timings.
+	 *
+	 * @see #getResetTime()
+	 */
+	public static void reset() {
+		for (LatencyHistogram stage : stages) {
+			stage.reset();
+		}
+		resetTime = System.currentTimeMillis();
+	}
+
+
+	/**
+	 * Returns the timings of every stage as JSON.  Each stage has its
+	 * count, mean, maximum and a few percentiles, and the non-empty buckets
+	 * of its histogram as <code>[highestValue, count]</code> pairs.  All
+	 * times are in nanoseconds.
+	 *
+	 * @return The JSON.
+	 * @see #writeJson(File)
+	 */
+	public static String toJson() {
+
+		StringBuilder sb = new StringBuilder("{\n");
+		sb.append("  \"since\": ").append(resetTime).append(",\n");
+		sb.append("  \"unit\": \"ns\",\n");
+		sb.append("  \"stages\": [");
+
+		for (int i=0; i<stages.size(); i++) {
+			LatencyHistogram stage = stages.get(i);
+			sb.append(i>0 ? ",\n" : "\n");
+			sb.append("    {\"name\": ").append(Json.quote(stage.getName()));
+			sb.append(", \"count\": ").append(stage.getCount());
+			sb.append(", \"mean\": ").append(Math.round(stage.getMean()));
+			sb.append(", \"max\": ").append(stage.getMax());
+			for (double percentile : PERCENTILES) {
+				sb.append(", \"p").append(getPercentileName(percentile));
+				sb.append("\": ");
+				sb.append(stage.getValueAtPercentile(percentile));
+			}
+			sb.append(",\n     \"buckets\": [");
+			boolean first = true;
+			for (int j=0; j<stage.getBucketCount(); j++) {
+				long count = stage.getCount(j);
+				if (count>0) {
+					sb.append(first ? "" : ", ").append('[');
+					sb.append(LatencyHistogram.getHighestValue(j));
+					sb.append(", ").append(count).append(']');
+					first = false;
+				}
+			}
+			sb.append("]}");
+		}
+
+		return sb.append("\n  ]\n}\n").toString();
+
+	}
+
+
+	/**
+	 * Returns a percentile as it appears in JSON keys, e.g.
+	 * <code>"99_9"</code> for <code>99.9</code>.
+	 */
+	private static String getPercentileName(double percentile) {
+		String name = percentile==(long)percentile ?
+				Long.toString((long)percentile) : Double.toString(percentile);
+		return name.replace('.', '_');
+	}
+
+
+	/**
+	 * Writes the timings of every stage to a file, as JSON.
+	 *
+	 * @param file The file to write to.
+	 * @throws IOException If an I/O error occurs.
+	 * @see #toJson()
+	 */
+	public static void writeJson(File file) throws IOException {
+		Writer w = new OutputStreamWriter(new FileOutputStream(file),
+										"UTF-8");
+		try {
+			w.write(toJson());
+		} finally {
+			w.close();
+		}
+	}
+
+
+}
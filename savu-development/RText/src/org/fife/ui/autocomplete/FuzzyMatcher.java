@@ -0,0 +1,264 @@
+/*
+ * 10/17/2026
+ *
+ * FuzzyMatcher.java - Scores completions against what the user has typed.
+ *
+ * This library is distributed under a modified BSD license.  See the included
+ * RSyntaxTextArea.License.txt file for details.
+ */
+package org.fife.ui.autocomplete;
+
+
+/**
+ * Matches the text the user has typed against completions' input texts as a
+ * subsequence, ignoring case, and scores how good each match is.  For
+ * example, <code>"gcv"</code> matches <code>get_class_value</code> and
+ * <code>getClassValue</code>.  Matches are scored higher when they:
+ *
+ * <ul>
+ *    <li>Are a prefix of the input text,</li>
+ *    <li>Start at the beginning of a word, i.e. at the start of the text,
+ *        after an underscore or a period, or at an upper case letter in
+ *        camel case,</li>
+ *    <li>Match consecutive characters, and</li>
+ *    <li>Match shorter input texts.</li>
+ * </ul>
+ *
+ * A matcher is created for each lookup.  When a candidate is indexed, the
+ * characters it contains are summarized by {@link #mask(char[])}, so most
+ * candidates that can't match are rejected without looking at their text,
+ * and where its words start is found by {@link #wordStarts(String)}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class FuzzyMatcher {
+
+	private char[] query;
+	private long queryMask;
+
+	/**
+	 * Returned by {@link #score(char[], long)} for texts that don't
+	 * match.
+	 */
+	public static final int NO_MATCH = Integer.MIN_VALUE;
+
+	/**
+	 * Added to the score of texts starting with the text typed.  This is
+	 * more than any other text can score, so they always come first.
+	 */
+	public static final int PREFIX_BONUS		= 1 << 20;
+
+	private static final int START_BONUS		= 8;
+	private static final int BOUNDARY_BONUS		= 6;
+	private static final int CONSECUTIVE_BONUS	= 4;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param query The text typed, already case-folded.
+	 */
+	public FuzzyMatcher(String query) {
+		this.query = query.toCharArray();
+		queryMask = mask(this.query);
+	}
+
+
+	/**
+	 * Returns whether a candidate's mask has every character the text typed
+	 * has.  Candidates for which this is <code>false</code> can't match.
+	 *
+	 * @param mask {@link #mask(char[])} of the candidate.
+	 * @return Whether the candidate might match.
+	 */
+	public boolean accepts(long mask) {
+		return (queryMask&~mask)==0;
+	}
+
+
+	private static boolean isWordStart(long wordStarts, int index) {
+		return index<64 && ((wordStarts>>>index)&1)!=0;
+	}
+
+
+	/**
+	 * Returns which characters a text contains, as a bit set that can be
+	 * compared quickly.  Letters and digits each have their own bit; other
+	 * characters share bits.
+	 *
+	 * @param folded The case-folded text.
+	 * @return The bit set.
+	 */
+	public static long mask(char[] folded) {
+		long mask = 0;
+		for (char ch : folded) {
+			mask |= bit(ch);
+		}
+		return mask;
+	}
+
+
+	/**
+	 * Returns where the words in a text start, i.e. its first character, the
+	 * characters after underscores, periods and parentheses, and upper case
+	 * letters following lower case ones.
+	 *
+	 * @param text The text, as written.
+	 * @return A bit set of the indices of the word starts.  Only the first
+	 *         64 characters are looked at.
+	 */
+	public static long wordStarts(String text) {
+		long wordStarts = 0;
+		int length = Math.min(text.length(), 64);
+		for (int i=0; i<length; i++) {
+			boolean start = i==0;
+			if (!start) {
+				char prev = text.charAt(i-1);
+				start = prev=='_' || prev=='.' || prev=='(' ||
+						(Character.isUpperCase(text.charAt(i)) &&
+								!Character.isUpperCase(prev));
+			}
+			if (start) {
+				wordStarts |= 1L << i;
+			}
+		}
+		return wordStarts;
+	}
+
+
+	private static long bit(char ch) {
+		if (ch>='a' && ch<='z') {
+			return 1L << (ch-'a');
+		}
+		if (ch>='0' && ch<='9') {
+			return 1L << (26 + ch-'0');
+		}
+		return 1L << (36 + (ch&15)); // Collisions just match more
+	}
+
+
+	/**
+	 * Finds the next index at or after <code>from</code> where a character
+	 * occurs.
+	 *
+	 * @param wordStartsOnly Whether to only look at the starts of words.
+	 * @return The index, or <code>-1</code> if there is none.
+	 */
+	private static int next(char[] folded, long wordStarts, char ch,
+							int from, boolean wordStartsOnly) {
+		for (int i=from; i<folded.length; i++) {
+			if (folded[i]==ch &&
+					(!wordStartsOnly || isWordStart(wordStarts, i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Scores a candidate already known to start with the text typed, the
+	 * same as {@link #score(char[], long)} would, without looking at it.
+	 *
+	 * @param length The length of the candidate's input text.
+	 * @param wordStarts {@link #wordStarts(String)} of its input text.
+	 * @return The score.
+	 */
+	public int scorePrefix(int length, long wordStarts) {
+		int count = query.length;
+		if (count==0) {
+			return 0;
+		}
+		// Every character after the first is consecutive, and some start
+		// words.
+		long matched = count>=64 ? -1L : (1L<<count) - 1;
+		int words = Long.bitCount(wordStarts & matched & ~1L);
+		return PREFIX_BONUS + START_BONUS + (count-1)*CONSECUTIVE_BONUS +
+				words*BOUNDARY_BONUS - (length-count);
+	}
+
+
+	/**
+	 * Scores a candidate.
+	 *
+	 * @param folded The candidate's case-folded input text.
+	 * @param wordStarts {@link #wordStarts(String)} of its input text.
+	 * @return The score, higher being better, or {@link #NO_MATCH}.
+	 */
+	public int score(char[] folded, long wordStarts) {
+
+		int length = query.length;
+		if (folded.length<length) {
+			return NO_MATCH;
+		}
+		if (length==0) { // Everything matches, in order
+			return 0;
+		}
+
+		// Check that the text is a subsequence at all before scoring.
+		for (int i=0, j=0; i<length; i++, j++) {
+			char ch = query[i];
+			while (j<folded.length && folded[j]!=ch) {
+				j++;
+			}
+			if (j==folded.length) {
+				return NO_MATCH;
+			}
+		}
+
+		// Prefer the start of a word, unless the next character in the
+		// candidate matches too.  This can skip a match a plain search
+		// would find, so fall back to one.
+		int score = score(folded, wordStarts, true);
+		if (score==NO_MATCH) {
+			score = score(folded, wordStarts, false);
+		}
+
+		boolean prefix = true;
+		for (int i=0; i<length; i++) {
+			if (folded[i]!=query[i]) {
+				prefix = false;
+				break;
+			}
+		}
+		return score + (prefix ? PREFIX_BONUS : 0) -
+					(folded.length-length);
+
+	}
+
+
+	private int score(char[] folded, long wordStarts, boolean preferWords) {
+		int score = 0;
+		int prev = -1;
+		for (int i=0; i<query.length; i++) {
+			char ch = query[i];
+			int index = -1;
+			if (prev>-1 && prev+1<folded.length && folded[prev+1]==ch) {
+				index = prev + 1;
+			}
+			else if (preferWords) {
+				index = next(folded, wordStarts, ch, prev+1, true);
+			}
+			if (index==-1) {
+				index = next(folded, wordStarts, ch, prev+1, false);
+				if (index==-1) {
+					return NO_MATCH;
+				}
+			}
+			if (index==0) {
+				score += START_BONUS;
+			}
+			else if (isWordStart(wordStarts, index)) {
+				score += BOUNDARY_BONUS;
+			}
+			if (prev>-1 && index==prev+1) {
+				score += CONSECUTIVE_BONUS;
+			}
+			prev = index;
+		}
+		return score;
+	}
+
+
+}
@@ -0,0 +1,256 @@
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Just enough JSON support to talk to <code>lib/Introspector.py</code>.
+ * Objects are read as <code>Map</code>s, arrays as <code>List</code>s and
+ * numbers as <code>Double</code>s.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+final class Json {
+
+	private String text;
+	private int pos;
+
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+
+	private void expect(char ch) {
+		skipWhitespace();
+		if (pos>=text.length() || text.charAt(pos)!=ch) {
+			throw error("Expected '" + ch + "'");
+		}
+		pos++;
+	}
+
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at offset " + pos +
+								" of: " + text);
+	}
+
+
+	/**
+	 * Parses a JSON value.
+	 *
+	 * @param text The JSON text.
+	 * @return The value.
+	 * @throws IllegalArgumentException If <code>text</code> isn't valid
+	 *         JSON.
+	 */
+	public static Object parse(String text) {
+		Json json = new Json(text);
+		Object value = json.readValue();
+		json.skipWhitespace();
+		if (json.pos<text.length()) {
+			throw json.error("Unexpected text");
+		}
+		return value;
+	}
+
+
+	/**
+	 * Returns a string as a quoted JSON string.
+	 *
+	 * @param str The string.
+	 * @return The JSON string.
+	 */
+	public static String quote(String str) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i=0; i<str.length(); i++) {
+			char ch = str.charAt(i);
+			switch (ch) {
+				case '"':
+				case '\\':
+					sb.append('\\').append(ch);
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (ch<0x20) {
+						sb.append(String.format("\\u%04x", (int)ch));
+					}
+					else {
+						sb.append(ch);
+					}
+					break;
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+
+	private List<Object> readArray() {
+		List<Object> list = new ArrayList<Object>();
+		expect('[');
+		skipWhitespace();
+		if (pos<text.length() && text.charAt(pos)==']') {
+			pos++;
+			return list;
+		}
+		while (true) {
+			list.add(readValue());
+			skipWhitespace();
+			if (pos<text.length() && text.charAt(pos)==',') {
+				pos++;
+			}
+			else {
+				expect(']');
+				return list;
+			}
+		}
+	}
+
+
+	private Object readLiteral(String literal, Object value) {
+		if (!text.startsWith(literal, pos)) {
+			throw error("Unexpected text");
+		}
+		pos += literal.length();
+		return value;
+	}
+
+
+	private Double readNumber() {
+		int start = pos;
+		while (pos<text.length() &&
+				"+-0123456789.eE".indexOf(text.charAt(pos))>-1) {
+			pos++;
+		}
+		try {
+			return Double.valueOf(text.substring(start, pos));
+		} catch (NumberFormatException nfe) {
+			pos = start;
+			throw error("Bad number");
+		}
+	}
+
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		expect('{');
+		skipWhitespace();
+		if (pos<text.length() && text.charAt(pos)=='}') {
+			pos++;
+			return map;
+		}
+		while (true) {
+			skipWhitespace();
+			String key = readString();
+			expect(':');
+			map.put(key, readValue());
+			skipWhitespace();
+			if (pos<text.length() && text.charAt(pos)==',') {
+				pos++;
+			}
+			else {
+				expect('}');
+				return map;
+			}
+		}
+	}
+
+
+	private String readString() {
+		expect('"');
+		StringBuilder sb = new StringBuilder();
+		while (pos<text.length()) {
+			char ch = text.charAt(pos++);
+			if (ch=='"') {
+				return sb.toString();
+			}
+			if (ch!='\\') {
+				sb.append(ch);
+				continue;
+			}
+			if (pos>=text.length()) {
+				break;
+			}
+			ch = text.charAt(pos++);
+			switch (ch) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'u':
+					if (pos+4>text.length()) {
+						throw error("Bad escape");
+					}
+					try {
+						sb.append((char)Integer.parseInt(
+								text.substring(pos, pos+4), 16));
+					} catch (NumberFormatException nfe) {
+						throw error("Bad escape");
+					}
+					pos += 4;
+					break;
+				default: // '"', '\\' and '/'
+					sb.append(ch);
+					break;
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+
+	private Object readValue() {
+		skipWhitespace();
+		if (pos>=text.length()) {
+			throw error("Unexpected end of text");
+		}
+		switch (text.charAt(pos)) {
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case '"':
+				return readString();
+			case 't':
+				return readLiteral("true", Boolean.TRUE);
+			case 'f':
+				return readLiteral("false", Boolean.FALSE);
+			case 'n':
+				return readLiteral("null", null);
+			default:
+				return readNumber();
+		}
+	}
+
+
+	private void skipWhitespace() {
+		while (pos<text.length() &&
+				Character.isWhitespace(text.charAt(pos))) {
+			pos++;
+		}
+	}
+
+
+}
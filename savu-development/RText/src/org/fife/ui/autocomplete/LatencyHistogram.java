@@ -0,0 +1,227 @@
+package org.fife.ui.autocomplete;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Counts how long something took, in nanoseconds, in the style of an HDR
+ * histogram.  Values are put in buckets whose width grows with the value:
+ * every power of two is split into {@link #SUB_BUCKET_COUNT} buckets of the
+ * same width, so any value is known to within about 3%, from nanoseconds to
+ * minutes, in a fixed amount of memory.  Recording a value is a few atomic
+ * increments, so it can be done on every keystroke, from any thread.
+ *
+ * @author PyDe
+ * @version 1.0
+ * @see CompletionTimings
+ */
+public class LatencyHistogram {
+
+	private String name;
+	private AtomicLongArray counts;
+	private AtomicLong totalCount;
+	private AtomicLong totalNanos;
+	private AtomicLong maxNanos;
+
+	private static final int SUB_BUCKET_BITS		= 5;
+
+	/**
+	 * The number of buckets each power of two is split into.
+	 */
+	public static final int SUB_BUCKET_COUNT		= 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKET_COUNT =
+			(64-SUB_BUCKET_BITS) * SUB_BUCKET_COUNT; // Up to Long.MAX_VALUE
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The name of what is being timed.
+	 */
+	public LatencyHistogram(String name) {
+		this.name = name;
+		counts = new AtomicLongArray(BUCKET_COUNT);
+		totalCount = new AtomicLong();
+		totalNanos = new AtomicLong();
+		maxNanos = new AtomicLong();
+	}
+
+
+	/**
+	 * Returns the bucket a value goes in.
+	 */
+	private static int getBucket(long nanos) {
+		if (nanos<SUB_BUCKET_COUNT) {
+			return (int)nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int)(nanos >>> (exponent-SUB_BUCKET_BITS));
+		return (exponent-SUB_BUCKET_BITS)*SUB_BUCKET_COUNT + subBucket;
+	}
+
+
+	/**
+	 * Returns the number of buckets.
+	 *
+	 * @return The number of buckets.
+	 * @see #getCount(int)
+	 */
+	public int getBucketCount() {
+		return BUCKET_COUNT;
+	}
+
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return The number of values.
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+
+	/**
+	 * Returns the number of values recorded in a bucket.
+	 *
+	 * @param bucket The bucket.
+	 * @return The number of values.
+	 * @see #getBucketCount()
+	 * @see #getHighestValue(int)
+	 */
+	public long getCount(int bucket) {
+		return counts.get(bucket);
+	}
+
+
+	/**
+	 * Returns the largest value that goes in a bucket.
+	 *
+	 * @param bucket The bucket.
+	 * @return The value, in nanoseconds.
+	 */
+	public static long getHighestValue(int bucket) {
+		if (bucket<2*SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int shift = bucket/SUB_BUCKET_COUNT - 1;
+		long lowest =
+				(long)(bucket%SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+		return lowest + (1L<<shift) - 1;
+	}
+
+
+	/**
+	 * Returns the largest value recorded.
+	 *
+	 * @return The value, in nanoseconds.
+	 */
+	public long getMax() {
+		return maxNanos.get();
+	}
+
+
+	/**
+	 * Returns the mean of the values recorded.
+	 *
+	 * @return The mean, in nanoseconds, or <code>0</code> if nothing has
+	 *         been recorded.
+	 */
+	public double getMean() {
+		long count = totalCount.get();
+		return count==0 ? 0 : (double)totalNanos.get()/count;
+	}
+
+
+	/**
+	 * Returns the name of what is being timed.
+	 *
+	 * @return The name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+
+	/**
+	 * Returns the value that a percentage of the values recorded are less
+	 * than or equal to.
+	 *
+	 * @param percentile The percentage, e.g. <code>99.9</code>.
+	 * @return The value, in nanoseconds, or <code>0</code> if nothing has
+	 *         been recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = totalCount.get();
+		if (count==0) {
+			return 0;
+		}
+		long wanted = Math.max(1, (long)Math.ceil(percentile/100*count));
+		long seen = 0;
+		for (int i=0; i<BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+			if (seen>=wanted) {
+				return Math.min(getHighestValue(i), getMax());
+			}
+		}
+		return getMax(); // Values were recorded while we were looking
+	}
+
+
+	/**
+	 * Records a value.
+	 *
+	 * @param nanos The value, in nanoseconds.  Negative values are
+	 *        recorded as <code>0</code>.
+	 */
+	public void record(long nanos) {
+		nanos = Math.max(nanos, 0);
+		counts.incrementAndGet(getBucket(nanos));
+		totalCount.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max;
+		while (nanos>(max=maxNanos.get()) &&
+				!maxNanos.compareAndSet(max, nanos));
+	}
+
+
+	/**
+	 * Records how long it has been since something started.  Stages done
+	 * one after the other can be timed by passing the result to the next
+	 * stage:
+	 *
+	 * <pre>
+	 * long time = System.nanoTime();
+	 * doFirstStage();
+	 * time = FIRST_STAGE.recordSince(time);
+	 * doSecondStage();
+	 * SECOND_STAGE.recordSince(time);
+	 * </pre>
+	 *
+	 * @param startNanos When it started, from <code>System.nanoTime()</code>.
+	 * @return The current time, from <code>System.nanoTime()</code>.
+	 */
+	public long recordSince(long startNanos) {
+		long now = System.nanoTime();
+		record(now - startNanos);
+		return now;
+	}
+
+
+	/**
+	 * Forgets all values recorded.  Values recorded by other threads while
+	 * this is called may or may not be forgotten.
+	 */
+	public void reset() {
+		for (int i=0; i<BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.set(0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+	}
+
+
+}
@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,21 +22,81 @@ import javax.swing.text.JTextComponent;
 
 public class PythonCompletionProvider extends DefaultCompletionProvider {
 	private Hashtable<String, HashSet<Completion>> importedCompletions;
+	/**
+	 * Completions for the user's own modules, and the {@link PythonWorkspace}
+	 * descriptions they were created from.  They're created again whenever
+	 * the workspace describes a module differently (because it changed).
+	 */
+	private Hashtable<String, HashSet<Completion>> localCompletions;
+	private Hashtable<String, PythonMember> localModules;
 	private HashSet<Completion> builtInCompletions;
+	private PythonSymbolTable symbolTable;
+
+	/**
+	 * Patterns for the symbols found by the text-scanning versions of
+	 * {@link #getLocalCompletionOptions(String, int)} and
+	 * {@link #getGlobalCompletionOptions(String, int)}.
+	 */
+	private static final Pattern[] SYMBOL_PATTERNS = {
+		Pattern.compile("class (\\w+):"),
+		Pattern.compile("def (\\w+ *[(][\\w, ]*[)])"),
+		Pattern.compile("(\\w+) *={1}"),
+	};
+	private static final Pattern CLASS_PATTERN = Pattern.compile("class ([\\w()]*)");
+	private static final Pattern FROM_IMPORT_PATTERN = Pattern.compile("from +(\\.*[\\w.]*) +import +\\(?([\\w*, ]+)");
+	private static final Pattern IMPORT_PATTERN = Pattern.compile("import +([\\w., ]+)");
+
 	public PythonCompletionProvider() {
 		super();
 		importedCompletions = new Hashtable<String, HashSet<Completion>>();
+		localCompletions = new Hashtable<String, HashSet<Completion>>();
+		localModules = new Hashtable<String, PythonMember>();
 		builtInCompletions = new HashSet<Completion>();
 	}
 
 	public PythonCompletionProvider(String[] words) {
 		super(words);
 		importedCompletions = new Hashtable<String, HashSet<Completion>>();
+		localCompletions = new Hashtable<String, HashSet<Completion>>();
+		localModules = new Hashtable<String, PythonMember>();
 		builtInCompletions = new HashSet<Completion>();
 	}
 	
 	
 	
+	/**
+	 * Creates completions for everything a module defines, as described by a {@link PythonIntrospector}.
+	 * If createModuleAttributes is true, will make all completions attributes of the module,
+	 * for "import random". If the import is "from random import *", they are regular completions instead.
+	 * Either way, the members of the module's classes are attributes of their class.
+	 *
+	 * @param module The module
+	 * @param createModuleAttributes Whether or not to make completions attributes of the module
+	 * @return a hashset of completions for the module
+	 */
+	private HashSet<Completion> createModuleCompletions(PythonMember module, boolean createModuleAttributes){
+		HashSet<Completion> ret = new HashSet<Completion>();
+		for (PythonMember member : module.getMembers()){
+			String desc = getDescription(member);
+			if (createModuleAttributes){
+				ret.add(new AttributeCompletion(this, getReplacementText(member), null, desc, module.getName()));
+			}
+			else{
+				ret.add(new BasicCompletion(this, getReplacementText(member), null, desc));
+			}
+			for (PythonMember attribute : member.getMembers()){
+				ret.add(new AttributeCompletion(this, getReplacementText(attribute), null, getDescription(attribute), member.getName()));
+			}
+		}
+		return ret;
+	}
+	
+	
+	private static String escapeHtml(String text){
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+	
+	
 	/**
 	 * Utility function that finds the number of tabs at the beginning of a given <code>line</code>.
 	 *
@@ -121,13 +183,26 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 	
 	/**
 	 * Gets the possible BUILTIN completions from built-ins.txt
-	 * Uses a regex looking for class names, function names, and variables
+	 * They come from a {@link BuiltInSnapshot} shared by all providers, so the file
+	 * is only parsed once (and not at all once the snapshot has been saved), and their
+	 * descriptions are only read when shown.
 	 *
 	 */
 	public HashSet<Completion> getBuiltInCompletionOptions(){
-		if (!builtInCompletions.isEmpty()){
-			return builtInCompletions;
+		if (builtInCompletions.isEmpty()){
+			BuiltInSnapshot snapshot = BuiltInSnapshot.getSharedInstance(this);
+			builtInCompletions = new HashSet<Completion>(snapshot.createCompletions(this));
 		}
+		return builtInCompletions;
+	}
+	
+	/**
+	 * Parses the BUILTIN completions from built-ins.txt
+	 * Uses a regex looking for class names, function names, and variables
+	 *
+	 * @see BuiltInSnapshot
+	 */
+	HashSet<Completion> parseBuiltInCompletionOptions(){
 		String[] regexes = {"def (\\w+ *[(][\\w, ]*[)])", "(\\w+) *={1}"};
 		HashSet<Completion> allMatches = new HashSet<Completion>();
 		BufferedReader bufReader = null;
@@ -154,7 +229,6 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		builtInCompletions = allMatches;
 		return allMatches;
 	}
 	
@@ -162,18 +236,27 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 	 * Gets the possible CLASS completions from the given <code>text</code>.
 	 * Uses a regex looking for class names, function names, and variables
 	 *
+	 * If a symbol table is installed, it is used instead, and <code>text</code>
+	 * is ignored.
+	 *
 	 * @param text The text that should be searched to find completion options in
+	 * @see #installSymbolTable(JTextComponent)
 	 */
 	public HashSet<Completion> getClassCompletionOptions(String text){
-		String[] regexes = {"def (\\w+ *[(][\\w, ]*[)])", "(\\w+) *={1}"};
 		HashSet<Completion> allMatches = new HashSet<Completion>();
+		if (symbolTable!=null){
+			for (Map.Entry<String, Set<String>> entry : symbolTable.getClassAttributes().entrySet()){
+				for (String attribute : entry.getValue()){
+					allMatches.add(new AttributeCompletion(this, attribute, entry.getKey()));
+				}
+			}
+			return allMatches;
+		}
 		BufferedReader bufReader = new BufferedReader(new StringReader(text));
-		int tabLevel;
 		try {
 			String line = bufReader.readLine();
 			while (line != null){
-				Pattern p = Pattern.compile("class ([\\w()]*)");
-				Matcher m = p.matcher(line);
+				Matcher m = CLASS_PATTERN.matcher(line);
 				if (m.find() != true ){
 					line = bufReader.readLine();
 				}
@@ -248,15 +331,47 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 		return completions;
 	}
 	
+	/**
+	 * Returns the description shown for a module member: its signature, if it has one, and its docstring.
+	 *
+	 * @param member The member
+	 * @return The description, as HTML, or <code>null</code> if there's nothing to say
+	 */
+	private static String getDescription(PythonMember member){
+		StringBuilder desc = new StringBuilder();
+		if (member.getSignature()!=null){
+			desc.append("<b>").append(escapeHtml(member.getName() + member.getSignature())).append("</b>");
+		}
+		if (member.getDoc()!=null){
+			if (desc.length()>0){
+				desc.append("<br><br>");
+			}
+			//paragraphs are separated by blank lines
+			desc.append(escapeHtml(member.getDoc().trim()).replaceAll("\n\\s*\n", "<br><br>").replace('\n', ' '));
+		}
+		return desc.length()>0 ? desc.toString() : null;
+	}
+	
+	
 	/**
 	 * Gets the possible GLOBAL completions from the given <code>text</code>.
 	 * Uses a regex looking for class names, function names, and variables
 	 *
+	 * If a symbol table is installed, it is used instead, and <code>text</code>
+	 * is ignored.
+	 *
 	 * @param text The text that should be searched to find completion options in
+	 * @param caretPosition The current position of the caret
+	 * @see #installSymbolTable(JTextComponent)
 	 */
 	public HashSet<Completion> getGlobalCompletionOptions(String text, int caretPosition){
-		String[] regexes = {"class (\\w+):", "def (\\w+ *[(][\\w, ]*[)])", "(\\w+) *={1}"};
 		HashSet<Completion> allMatches = new HashSet<Completion>();
+		if (symbolTable!=null){
+			for (String symbol : symbolTable.getGlobalSymbols(caretPosition)){
+				allMatches.add(new BasicCompletion(this, symbol));
+			}
+			return allMatches;
+		}
 		String textInScope;
 		try{
 			textInScope = text.substring(0,caretPosition);
@@ -274,8 +389,8 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 			while ((line=bufReader.readLine()) != null )
 			{
 				if (findNumTabs(line)== 0){
-					for (String regex : regexes) {
-						Matcher m = Pattern.compile(regex).matcher(line);
+					for (Pattern p : SYMBOL_PATTERNS) {
+						Matcher m = p.matcher(line);
 						while (m.find()){
 							allMatches.add(new BasicCompletion(this, m.group(1)));
 						}
@@ -289,7 +404,41 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 	}
 	
 	/**
-	 * Looks for the imported completion options. Will call pydoc if necessary or else read through the imported file
+	 * Returns the text a module member is completed with: its name, followed by its arguments if it's a function.
+	 *
+	 * @param member The member
+	 * @return The replacement text
+	 */
+	private static String getReplacementText(PythonMember member){
+		if (PythonMember.FUNCTION.equals(member.getKind()) && member.getSignature()!=null){
+			return member.getName() + member.getSignature();
+		}
+		return member.getName();
+	}
+	
+	/**
+	 * Returns the completions for one of the user's own modules, reusing the ones
+	 * created before if the module hasn't changed since.
+	 *
+	 * @param key The module name, starting with "*" for "from module import ..."
+	 * @param module The module, as described by the {@link PythonWorkspace}
+	 * @param createModuleAttributes Whether or not to make completions attributes of the module
+	 * @return a hashset of completions for the module
+	 */
+	private HashSet<Completion> getLocalModuleCompletions(String key, PythonMember module, boolean createModuleAttributes){
+		HashSet<Completion> completions = localCompletions.get(key);
+		if (completions==null || localModules.get(key)!=module){
+			completions = createModuleCompletions(module, createModuleAttributes);
+			localCompletions.put(key, completions);
+			localModules.put(key, module);
+		}
+		return completions;
+	}
+	
+	/**
+	 * Looks for the imported completion options. Modules next to the current file
+	 * (including packages and relative imports) are described by the {@link PythonWorkspace},
+	 * anything else by the {@link PythonModuleCache}.
 	 * 
 	 * @param text The text in the document
 	 * @param caretPosition Current caret position
@@ -317,83 +466,128 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 		Matcher m;
 		try {
 			while ((line = bufReader.readLine())!= null){
-				if ((m = Pattern.compile("from (\\w+) import ([\\w*, ]+)").matcher(line)).find()){
+				if ((m = FROM_IMPORT_PATTERN.matcher(line)).find()){
 					key = m.group(1);
-					imports = m.group(2).split(" *, *");
+					imports = m.group(2).trim().split(" *, *");
 					objectImports.put(key, imports);
 				}
-				else if ((m = Pattern.compile("import ([\\w, ]+)").matcher(line)).find()){
+				else if ((m = IMPORT_PATTERN.matcher(line)).find()){
 					String[] files = m.group(1).split(",");
 					for (String file : files){
-						fileImports.put(file.trim(), new String[]{null});
+						// "import numpy as np" completes "np." as "numpy"
+						String module = file.trim().split(" +as +")[0];
+						fileImports.put(module, new String[]{null});
+						// "import os.path" binds "os"
+						if (module.indexOf('.')>-1){
+							fileImports.put(module.substring(0, module.indexOf('.')), new String[]{null});
+						}
 					}
 				}
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		PydocExecutor executor = new PydocExecutor(this);
+		PythonModuleCache moduleCache = PythonModuleCache.getSharedInstance();
+		PythonWorkspace workspace = PythonWorkspace.getSharedInstance();
+		File dir = curDirectory==null || curDirectory.length()==0 ? null : new File(curDirectory);
 		Enumeration<String> keys = fileImports.keys();
 		// Dealing with just the basic "import sys"
 		while(keys.hasMoreElements()){
 			String module = keys.nextElement();
-			File importedFile;
+			PythonMember local = dir==null ? null : workspace.getModule(module, 0, dir);
+			//if it's a local module, the workspace knows whether it changed
+			if (local!=null){
+				ret.addAll(getLocalModuleCompletions(module, local, true));
+			}
 			// If it's cached, just return cache
-			if (importedCompletions.containsKey(module)){
+			else if (importedCompletions.containsKey(module)){
 				ret.addAll(importedCompletions.get(module));
 			}
-			//if it's a local file, parse it for autocomplete
-			else if ((importedFile = new File(curDirectory + "/" + module + ".py")).exists()){
-				ret.addAll(parseFileForAutocomplete(importedFile, module, true, fileImports.get(module)));
-			}
 			//if it's neither of the above, it's a built-in module
 			else{
-				String docstring = executor.getDocstring(module);
+				PythonMember description = moduleCache.getModule(module);
 				//make sure what they're typing is a module (won't be if they're in the middle of typing it)
-				if (!docstring.contains("no Python documentation found for")){
-					HashSet<Completion> completionsToBeCached = executor.parseDocstringForFile(module, docstring, true);
+				if (description!=null){
+					HashSet<Completion> completionsToBeCached = createModuleCompletions(description, true);
 					ret.addAll(completionsToBeCached);
 					importedCompletions.put(module, completionsToBeCached);
 				}
 			}
 		}
 		//deals with "from sys import *"
+		//these are cached separately, since they aren't attributes of the module
 		keys = objectImports.keys();
 		while(keys.hasMoreElements()){
 			String module = keys.nextElement();
-			File importedFile;
-			// If it's cached, just return cache
-			if (importedCompletions.containsKey(module)){
-				ret.addAll(importedCompletions.get(module));
+			// "from ..geometry import *" is relative to the current file's package
+			int level = 0;
+			while (level<module.length() && module.charAt(level)=='.'){
+				level++;
+			}
+			PythonMember local = dir==null ? null : workspace.getModule(module.substring(level), level, dir);
+			if (local!=null){
+				ret.addAll(getLocalModuleCompletions("*"+module, local, false));
 			}
-			//if it's a local file, parse it for autocomplete
-			else if ((importedFile = new File(curDirectory + "/" + module + ".py")).exists()){
-				ret.addAll(parseFileForAutocomplete(importedFile, module, false, objectImports.get(module)));
+			else if (level>0){
+				//a relative import of a module that doesn't exist (yet)
+				continue;
+			}
+			// If it's cached, just return cache
+			else if (importedCompletions.containsKey("*"+module)){
+				ret.addAll(importedCompletions.get("*"+module));
 			}
 			//if it's neither of the above, it's a built-in module
 			else{
-				String docstring = executor.getDocstring(module);
+				PythonMember description = moduleCache.getModule(module);
 				//make sure what they're typing is a module (won't be if they're in the middle of typing it)
-				if (!docstring.contains("no Python documentation found for")){
-					HashSet<Completion> completionsToBeCached = executor.parseDocstringForFile(module, docstring, false);
+				if (description!=null){
+					HashSet<Completion> completionsToBeCached = createModuleCompletions(description, false);
 					ret.addAll(completionsToBeCached);
-					importedCompletions.put(module, completionsToBeCached);
+					importedCompletions.put("*"+module, completionsToBeCached);
 				}
 			}
 		}
 		return ret;
 	}
 	
+	/**
+	 * Determines the class of a variable.  If a symbol table is installed, its
+	 * index of assignments and imports is used instead of searching the text.
+	 *
+	 * @param comp The text component
+	 * @param object The variable we need to determine the class of
+	 * @param endIndex The offset the variable is used at
+	 * @return The class of the variable
+	 * @see PythonSymbolTable#getClassOfObject(String, int)
+	 */
+	@Override
+	protected String getClassOfObject(JTextComponent comp, String object, int endIndex) {
+		if (symbolTable!=null){
+			return symbolTable.getClassOfObject(object, endIndex);
+		}
+		return super.getClassOfObject(comp, object, endIndex);
+	}
+	
+	
 	/**
 	 * Gets the possible  LOCAL completions from the given <code>text</code>.
 	 * Uses a regex looking for class names, function names, and variables
 	 *
+	 * If a symbol table is installed, it is used instead, and <code>text</code>
+	 * is ignored.
+	 *
 	 * @param text The text that should be searched to find completion options in
 	 * @param caretPosition The current position of the caret (used to determine local scope)
+	 * @see #installSymbolTable(JTextComponent)
 	 */
 	public HashSet<Completion> getLocalCompletionOptions(String text, int caretPosition){
-		String[] regexes = {"class (\\w+):", "def (\\w+ *[(][\\w, ]*[)])", "(\\w+) *={1}"};
 		HashSet<Completion> allMatches = new HashSet<Completion>();
+		if (symbolTable!=null){
+			for (String symbol : symbolTable.getLocalSymbols(caretPosition)){
+				allMatches.add(new BasicCompletion(this, symbol));
+			}
+			return allMatches;
+		}
 		String textInLocalScope;
 		try{
 			textInLocalScope = text.substring(0, caretPosition); //TODO investigate the effect of highlighting on caret position
@@ -422,8 +616,8 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 					minTabs = curTabs;
 				}
 				if (curTabs == minTabs){
-					for (String regex : regexes) {
-						Matcher m = Pattern.compile(regex).matcher(line);
+					for (Pattern p : SYMBOL_PATTERNS) {
+						Matcher m = p.matcher(line);
 						while (m.find()){
 							allMatches.add(new BasicCompletion(this, m.group(1)));
 						}
@@ -438,6 +632,20 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 	
 	
 	
+	/**
+	 * Keeps a {@link PythonSymbolTable} of the component's document, and uses it
+	 * for local, global and class completions instead of scanning the text
+	 * passed to those methods.
+	 *
+	 * @param comp The text component being edited
+	 */
+	public void installSymbolTable(JTextComponent comp){
+		PythonSymbolTable table = new PythonSymbolTable();
+		table.install(comp);
+		symbolTable = table;
+	}
+	
+	
 	/**
 	 * Returns whether the specified character is valid 
 	 * Includes the period character
@@ -453,67 +661,6 @@ public class PythonCompletionProvider extends DefaultCompletionProvider {
 		return Character.isLetterOrDigit(ch) || ch=='_' || ch=='.';
 	}
 	
-	/**
-	 * If a file is imported, parse it for possible autocompletion options
-	 * 
-	 * @param importedFile File to parse
-	 * @param module Module name (might be needed for attribute completions)
-	 * @param createModuleAttributes Whether or not to make completions attributes of the modules
-	 * @param matches Stuff to be looking for specifically (if not importing *)
-	 * @return an arraylist of completions extracted from the file
-	 */
-	private ArrayList<Completion> parseFileForAutocomplete(File importedFile, String module, boolean createModuleAttributes, String[] matches){
-		ArrayList<Completion> ret = new ArrayList<Completion>();
-		BufferedReader br = null;
-		try {
-			br = new BufferedReader(new FileReader(importedFile));
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		}
-		String[] regexes = {"def (\\w+ *[(][\\w, ]*[)])", "(\\w+) *={1}"};
-		String line, match;
-		Matcher m;
-		//First comb through the file getting all global stuffs
-		try {
-			while ((line=br.readLine()) != null )
-			{
-				if (findNumTabs(line)== 0){
-					for (String regex : regexes) {
-						m = Pattern.compile(regex).matcher(line);
-						while (m.find()){
-							match = m.group(1);
-							if (createModuleAttributes){
-								ret.add(new AttributeCompletion(this,match,module));
-							}
-							else{//TODO: filter out stuff that's not in matches
-								ret.add(new BasicCompletion(this, match));
-							}
-						}
-					}
-					m = Pattern.compile("class ([\\w().\\[\\]\'\"]+):").matcher(line);
-					if (m.find()){
-						match = m.group(1);
-						if (createModuleAttributes){
-							ret.add(new AttributeCompletion(this,match,module));
-							String clazz = m.group(1);
-							ret.addAll(getClassCompletionOptionsRecursive(clazz, br, false));
-							line = br.readLine();
-						}
-						else{
-							ret.add(new BasicCompletion(this, match));
-							String clazz = m.group(1);
-							ret.addAll(getClassCompletionOptionsRecursive(clazz, br, false));
-							line = br.readLine();
-						}
-					}
-				}
-			}
-			
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		return ret;
-	}
 	/**
 	 * Will read lines from the buffered reader until it reaches one of the terminal patterns.
 	 * Once it reaches a terminal, returns all the lines that were read.
@@ -0,0 +1,287 @@
+package org.fife.ui.autocomplete;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Talks to <code>lib/Introspector.py</code>, a Python process that is
+ * started once and then answers questions about the modules available to
+ * the interpreter, such as what a module defines and the signatures of its
+ * functions.  Requests and answers are JSON objects, one per line; see the
+ * script for the protocol.<p>
+ *
+ * Requests are handled one at a time, so callers asking for many modules
+ * should do so in small batches, letting other requests in between.  If the
+ * process doesn't answer within {@link #TIMEOUT} milliseconds (e.g. a
+ * module hangs while being imported), or it dies, it is killed and started
+ * again for the next request.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class PythonIntrospector {
+
+	private String python;
+	private File script;
+
+	private Process process;
+	private BufferedReader in;
+	private Writer out;
+	private int nextId;
+	private ScheduledThreadPoolExecutor watchdog;
+
+	private static PythonIntrospector sharedInstance;
+
+	private static final String SCRIPT_NAME = "Introspector.py";
+
+	/**
+	 * How long to wait for each line of an answer, in milliseconds.
+	 */
+	public static final long TIMEOUT = 20000;
+
+
+	/**
+	 * Constructor.  The process isn't started until the first request.
+	 *
+	 * @param python The Python executable to run.
+	 * @param script <code>Introspector.py</code>.
+	 */
+	public PythonIntrospector(String python, File script) {
+		this.python = python;
+		this.script = script;
+		watchdog = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "PythonIntrospector");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		watchdog.setRemoveOnCancelPolicy(true);
+	}
+
+
+	/**
+	 * Returns the introspector shared by all editors.  It runs the same
+	 * <code>python</code> as the debugger and the Run plugin.
+	 *
+	 * @return The shared introspector.
+	 */
+	public static synchronized PythonIntrospector getSharedInstance() {
+		if (sharedInstance==null) {
+			File script = new File(System.getProperty("user.dir"),
+								"lib" + File.separator + SCRIPT_NAME);
+			sharedInstance = new PythonIntrospector("python", script);
+		}
+		return sharedInstance;
+	}
+
+
+	/**
+	 * Returns the names of the standard library's public top-level modules.
+	 *
+	 * @return The module names.
+	 * @throws IOException If Python can't be run, or doesn't answer.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized List<String> getStdlibModules() throws IOException {
+		int id = send("stdlib", "");
+		List<String> modules = new ArrayList<String>();
+		for (Object name : (List<Object>)read(id).get("modules")) {
+			modules.add((String)name);
+		}
+		return modules;
+	}
+
+
+	/**
+	 * Describes modules.
+	 *
+	 * @param modules The names of the modules.
+	 * @return A map from each module name to its description, a JSON object
+	 *         that can be given to {@link #parseModule(String)}, or to
+	 *         <code>null</code> if it can't be imported.
+	 * @throws IOException If Python can't be run, or doesn't answer.
+	 */
+	public synchronized Map<String, String> getModules(List<String> modules)
+										throws IOException {
+
+		StringBuilder sb = new StringBuilder(", \"modules\": [");
+		for (int i=0; i<modules.size(); i++) {
+			if (i>0) {
+				sb.append(", ");
+			}
+			sb.append(Json.quote(modules.get(i)));
+		}
+		long time = System.nanoTime();
+		int id = send("members", sb.append(']').toString());
+
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		String[] line = new String[1];
+		Map<String, Object> answer;
+		while (!(answer=read(id, line)).containsKey("done")) {
+			String name = (String)answer.get("name");
+			result.put(name, answer.containsKey("missing") ? null : line[0]);
+		}
+		CompletionTimings.INTROSPECTION.recordSince(time);
+		return result;
+
+	}
+
+
+	/**
+	 * Returns the executable and version of the Python interpreter.
+	 *
+	 * @return The executable and <code>sys.version</code>.
+	 * @throws IOException If Python can't be run, or doesn't answer.
+	 */
+	public synchronized String[] identify() throws IOException {
+		Map<String, Object> answer = read(send("identify", ""));
+		return new String[] { (String)answer.get("executable"),
+								(String)answer.get("version") };
+	}
+
+
+	/**
+	 * Kills the process, if it's running.
+	 */
+	private void kill() {
+		if (process!=null) {
+			process.destroy();
+			process = null;
+			in = null;
+			out = null;
+		}
+	}
+
+
+	/**
+	 * Parses a module description returned by {@link #getModules(List)}.
+	 *
+	 * @param json The description.
+	 * @return The module.
+	 * @throws IllegalArgumentException If <code>json</code> isn't valid.
+	 */
+	@SuppressWarnings("unchecked")
+	public static PythonMember parseModule(String json) {
+		return new PythonMember((Map<String, Object>)Json.parse(json));
+	}
+
+
+	private Map<String, Object> read(int id) throws IOException {
+		return read(id, new String[1]);
+	}
+
+
+	/**
+	 * Reads the next line of the answer to a request.
+	 *
+	 * @param id The request's ID.
+	 * @param line Receives the line as read.
+	 * @return The line, parsed.
+	 * @throws IOException If the process dies or times out.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> read(int id, String[] line)
+									throws IOException {
+
+		final Process p = process;
+		ScheduledFuture<?> timeout = watchdog.schedule(new Runnable() {
+			public void run() {
+				p.destroy();
+			}
+		}, TIMEOUT, TimeUnit.MILLISECONDS);
+
+		try {
+			while (true) {
+				line[0] = in.readLine();
+				if (line[0]==null) {
+					throw new IOException("Introspector.py exited");
+				}
+				Map<String, Object> answer;
+				try {
+					answer = (Map<String, Object>)Json.parse(line[0]);
+				} catch (IllegalArgumentException iae) {
+					continue; // Something Python wrote outside our control
+				}
+				Object answerId = answer.get("id");
+				if (answerId instanceof Number &&
+						((Number)answerId).intValue()==id) {
+					if (answer.containsKey("error")) {
+						throw new IOException((String)answer.get("error"));
+					}
+					return answer;
+				}
+			}
+		} catch (IOException ioe) {
+			kill();
+			throw ioe;
+		} catch (RuntimeException re) {
+			kill();
+			throw new IOException(re);
+		} finally {
+			timeout.cancel(false);
+		}
+
+	}
+
+
+	/**
+	 * Sends a request, starting the process if necessary.
+	 *
+	 * @param op The operation.
+	 * @param args The rest of the request's JSON, starting with a comma,
+	 *        or an empty string.
+	 * @return The request's ID.
+	 * @throws IOException If Python can't be run.
+	 */
+	private int send(String op, String args) throws IOException {
+
+		if (process==null) {
+			List<String> cmd = new ArrayList<String>();
+			cmd.add(python);
+			cmd.add("-u");
+			cmd.add(script.getAbsolutePath());
+			ProcessBuilder pb = new ProcessBuilder(cmd);
+			pb.redirectErrorStream(true);
+			process = pb.start();
+			in = new BufferedReader(new InputStreamReader(
+							process.getInputStream(), "UTF-8"));
+			out = new OutputStreamWriter(process.getOutputStream(), "UTF-8");
+		}
+
+		int id = ++nextId;
+		try {
+			out.write("{\"id\": " + id + ", \"op\": " + Json.quote(op) +
+						args + "}\n");
+			out.flush();
+		} catch (IOException ioe) {
+			kill();
+			throw ioe;
+		}
+		return id;
+
+	}
+
+
+	/**
+	 * Stops the process.  It is started again by the next request.
+	 */
+	public synchronized void shutdown() {
+		kill();
+	}
+
+
+}
@@ -0,0 +1,134 @@
+package org.fife.ui.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A module, or something defined in one, as described by
+ * <code>lib/Introspector.py</code> or {@link PythonWorkspace}.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class PythonMember {
+
+	private String name;
+	private String kind;
+	private String signature;
+	private String doc;
+	private boolean stdlib;
+	private List<PythonMember> members;
+
+	public static final String MODULE		= "module";
+	public static final String CLASS		= "class";
+	public static final String FUNCTION		= "function";
+	public static final String DATA			= "data";
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name The member's name.
+	 * @param kind One of {@link #MODULE}, {@link #CLASS}, {@link #FUNCTION}
+	 *        or {@link #DATA}.
+	 * @param signature The argument list, or <code>null</code>.
+	 * @param doc The docstring, or <code>null</code>.
+	 * @param members The members of this module or class.
+	 */
+	PythonMember(String name, String kind, String signature, String doc,
+				List<PythonMember> members) {
+		this.name = name;
+		this.kind = kind;
+		this.signature = signature;
+		this.doc = doc;
+		this.members = members;
+	}
+
+
+	/**
+	 * Creates a member from the JSON object <code>Introspector.py</code>
+	 * describes it with.
+	 *
+	 * @param json The JSON object.
+	 */
+	@SuppressWarnings("unchecked")
+	PythonMember(Map<String, Object> json) {
+		name = (String)json.get("name");
+		kind = (String)json.get("kind");
+		signature = (String)json.get("signature");
+		doc = (String)json.get("doc");
+		stdlib = Boolean.TRUE.equals(json.get("stdlib"));
+		List<Object> list = (List<Object>)json.get("members");
+		if (list==null) {
+			members = Collections.emptyList();
+		}
+		else {
+			members = new ArrayList<PythonMember>(list.size());
+			for (Object member : list) {
+				members.add(new PythonMember((Map<String, Object>)member));
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the member's docstring.
+	 *
+	 * @return The docstring, or <code>null</code> if it has none.
+	 */
+	public String getDoc() {
+		return doc;
+	}
+
+
+	/**
+	 * Returns what kind of member this is.
+	 *
+	 * @return One of {@link #MODULE}, {@link #CLASS}, {@link #FUNCTION} or
+	 *         {@link #DATA}.
+	 */
+	public String getKind() {
+		return kind;
+	}
+
+
+	/**
+	 * Returns the members of this module or class.
+	 *
+	 * @return The members.  This is empty for functions and data.
+	 */
+	public List<PythonMember> getMembers() {
+		return members;
+	}
+
+
+	public String getName() {
+		return name;
+	}
+
+
+	/**
+	 * Returns the argument list of this function or class.
+	 *
+	 * @return The argument list, e.g. <code>"(path, mode=511)"</code>, or
+	 *         <code>null</code> if it isn't known.
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+
+	/**
+	 * Returns whether this module is part of the standard library.
+	 *
+	 * @return Whether this is a standard library module.
+	 */
+	public boolean isStdlib() {
+		return stdlib;
+	}
+
+
+}
@@ -0,0 +1,399 @@
+package org.fife.ui.autocomplete;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.fife.rtext.RTextUtilities;
+
+
+/**
+ * A cache of the descriptions of Python modules, as given by a
+ * {@link PythonIntrospector}, shared by every
+ * {@link PythonCompletionProvider}, so modules aren't introspected again for
+ * every editor and every time Savu starts.<p>
+ *
+ * Modules are kept one file per module, in a directory for the Python
+ * interpreter that described them (identified by its executable and
+ * version).  When the interpreter is upgraded or removed, its directory is
+ * deleted, so the cache is rebuilt for the new one.  The standard library
+ * is described all at once by {@link #prewarm()}, on a background thread,
+ * so its completions are available as soon as a module is imported.  Other
+ * modules are described when first imported and only kept in memory, since
+ * they may be updated without the interpreter changing.  Files are read
+ * lazily, the first time their module is imported.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class PythonModuleCache {
+
+	private File cacheRoot;
+	private PythonIntrospector introspector;
+
+	/**
+	 * The directory for the current interpreter, or <code>null</code> if
+	 * Python couldn't be run.  Only valid once <code>identified</code> is
+	 * <code>true</code>.
+	 */
+	private File directory;
+	private boolean identified;
+	private boolean prewarmStarted;
+
+	private Map<String, PythonMember> modules;
+	private Set<String> missingModules;
+
+	private static PythonModuleCache sharedInstance;
+
+	private static final String INTERPRETER_FILE	= "interpreter.txt";
+	private static final String STDLIB_DONE_FILE	= "stdlib.done";
+
+	/**
+	 * How many modules {@link #prewarm()} asks for at a time.  Other
+	 * requests to the introspector wait for each batch.
+	 */
+	private static final int PREWARM_BATCH_SIZE		= 16;
+
+	private static final Pattern MODULE_NAME =
+			Pattern.compile("[A-Za-z_]\\w*(\\.[A-Za-z_]\\w*)*");
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cacheRoot The directory in which to keep the cache.
+	 * @param introspector Used to describe modules.
+	 */
+	public PythonModuleCache(File cacheRoot, PythonIntrospector introspector) {
+		this.cacheRoot = cacheRoot;
+		this.introspector = introspector;
+		modules = new ConcurrentHashMap<String, PythonMember>();
+		missingModules = Collections.newSetFromMap(
+								new ConcurrentHashMap<String, Boolean>());
+	}
+
+
+	/**
+	 * Deletes a directory and all the files in it.
+	 */
+	private static void deleteDirectory(File dir) {
+		File[] files = dir.listFiles();
+		if (files!=null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.delete();
+	}
+
+
+	/**
+	 * Has modules described, and caches the results.
+	 *
+	 * @param dir The directory to write standard library modules into.
+	 * @param names The modules to describe.
+	 * @param keep Whether to keep the modules in memory.  If this is
+	 *        <code>false</code>, only standard library modules are
+	 *        remembered, on disk.
+	 */
+	private void describe(File dir, List<String> names, boolean keep)
+										throws IOException {
+		Map<String, String> result = introspector.getModules(names);
+		for (Map.Entry<String, String> entry : result.entrySet()) {
+			String name = entry.getKey();
+			String json = entry.getValue();
+			if (json==null) {
+				missingModules.add(name);
+				continue;
+			}
+			PythonMember module = PythonIntrospector.parseModule(json);
+			if (module.isStdlib()) {
+				write(new File(dir, name + ".json"), json);
+			}
+			if (keep || !module.isStdlib()) {
+				modules.put(name, module);
+			}
+		}
+	}
+
+
+	/**
+	 * Has modules described one at a time, so one that can't be described
+	 * doesn't keep the others from being cached.  Modules that fail are
+	 * remembered as missing until Savu is restarted.
+	 *
+	 * @param dir The directory to write standard library modules into.
+	 * @param names The modules to describe.
+	 */
+	private void describeEach(File dir, List<String> names) {
+		for (String name : names) {
+			if (new File(dir, name + ".json").isFile()) {
+				continue; // Described before the batch failed
+			}
+			try {
+				describe(dir, Collections.singletonList(name), false);
+			} catch (IOException ioe) {
+				ioe.printStackTrace();
+				missingModules.add(name);
+			} catch (IllegalArgumentException iae) { // Unparsable answer
+				iae.printStackTrace();
+				missingModules.add(name);
+			}
+		}
+	}
+
+
+	/**
+	 * Describes every standard library module that isn't cached yet, then
+	 * marks the standard library as done so this isn't repeated the next
+	 * time Savu starts.  If a batch of modules can't be described, its
+	 * modules are retried one at a time; those that still fail are treated
+	 * as missing until Savu is restarted, and described when first imported
+	 * after that.
+	 */
+	void describeStdlib() {
+
+		File dir = getDirectory();
+		if (dir==null) {
+			return;
+		}
+		File done = new File(dir, STDLIB_DONE_FILE);
+		if (done.isFile()) {
+			return;
+		}
+
+		List<String> names = new ArrayList<String>();
+		try {
+			for (String name : introspector.getStdlibModules()) {
+				if (!new File(dir, name + ".json").isFile()) {
+					names.add(name);
+				}
+			}
+		} catch (IOException ioe) { // Try again next time
+			ioe.printStackTrace();
+			return;
+		}
+
+		for (int i=0; i<names.size(); i+=PREWARM_BATCH_SIZE) {
+			int end = Math.min(i+PREWARM_BATCH_SIZE, names.size());
+			List<String> batch = names.subList(i, end);
+			try {
+				describe(dir, batch, false);
+			} catch (IOException ioe) {
+				describeEach(dir, batch);
+			} catch (IllegalArgumentException iae) {
+				describeEach(dir, batch);
+			}
+		}
+
+		try {
+			done.createNewFile();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+
+	}
+
+
+	/**
+	 * Returns the directory for the current Python interpreter, finding out
+	 * what it is if this is the first time this method is called.  The
+	 * directories of interpreters that have since been upgraded or removed
+	 * are deleted.
+	 *
+	 * @return The directory, or <code>null</code> if Python couldn't be
+	 *         run.
+	 */
+	private synchronized File getDirectory() {
+
+		if (identified) {
+			return directory;
+		}
+		identified = true;
+
+		String executable, version;
+		try {
+			String[] interpreter = introspector.identify();
+			executable = interpreter[0];
+			version = interpreter[1];
+		} catch (IOException ioe) {
+			// Python isn't installed
+			return null;
+		}
+
+		String key = executable + "\n" + version;
+		String name = "py-" + Integer.toHexString(key.hashCode());
+
+		File[] dirs = cacheRoot.listFiles();
+		if (dirs!=null) {
+			for (File dir : dirs) {
+				if (dir.isDirectory() && !dir.getName().equals(name)) {
+					String other = readInterpreter(dir);
+					if (other==null || other.startsWith(executable + "\n") ||
+							!new File(other.split("\n")[0]).exists()) {
+						deleteDirectory(dir);
+					}
+				}
+			}
+		}
+
+		File dir = new File(cacheRoot, name);
+		if (!key.equals(readInterpreter(dir))) {
+			// A new interpreter, or a hash collision with an old one
+			deleteDirectory(dir);
+			if (!dir.mkdirs()) {
+				return null;
+			}
+			try {
+				write(new File(dir, INTERPRETER_FILE), key);
+			} catch (IOException ioe) {
+				ioe.printStackTrace();
+				return null;
+			}
+		}
+
+		directory = dir;
+		return directory;
+
+	}
+
+
+	/**
+	 * Returns the description of a module.  If the module hasn't been
+	 * described yet, the introspector is asked to, which can take a while;
+	 * this method shouldn't be called on the EDT.
+	 *
+	 * @param name The module name, e.g. <code>"os"</code>.
+	 * @return The module, or <code>null</code> if there is no such module
+	 *         (or Python isn't available).  Modules that couldn't be
+	 *         described are treated as missing until Savu is restarted.
+	 */
+	public PythonMember getModule(String name) {
+
+		if (!MODULE_NAME.matcher(name).matches()) {
+			return null;
+		}
+		PythonMember module = modules.get(name);
+		if (module!=null || missingModules.contains(name)) {
+			return module;
+		}
+
+		File dir = getDirectory();
+		if (dir==null) {
+			return null;
+		}
+
+		try {
+			File file = new File(dir, name + ".json");
+			if (file.isFile()) {
+				module = PythonIntrospector.parseModule(read(file));
+				modules.put(name, module);
+			}
+			else {
+				describe(dir, Collections.singletonList(name), true);
+				module = modules.get(name);
+			}
+		} catch (IOException ioe) { // e.g. a timeout; don't wait again
+			ioe.printStackTrace();
+			missingModules.add(name);
+		} catch (IllegalArgumentException iae) { // Corrupt file
+			iae.printStackTrace();
+			missingModules.add(name);
+		}
+		return module;
+
+	}
+
+
+	/**
+	 * Returns the cache shared by all editors.  It is stored in the Savu
+	 * preferences directory.
+	 *
+	 * @return The shared cache.
+	 */
+	public static synchronized PythonModuleCache getSharedInstance() {
+		if (sharedInstance==null) {
+			File cacheRoot = new File(RTextUtilities.getPreferencesDirectory(),
+								"pythonModules");
+			sharedInstance = new PythonModuleCache(cacheRoot,
+								PythonIntrospector.getSharedInstance());
+		}
+		return sharedInstance;
+	}
+
+
+	/**
+	 * Describes the entire standard library in the background, unless that
+	 * has already been done for the current interpreter.  Only the first
+	 * call to this method does anything.
+	 */
+	public synchronized void prewarm() {
+		if (prewarmStarted) {
+			return;
+		}
+		prewarmStarted = true;
+		Thread t = new Thread("PythonModuleCache") {
+			public void run() {
+				describeStdlib();
+			}
+		};
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		t.start();
+	}
+
+
+	private static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+	}
+
+
+	/**
+	 * Returns the executable and version of the interpreter a cache
+	 * directory is for, separated by a newline.
+	 *
+	 * @return The interpreter, or <code>null</code> if it isn't known.
+	 */
+	private static String readInterpreter(File dir) {
+		File file = new File(dir, INTERPRETER_FILE);
+		try {
+			return file.isFile() ? read(file) : null;
+		} catch (IOException ioe) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Writes a file, replacing it in one step so a half-written file is
+	 * never read.
+	 */
+	private static void write(File file, String text) throws IOException {
+		Path temp = Files.createTempFile(file.getParentFile().toPath(),
+								file.getName(), ".tmp");
+		Writer w = new OutputStreamWriter(
+						new FileOutputStream(temp.toFile()), "UTF-8");
+		try {
+			w.write(text);
+		} finally {
+			w.close();
+		}
+		Files.move(temp, file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+
+}
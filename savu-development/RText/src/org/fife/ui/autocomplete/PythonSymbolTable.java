@@ -0,0 +1,1271 @@
+package org.fife.ui.autocomplete;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+
+import org.fife.ui.rsyntaxtextarea.SavuPythonTokenMaker;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+
+
+/**
+ * An incrementally updated table of the classes, functions and variables
+ * defined in a Python document, organized as a tree of module, class and
+ * def scopes.<p>
+ *
+ * Each line is tokenized with a {@link SavuPythonTokenMaker} and boiled down
+ * to a small summary: its indentation, the class or function it defines, and
+ * the names it assigns.  When the document is edited, only the changed lines
+ * are summarized again (plus any following lines whose starting state
+ * changed, e.g. after opening a <code>"""</code> string).  The scope tree is
+ * rebuilt from the summaries, without tokenizing anything, only when an edit
+ * changes what is defined where; typing inside an expression leaves it
+ * alone.<p>
+ *
+ * Looking up the scope containing a line is a binary search at each level of
+ * the tree, so answering local, global and class-attribute completions
+ * never requires rescanning the document.<p>
+ *
+ * The summaries also keep the value assigned to each name, the modules
+ * imported under each name, and the value each function returns.  Along with
+ * the scope tree, maps from each name to the lines assigning or importing it
+ * are built, so {@link #getClassOfObject(String, int)} can guess the class of
+ * a variable with a few map lookups.  The values themselves are read from
+ * the current summaries, so editing an assigned value doesn't require
+ * rebuilding anything.<p>
+ *
+ * Edits are processed on the EDT, as they happen.  The lookup methods can be
+ * called from any thread.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class PythonSymbolTable implements DocumentListener,
+							PropertyChangeListener {
+
+	private static final int NONE	= 0;
+	private static final int CLASS	= 1;
+	private static final int DEF	= 2;
+
+	private static final String[] EMPTY = new String[0];
+
+	private Document doc;
+	private SavuPythonTokenMaker tokenMaker;
+	private Segment segment;
+	private List<LineInfo> lines;
+
+	/**
+	 * The scope tree, or <code>null</code> if it must be rebuilt from
+	 * <code>lines</code>.
+	 */
+	private Scope module;
+
+	/**
+	 * Class name to attribute names, or <code>null</code> if it must be
+	 * rebuilt along with the scope tree.
+	 */
+	private Map<String, Set<String>> classAttributes;
+
+	/**
+	 * Variable names (including <code>self.</code> attributes) and import
+	 * aliases to the lines assigning or importing them, in ascending order,
+	 * and function names to their scopes.  These are rebuilt along with the
+	 * scope tree.
+	 */
+	private Map<String, List<Integer>> assignments;
+	private Map<String, List<Integer>> imports;
+	private Map<String, Scope> functions;
+
+	/**
+	 * How many assignments and return values are followed when guessing the
+	 * class of a variable, e.g. <code>a = b</code>, <code>b = f()</code>.
+	 */
+	private static final int MAX_RESOLVE_DEPTH = 8;
+
+	private static final Pattern CALL =
+			Pattern.compile("([A-Za-z_][\\w.]*)\\s*\\(");
+	private static final Pattern IDENTIFIER =
+			Pattern.compile("[A-Za-z_]\\w*");
+	private static final Pattern STRING =
+			Pattern.compile("[rRuUbBfF]{0,2}['\"]");
+
+
+	/**
+	 * Constructor.  The table is empty until it is installed.
+	 *
+	 * @see #install(JTextComponent)
+	 */
+	public PythonSymbolTable() {
+		tokenMaker = new SavuPythonTokenMaker();
+		segment = new Segment();
+		lines = new ArrayList<LineInfo>();
+	}
+
+
+	/**
+	 * Rebuilds the scope tree from the line summaries.
+	 */
+	private void buildScopes() {
+
+		module = new Scope(NONE, null, -1, -1);
+		List<Scope> stack = new ArrayList<Scope>();
+		stack.add(module);
+		int count = lines.size();
+		assignments = new HashMap<String, List<Integer>>();
+		imports = new HashMap<String, List<Integer>>();
+		functions = new HashMap<String, Scope>();
+
+		for (int i=0; i<count; i++) {
+
+			LineInfo info = lines.get(i);
+			if (info.indent<0) {
+				continue; // Not the start of a statement.
+			}
+
+			// Close the scopes this line is not indented into.
+			Scope top = stack.get(stack.size()-1);
+			while (top!=module && info.indent<=top.headerIndent) {
+				top.endLine = i;
+				stack.remove(stack.size()-1);
+				top = stack.get(stack.size()-1);
+			}
+
+			for (String name : info.names) {
+				top.symbols.add(new Symbol(i, name));
+				addLine(assignments, name, i);
+			}
+			for (String name : info.attributes) {
+				addLine(assignments, name, i);
+			}
+			for (String alias : info.aliases) {
+				addLine(imports, alias, i);
+			}
+			if (info.returnValue!=null && top.kind==DEF && top.returnLine<0) {
+				top.returnLine = i;
+			}
+			if (info.attributes.length>0) {
+				Scope clazz = null;
+				for (int j=stack.size()-1; j>0 && clazz==null; j--) {
+					if (stack.get(j).kind==CLASS) {
+						clazz = stack.get(j);
+					}
+				}
+				if (clazz!=null) {
+					clazz.attributes.addAll(Arrays.asList(info.attributes));
+				}
+			}
+
+			if (info.kind!=NONE) {
+				String text = info.kind==DEF ? info.signature : info.name;
+				top.symbols.add(new Symbol(i, text));
+				Scope scope = new Scope(info.kind, info.name, i, info.indent);
+				top.children.add(scope);
+				stack.add(scope);
+				if (info.kind==DEF && !functions.containsKey(info.name)) {
+					functions.put(info.name, scope);
+				}
+			}
+
+		}
+
+		for (int j=stack.size()-1; j>0; j--) {
+			stack.get(j).endLine = count;
+		}
+		module.endLine = count;
+
+		classAttributes = new LinkedHashMap<String, Set<String>>();
+		addClassAttributes(module);
+
+	}
+
+
+	private static void addLine(Map<String, List<Integer>> map, String name,
+								int line) {
+		List<Integer> list = map.get(name);
+		if (list==null) {
+			list = new ArrayList<Integer>(1);
+			map.put(name, list);
+		}
+		if (list.isEmpty() || list.get(list.size()-1)!=line) {
+			list.add(line);
+		}
+	}
+
+
+	private void addClassAttributes(Scope scope) {
+		if (scope.kind==CLASS) {
+			Set<String> attrs = classAttributes.get(scope.name);
+			if (attrs==null) {
+				attrs = new LinkedHashSet<String>();
+				classAttributes.put(scope.name, attrs);
+			}
+			attrs.addAll(scope.attributes);
+			for (Symbol symbol : scope.symbols) {
+				attrs.add(symbol.text);
+			}
+		}
+		for (Scope child : scope.children) {
+			addClassAttributes(child);
+		}
+	}
+
+
+	/**
+	 * Called when text attributes change.  This does not affect symbols.
+	 *
+	 * @param e The event.
+	 */
+	public void changedUpdate(DocumentEvent e) {
+	}
+
+
+	/**
+	 * Returns the attributes of every class defined in the document: its
+	 * methods, class-level variables, and the <code>self.</code> variables
+	 * assigned in its methods.  Classes with the same name are merged.
+	 *
+	 * @return A map from class names to their attributes.  This should be
+	 *         treated as read-only.
+	 */
+	public synchronized Map<String, Set<String>> getClassAttributes() {
+		if (module==null) {
+			buildScopes();
+		}
+		return classAttributes;
+	}
+
+
+	/**
+	 * Guesses the class of a variable, from the last value assigned to it
+	 * (or the module imported as it) before the line containing an offset.
+	 * Values such as <code>Widget(x)</code> and <code>module.Widget(x)</code>
+	 * give the class <code>Widget</code>, calls to functions defined in the
+	 * document give the class of what the function returns, and string, list
+	 * and dict literals give <code>String</code>, <code>list</code> and
+	 * <code>dict</code>.
+	 *
+	 * @param object The variable name.
+	 * @param offset The offset, usually the caret position.
+	 * @return The class or module name, or an empty string if it can't be
+	 *         determined.
+	 */
+	public String getClassOfObject(String object, int offset) {
+		int[] pos = getPosition(offset);
+		synchronized (this) {
+			if (module==null) {
+				buildScopes();
+			}
+			// The offset's own line is usually still being typed.
+			return resolveName(object, pos[0]-1, 0);
+		}
+	}
+
+
+	/**
+	 * Returns the last line in an ascending list that is at or before a
+	 * line.
+	 *
+	 * @return The line, or <code>-1</code> if there is none.
+	 */
+	private static int findLast(List<Integer> list, int line) {
+		if (list==null) {
+			return -1;
+		}
+		int low = 0;
+		int high = list.size() - 1;
+		int found = -1;
+		while (low<=high) {
+			int mid = (low+high) >>> 1;
+			int value = list.get(mid);
+			if (value<=line) {
+				found = value;
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+
+
+	/**
+	 * Guesses the class of the value of an expression.
+	 *
+	 * @param expr The expression.
+	 * @param line The line it is on.
+	 * @param depth How many values have been followed so far.
+	 * @return The class, or an empty string if it can't be determined.
+	 */
+	private String resolveExpression(String expr, int line, int depth) {
+		if (expr.length()==0 || depth>MAX_RESOLVE_DEPTH) {
+			return "";
+		}
+		char ch = expr.charAt(0);
+		if (ch=='[') {
+			return "list";
+		}
+		if (ch=='{') {
+			return "dict";
+		}
+		if (STRING.matcher(expr).lookingAt()) {
+			return "String";
+		}
+		Matcher m = CALL.matcher(expr);
+		if (m.lookingAt()) {
+			String callee = m.group(1);
+			int dot = callee.lastIndexOf('.');
+			if (dot>-1) { // e.g. "module.Widget()"
+				return callee.substring(dot+1);
+			}
+			Scope function = functions.get(callee);
+			if (function!=null) {
+				if (function.returnLine<0) {
+					return "";
+				}
+				return resolveExpression(
+						lines.get(function.returnLine).returnValue,
+						function.returnLine, depth+1);
+			}
+			return callee; // A class
+		}
+		if (IDENTIFIER.matcher(expr).matches()) {
+			// Another variable, assigned before this line.
+			return resolveName(expr, line-1, depth+1);
+		}
+		return "";
+	}
+
+
+	/**
+	 * Guesses the class of a variable at a line.
+	 *
+	 * @param name The variable.
+	 * @param line The line.
+	 * @param depth How many values have been followed so far.
+	 * @return The class or module, or an empty string if it can't be
+	 *         determined.
+	 */
+	private String resolveName(String name, int line, int depth) {
+		if (line<0 || depth>MAX_RESOLVE_DEPTH) {
+			return "";
+		}
+		int importLine = findLast(imports.get(name), line);
+		int assignLine = findLast(assignments.get(name), line);
+		if (importLine>-1 && importLine>=assignLine) {
+			LineInfo info = lines.get(importLine);
+			for (int i=info.aliases.length-1; i>=0; i--) {
+				if (info.aliases[i].equals(name)) {
+					return info.modules[i];
+				}
+			}
+		}
+		else if (assignLine>-1) {
+			LineInfo info = lines.get(assignLine);
+			String value = info.getValue(name);
+			if (value!=null) {
+				return resolveExpression(value, assignLine, depth+1);
+			}
+		}
+		return "";
+	}
+
+
+	/**
+	 * Returns the symbols visible at module level before the specified
+	 * offset: classes, functions and variables defined without
+	 * indentation.
+	 *
+	 * @param offset The offset, usually the caret position.
+	 * @return The symbols.
+	 */
+	public List<String> getGlobalSymbols(int offset) {
+		int[] pos = getPosition(offset);
+		synchronized (this) {
+			if (module==null) {
+				buildScopes();
+			}
+			List<String> symbols = new ArrayList<String>();
+			addSymbolsUpTo(module, pos[0], symbols);
+			return symbols;
+		}
+	}
+
+
+	/**
+	 * Returns the symbols visible at the specified offset: those defined
+	 * before it in the scope containing it, and in each enclosing scope up
+	 * to the module.
+	 *
+	 * @param offset The offset, usually the caret position.
+	 * @return The symbols.
+	 */
+	public List<String> getLocalSymbols(int offset) {
+
+		int[] pos = getPosition(offset);
+
+		synchronized (this) {
+
+			if (module==null) {
+				buildScopes();
+			}
+			int line = pos[0];
+			List<String> symbols = new ArrayList<String>();
+			if (line>=lines.size()) {
+				return symbols;
+			}
+
+			// If the caret line is still blank, go by how far the caret is
+			// indented.
+			LineInfo info = lines.get(line);
+			int indent = info.indent>-1 ? info.indent :
+								Math.min(info.rawIndent, pos[1]);
+
+			List<Scope> path = new ArrayList<Scope>();
+			Scope scope = module;
+			path.add(scope);
+			while ((scope=getChildContaining(scope, line, indent))!=null) {
+				path.add(scope);
+			}
+			for (int i=path.size()-1; i>=0; i--) {
+				addSymbolsUpTo(path.get(i), line, symbols);
+			}
+			return symbols;
+
+		}
+
+	}
+
+
+	/**
+	 * Adds the symbols defined in a scope on or before a line.
+	 */
+	private static void addSymbolsUpTo(Scope scope, int line,
+									List<String> symbols) {
+		List<Symbol> list = scope.symbols;
+		int low = 0;
+		int high = list.size() - 1;
+		while (low<=high) { // Find the first symbol after the line.
+			int mid = (low+high) >>> 1;
+			if (list.get(mid).line<=line) {
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		for (int i=0; i<low; i++) {
+			symbols.add(list.get(i).text);
+		}
+	}
+
+
+	/**
+	 * Returns the child scope of <code>scope</code> that contains a line.
+	 *
+	 * @param scope The parent scope.
+	 * @param line The line.
+	 * @param indent How far the line is indented.
+	 * @return The child scope, or <code>null</code> if the line is directly
+	 *         in <code>scope</code>.
+	 */
+	private static Scope getChildContaining(Scope scope, int line,
+										int indent) {
+		List<Scope> children = scope.children;
+		int low = 0;
+		int high = children.size() - 1;
+		int found = -1;
+		while (low<=high) { // Find the last child starting before the line.
+			int mid = (low+high) >>> 1;
+			if (children.get(mid).headerLine<line) {
+				found = mid;
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		if (found>-1) {
+			Scope child = children.get(found);
+			if (line<child.endLine && indent>child.headerIndent) {
+				return child;
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Returns the line and column of an offset in the document.
+	 *
+	 * @param offset The offset.
+	 * @return The line and column.
+	 */
+	private int[] getPosition(final int offset) {
+		final int[] pos = new int[2];
+		final Document doc = this.doc;
+		if (doc!=null) {
+			doc.render(new Runnable() {
+				public void run() {
+					Element root = doc.getDefaultRootElement();
+					int off = Math.max(0, Math.min(offset, doc.getLength()));
+					pos[0] = root.getElementIndex(off);
+					pos[1] = off - root.getElement(pos[0]).getStartOffset();
+				}
+			});
+		}
+		return pos;
+	}
+
+
+	/**
+	 * Called when text is inserted into the document.
+	 *
+	 * @param e The event.
+	 */
+	public void insertUpdate(DocumentEvent e) {
+		handleEdit(e);
+	}
+
+
+	/**
+	 * Starts keeping this table up to date with a text component's
+	 * document, including after the document is replaced.  This should be
+	 * called on the EDT.
+	 *
+	 * @param comp The text component.
+	 */
+	public void install(JTextComponent comp) {
+		comp.addPropertyChangeListener("document", this);
+		setDocument(comp.getDocument());
+	}
+
+
+	/**
+	 * Called when the document changes.  Re-summarizes the changed lines.
+	 */
+	private synchronized void handleEdit(DocumentEvent e) {
+
+		Element root = doc.getDefaultRootElement();
+		DocumentEvent.ElementChange change = e.getChange(root);
+		int first, removed, added;
+		if (change!=null) {
+			first = change.getIndex();
+			removed = change.getChildrenRemoved().length;
+			added = change.getChildrenAdded().length;
+		}
+		else {
+			first = root.getElementIndex(e.getOffset());
+			removed = added = 1;
+		}
+
+		List<LineInfo> range = lines.subList(first, first+removed);
+		List<LineInfo> old = new ArrayList<LineInfo>(range);
+		range.clear();
+		for (int i=0; i<added; i++) {
+			lines.add(first+i, null);
+		}
+
+		boolean structureChanged = removed!=added;
+		for (int i=0; i<added; i++) {
+			LineInfo info = summarizeLine(first+i);
+			lines.set(first+i, info);
+			if (!structureChanged && !info.definesSameAs(old.get(i))) {
+				structureChanged = true;
+			}
+		}
+
+		// Keep going while lines start in a different state than before,
+		// e.g. after a """ string was opened or closed.
+		int count = lines.size();
+		for (int i=first+added; i<count; i++) {
+			LineInfo prev = lines.get(i-1);
+			LineInfo info = lines.get(i);
+			if (info.startState==prev.endState &&
+					info.startDepth==prev.endDepth &&
+					info.startContinued==prev.isContinued()) {
+				break;
+			}
+			lines.set(i, summarizeLine(i));
+			structureChanged = true;
+		}
+
+		if (structureChanged) {
+			module = null;
+			classAttributes = null;
+			assignments = imports = null;
+			functions = null;
+		}
+
+	}
+
+
+	private static boolean isIdentifier(char[] array, int offset, int len) {
+		if (len==0 || !Character.isJavaIdentifierStart(array[offset]) ||
+				array[offset]=='$') {
+			return false;
+		}
+		for (int i=1; i<len; i++) {
+			char ch = array[offset+i];
+			if (!Character.isJavaIdentifierPart(ch) || ch=='$') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Called when the text component's document is replaced.
+	 *
+	 * @param e The event.
+	 */
+	public void propertyChange(PropertyChangeEvent e) {
+		setDocument((Document)e.getNewValue());
+	}
+
+
+	/**
+	 * Called when text is removed from the document.
+	 *
+	 * @param e The event.
+	 */
+	public void removeUpdate(DocumentEvent e) {
+		handleEdit(e);
+	}
+
+
+	/**
+	 * Switches to a new document and summarizes all of it.
+	 *
+	 * @param newDoc The new document.  This may be <code>null</code>.
+	 */
+	private void setDocument(final Document newDoc) {
+		synchronized (this) {
+			if (doc!=null) {
+				doc.removeDocumentListener(this);
+			}
+			doc = newDoc;
+			lines.clear();
+			module = null;
+			classAttributes = null;
+			assignments = imports = null;
+			functions = null;
+		}
+		if (newDoc!=null) {
+			newDoc.render(new Runnable() {
+				public void run() {
+					synchronized (PythonSymbolTable.this) {
+						int count = newDoc.getDefaultRootElement().
+													getElementCount();
+						for (int i=0; i<count; i++) {
+							lines.add(summarizeLine(i));
+						}
+					}
+				}
+			});
+			newDoc.addDocumentListener(this);
+		}
+	}
+
+
+	/**
+	 * Tokenizes a line and summarizes what it defines.  The line before it
+	 * must already be summarized.
+	 *
+	 * @param line The line.
+	 * @return The summary.
+	 */
+	private LineInfo summarizeLine(int line) {
+
+		LineInfo info = new LineInfo();
+		if (line>0) {
+			LineInfo prev = lines.get(line-1);
+			info.startState = prev.endState;
+			info.startDepth = prev.endDepth;
+			info.startContinued = prev.isContinued();
+		}
+		else {
+			info.startState = TokenTypes.NULL;
+		}
+
+		Element elem = doc.getDefaultRootElement().getElement(line);
+		int start = elem.getStartOffset();
+		int end = Math.min(elem.getEndOffset()-1, doc.getLength());
+		try {
+			doc.getText(start, end-start, segment);
+		} catch (BadLocationException ble) { // Never happens
+			ble.printStackTrace();
+			segment.array = new char[0];
+			segment.offset = segment.count = 0;
+		}
+
+		char[] array = segment.array;
+		int segEnd = segment.offset + segment.count;
+		int indent = 0;
+		for (int i=segment.offset; i<segEnd; i++) {
+			char ch = array[i];
+			if (ch==' ') {
+				indent++;
+			}
+			else if (ch=='\t') {
+				indent = (indent/8+1) * 8;
+			}
+			else {
+				break;
+			}
+		}
+		info.rawIndent = indent;
+
+		boolean inString = info.startState==TokenTypes.LITERAL_CHAR ||
+				info.startState==TokenTypes.LITERAL_STRING_DOUBLE_QUOTE;
+		boolean statement = !inString && info.startDepth==0 &&
+				!info.startContinued;
+
+		List<String> names = null;
+		List<String> attributes = null;
+		List<String> values = null;
+		List<String> attributeValues = null;
+		List<String> importTokens = null;
+		boolean fromImport = false;
+		boolean returning = false;
+		int valueStart = -1;		// Where the value being assigned starts
+		int valueEnd = segEnd;
+		List<String> targets = new ArrayList<String>(2);
+		boolean valid = true;		// Only names and commas seen so far
+		boolean expectName = true;
+		int selfState = 0;			// 1 = "self", 2 = "self.", 3 = "self.x"
+		String selfAttr = null;
+		int significant = 0;
+		boolean backslash = false;
+		int depth = info.startDepth;
+
+		Token t = tokenMaker.getTokenList(segment, info.startState, start);
+		Token last = t;
+
+		for (; t!=null; t=t.getNextToken()) {
+
+			last = t;
+			int type = t.getType();
+			int len = t.length();
+			if (!t.isPaintable() || len==0 || t.isWhitespace()) {
+				continue;
+			}
+			if (type==TokenTypes.COMMENT_EOL) {
+				valueEnd = Math.min(valueEnd, t.getTextOffset());
+				continue;
+			}
+
+			char[] text = t.getTextArray();
+			int off = t.getTextOffset();
+			char ch = len==1 ? text[off] : 0;
+			boolean string = type==TokenTypes.LITERAL_CHAR ||
+					type==TokenTypes.LITERAL_STRING_DOUBLE_QUOTE;
+			backslash = ch=='\\';
+			int sigIndex = significant++;
+
+			if (!statement) {
+				// Only track brackets on continuation and string lines.
+				if (!string) {
+					depth = updateDepth(depth, ch);
+				}
+				continue;
+			}
+
+			// The line starts a statement.
+			if (sigIndex==0) {
+				info.indent = indent;
+				if (type==TokenTypes.RESERVED_WORD) {
+					String word = new String(text, off, len);
+					if ("class".equals(word)) {
+						info.kind = CLASS;
+					}
+					else if ("def".equals(word)) {
+						info.kind = DEF;
+					}
+					else if ("import".equals(word) || "from".equals(word)) {
+						importTokens = new ArrayList<String>();
+						fromImport = "from".equals(word);
+						continue;
+					}
+					else if ("return".equals(word)) {
+						returning = true;
+						valueStart = off + len;
+					}
+				}
+				if (info.kind!=NONE) {
+					continue;
+				}
+			}
+			else if (sigIndex==1 && info.kind!=NONE) {
+				if (isIdentifier(text, off, len)) {
+					info.name = new String(text, off, len);
+					if (info.kind==DEF) {
+						info.signature = createSignature(info.name,
+							array, off+len, segEnd);
+					}
+				}
+				else {
+					info.kind = NONE;
+				}
+			}
+			if (info.kind!=NONE) {
+				if (!string) {
+					depth = updateDepth(depth, ch);
+				}
+				continue;
+			}
+
+			if (importTokens!=null) {
+				if (!string) {
+					importTokens.add(new String(text, off, len));
+				}
+				continue;
+			}
+			if (string) {
+				if (depth==0) {
+					valid = false;
+					selfState = 0;
+				}
+				continue;
+			}
+			if (depth>0) {
+				depth = updateDepth(depth, ch);
+				continue;
+			}
+
+			// Assignment targets are only looked for at bracket depth 0.
+			if (ch=='=' && type==TokenTypes.OPERATOR) {
+				char prev = off>segment.offset ? text[off-1] : ' ';
+				if ("!<>&|^".indexOf(prev)>-1) { // Comparison, "&=", etc.
+					valid = false;
+					selfState = 0;
+					continue;
+				}
+				if (valid && !expectName && !targets.isEmpty()) {
+					if (names==null) {
+						names = new ArrayList<String>(2);
+						values = new ArrayList<String>(2);
+					}
+					names.addAll(targets);
+					for (int i=0; i<targets.size(); i++) {
+						values.add(null);
+					}
+				}
+				if (selfState==3) {
+					if (attributes==null) {
+						attributes = new ArrayList<String>(1);
+						attributeValues = new ArrayList<String>(1);
+					}
+					attributes.add(selfAttr);
+					attributeValues.add(null);
+				}
+				valueStart = off + 1;
+				targets.clear();
+				valid = expectName = true;
+				selfState = 0;
+			}
+			else if (type!=TokenTypes.RESERVED_WORD &&
+					isIdentifier(text, off, len)) {
+				String name = new String(text, off, len);
+				if (selfState==2) {
+					selfAttr = name;
+					selfState = 3;
+					valid = false;
+				}
+				else if (expectName) {
+					targets.add(name);
+					expectName = false;
+					selfState = targets.size()==1 && "self".equals(name) ?
+									1 : 0;
+				}
+				else {
+					valid = false;
+					selfState = 0;
+				}
+			}
+			else if (ch=='.' && selfState==1) {
+				selfState = 2;
+				valid = false;
+			}
+			else if (ch==',' && type==TokenTypes.OPERATOR) {
+				if (expectName) {
+					valid = false;
+				}
+				expectName = true;
+				selfState = 0;
+			}
+			else if (ch==';' || ch==':') {
+				// Start of another simple statement, e.g. "else: x = 1"
+				if (valueStart>-1) {
+					String value = trim(array, valueStart, off);
+					setValues(values, value);
+					setValues(attributeValues, value);
+					if (returning) {
+						info.returnValue = value;
+						returning = false;
+					}
+					valueStart = -1;
+				}
+				targets.clear();
+				valid = expectName = true;
+				selfState = 0;
+			}
+			else {
+				valid = false;
+				selfState = 0;
+				depth = updateDepth(depth, ch);
+			}
+
+		}
+
+		if (info.name==null) { // e.g. "def" typed, but no name yet
+			info.kind = NONE;
+		}
+		if (valueStart>-1) {
+			String value = trim(array, valueStart, valueEnd);
+			setValues(values, value);
+			setValues(attributeValues, value);
+			if (returning) {
+				info.returnValue = value;
+			}
+		}
+		if (importTokens!=null) {
+			summarizeImport(info, importTokens, fromImport);
+		}
+		else {
+			info.aliases = info.modules = EMPTY;
+		}
+		int lastType = last!=null ? last.getType() : TokenTypes.NULL;
+		info.endState = lastType==TokenTypes.LITERAL_CHAR ||
+				lastType==TokenTypes.LITERAL_STRING_DOUBLE_QUOTE ?
+						lastType : TokenTypes.NULL;
+		info.endDepth = depth;
+		info.endBackslash = backslash;
+		info.names = names==null ? EMPTY : names.toArray(EMPTY);
+		info.attributes = attributes==null ? EMPTY :
+										attributes.toArray(EMPTY);
+		info.values = values==null ? EMPTY : values.toArray(EMPTY);
+		info.attributeValues = attributeValues==null ? EMPTY :
+										attributeValues.toArray(EMPTY);
+		return info;
+
+	}
+
+
+	/**
+	 * Sets the value of the assignment targets that don't have one yet.
+	 * Chained assignments such as <code>a = b = f()</code> give every
+	 * target the last value.
+	 */
+	private static void setValues(List<String> values, String value) {
+		if (values!=null) {
+			for (int i=values.size()-1; i>=0 && values.get(i)==null; i--) {
+				values.set(i, value);
+			}
+		}
+	}
+
+
+	/**
+	 * Records the names an <code>import</code> or <code>from</code>
+	 * statement binds, and the module (or module member) bound to each.
+	 * <code>import a.b</code> binds <code>a</code> to <code>a</code>,
+	 * <code>import a.b as c</code> binds <code>c</code> to <code>a.b</code>
+	 * and <code>from a import b as c</code> binds <code>c</code> to
+	 * <code>b</code>.
+	 *
+	 * @param info The line's summary.
+	 * @param tokens The statement's tokens, after the first keyword.
+	 * @param from Whether it's a <code>from</code> statement.
+	 */
+	private static void summarizeImport(LineInfo info, List<String> tokens,
+										boolean from) {
+		int i = 0;
+		if (from) { // Skip the module, to "import"
+			while (i<tokens.size() && !"import".equals(tokens.get(i))) {
+				i++;
+			}
+			i++;
+		}
+		List<String> aliases = new ArrayList<String>(1);
+		List<String> modules = new ArrayList<String>(1);
+		StringBuilder module = new StringBuilder();
+		String alias = null;
+		boolean as = false;
+		for (; i<=tokens.size(); i++) {
+			String token = i<tokens.size() ? tokens.get(i) : ",";
+			if (",".equals(token) || ";".equals(token)) {
+				if (module.length()>0 && module.charAt(0)!='*') {
+					String name = module.toString();
+					if (alias==null) {
+						int dot = name.indexOf('.');
+						alias = name = dot>-1 ? name.substring(0, dot) : name;
+					}
+					aliases.add(alias);
+					modules.add(name);
+				}
+				if (";".equals(token)) {
+					break;
+				}
+				module.setLength(0);
+				alias = null;
+				as = false;
+			}
+			else if ("as".equals(token)) {
+				as = true;
+			}
+			else if (as) {
+				alias = token;
+			}
+			else if (!"(".equals(token) && !")".equals(token) &&
+					!"\\".equals(token)) {
+				module.append(token);
+			}
+		}
+		info.aliases = aliases.toArray(EMPTY);
+		info.modules = modules.toArray(EMPTY);
+	}
+
+
+	/**
+	 * Returns a range of characters with whitespace trimmed from both ends.
+	 */
+	private static String trim(char[] array, int start, int end) {
+		while (start<end && Character.isWhitespace(array[start])) {
+			start++;
+		}
+		while (end>start && Character.isWhitespace(array[end-1])) {
+			end--;
+		}
+		return new String(array, start, end-start);
+	}
+
+
+	/**
+	 * Returns a function's signature as written in its definition, e.g.
+	 * <code>compute(self, factor)</code>, with runs of whitespace collapsed.
+	 */
+	private static String createSignature(String name, char[] array,
+										int start, int end) {
+		StringBuilder sb = new StringBuilder(name);
+		int i = start;
+		while (i<end && Character.isWhitespace(array[i])) {
+			i++;
+		}
+		if (i==end || array[i]!='(') {
+			return sb.append("()").toString();
+		}
+		int depth = 0;
+		boolean space = false;
+		for (; i<end; i++) {
+			char ch = array[i];
+			if (Character.isWhitespace(ch)) {
+				space = true;
+				continue;
+			}
+			if (space && ch!=')' && sb.charAt(sb.length()-1)!='(') {
+				sb.append(' ');
+			}
+			space = false;
+			sb.append(ch);
+			if (ch=='(') {
+				depth++;
+			}
+			else if (ch==')' && --depth==0) {
+				return sb.toString();
+			}
+		}
+		// The parameters continue on the next line.
+		while (sb.charAt(sb.length()-1)==',') {
+			sb.setLength(sb.length()-1);
+		}
+		return sb.append(')').toString();
+	}
+
+
+	private static int updateDepth(int depth, char ch) {
+		switch (ch) {
+			case '(':
+			case '[':
+			case '{':
+				return depth + 1;
+			case ')':
+			case ']':
+			case '}':
+				return Math.max(0, depth-1);
+			default:
+				return depth;
+		}
+	}
+
+
+	/**
+	 * A summary of what a single line defines, and the tokenizer state
+	 * needed to tokenize the line after it.
+	 */
+	private static class LineInfo {
+
+		int startState;
+		int startDepth;
+		boolean startContinued;
+		int endState;
+		int endDepth;
+		boolean endBackslash;
+
+		/**
+		 * How far the line is indented, counting tabs to the next multiple
+		 * of 8.
+		 */
+		int rawIndent;
+
+		/**
+		 * The indentation, or <code>-1</code> if this line doesn't start a
+		 * statement (it's blank, a comment, or part of a string or a
+		 * statement started on an earlier line).
+		 */
+		int indent = -1;
+
+		int kind;
+		String name;
+		String signature;
+		String[] names;
+		String[] attributes;
+
+		/**
+		 * The values assigned to <code>names</code> and
+		 * <code>attributes</code>, e.g. <code>Widget(parent)</code>.
+		 */
+		String[] values;
+		String[] attributeValues;
+
+		/**
+		 * The names bound by an import statement, and the module or module
+		 * member bound to each.
+		 */
+		String[] aliases;
+		String[] modules;
+
+		/**
+		 * The returned value, if this line is a <code>return</code>
+		 * statement.
+		 */
+		String returnValue;
+
+		/**
+		 * Returns whether this line defines the same things, at the same
+		 * indentation, as another line.  Assigned and returned values aren't
+		 * compared, since they are looked up when needed.
+		 */
+		boolean definesSameAs(LineInfo other) {
+			return indent==other.indent && kind==other.kind &&
+				equal(name, other.name) &&
+				equal(signature, other.signature) &&
+				Arrays.equals(names, other.names) &&
+				Arrays.equals(attributes, other.attributes) &&
+				Arrays.equals(aliases, other.aliases) &&
+				Arrays.equals(modules, other.modules) &&
+				(returnValue==null)==(other.returnValue==null) &&
+				endState==other.endState && endDepth==other.endDepth &&
+				endBackslash==other.endBackslash;
+		}
+
+		/**
+		 * Returns the value last assigned to a name or
+		 * <code>self.</code> attribute on this line.
+		 *
+		 * @return The value, or <code>null</code> if none is assigned.
+		 */
+		String getValue(String name) {
+			for (int i=names.length-1; i>=0; i--) {
+				if (names[i].equals(name)) {
+					return values[i];
+				}
+			}
+			for (int i=attributes.length-1; i>=0; i--) {
+				if (attributes[i].equals(name)) {
+					return attributeValues[i];
+				}
+			}
+			return null;
+		}
+
+		private static boolean equal(String s1, String s2) {
+			return s1==null ? s2==null : s1.equals(s2);
+		}
+
+		/**
+		 * Returns whether the next line continues this line's statement.
+		 */
+		boolean isContinued() {
+			return endDepth>0 || endBackslash;
+		}
+
+	}
+
+
+	/**
+	 * A module, class or function.
+	 */
+	private static class Scope {
+
+		final int kind;
+		final String name;
+		final int headerLine;
+		final int headerIndent;
+		int endLine;
+		int returnLine = -1;
+		final List<Scope> children;
+		final List<Symbol> symbols;
+		final Set<String> attributes;
+
+		Scope(int kind, String name, int headerLine, int headerIndent) {
+			this.kind = kind;
+			this.name = name;
+			this.headerLine = headerLine;
+			this.headerIndent = headerIndent;
+			children = new ArrayList<Scope>(0);
+			symbols = new ArrayList<Symbol>(0);
+			attributes = kind==CLASS ? new LinkedHashSet<String>() :
+										Collections.<String>emptySet();
+		}
+
+	}
+
+
+	/**
+	 * A name defined in a scope.
+	 */
+	private static class Symbol {
+
+		final int line;
+		final String text;
+
+		Symbol(int line, String text) {
+			this.line = line;
+			this.text = text;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,660 @@
+package org.fife.ui.autocomplete;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Describes the Python modules in the user's own directories, i.e. the
+ * <code>.py</code> files imported by the file being edited, shared by every
+ * {@link PythonCompletionProvider}.<p>
+ *
+ * Each file is read once and summarized: the classes (with their methods and
+ * <code>self.</code> attributes), functions and variables it defines, and
+ * the imports it makes.  A summary is kept until the file's modification time
+ * or size changes.  Resolving a module follows its imports through the
+ * summaries, finding packages (<code>__init__.py</code>), submodules and
+ * relative imports, so names a module gets from
+ * <code>from .shapes import *</code> or <code>from .shapes import Circle</code>
+ * are completed too.  The result remembers every file it was built from, and
+ * is reused until one of them changes, so completing a file that imports ten
+ * modules only checks the ten files' timestamps.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+public class PythonWorkspace {
+
+	/**
+	 * Paths to the summaries of the files read so far.
+	 */
+	private Map<String, ModuleSummary> summaries;
+
+	/**
+	 * Modules resolved so far, keyed by the directory they were imported
+	 * from, their level and their name.
+	 */
+	private Map<String, ResolvedModule> modules;
+
+	private static PythonWorkspace sharedInstance;
+
+	private static final String INIT_FILE = "__init__.py";
+
+	private static final Pattern CLASS = Pattern.compile("class\\s+(\\w+)");
+	private static final Pattern DEF = Pattern.compile("def\\s+(\\w+)\\s*");
+	private static final Pattern ASSIGNMENT =
+			Pattern.compile("([A-Za-z_]\\w*(?:\\s*,\\s*[A-Za-z_]\\w*)*)\\s*=(?!=)");
+	private static final Pattern SELF_ASSIGNMENT =
+			Pattern.compile("self\\.(\\w+)\\s*=(?!=)");
+	private static final Pattern IMPORT =
+			Pattern.compile("import\\s+([\\w.]+(?:\\s+as\\s+\\w+)?(?:\\s*,\\s*[\\w.]+(?:\\s+as\\s+\\w+)?)*)");
+	private static final Pattern FROM_IMPORT =
+			Pattern.compile("from\\s+(\\.*)([\\w.]*)\\s+import\\s+\\(?\\s*([\\w*, ]+)");
+
+
+	/**
+	 * Constructor.
+	 */
+	public PythonWorkspace() {
+		summaries = new ConcurrentHashMap<String, ModuleSummary>();
+		modules = new ConcurrentHashMap<String, ResolvedModule>();
+	}
+
+
+	/**
+	 * Returns what a module defines, following its star and
+	 * <code>from</code> imports.
+	 *
+	 * @param file The module's file.
+	 * @param root The directory of the file being edited, used to resolve
+	 *        absolute imports.
+	 * @param done The modules resolved so far.
+	 * @param files Receives the files read, and their modification times
+	 *        and sizes.
+	 * @param inProgress The modules being resolved, used to stop at import
+	 *        cycles.
+	 * @return The module's members.
+	 */
+	private List<PythonMember> getExports(File file, File root,
+			Map<String, List<PythonMember>> done, Map<File, long[]> files,
+			Set<String> inProgress) {
+
+		String path = file.getAbsolutePath();
+		List<PythonMember> exports = done.get(path);
+		if (exports!=null) {
+			return exports;
+		}
+		if (!inProgress.add(path)) { // Circular import
+			return Collections.emptyList();
+		}
+
+		ModuleSummary summary = getSummary(file);
+		if (summary==null) {
+			inProgress.remove(path);
+			return Collections.emptyList();
+		}
+		files.put(file, new long[] { summary.lastModified, summary.length });
+
+		exports = new ArrayList<PythonMember>(summary.members);
+		Set<String> names = new HashSet<String>();
+		for (PythonMember member : exports) {
+			names.add(member.getName());
+		}
+
+		File dir = file.getParentFile();
+		for (ImportRef ref : summary.imports) {
+			if (names.contains(ref.alias)) {
+				continue;
+			}
+			if (ref.name==null) { // "import x"
+				names.add(ref.alias);
+				exports.add(createModule(ref.alias, null));
+				continue;
+			}
+			File target = resolve(ref.module, ref.level, dir, root);
+			if ("*".equals(ref.name)) {
+				if (target!=null) {
+					for (PythonMember member : getExports(target, root, done,
+												files, inProgress)) {
+						if (names.add(member.getName())) {
+							exports.add(member);
+						}
+					}
+				}
+				continue;
+			}
+			PythonMember found = null;
+			if (target!=null) {
+				for (PythonMember member : getExports(target, root, done,
+												files, inProgress)) {
+					if (member.getName().equals(ref.name)) {
+						found = member;
+						break;
+					}
+				}
+				if (found==null && INIT_FILE.equals(target.getName())) {
+					// "from package import submodule"
+					File submodule = findModule(target.getParentFile(),
+												ref.name);
+					if (submodule!=null) {
+						found = createModule(ref.name, getExports(submodule,
+										root, done, files, inProgress));
+					}
+				}
+			}
+			names.add(ref.alias);
+			if (found==null) {
+				exports.add(new PythonMember(ref.alias, PythonMember.DATA,
+					null, null, Collections.<PythonMember>emptyList()));
+			}
+			else if (found.getName().equals(ref.alias)) {
+				exports.add(found);
+			}
+			else {
+				exports.add(new PythonMember(ref.alias, found.getKind(),
+					found.getSignature(), found.getDoc(), found.getMembers()));
+			}
+		}
+
+		inProgress.remove(path);
+		done.put(path, exports);
+		return exports;
+
+	}
+
+
+	private static PythonMember createModule(String name,
+										List<PythonMember> members) {
+		if (members==null) {
+			members = Collections.emptyList();
+		}
+		return new PythonMember(name, PythonMember.MODULE, null, null,
+								members);
+	}
+
+
+	/**
+	 * Returns the file of a module in a directory.
+	 *
+	 * @param base The directory.
+	 * @param module The module's dotted name, or an empty string for the
+	 *        package <code>base</code> itself.
+	 * @return The module's <code>.py</code> file, or its package's
+	 *         <code>__init__.py</code>, or <code>null</code> if there is no
+	 *         such module.
+	 */
+	private static File findModule(File base, String module) {
+		if (base==null) {
+			return null;
+		}
+		if (module.length()==0) {
+			File init = new File(base, INIT_FILE);
+			return init.isFile() ? init : null;
+		}
+		String path = module.replace('.', File.separatorChar);
+		File file = new File(base, path + ".py");
+		if (file.isFile()) {
+			return file;
+		}
+		file = new File(base, path + File.separatorChar + INIT_FILE);
+		return file.isFile() ? file : null;
+	}
+
+
+	/**
+	 * Returns what a module in the user's directories defines.
+	 *
+	 * @param name The module's dotted name, without any leading dots, e.g.
+	 *        <code>"shapes"</code> or <code>"geometry.shapes"</code>.
+	 * @param level The number of leading dots in a relative import, or
+	 *        <code>0</code> for an absolute import.
+	 * @param dir The directory of the file importing the module.
+	 * @return The module, named <code>name</code>, or <code>null</code> if
+	 *         it isn't one of the user's modules (e.g. it is part of the
+	 *         standard library).
+	 */
+	public PythonMember getModule(String name, int level, File dir) {
+
+		String key = dir.getAbsolutePath() + File.pathSeparator + level +
+						File.pathSeparator + name;
+		ResolvedModule resolved = modules.get(key);
+		if (resolved!=null && resolved.isUpToDate()) {
+			return resolved.module;
+		}
+
+		File file = resolve(name, level, dir, dir);
+		if (file==null) {
+			modules.remove(key);
+			return null;
+		}
+
+		Map<File, long[]> files = new HashMap<File, long[]>();
+		List<PythonMember> exports = getExports(file, dir,
+				new HashMap<String, List<PythonMember>>(), files,
+				new HashSet<String>());
+		resolved = new ResolvedModule(createModule(name, exports), files);
+		modules.put(key, resolved);
+		return resolved.module;
+
+	}
+
+
+	/**
+	 * Returns the workspace shared by all editors.
+	 *
+	 * @return The shared workspace.
+	 */
+	public static synchronized PythonWorkspace getSharedInstance() {
+		if (sharedInstance==null) {
+			sharedInstance = new PythonWorkspace();
+		}
+		return sharedInstance;
+	}
+
+
+	/**
+	 * Returns the summary of a file, reading it if it hasn't been read or
+	 * has changed since.
+	 *
+	 * @param file The file.
+	 * @return The summary, or <code>null</code> if the file can't be read.
+	 */
+	private ModuleSummary getSummary(File file) {
+		String path = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		ModuleSummary summary = summaries.get(path);
+		if (summary!=null && summary.lastModified==lastModified &&
+				summary.length==length) {
+			return summary;
+		}
+		try {
+			summary = summarize(file, lastModified, length);
+			summaries.put(path, summary);
+		} catch (IOException ioe) { // Deleted, unreadable, etc.
+			summaries.remove(path);
+			summary = null;
+		}
+		return summary;
+	}
+
+
+	/**
+	 * Returns the file an import refers to.
+	 *
+	 * @param module The module's dotted name, without any leading dots.
+	 * @param level The number of leading dots.
+	 * @param dir The directory of the importing file.
+	 * @param root The directory of the file being edited.
+	 * @return The file, or <code>null</code> if it isn't one of the user's
+	 *         modules.
+	 */
+	private static File resolve(String module, int level, File dir,
+								File root) {
+		if (level>0) {
+			File base = dir;
+			for (int i=1; i<level && base!=null; i++) {
+				base = base.getParentFile();
+			}
+			return findModule(base, module);
+		}
+		if (module.length()==0) {
+			return null;
+		}
+		// Python 2 looks next to the importing file first.
+		File file = findModule(dir, module);
+		if (file==null && !root.equals(dir)) {
+			file = findModule(root, module);
+		}
+		return file;
+	}
+
+
+	/**
+	 * Returns a function's argument list as written on its <code>def</code>
+	 * line, e.g. <code>"(self, factor)"</code>.
+	 */
+	private static String getSignature(String line, int start) {
+		if (start>=line.length() || line.charAt(start)!='(') {
+			return "()";
+		}
+		int depth = 0;
+		for (int i=start; i<line.length(); i++) {
+			char ch = line.charAt(i);
+			if (ch=='(') {
+				depth++;
+			}
+			else if (ch==')' && --depth==0) {
+				return line.substring(start, i+1);
+			}
+		}
+		// The parameters continue on the next line.
+		String params = line.substring(start).trim();
+		while (params.endsWith(",") || params.endsWith("\\")) {
+			params = params.substring(0, params.length()-1).trim();
+		}
+		return params + ")";
+	}
+
+
+	/**
+	 * Reads a file and summarizes what it defines and imports.
+	 */
+	private static ModuleSummary summarize(File file, long lastModified,
+								long length) throws IOException {
+
+		ModuleSummary summary = new ModuleSummary(lastModified, length);
+		List<Block> blocks = new ArrayList<Block>();
+		Set<String> moduleNames = new HashSet<String>();
+		String triple = null;	// The delimiter of an open """ string
+		int depth = 0;			// Bracket depth at the start of the line
+		boolean continued = false;
+
+		BufferedReader r = new BufferedReader(new FileReader(file));
+		try {
+
+			String line;
+			while ((line=r.readLine())!=null) {
+
+				boolean statement = triple==null && depth==0 && !continued;
+				int[] state = scan(line, triple, depth);
+				triple = state[0]==1 ? "\"\"\"" : state[0]==2 ? "'''" : null;
+				depth = state[1];
+				continued = state[2]==1;
+
+				String text = line.trim();
+				if (!statement || text.length()==0 || text.charAt(0)=='#') {
+					continue;
+				}
+
+				int indent = 0;
+				for (int i=0; i<line.length(); i++) {
+					char ch = line.charAt(i);
+					if (ch==' ') {
+						indent++;
+					}
+					else if (ch=='\t') {
+						indent = (indent/8+1) * 8;
+					}
+					else {
+						break;
+					}
+				}
+				while (!blocks.isEmpty() &&
+						blocks.get(blocks.size()-1).indent>=indent) {
+					blocks.remove(blocks.size()-1);
+				}
+				Block top = blocks.isEmpty() ? null :
+										blocks.get(blocks.size()-1);
+
+				Matcher m;
+				if (top!=null && !top.isClass()) {
+					// Only "self.x = " matters in a method.
+					Block clazz = blocks.size()>1 ?
+									blocks.get(blocks.size()-2) : null;
+					if (clazz!=null && clazz.isClass() &&
+							(m=SELF_ASSIGNMENT.matcher(text)).lookingAt()) {
+						clazz.add(new PythonMember(m.group(1),
+							PythonMember.DATA, null, null,
+							Collections.<PythonMember>emptyList()));
+					}
+					if (DEF.matcher(text).lookingAt() ||
+							CLASS.matcher(text).lookingAt()) {
+						blocks.add(new Block(null, indent)); // Nested
+					}
+					continue;
+				}
+
+				List<PythonMember> members = top==null ? summary.members :
+												top.members;
+				Set<String> names = top==null ? moduleNames : top.names;
+				if ((m=CLASS.matcher(text)).lookingAt()) {
+					List<PythonMember> classMembers =
+											new ArrayList<PythonMember>();
+					PythonMember member = new PythonMember(m.group(1),
+						PythonMember.CLASS, null, null, classMembers);
+					if (names.add(member.getName())) {
+						members.add(member);
+					}
+					blocks.add(new Block(classMembers, indent));
+				}
+				else if ((m=DEF.matcher(text)).lookingAt()) {
+					PythonMember member = new PythonMember(m.group(1),
+						PythonMember.FUNCTION, getSignature(text, m.end()),
+						null, Collections.<PythonMember>emptyList());
+					if (names.add(member.getName())) {
+						members.add(member);
+					}
+					blocks.add(new Block(null, indent));
+				}
+				else if (top==null && (m=FROM_IMPORT.matcher(text)).lookingAt()) {
+					int level = m.group(1).length();
+					for (String name : m.group(3).split(",")) {
+						String[] parts = name.trim().split("\\s+as\\s+");
+						if (parts[0].length()>0) {
+							summary.imports.add(new ImportRef(m.group(2),
+								level, parts[0],
+								parts.length>1 ? parts[1] : parts[0]));
+						}
+					}
+				}
+				else if (top==null && (m=IMPORT.matcher(text)).lookingAt()) {
+					for (String name : m.group(1).split(",")) {
+						String[] parts = name.trim().split("\\s+as\\s+");
+						String alias = parts.length>1 ? parts[1] :
+									parts[0].split("\\.")[0];
+						summary.imports.add(new ImportRef(parts[0], 0, null,
+												alias));
+					}
+				}
+				else if ((m=ASSIGNMENT.matcher(text)).lookingAt()) {
+					for (String name : m.group(1).split(",")) {
+						name = name.trim();
+						if (names.add(name)) {
+							members.add(new PythonMember(name,
+								PythonMember.DATA, null, null,
+								Collections.<PythonMember>emptyList()));
+						}
+					}
+				}
+
+			}
+
+		} finally {
+			r.close();
+		}
+
+		return summary;
+
+	}
+
+
+	/**
+	 * Scans a line for the strings and brackets that decide whether the next
+	 * line starts a statement.
+	 *
+	 * @param line The line.
+	 * @param triple The delimiter of a triple-quoted string open at the
+	 *        start of the line, or <code>null</code>.
+	 * @param depth The bracket depth at the start of the line.
+	 * @return The string open at the end of the line (<code>0</code> for
+	 *         none, <code>1</code> for <code>"""</code> and <code>2</code>
+	 *         for <code>'''</code>), the bracket depth at the end of the
+	 *         line, and <code>1</code> if it ends with a backslash.
+	 */
+	private static int[] scan(String line, String triple, int depth) {
+		int i = 0;
+		int length = line.length();
+		if (triple!=null) {
+			int end = line.indexOf(triple);
+			if (end==-1) {
+				return new int[] { triple.charAt(0)=='"' ? 1 : 2, depth, 0 };
+			}
+			i = end + 3;
+		}
+		while (i<length) {
+			char ch = line.charAt(i);
+			if (ch=='#') {
+				break;
+			}
+			if (ch=='"' || ch=='\'') {
+				if (line.startsWith(ch=='"' ? "\"\"\"" : "'''", i)) {
+					String delim = line.substring(i, i+3);
+					int end = line.indexOf(delim, i+3);
+					if (end==-1) {
+						return new int[] { ch=='"' ? 1 : 2, depth, 0 };
+					}
+					i = end + 3;
+					continue;
+				}
+				i++;
+				while (i<length && line.charAt(i)!=ch) {
+					if (line.charAt(i)=='\\') {
+						i++;
+					}
+					i++;
+				}
+				i++;
+				continue;
+			}
+			if (ch=='(' || ch=='[' || ch=='{') {
+				depth++;
+			}
+			else if ((ch==')' || ch==']' || ch=='}') && depth>0) {
+				depth--;
+			}
+			i++;
+		}
+		boolean backslash = length>0 && line.charAt(length-1)=='\\';
+		return new int[] { 0, depth, backslash ? 1 : 0 };
+	}
+
+
+	/**
+	 * A class or function whose body is being read.
+	 */
+	private static class Block {
+
+		/**
+		 * The class's members, or <code>null</code> for a function.
+		 */
+		final List<PythonMember> members;
+		final Set<String> names;
+		final int indent;
+
+		Block(List<PythonMember> members, int indent) {
+			this.members = members;
+			this.indent = indent;
+			names = new HashSet<String>();
+		}
+
+		void add(PythonMember member) {
+			if (names.add(member.getName())) {
+				members.add(member);
+			}
+		}
+
+		boolean isClass() {
+			return members!=null;
+		}
+
+	}
+
+
+	/**
+	 * A name imported by a module.
+	 */
+	private static class ImportRef {
+
+		/**
+		 * The module imported from, without any leading dots.
+		 */
+		final String module;
+		final int level;
+
+		/**
+		 * The name imported from the module, <code>"*"</code>, or
+		 * <code>null</code> if this is an <code>import</code> statement.
+		 */
+		final String name;
+
+		/**
+		 * The name bound in the importing module.
+		 */
+		final String alias;
+
+		ImportRef(String module, int level, String name, String alias) {
+			this.module = module;
+			this.level = level;
+			this.name = name;
+			this.alias = alias;
+		}
+
+	}
+
+
+	/**
+	 * What a single file defines and imports, as of its last modification.
+	 */
+	private static class ModuleSummary {
+
+		final long lastModified;
+		final long length;
+		final List<PythonMember> members;
+		final List<ImportRef> imports;
+
+		ModuleSummary(long lastModified, long length) {
+			this.lastModified = lastModified;
+			this.length = length;
+			members = new ArrayList<PythonMember>();
+			imports = new ArrayList<ImportRef>(0);
+		}
+
+	}
+
+
+	/**
+	 * A module whose imports have been followed, and the files that took.
+	 */
+	private static class ResolvedModule {
+
+		final PythonMember module;
+		final Map<File, long[]> files;
+
+		ResolvedModule(PythonMember module, Map<File, long[]> files) {
+			this.module = module;
+			this.files = files;
+		}
+
+		/**
+		 * Returns whether none of the files have changed.  Files created
+		 * since, which might now be imported, are noticed once an importing
+		 * file is changed.
+		 */
+		boolean isUpToDate() {
+			for (Map.Entry<File, long[]> entry : files.entrySet()) {
+				File file = entry.getKey();
+				long[] stamp = entry.getValue();
+				if (file.lastModified()!=stamp[0] || file.length()!=stamp[1]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+
+}
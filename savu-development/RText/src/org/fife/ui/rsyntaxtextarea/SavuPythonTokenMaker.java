@@ -674,12 +674,21 @@ public class SavuPythonTokenMaker extends AbstractJFlexTokenMaker {
   /* user code: */
 
 
+	/**
+	 * The tokens of lines scanned recently, so lines asked for again (as
+	 * the visible ones are, many times while painting) need not be scanned
+	 * again.
+	 */
+	private TokenLineCache lineCache;
+
+
 	/**
 	 * Constructor.  This must be here because JFlex does not generate a
 	 * no-parameter constructor.
 	 */
 	public SavuPythonTokenMaker() {
 		super();
+		lineCache = new TokenLineCache();
 	}
 
 
@@ -721,6 +730,222 @@ public class SavuPythonTokenMaker extends AbstractJFlexTokenMaker {
 	}
 
 
+	/**
+	 * Returns the token type the last token on a line would have, which
+	 * tells the next line what state to start in.  This is called on every
+	 * line below an edit until a line ends in the same state it did before
+	 * (<code>RSyntaxDocument</code> caches the state each line ends in), so
+	 * opening or closing a triple-quoted string calls it on every line to
+	 * the next triple quote, or the end of the file.  Rather than building
+	 * each line's tokens, this only looks at what can change the state:
+	 * strings, comments, numbers (which can swallow a '<code>#</code>') and
+	 * function definitions.  It must agree with the rules below.
+	 *
+	 * @param text The line.
+	 * @param initialTokenType The token type the previous line ended with.
+	 * @return {@link Token#LITERAL_CHAR} or
+	 *         {@link Token#LITERAL_STRING_DOUBLE_QUOTE} if the line ends in a
+	 *         <code>'''</code> or <code>"""</code> string, otherwise
+	 *         {@link Token#NULL}.
+	 */
+	@Override
+	public int getLastTokenTypeOnLine(Segment text, int initialTokenType) {
+
+		char[] array = text.array;
+		int pos = text.offset;
+		int end = pos + text.count;
+
+		int state;
+		switch (initialTokenType) {
+			case Token.LITERAL_STRING_DOUBLE_QUOTE:
+				state = LONG_STRING_2;
+				break;
+			case Token.LITERAL_CHAR:
+				state = LONG_STRING_1;
+				break;
+			default:
+				state = YYINITIAL;
+		}
+
+		while (pos<end) {
+			switch (state) {
+				case LONG_STRING_1:
+				case LONG_STRING_2:
+					char quote = state==LONG_STRING_1 ? '\'' : '"';
+					while (pos<end && !(array[pos]==quote && pos+2<end &&
+							array[pos+1]==quote && array[pos+2]==quote)) {
+						pos++;
+					}
+					if (pos<end) {
+						state = YYINITIAL;
+						pos += 3;
+					}
+					break;
+				case FUNCTION_DEFINITION:
+				case FUNCTION_DEFINITION_ARGS:
+					// Everything but the parentheses is ignored.
+					char paren = state==FUNCTION_DEFINITION ? '(' : ')';
+					while (pos<end && array[pos]!=paren) {
+						pos++;
+					}
+					if (pos<end) {
+						state = state==FUNCTION_DEFINITION ?
+								FUNCTION_DEFINITION_ARGS : YYINITIAL;
+						pos++;
+					}
+					break;
+				default: // YYINITIAL
+					char ch = array[pos];
+					if (ch=='#') {
+						return Token.NULL;
+					}
+					else if (ch=='"' || ch=='\'') {
+						if (pos+2<end && array[pos+1]==ch && array[pos+2]==ch) {
+							state = ch=='"' ? LONG_STRING_2 : LONG_STRING_1;
+							pos += 3;
+						}
+						else {
+							pos = skipShortString(array, pos, end);
+						}
+					}
+					else if (ch=='_' || (ch>='a' && ch<='z') ||
+							(ch>='A' && ch<='Z')) {
+						int start = pos++;
+						while (pos<end && (array[pos]=='_' ||
+								(array[pos]>='a' && array[pos]<='z') ||
+								(array[pos]>='A' && array[pos]<='Z') ||
+								(array[pos]>='0' && array[pos]<='9'))) {
+							pos++;
+						}
+						if (pos-start==3 && array[start]=='d' &&
+								array[start+1]=='e' && array[start+2]=='f') {
+							state = FUNCTION_DEFINITION;
+						}
+					}
+					else if ((ch>='0' && ch<='9') || (ch=='.' && pos+1<end &&
+							array[pos+1]>='0' && array[pos+1]<='9')) {
+						pos = skipNumber(array, pos, end);
+					}
+					else {
+						pos++;
+					}
+			}
+		}
+
+		switch (state) {
+			case LONG_STRING_1:
+				return Token.LITERAL_CHAR;
+			case LONG_STRING_2:
+				return Token.LITERAL_STRING_DOUBLE_QUOTE;
+			default:
+				return Token.NULL;
+		}
+
+	}
+
+
+	/**
+	 * Returns whether a character can follow a digit in an
+	 * <code>ErrorNumberFormat</code> token.
+	 */
+	private static final boolean isNonSeparator(char ch) {
+		switch (ch) {
+			case '\t': case '\f': case '\r': case '\n': case ' ':
+			case '(': case ')': case '{': case '}': case '[': case ']':
+			case ';': case ',': case '.': case '=': case '>': case '<':
+			case '!': case '~': case '?': case ':': case '+': case '-':
+			case '*': case '/': case '&': case '|': case '^': case '%':
+			case '"': case '\'':
+				return false;
+			default:
+				return true;
+		}
+	}
+
+
+	private static final int skipDigits(char[] array, int pos, int end) {
+		while (pos<end && array[pos]>='0' && array[pos]<='9') {
+			pos++;
+		}
+		return pos;
+	}
+
+
+	/**
+	 * Returns where the number token starting at <code>start</code> ends,
+	 * i.e. the longest of the number rules' matches.
+	 */
+	private static final int skipNumber(char[] array, int start, int end) {
+
+		// ErrorNumberFormat, which also covers integers
+		int numberEnd = start + 1;
+		if (array[start]!='.') {
+			while (numberEnd<end && isNonSeparator(array[numberEnd])) {
+				numberEnd++;
+			}
+		}
+
+		// Floats, which can also contain '.', '+' and '-'
+		int intEnd = skipDigits(array, start, end);
+		int mantissaEnd = intEnd>start ? intEnd : -1;
+		if (intEnd<end && array[intEnd]=='.') {
+			int fractionEnd = skipDigits(array, intEnd+1, end);
+			if (intEnd>start || fractionEnd>intEnd+1) {
+				mantissaEnd = fractionEnd;
+			}
+		}
+		if (mantissaEnd>-1) {
+			int floatEnd = mantissaEnd;
+			if (floatEnd<end && (array[floatEnd]=='e' || array[floatEnd]=='E')) {
+				int exponentStart = floatEnd + 1;
+				if (exponentStart<end && (array[exponentStart]=='+' ||
+						array[exponentStart]=='-')) {
+					exponentStart++;
+				}
+				int exponentEnd = skipDigits(array, exponentStart, end);
+				if (exponentEnd>exponentStart) {
+					floatEnd = exponentEnd;
+				}
+			}
+			if (floatEnd<end && (array[floatEnd]=='j' || array[floatEnd]=='J')) {
+				floatEnd++;
+			}
+			numberEnd = Math.max(numberEnd, floatEnd);
+		}
+
+		return numberEnd;
+
+	}
+
+
+	/**
+	 * Returns where the single-quoted or double-quoted string starting at
+	 * <code>start</code> ends.  Unterminated strings end at the end of the
+	 * line.
+	 */
+	private static final int skipShortString(char[] array, int start,
+											int end) {
+		char quote = array[start];
+		int pos = start + 1;
+		while (pos<end) {
+			char ch = array[pos];
+			if (ch==quote) {
+				return pos + 1;
+			}
+			else if (ch=='\\') {
+				if (pos+1==end) {
+					break; // Not an escape; the string ends before it
+				}
+				pos += 2;
+			}
+			else {
+				pos++;
+			}
+		}
+		return pos;
+	}
+
+
 	/**
 	 * Returns the text to place at the beginning and end of a
 	 * line to "comment" it in a this programming language.
@@ -734,6 +959,36 @@ public class SavuPythonTokenMaker extends AbstractJFlexTokenMaker {
 	}
 
 
+	/**
+	 * Rebuilds the linked list of tokens for a line from its cached tokens,
+	 * using the token factory's pooled tokens as scanning does.
+	 *
+	 * @param line The line's cached tokens.
+	 * @param text The line.
+	 * @param startOffset The offset into the document at which
+	 *        <code>text</code> starts.
+	 * @return The first token in the list.
+	 */
+	private Token getCachedTokenList(TokenLineCache.Line line, Segment text,
+			int startOffset) {
+		resetTokenList();
+		int[] offsets = line.offsets;
+		int[] lengths = line.lengths;
+		int[] types = line.types;
+		for (int i=0; i<line.tokenCount; i++) {
+			if (types[i]==Token.NULL) {
+				addNullToken();
+			}
+			else {
+				int start = text.offset + offsets[i];
+				addToken(text.array, start, start+lengths[i]-1, types[i],
+						startOffset+offsets[i]);
+			}
+		}
+		return firstToken;
+	}
+
+
 	/**
 	 * Returns the first token in the linked list of tokens generated
 	 * from <code>text</code>.  This method must be implemented by
@@ -748,6 +1003,17 @@ public class SavuPythonTokenMaker extends AbstractJFlexTokenMaker {
 	 */
 	public Token getTokenList(Segment text, int initialTokenType, int startOffset) {
 
+		boolean cache = text.count<=TokenLineCache.MAX_LINE_LENGTH;
+		int hash = 0;
+		if (cache) {
+			hash = TokenLineCache.hash(text, initialTokenType);
+			TokenLineCache.Line line = lineCache.get(text, initialTokenType,
+													hash);
+			if (line!=null) {
+				return getCachedTokenList(line, text, startOffset);
+			}
+		}
+
 		resetTokenList();
 		this.offsetShift = -text.offset + startOffset;
 
@@ -768,7 +1034,12 @@ public class SavuPythonTokenMaker extends AbstractJFlexTokenMaker {
 		try {
 			yyreset(zzReader);
 			yybegin(state);
-			return yylex();
+			Token tokens = yylex();
+			if (cache) {
+				lineCache.put(text, initialTokenType, hash, startOffset,
+							tokens);
+			}
+			return tokens;
 		} catch (IOException ioe) {
 			ioe.printStackTrace();
 			return new TokenImpl();
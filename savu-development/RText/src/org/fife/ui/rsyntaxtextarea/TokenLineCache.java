@@ -0,0 +1,200 @@
+package org.fife.ui.rsyntaxtextarea;
+
+import java.util.Arrays;
+
+import javax.swing.text.Segment;
+
+
+/**
+ * The tokens of recently scanned lines, kept as parallel <code>int</code>
+ * arrays of offset, length and type rather than as linked {@link Token}s.
+ * <code>RSyntaxDocument</code> only remembers the token list of the last
+ * line asked for, so painting, bracket matching and mark occurrences each
+ * scan the visible lines again; with this cache a token maker can rebuild a
+ * line's list from its arrays instead of scanning it.<p>
+ *
+ * Lines are looked up by their text and the token type the previous line
+ * ended with, which is all their tokens depend on, and offsets are kept
+ * relative to the start of the line.  So a line is still found after an
+ * edit above it moves it, and needs no invalidation when it changes - it
+ * simply no longer matches.  Entries are a fixed pool, each found by hash
+ * and replaced by the next line that hashes to it; their arrays are reused,
+ * only growing when a longer line or one with more tokens replaces them, so
+ * once the pool has warmed up looking lines up allocates nothing.
+ *
+ * @author PyDe
+ * @version 1.0
+ */
+final class TokenLineCache {
+
+	/**
+	 * Lines longer than this are not cached, so a few huge lines don't
+	 * leave large arrays behind in the pool.
+	 */
+	static final int MAX_LINE_LENGTH			= 1024;
+
+	/**
+	 * The number of entries in the pool.  This must be a power of 2, and
+	 * should be a good deal more than the lines visible at once.
+	 */
+	private static final int LINE_COUNT			= 512;
+
+	private Line[] lines;
+
+
+	/**
+	 * Constructor.
+	 */
+	TokenLineCache() {
+		lines = new Line[LINE_COUNT];
+	}
+
+
+	/**
+	 * Returns the cached tokens of a line, if it has been scanned recently.
+	 *
+	 * @param text The line.
+	 * @param initialTokenType The token type the previous line ended with.
+	 * @param hash The hash of the line, from
+	 *        {@link #hash(Segment, int)}.
+	 * @return The tokens, or <code>null</code> if the line is not cached.
+	 * @see #put(Segment, int, int, int, Token)
+	 */
+	Line get(Segment text, int initialTokenType, int hash) {
+		Line line = lines[getIndex(hash)];
+		return line!=null && line.matches(text, initialTokenType, hash) ?
+				line : null;
+	}
+
+
+	private static final int getIndex(int hash) {
+		return (hash ^ (hash>>>16)) & (LINE_COUNT-1);
+	}
+
+
+	/**
+	 * Returns the hash a line is cached under.
+	 *
+	 * @param text The line.
+	 * @param initialTokenType The token type the previous line ended with.
+	 * @return The hash.
+	 */
+	static int hash(Segment text, int initialTokenType) {
+		char[] array = text.array;
+		int h = initialTokenType;
+		for (int i=text.offset, end=i+text.count; i<end; i++) {
+			h = 31*h + array[i];
+		}
+		return h;
+	}
+
+
+	/**
+	 * Caches the tokens of a line, replacing whatever line was cached under
+	 * the same entry.
+	 *
+	 * @param text The line.
+	 * @param initialTokenType The token type the previous line ended with.
+	 * @param hash The hash of the line, from
+	 *        {@link #hash(Segment, int)}.
+	 * @param startOffset The offset in the document the line starts at.
+	 * @param tokens The tokens of the line.
+	 * @see #get(Segment, int, int)
+	 */
+	void put(Segment text, int initialTokenType, int hash, int startOffset,
+			Token tokens) {
+		int index = getIndex(hash);
+		Line line = lines[index];
+		if (line==null) {
+			line = lines[index] = new Line();
+		}
+		line.set(text, initialTokenType, hash, startOffset, tokens);
+	}
+
+
+	/**
+	 * The tokens of one line.  A token of type {@link Token#NULL} is the
+	 * "null" token that ends lines not in a multi-line string.
+	 */
+	static final class Line {
+
+		private int hash;
+		private int initialTokenType;
+		private char[] text;
+		private int textCount;
+
+		/**
+		 * The offset of each token, relative to the start of the line.
+		 */
+		int[] offsets;
+
+		/**
+		 * The length of each token.
+		 */
+		int[] lengths;
+
+		/**
+		 * The type of each token.
+		 */
+		int[] types;
+
+		/**
+		 * The number of tokens.
+		 */
+		int tokenCount;
+
+		Line() {
+			text = new char[80];
+			offsets = new int[16];
+			lengths = new int[16];
+			types = new int[16];
+		}
+
+		private boolean matches(Segment s, int initialTokenType, int hash) {
+			if (hash!=this.hash || initialTokenType!=this.initialTokenType ||
+					s.count!=textCount) {
+				return false;
+			}
+			char[] array = s.array;
+			for (int i=0, j=s.offset; i<textCount; i++, j++) {
+				if (text[i]!=array[j]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void set(Segment s, int initialTokenType, int hash,
+				int startOffset, Token tokens) {
+
+			this.hash = hash;
+			this.initialTokenType = initialTokenType;
+			if (s.count>text.length) {
+				text = new char[Math.max(s.count, 2*text.length)];
+			}
+			System.arraycopy(s.array, s.offset, text, 0, s.count);
+			textCount = s.count;
+
+			tokenCount = 0;
+			for (Token t=tokens; t!=null; t=t.getNextToken()) {
+				if (tokenCount==types.length) {
+					int size = 2 * tokenCount;
+					offsets = Arrays.copyOf(offsets, size);
+					lengths = Arrays.copyOf(lengths, size);
+					types = Arrays.copyOf(types, size);
+				}
+				int type = t.getType();
+				boolean nullToken = type==Token.NULL;
+				offsets[tokenCount] = nullToken ? 0 :
+											t.getOffset() - startOffset;
+				lengths[tokenCount] = nullToken ? 0 : t.length();
+				types[tokenCount] = type;
+				tokenCount++;
+			}
+
+		}
+
+	}
+
+
+}
@@ -0,0 +1,517 @@
+/*
+ * 10/17/2026
+ *
+ * FileScanner.java - Reads files for Find in Files without Swing.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Reads a file's contents for searching, without going through a text
+ * component, a <code>String</code>, or a lower-cased copy of the text.<p>
+ *
+ * Files are read through NIO: small files into a reused heap buffer, and
+ * files above {@link #MAP_THRESHOLD} via a memory-mapped buffer.  The bytes
+ * are decoded with a reused <code>CharsetDecoder</code> into a
+ * <code>CharBuffer</code> that is kept from file to file and only grown
+ * when a bigger file comes along; buffers grown past
+ * {@link #MAX_POOLED_CAPACITY} are dropped again when the next file is
+ * read, so one huge file doesn't pin its text in memory for the rest of
+ * the search.  Files too big to fit in a buffer at all (over 2 GB) can't
+ * be read, and make {@link #read(File)} throw an
+ * <code>IOException</code>.  Like <code>UnicodeReader</code>, the
+ * encoding is taken from a byte order mark if there is one, and is
+ * otherwise the platform default.<p>
+ *
+ * Binary files are detected by looking for NUL bytes in the first
+ * {@link #SNIFF_LENGTH} bytes (the same heuristic git uses), and are not
+ * decoded at all; only their first few kilobytes are read.<p>
+ *
+ * Line numbers are computed from a table of line start offsets built while
+ * scanning, so only the text of lines that actually contain matches is
+ * ever copied out of the buffer.<p>
+ *
+ * Instances are not thread safe; use one per worker thread.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see FindInFilesThread
+ */
+class FileScanner {
+
+	/**
+	 * Files at least this big are memory-mapped rather than read.
+	 */
+	static final int MAP_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * The number of leading bytes examined to decide whether a file is
+	 * binary.
+	 */
+	static final int SNIFF_LENGTH = 8000;
+
+	/**
+	 * Buffers grown past this many bytes or chars are not kept for the
+	 * next file.
+	 */
+	static final int MAX_POOLED_CAPACITY = 4 * MAP_THRESHOLD;
+
+	/**
+	 * The initial size of the buffers, in bytes or chars.
+	 */
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+
+	private ByteBuffer byteBuf;
+	private CharBuffer charBuf;
+	private int[] lineStarts;
+	private int lineCount;
+	private Map<Charset, CharsetDecoder> decoders;
+	private Charset charset;
+	private boolean mapLargeFiles;
+	private boolean skipBinaryFiles;
+	private boolean binary;
+
+	private static final Charset DEFAULT_CHARSET = Charset.defaultCharset();
+
+
+	/**
+	 * Constructor.
+	 */
+	public FileScanner() {
+		byteBuf = ByteBuffer.allocate(INITIAL_CAPACITY);
+		charBuf = CharBuffer.allocate(INITIAL_CAPACITY);
+		lineStarts = new int[1024];
+		decoders = new HashMap<Charset, CharsetDecoder>(4);
+		mapLargeFiles = true;
+		skipBinaryFiles = true;
+	}
+
+
+	/**
+	 * Builds the line start table for the text just read.  "\r\n", "\r"
+	 * and "\n" are all treated as line terminators.
+	 */
+	private void computeLineStarts() {
+		int len = charBuf.limit();
+		lineCount = 0;
+		addLineStart(0);
+		for (int i=0; i<len; i++) {
+			char ch = charBuf.get(i);
+			if (ch=='\n') {
+				addLineStart(i+1);
+			}
+			else if (ch=='\r') {
+				if (i+1<len && charBuf.get(i+1)=='\n') {
+					i++;
+				}
+				addLineStart(i+1);
+			}
+		}
+	}
+
+
+	private void addLineStart(int offset) {
+		if (lineCount==lineStarts.length) {
+			int[] temp = new int[lineCount*2];
+			System.arraycopy(lineStarts, 0, temp, 0, lineCount);
+			lineStarts = temp;
+		}
+		lineStarts[lineCount++] = offset;
+	}
+
+
+	/**
+	 * Decodes <code>in</code> into the (possibly grown) char buffer.
+	 */
+	private void decode(ByteBuffer in, Charset charset) throws IOException {
+
+		CharsetDecoder decoder = decoders.get(charset);
+		if (decoder==null) {
+			decoder = charset.newDecoder().
+						onMalformedInput(CodingErrorAction.REPLACE).
+						onUnmappableCharacter(CodingErrorAction.REPLACE);
+			decoders.put(charset, decoder);
+		}
+
+		int needed = (int)Math.min(Integer.MAX_VALUE,
+				(long)(in.remaining() * (double)decoder.maxCharsPerByte()) + 1);
+		if (charBuf.capacity()<needed) {
+			charBuf = CharBuffer.allocate(needed);
+		}
+
+		decoder.reset();
+		charBuf.clear();
+		CoderResult result = decoder.decode(in, charBuf, true);
+		if (result.isError()) {
+			result.throwException();
+		}
+		decoder.flush(charBuf);
+		charBuf.flip();
+
+	}
+
+
+	/**
+	 * Reads from a channel until the buffer's position is at least
+	 * <code>count</code>, or the end of the file is reached.
+	 */
+	private static void fill(FileChannel channel, ByteBuffer buf, long count)
+									throws IOException {
+		while (buf.position()<count && channel.read(buf)!=-1);
+	}
+
+
+	/**
+	 * Returns the encoding of the file last read.
+	 *
+	 * @return The encoding.
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+
+	/**
+	 * Returns the text of the file last read.  This buffer is reused by the
+	 * next call to {@link #read(File)}, so it should not be held onto.
+	 *
+	 * @return The text.
+	 */
+	public CharBuffer getText() {
+		return charBuf;
+	}
+
+
+	/**
+	 * Returns the line containing an offset.
+	 *
+	 * @param offset The offset into the text.
+	 * @return The 0-based line.
+	 */
+	public int getLineOfOffset(int offset) {
+		int low = 0;
+		int high = lineCount - 1;
+		while (low<high) {
+			int mid = (low+high+1) >>> 1;
+			if (lineStarts[mid]<=offset) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+
+	/**
+	 * Returns the offset just past the last char of a line, not counting
+	 * its line terminator.
+	 *
+	 * @param line The 0-based line.
+	 * @return The end offset.
+	 */
+	public int getLineEndOffset(int line) {
+		int end = line+1<lineCount ? lineStarts[line+1] : charBuf.limit();
+		if (end>lineStarts[line] && charBuf.get(end-1)=='\n') {
+			end--;
+		}
+		if (end>lineStarts[line] && charBuf.get(end-1)=='\r') {
+			end--;
+		}
+		return end;
+	}
+
+
+	/**
+	 * Returns the offset of the start of a line.
+	 *
+	 * @param line The 0-based line.
+	 * @return The start offset.
+	 */
+	public int getLineStartOffset(int line) {
+		return lineStarts[line];
+	}
+
+
+	/**
+	 * Returns the text of a single line, without its line terminator.
+	 *
+	 * @param line The 0-based line.
+	 * @return The line's text.
+	 */
+	public String getLineText(int line) {
+		int start = lineStarts[line];
+		return charBuf.subSequence(start, getLineEndOffset(line)).toString();
+	}
+
+
+	/**
+	 * Returns the number of lines in the text last read.
+	 *
+	 * @return The line count.
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+
+	/**
+	 * Returns whether the file last read looked like a binary file.  If
+	 * it did, and binary files are being skipped, its text is empty.
+	 *
+	 * @return Whether the file was binary.
+	 * @see #setSkipBinaryFiles(boolean)
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+
+
+	/**
+	 * Returns whether some bytes look like they're from a binary file.
+	 * Files with a UTF-16 or UTF-32 byte order mark are text; otherwise,
+	 * any NUL byte in the first {@link #SNIFF_LENGTH} bytes means the file
+	 * is binary.
+	 *
+	 * @param bytes The bytes, starting at index <code>0</code>.
+	 * @param length The number of bytes available.
+	 * @return Whether the bytes are binary.
+	 */
+	static boolean isBinary(ByteBuffer bytes, int length) {
+		if (length>=2) {
+			int b0 = bytes.get(0)&0xff;
+			int b1 = bytes.get(1)&0xff;
+			if ((b0==0xfe && b1==0xff) || (b0==0xff && b1==0xfe) ||
+					(length>=4 && b0==0 && b1==0 &&
+					(bytes.get(2)&0xff)==0xfe && (bytes.get(3)&0xff)==0xff)) {
+				return false;
+			}
+		}
+		int end = Math.min(length, SNIFF_LENGTH);
+		for (int i=0; i<end; i++) {
+			if (bytes.get(i)==0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Returns the offset of the next occurrence of a literal string.
+	 *
+	 * @param searchFor The text to search for.  If <code>matchCase</code> is
+	 *        <code>false</code>, this should already be lower case.
+	 * @param from The offset to start searching at.
+	 * @param matchCase Whether the search is case sensitive.
+	 * @return The offset of the match, or <code>-1</code> if there are no
+	 *         more matches.
+	 */
+	public int indexOf(char[] searchFor, int from, boolean matchCase) {
+
+		int len = searchFor.length;
+		int last = charBuf.limit() - len;
+		if (len==0) {
+			return from<=charBuf.limit() ? from : -1;
+		}
+
+		if (matchCase) {
+			char first = searchFor[0];
+			outer:
+			for (int i=from; i<=last; i++) {
+				if (charBuf.get(i)!=first) {
+					continue;
+				}
+				for (int j=1; j<len; j++) {
+					if (charBuf.get(i+j)!=searchFor[j]) {
+						continue outer;
+					}
+				}
+				return i;
+			}
+		}
+
+		else {
+			// Compare chars the way String.regionMatches(true, ...) does,
+			// rather than lower-casing a copy of the entire file.
+			char first = searchFor[0];
+			char firstUpper = Character.toUpperCase(first);
+			outer:
+			for (int i=from; i<=last; i++) {
+				char ch = charBuf.get(i);
+				if (ch!=first && ch!=firstUpper &&
+						Character.toLowerCase(ch)!=first) {
+					continue;
+				}
+				for (int j=1; j<len; j++) {
+					ch = charBuf.get(i+j);
+					char ch2 = searchFor[j];
+					if (ch!=ch2 && Character.toLowerCase(ch)!=ch2 &&
+							Character.toUpperCase(ch)!=
+								Character.toUpperCase(ch2)) {
+						continue outer;
+					}
+				}
+				return i;
+			}
+		}
+
+		return -1;
+
+	}
+
+
+	/**
+	 * Reads a file.  Its text can then be retrieved via {@link #getText()}.
+	 *
+	 * @param file The file to read.
+	 * @throws IOException If an IO error occurs, or the file is too big to
+	 *         be read.
+	 */
+	public void read(File file) throws IOException {
+
+		// The text of the last file is no longer needed.
+		if (byteBuf.capacity()>MAX_POOLED_CAPACITY) {
+			byteBuf = ByteBuffer.allocate(INITIAL_CAPACITY);
+		}
+		if (charBuf.capacity()>MAX_POOLED_CAPACITY) {
+			charBuf = CharBuffer.allocate(INITIAL_CAPACITY);
+		}
+
+		FileInputStream in = new FileInputStream(file);
+		try {
+
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size>Integer.MAX_VALUE) { // Buffers are indexed by int
+				throw new IOException("File too large to search (" + size +
+						" bytes): " + file.getAbsolutePath());
+			}
+			ByteBuffer bytes;
+
+			if (mapLargeFiles && size>=MAP_THRESHOLD) {
+				bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				binary = isBinary(bytes, bytes.limit());
+			}
+			else {
+				if (byteBuf.capacity()<size) {
+					byteBuf = ByteBuffer.allocate((int)size);
+				}
+				byteBuf.clear();
+				// Read the start of the file first, so we don't read all of
+				// a binary file just to skip it.
+				fill(channel, byteBuf, Math.min(size, SNIFF_LENGTH));
+				binary = isBinary(byteBuf, byteBuf.position());
+				if (!binary || !skipBinaryFiles) {
+					fill(channel, byteBuf, size);
+				}
+				byteBuf.flip();
+				bytes = byteBuf;
+			}
+
+			if (binary && skipBinaryFiles) {
+				charset = DEFAULT_CHARSET;
+				charBuf.clear();
+				charBuf.flip();
+			}
+			else {
+				charset = skipByteOrderMark(bytes);
+				decode(bytes, charset);
+			}
+			computeLineStarts();
+
+		} finally {
+			in.close();
+		}
+
+	}
+
+
+	/**
+	 * Toggles whether files larger than {@link #MAP_THRESHOLD} are
+	 * memory-mapped.  This should be disabled if files read will be
+	 * replaced afterward, since on some platforms (e.g. Windows) a file
+	 * cannot be replaced while a mapping of it is still alive, and mappings
+	 * are only released when garbage collected.
+	 *
+	 * @param map Whether to map large files.  The default value is
+	 *        <code>true</code>.
+	 */
+	public void setMapLargeFiles(boolean map) {
+		mapLargeFiles = map;
+	}
+
+
+	/**
+	 * Toggles whether binary files are skipped.  If they are, reading a
+	 * binary file leaves this scanner with no text.
+	 *
+	 * @param skip Whether to skip binary files.  The default value is
+	 *        <code>true</code>.
+	 * @see #isBinary()
+	 */
+	public void setSkipBinaryFiles(boolean skip) {
+		skipBinaryFiles = skip;
+	}
+
+
+	/**
+	 * Looks for a byte order mark, the same way <code>UnicodeReader</code>
+	 * does.  If one is found, the buffer is positioned after it.
+	 *
+	 * @param bytes The file's bytes.
+	 * @return The charset to decode the bytes with.
+	 */
+	private static Charset skipByteOrderMark(ByteBuffer bytes) {
+
+		int len = bytes.remaining();
+		int b0 = len>0 ? bytes.get(0)&0xff : -1;
+		int b1 = len>1 ? bytes.get(1)&0xff : -1;
+		int b2 = len>2 ? bytes.get(2)&0xff : -1;
+		int b3 = len>3 ? bytes.get(3)&0xff : -1;
+
+		if (b0==0x00 && b1==0x00 && b2==0xfe && b3==0xff) {
+			bytes.position(4);
+			return Charset.forName("UTF-32BE");
+		}
+		else if (b0==0xff && b1==0xfe && b2==0x00 && b3==0x00) {
+			bytes.position(4);
+			return Charset.forName("UTF-32LE");
+		}
+		else if (b0==0xef && b1==0xbb && b2==0xbf) {
+			bytes.position(3);
+			return Charset.forName("UTF-8");
+		}
+		else if (b0==0xfe && b1==0xff) {
+			bytes.position(2);
+			return Charset.forName("UTF-16BE");
+		}
+		else if (b0==0xff && b1==0xfe) {
+			bytes.position(2);
+			return Charset.forName("UTF-16LE");
+		}
+
+		return DEFAULT_CHARSET;
+
+	}
+
+
+}
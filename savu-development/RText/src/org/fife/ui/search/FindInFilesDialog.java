@@ -14,6 +14,8 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 import javax.swing.*;
@@ -25,6 +27,7 @@ import org.fife.rsta.ui.AssistanceIconPanel;
 import org.fife.rsta.ui.RComboBoxModel;
 import org.fife.rsta.ui.search.AbstractSearchDialog;
 import org.fife.rsta.ui.search.FindReplaceButtonsEnableResult;
+import org.fife.rtext.Savu;
 import org.fife.ui.FSATextField;
 import org.fife.ui.RScrollPane;
 import org.fife.ui.StatusBar;
@@ -56,6 +59,7 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	private JRadioButton fileCountsOnlyRadioButton;
 
 	protected JCheckBox verboseCheckBox;
+	private JCheckBox searchAsYouTypeCheckBox;
 
 	private StatusBar statusBar;
 
@@ -72,6 +76,40 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	private FindInFilesThread workerThread;
 	private FindInFilesDocumentListener docListener;
 
+	// Results and status text posted by the searching thread that haven't
+	// been displayed yet.  These are handed to the EDT in batches by
+	// flushTimer, rather than one invokeLater() per match.
+	private final Object pendingLock = new Object();
+	private List<MatchData> pendingMatches;
+	private String pendingDirName;
+	private String pendingStatusText;
+	private Timer flushTimer;
+
+	/**
+	 * How often, in milliseconds, pending results are displayed while
+	 * searching (about 30 times a second).
+	 */
+	private static final int FLUSH_INTERVAL = 33;
+
+	// When searching as the user types, searches are started by
+	// searchAsYouTypeTimer once they stop typing for a moment.  A search
+	// already running is stopped, and the new one started when it finishes.
+	private Timer searchAsYouTypeTimer;
+	private boolean restartPending;
+
+	/**
+	 * How long, in milliseconds, the user must stop typing before a search
+	 * is started when searching as they type.
+	 */
+	private static final int SEARCH_AS_YOU_TYPE_DELAY = 300;
+
+	// The last search that completed normally, if it can be narrowed.  If
+	// the user keeps typing and the new query contains this one, only the
+	// files that matched it need to be searched.
+	private String lastCompletedQuery;
+	private String lastCompletedKey;
+	private List<File> lastMatchedFiles;
+
 	// Some strings cached from our resources for efficiency.
 	private String defaultStatusText;
 	private String searchingCompleteString;
@@ -93,6 +131,20 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		ComponentOrientation orientation = ComponentOrientation.
 									getOrientation(getLocale());
 
+		pendingMatches = new ArrayList<MatchData>();
+		flushTimer = new Timer(FLUSH_INTERVAL, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				flushPendingResults();
+			}
+		});
+		searchAsYouTypeTimer = new Timer(SEARCH_AS_YOU_TYPE_DELAY,
+									new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				searchAsYouType();
+			}
+		});
+		searchAsYouTypeTimer.setRepeats(false);
+
 		// These listeners will be used by all text fields.
 		docListener = new FindInFilesDocumentListener();
 		FindInFilesFocusAdapter focusAdapter = new FindInFilesFocusAdapter();
@@ -250,7 +302,8 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			inFilesComboBox.addItem(item); // Ensures item is at index 0.
 
 			// Actually perform the search.
-			doFindInFiles();
+			searchAsYouTypeTimer.stop();
+			doFindInFiles(false);
 
 		}
 
@@ -275,6 +328,8 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		// If the user selects the Close/Stop button...
 		else if ("Close".equals(command)) {
 			FindInFilesThread workerThread = getWorkerThread();
+			searchAsYouTypeTimer.stop();
+			restartPending = false;
 			if (workerThread!=null) { // Search going on => stop search.
 				workerThread.interrupt();
 				setSearching(false);
@@ -294,6 +349,16 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			((FindInFilesSearchContext)context).setVerbose(verbose);
 		}
 
+		else if ("SearchAsYouType".equals(command)) {
+			if (isSearchAsYouType()) {
+				searchAsYouTypeTimer.restart();
+			}
+			else {
+				searchAsYouTypeTimer.stop();
+			}
+			setSearching(getWorkerThread()!=null);
+		}
+
 		// The superclass might care about this action.
 		else {
 			super.actionPerformed(e);
@@ -307,19 +372,22 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	 * search table.<p>
 	 *
 	 * We assume this method is being called by {@link FindInFilesThread},
-	 * not the EDT, so the match data is added via
-	 * <code>SwingUtilities.invokeLater</code>.  Match data should never be
-	 * gathered on the EDT since it is a potentially long process to gather it.
+	 * not the EDT.  Match data should never be gathered on the EDT since it
+	 * is a potentially long process to gather it.  The match is queued, and
+	 * all queued matches are added to the table together the next time
+	 * pending results are flushed, so a search finding lots of matches
+	 * doesn't flood the EDT.
 	 *
 	 * @param matchData Data about the found text.
+	 * @see #flushPendingResults()
 	 */
-	void addMatchData(final MatchData matchData) {
-		final String dirName = inFolderTextField.getText();
-		SwingUtilities.invokeLater(new Runnable() {
-			public void run() {
-				getResultsComponent().addMatchData(matchData, dirName);
-			}
-		});
+	void addMatchData(MatchData matchData) {
+		String dirName = inFolderTextField.getText();
+		synchronized (pendingLock) {
+			pendingMatches.add(matchData);
+			pendingDirName = dirName;
+			flushTimer.start();
+		}
 	}
 
 
@@ -349,6 +417,10 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	 * threads other than the EDT.
 	 */
 	void clearSearchResults() {
+		synchronized (pendingLock) {
+			pendingMatches.clear();
+			pendingStatusText = null;
+		}
 		if (SwingUtilities.isEventDispatchThread()) {
 			getResultsComponent().clear();
 		}
@@ -360,6 +432,40 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Displays all results and status text posted by the searching thread
+	 * since the last time this method was called.  This is called
+	 * periodically on the EDT while searching, and when searching completes.
+	 */
+	private void flushPendingResults() {
+
+		List<MatchData> matches = null;
+		String dirName = null;
+		String statusText = null;
+
+		synchronized (pendingLock) {
+			if (pendingMatches.size()>0) {
+				matches = pendingMatches;
+				dirName = pendingDirName;
+				pendingMatches = new ArrayList<MatchData>();
+			}
+			statusText = pendingStatusText;
+			pendingStatusText = null;
+			if (matches==null && statusText==null) {
+				flushTimer.stop(); // Nothing's come in for a while
+			}
+		}
+
+		if (matches!=null) {
+			getResultsComponent().addMatchData(matches, dirName);
+		}
+		if (statusText!=null) {
+			statusBar.setStatusMessage(statusText);
+		}
+
+	}
+
+
 	/**
 	 * Creates the panel containing "Report Detail" options.
 	 *
@@ -408,6 +514,13 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		verboseCheckBox.addActionListener(this);
 		verboseCheckBox.setMnemonic((int)getString2("VerboseMnemonic").charAt(0));
 		temp.add(verboseCheckBox);
+		temp.add(Box.createHorizontalStrut(10));
+		searchAsYouTypeCheckBox = new JCheckBox(getString2("SearchAsYouType"));
+		searchAsYouTypeCheckBox.setActionCommand("SearchAsYouType");
+		searchAsYouTypeCheckBox.addActionListener(this);
+		searchAsYouTypeCheckBox.setMnemonic(
+				(int)getString2("SearchAsYouTypeMnemonic").charAt(0));
+		temp.add(searchAsYouTypeCheckBox);
 		temp.add(Box.createHorizontalGlue());
 		return temp;
 	}
@@ -484,6 +597,9 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	protected ResultsComponent createResultsComponent() {
 		FindInFilesTable table = new FindInFilesTable();
 		table.addMouseListener(new FindInFilesDialogMouseListener(table));
+		Savu owner = getOwner() instanceof Savu ? (Savu)getOwner() : null;
+		table.setMatchHighlighter(new MatchHighlighter(owner,
+								getString2("MultiLineMatch")));
 		return table;
 	}
 
@@ -512,13 +628,23 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 	/**
 	 * This function actually performs a search through the given directory.
+	 *
+	 * @param asYouType Whether this search was started as the user typed.
+	 *        If it was, problems are reported in the status bar rather than
+	 *        in a message box, and if the query extends the last one, only
+	 *        files that matched the last one are searched.
 	 */
-	private void doFindInFiles() {
+	private void doFindInFiles(boolean asYouType) {
 
 		// First, ensure that the directory they selected actually exists.
 		String dirPath = inFolderTextField.getText();
 		final File directory = new File(dirPath);
 		if (!directory.isDirectory()) {
+			if (asYouType) {
+				setStatusText(getString2("ErrorDirNotExist").trim() + " " +
+								dirPath);
+				return;
+			}
 			JOptionPane.showMessageDialog(this,
 						getString2("ErrorDirNotExist") + dirPath,
 						getString2("ErrorDialogTitle"),
@@ -534,6 +660,9 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			try {
 				Pattern.compile(getSearchString());
 			} catch (Exception e) {
+				if (asYouType) {
+					return; // The user is still typing the regex
+				}
 				// Doesn't usually happen; should be caught earlier.
 				String text = e.getMessage();
 				if (text==null) {
@@ -549,15 +678,36 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 		}
 
 		// Show the hourglass cursor, as we may have a wait ahead of us.
-		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		// Don't when searching as the user types though, since they're
+		// still typing.
+		if (!asYouType) {
+			setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		}
 
 		// Disable the buttons so the user doesn't think they can use them
 		// while we're searching.
 		setSearching(true);
 
-		// Start searching!
-		setWorkerThread(createWorkerThread(directory));
-		getWorkerThread().start();
+		// Start searching!  If the user is typing a longer version of the
+		// last query, only files that matched it can match this one.
+		FindInFilesThread thread = createWorkerThread(directory);
+		if (asYouType && lastCompletedQuery!=null) {
+			boolean matchCase = getMatchCase();
+			String key = FindInFilesThread.getNarrowingKey(directory,
+					getInFilesComboBoxContents(), getCheckSubfolders(),
+					matchCase, getMatchWholeWord(), getUseRegEx(),
+					getDoVerboseOutput());
+			String query = getSearchString();
+			if (!matchCase) {
+				query = query.toLowerCase();
+			}
+			if (key!=null && key.equals(lastCompletedKey) &&
+					query.indexOf(lastCompletedQuery)>-1) {
+				thread.setCandidateFiles(lastMatchedFiles);
+			}
+		}
+		setWorkerThread(thread);
+		thread.start();
 
 	}
 
@@ -777,6 +927,18 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Returns whether searches are started automatically as the user types
+	 * in the "Find what" field.
+	 *
+	 * @return Whether to search as the user types.
+	 */
+	boolean isSearchAsYouType() {
+		return searchAsYouTypeCheckBox!=null &&
+				searchAsYouTypeCheckBox.isSelected();
+	}
+
+
 	/**
 	 * Overridden to initialize UI elements specific to this subclass.
 	 */
@@ -824,6 +986,18 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 		SwingUtilities.invokeLater(new Runnable() { public void run() {
 
+			// Display anything the searching thread posted before finishing.
+			flushPendingResults();
+
+			// Remember what was found, so it can be narrowed down if the
+			// user keeps typing.
+			FindInFilesThread thread = getWorkerThread();
+			if (time!=-1 && thread!=null && thread.getNarrowingKey()!=null) {
+				lastCompletedQuery = thread.getSearchString();
+				lastCompletedKey = thread.getNarrowingKey();
+				lastMatchedFiles = thread.getMatchedFiles();
+			}
+
 			setWorkerThread(null);
 
 			// Return the cursor to the regular one.
@@ -832,6 +1006,13 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			// Re-enable the buttons since the user can do stuff again.
 			setSearching(false);
 
+			// If the user typed more while searching, search again.
+			if (restartPending) {
+				restartPending = false;
+				searchAsYouType();
+				return;
+			}
+
 			// If searching completed normally (e.g., wasn't terminated).
 			if (time!=-1) {
 
@@ -842,7 +1023,8 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 				// Update the results list and notify the user if the
 				// message wasn't found at all.
-				if (getResultsComponent().getRowCount()==0) {
+				if (getResultsComponent().getRowCount()==0 &&
+						!isSearchAsYouType()) {
 					String searchString = (String)findTextCombo.
 												getSelectedItem();
 					JOptionPane.showMessageDialog(FindInFilesDialog.this,
@@ -861,6 +1043,36 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 	}
 
 
+	/**
+	 * Starts a search for the text in the "Find what" field, if searching as
+	 * the user types.  This is called when the user stops typing for a
+	 * moment.  If a search is already running, it is stopped, and this
+	 * method is called again when it finishes.
+	 */
+	private void searchAsYouType() {
+
+		if (!isSearchAsYouType() || !isVisible() ||
+				getLength(getTextComponent(findTextCombo))==0 ||
+				getLength(getTextComponent(inFilesComboBox))==0 ||
+				getLength(inFolderTextField)==0) {
+			return;
+		}
+
+		FindInFilesThread workerThread = getWorkerThread();
+		if (workerThread!=null) {
+			// Start the new search once the old one has finished, so none
+			// of the old results end up mixed in with the new ones.
+			restartPending = true;
+			workerThread.interrupt();
+		}
+		else {
+			context.setSearchFor(getSearchString());
+			doFindInFiles(true);
+		}
+
+	}
+
+
 	/**
 	 * Enables or disables widgets in the dialog as appropriate.
 	 *
@@ -878,7 +1090,8 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 			cancelButton.setText(getString2("Close"));
 			cancelButton.setMnemonic((int)getString2("Close.Mnemonic").charAt(0));
 		}
-		findTextCombo.setEnabled(enabled);
+		// The user keeps typing while searching as they type.
+		findTextCombo.setEnabled(enabled || isSearchAsYouType());
 		inFilesComboBox.setEnabled(enabled);
 		inFolderTextField.setEnabled(enabled);
 	}
@@ -897,11 +1110,11 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 				statusBar.setStatusMessage(text);
 			}
 			else {
-				SwingUtilities.invokeLater(new Runnable() {
-					public void run() {
-						statusBar.setStatusMessage(text);
-					}
-				});
+				// Coalesced with results posted by the searching thread.
+				synchronized (pendingLock) {
+					pendingStatusText = text;
+					flushTimer.start();
+				}
 			}
 		}
 	}
@@ -995,10 +1208,19 @@ public class FindInFilesDialog extends AbstractSearchDialog {
 
 		public void insertUpdate(DocumentEvent e) {
 			handleToggleButtons();
+			restartSearchAsYouTypeTimer(e);
 		}
 
 		public void removeUpdate(DocumentEvent e) {
 			handleToggleButtons();
+			restartSearchAsYouTypeTimer(e);
+		}
+
+		private void restartSearchAsYouTypeTimer(DocumentEvent e) {
+			if (isSearchAsYouType() && e.getDocument()==
+					getTextComponent(findTextCombo).getDocument()) {
+				searchAsYouTypeTimer.restart();
+			}
 		}
 
 		public void changedUpdate(DocumentEvent e) {
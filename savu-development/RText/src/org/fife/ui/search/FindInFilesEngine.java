@@ -0,0 +1,449 @@
+/*
+ * 10/17/2026
+ *
+ * FindInFilesEngine.java - Parallel directory walk and file search used by
+ * Find in Files and Replace in Files.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+import org.fife.io.IgnoreRules;
+
+
+/**
+ * Does the file system work for a {@link FindInFilesThread}.  Searching is
+ * done in two phases:
+ *
+ * <ol>
+ *    <li>The directory tree is walked with a work-stealing fork/join pool,
+ *        one task per directory.  Each entry is stat'ed exactly once.  The
+ *        result is a flat list of entries in a stable, depth-first order
+ *        (a directory's own files and folders in listing order, each
+ *        folder immediately followed by its contents).  Files and folders
+ *        matching the {@link IgnoreRules} given are reported, but folders
+ *        that are ignored are not descended into.</li>
+ *    <li>Every searchable file is handed to the same (bounded) pool.  At
+ *        most a fixed window of files is in flight ahead of the file whose
+ *        results are being reported, and results are always reported in
+ *        entry order, so the results table is identical from run to run
+ *        no matter which worker finishes first.</li>
+ * </ol>
+ *
+ * The engine honors the usual <code>GUIWorkerThread</code> cancel semantics:
+ * if the thread calling
+ * {@link #walk(File, boolean, Pattern[], IgnoreRules)} or
+ * {@link #search(List, Callback)} is interrupted, all outstanding work is
+ * abandoned and an <code>InterruptedException</code> is thrown.  Searchers
+ * running on pool threads can poll {@link #isCancelled()}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ * @see FindInFilesThread
+ */
+class FindInFilesEngine {
+
+	private ForkJoinPool pool;
+	private int window;
+	private volatile boolean cancelled;
+
+
+	/**
+	 * Constructor.  One worker is created per available processor.
+	 */
+	public FindInFilesEngine() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threadCount The maximum number of worker threads.
+	 */
+	public FindInFilesEngine(int threadCount) {
+		threadCount = Math.max(1, threadCount);
+		pool = new ForkJoinPool(threadCount);
+		window = threadCount * 4;
+	}
+
+
+	/**
+	 * Abandons any work in progress.  This method can be called from any
+	 * thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+		pool.shutdownNow();
+	}
+
+
+	/**
+	 * Returns whether this engine was cancelled.  Long-running searchers
+	 * should poll this method.
+	 *
+	 * @return Whether searching was cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled || Thread.currentThread().isInterrupted();
+	}
+
+
+	/**
+	 * Runs <code>callback.searchFile()</code> on the worker threads for each
+	 * {@link Entry#FILE} entry, and reports every entry back to the calling
+	 * thread, in order, via <code>callback.entryDone()</code>.
+	 *
+	 * @param entries The entries, as returned by {@link #walk}.
+	 * @param callback Does the per-file work and receives the results.
+	 * @return <code>true</code> if all entries were processed, or
+	 *         <code>false</code> if the callback asked to stop early.
+	 * @throws InterruptedException If the calling thread is interrupted.
+	 */
+	public boolean search(List<Entry> entries, final Callback callback)
+									throws InterruptedException {
+
+		int count = entries.size();
+		List<ForkJoinTask<List<MatchData>>> tasks =
+				new ArrayList<ForkJoinTask<List<MatchData>>>(count);
+		for (int i=0; i<count; i++) {
+			tasks.add(null);
+		}
+		int submitted = 0;
+
+		try {
+
+			for (int i=0; i<count; i++) {
+
+				// Keep up to "window" files in flight ahead of this one.
+				int max = Math.min(count, i + window);
+				for (; submitted<max; submitted++) {
+					final Entry entry = entries.get(submitted);
+					if (entry.getType()==Entry.FILE) {
+						tasks.set(submitted, pool.submit(
+							new Callable<List<MatchData>>() {
+								public List<MatchData> call() throws Exception {
+									if (isCancelled()) {
+										return null;
+									}
+									return callback.searchFile(entry.getFile());
+								}
+							}));
+					}
+				}
+
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedException();
+				}
+
+				List<MatchData> results = null;
+				Throwable error = null;
+				ForkJoinTask<List<MatchData>> task = tasks.get(i);
+				if (task!=null) {
+					tasks.set(i, null); // Let results be GC'ed once reported
+					try {
+						results = task.get();
+					} catch (ExecutionException ee) {
+						error = ee.getCause();
+					} catch (CancellationException ce) {
+						throw new InterruptedException();
+					}
+				}
+
+				if (!callback.entryDone(entries.get(i), i, count, results,
+										error)) {
+					return false;
+				}
+
+			}
+			return true;
+
+		} finally {
+			if (Thread.currentThread().isInterrupted()) {
+				cancel();
+			}
+		}
+
+	}
+
+
+	/**
+	 * Shuts down the worker threads.  This engine cannot be used afterward.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+
+	/**
+	 * Walks the specified directory in parallel.
+	 *
+	 * @param dir The root directory.
+	 * @param subfolders Whether to descend into subfolders.
+	 * @param filters Files whose names do not match one of these filters are
+	 *        returned as {@link Entry#FILTERED_OUT} entries.
+	 * @param ignoreRules Files and folders these rules say to skip are
+	 *        returned as {@link Entry#IGNORED} entries.  This may be
+	 *        <code>null</code>.
+	 * @return The entries, in a stable depth-first order.
+	 * @throws InterruptedException If the calling thread is interrupted.
+	 */
+	public List<Entry> walk(File dir, boolean subfolders, Pattern[] filters,
+				IgnoreRules ignoreRules) throws InterruptedException {
+		Path top = dir.toPath();
+		DirectoryTask task = new DirectoryTask(top, top, subfolders,
+										filters, ignoreRules);
+		pool.execute(task);
+		try {
+			return task.get();
+		} catch (ExecutionException ee) {
+			throw new RuntimeException(ee.getCause());
+		} catch (CancellationException ce) {
+			throw new InterruptedException();
+		} catch (InterruptedException ie) {
+			cancel();
+			throw ie;
+		}
+	}
+
+
+	/**
+	 * Callback for {@link FindInFilesEngine#search(List, Callback)}.
+	 */
+	interface Callback {
+
+		/**
+		 * Searches a single file.  This method is called on a worker thread,
+		 * possibly concurrently with other calls, so implementations must
+		 * not share mutable state between invocations.
+		 *
+		 * @param file The file to search.
+		 * @return The results for this file.  This may be <code>null</code>.
+		 * @throws Exception If an error occurs.  It is reported to
+		 *         {@link #entryDone(Entry, int, int, List, Throwable)}.
+		 */
+		List<MatchData> searchFile(File file) throws Exception;
+
+		/**
+		 * Called on the searching thread for every entry, in entry order.
+		 *
+		 * @param entry The entry.
+		 * @param index The index of the entry.
+		 * @param count The total number of entries.
+		 * @param results The results of <code>searchFile()</code>, or
+		 *        <code>null</code> if this entry wasn't searched.
+		 * @param error The error thrown by <code>searchFile()</code>, if any.
+		 * @return Whether to keep going.
+		 */
+		boolean entryDone(Entry entry, int index, int count,
+					List<MatchData> results, Throwable error);
+
+	}
+
+
+	/**
+	 * A file or directory found while walking the directory tree.
+	 */
+	static final class Entry {
+
+		/**
+		 * A file to search.
+		 */
+		static final int FILE				= 0;
+
+		/**
+		 * A file that did not match any of the "In files" filters.
+		 */
+		static final int FILTERED_OUT		= 1;
+
+		/**
+		 * A directory whose contents follow it in the entry list.
+		 */
+		static final int DIRECTORY			= 2;
+
+		/**
+		 * A directory that was not descended into.
+		 */
+		static final int SKIPPED_DIRECTORY	= 3;
+
+		/**
+		 * A file or directory skipped because of an ignore rule.
+		 */
+		static final int IGNORED			= 4;
+
+		private File file;
+		private int type;
+		private int childCount;
+		private long lastModified;
+		private long size;
+
+		Entry(File file, int type, int childCount) {
+			this.file = file;
+			this.type = type;
+			this.childCount = childCount;
+		}
+
+		Entry(File file, int type, BasicFileAttributes attrs) {
+			this(file, type, 0);
+			lastModified = attrs.lastModifiedTime().toMillis();
+			size = attrs.size();
+		}
+
+		/**
+		 * Returns the number of entries directly inside this directory.
+		 *
+		 * @return The child count, or <code>0</code> for files.
+		 */
+		public int getChildCount() {
+			return childCount;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * Returns the last modified time of this file, as of when it was
+		 * found.
+		 *
+		 * @return The last modified time.
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * Returns the size of this file, as of when it was found.
+		 *
+		 * @return The size of the file.
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		public int getType() {
+			return type;
+		}
+
+	}
+
+
+	/**
+	 * Lists a single directory, forking a sub-task for each subdirectory.
+	 */
+	private class DirectoryTask extends RecursiveTask<List<Entry>> {
+
+		private Path dir;
+		private Path top;
+		private boolean subfolders;
+		private Pattern[] filters;
+		private IgnoreRules ignoreRules;
+		private int childCount;
+
+		DirectoryTask(Path dir, Path top, boolean subfolders,
+				Pattern[] filters, IgnoreRules ignoreRules) {
+			this.dir = dir;
+			this.top = top;
+			this.subfolders = subfolders;
+			this.filters = filters;
+			this.ignoreRules = ignoreRules;
+		}
+
+		@Override
+		protected List<Entry> compute() {
+
+			List<Entry> entries = new ArrayList<Entry>();
+			if (cancelled) {
+				return entries;
+			}
+
+			// Pass 1: list the directory, stat'ing each child once, and
+			// fork a task for every subdirectory we descend into.
+			List<Object> children = new ArrayList<Object>();
+			IgnoreRules.DirectoryRules rules = ignoreRules==null ? null :
+										ignoreRules.getRulesFor(dir, top);
+			try {
+				DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+				try {
+					for (Path child : stream) {
+						BasicFileAttributes attrs;
+						try {
+							attrs = Files.readAttributes(child,
+											BasicFileAttributes.class);
+						} catch (IOException ioe) {
+							continue; // Deleted, broken link, etc.
+						}
+						if (rules!=null && rules.isIgnored(
+								child.getFileName().toString(),
+								attrs.isDirectory())) {
+							children.add(new Entry(child.toFile(),
+										Entry.IGNORED, 0));
+						}
+						else if (attrs.isDirectory()) {
+							if (subfolders) {
+								DirectoryTask task = new DirectoryTask(child,
+									top, subfolders, filters, ignoreRules);
+								task.fork();
+								children.add(task);
+							}
+							else {
+								children.add(new Entry(child.toFile(),
+										Entry.SKIPPED_DIRECTORY, 0));
+							}
+						}
+						else if (attrs.isRegularFile()) {
+							File file = child.toFile();
+							int type = FindInFilesThread.isFilteredOut(
+									file.getName(), filters) ?
+									Entry.FILTERED_OUT : Entry.FILE;
+							children.add(new Entry(file, type, attrs));
+						}
+					}
+				} finally {
+					stream.close();
+				}
+			} catch (IOException ioe) {
+				// Unreadable directory, same as File.listFiles()==null.
+			}
+			childCount = children.size();
+
+			// Pass 2: join the forked tasks in listing order.
+			for (Object child : children) {
+				if (child instanceof DirectoryTask) {
+					DirectoryTask task = (DirectoryTask)child;
+					List<Entry> sub = task.join();
+					entries.add(new Entry(task.dir.toFile(), Entry.DIRECTORY,
+										task.childCount));
+					entries.addAll(sub);
+				}
+				else {
+					entries.add((Entry)child);
+				}
+			}
+
+			return entries;
+
+		}
+
+	}
+
+
+}
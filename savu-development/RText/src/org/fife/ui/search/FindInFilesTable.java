@@ -16,15 +16,16 @@ import java.awt.ComponentOrientation;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Rectangle;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
-import java.util.Vector;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JViewport;
 import javax.swing.ToolTipManager;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
@@ -45,11 +46,30 @@ import org.fife.ui.autocomplete.Util;
 public class FindInFilesTable extends JTable implements ResultsComponent {
 
 	private FileExplorerTableModel sorter;
-	private DefaultTableModel tableModel;
-	private ArrayList matchDatas;
+	private FindInFilesTableModel tableModel;
 
 	private StandardCellRenderer defaultRenderer;
 	private VerboseCellRenderer verboseRenderer;
+	private MatchHighlighter highlighter;
+	private ChangeListener highlightListener;
+
+	/**
+	 * Whether the last time columns were sized, some matched lines' text
+	 * wasn't ready to be measured yet.
+	 */
+	private boolean columnWidthsIncomplete;
+
+	/**
+	 * When sizing columns, only this many rows with lazily created text
+	 * are measured, so we don't have to create the text of every match.
+	 */
+	private static final int MAX_LAZY_ROWS_TO_MEASURE = 200;
+
+	/**
+	 * When sizing columns, only this many rows are measured, so huge
+	 * result sets don't lock up the UI.
+	 */
+	private static final int MAX_ROWS_TO_MEASURE = 5000;
 
 	private static final String MSG = "org.fife.ui.search.FindInFilesTable";
 
@@ -62,8 +82,8 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 		ResourceBundle msg = ResourceBundle.getBundle(MSG);
 
 		// Create the table model, and make it sortable.
-		// Keep a pointer to the "real" table model since it's a
-		// DefaultTableModel and is easy to modify.
+		// Keep a pointer to the "real" table model since it's the one
+		// we add results to.
 		tableModel = createTableModel(msg);
 		sorter = new FileExplorerTableModel(tableModel);
 		setModel(sorter);
@@ -76,7 +96,6 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 
 		initColumnWidths();
 
-		matchDatas = new ArrayList();
 		defaultRenderer = new StandardCellRenderer();
 
 		// By default, tables are registered to give tool tips.  This causes
@@ -96,32 +115,27 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	 * @param dirName The "root directory" searching was done in.  This is
 	 *        used so all file paths displayed in the table are abbreviated
 	 *        to be relative to this directory.
+	 * @see #addMatchData(List, String)
 	 * @see #clear()
 	 */
 	public void addMatchData(MatchData matchData, String dirName) {
+		addMatchData(Collections.singletonList(matchData), dirName);
+	}
 
-		// Make the displayed filename be in a path relative to the
-		// directory typed into the Find in Files dialog.
-		int pos = 0;
-		String fileName = matchData.getFileName().toLowerCase();
-		dirName = dirName.toLowerCase();
-		int dirNameLength = dirName.length();
-		while (pos<dirNameLength &&
-					(fileName.charAt(pos)==dirName.charAt(pos) ||
-					isFileSeparatorChar(fileName.charAt(pos)))) {
-			pos++;
-		}
-		if (isFileSeparatorChar(fileName.charAt(pos)))
-			pos++;
-		fileName = matchData.getFileName().substring(pos);
-
-		// We create and pass a Vector since that's what DefaultTableModel
-		// uses internally anyway.  This saves, say, creating an Object[]
-		// array to pass in.
-		Vector v = createMatchDataVector(fileName, matchData);
-		tableModel.addRow(v);
-		matchDatas.add(matchData);
 
+	/**
+	 * Adds data on several matches to the table at once.  This is much
+	 * faster than adding them one at a time, as the table is only notified
+	 * once of the new rows.
+	 *
+	 * @param matchData The data.
+	 * @param dirName The "root directory" searching was done in.  This is
+	 *        used so all file paths displayed in the table are abbreviated
+	 *        to be relative to this directory.
+	 * @see #clear()
+	 */
+	public void addMatchData(List<MatchData> matchData, String dirName) {
+		tableModel.addMatchData(matchData, dirName);
 	}
 
 
@@ -182,25 +196,9 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	 * @see #addMatchData(MatchData, String)
 	 */
 	public void clear() {
-		tableModel.setRowCount(0);
-		matchDatas.clear();
-	}
-
-
-	/**
-	 * Return the vector of data to display in the table for a
-	 * match data instance.
-	 *
-	 * @param fileName The (relative) filename.
-	 * @param data The match data.
-	 * @return The vector.
-	 */
-	protected Vector createMatchDataVector(String fileName, MatchData data) {
-		Vector v = new Vector(3);
-		v.add(fileName);
-		v.add(data.getLineNumber());
-		v.add(data.getLineText());
-		return v;
+		tableModel.clear();
+		getMatchHighlighter().clear();
+		columnWidthsIncomplete = false;
 	}
 
 
@@ -210,12 +208,14 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	 * @param msg The resource bundle.
 	 * @return The table model.
 	 */
-	protected DefaultTableModel createTableModel(ResourceBundle msg) {
-		DefaultTableModel tableModel = new DefaultTableModel();
-		tableModel.addColumn(msg.getString("FindInFiles.Column.File"));
-		tableModel.addColumn(msg.getString("FindInFiles.Column.Line"));
-		tableModel.addColumn(msg.getString("FindInFiles.Column.Text"));
-		return tableModel;
+	protected FindInFilesTableModel createTableModel(ResourceBundle msg) {
+		String[] names = { msg.getString("FindInFiles.Column.File"),
+					msg.getString("FindInFiles.Column.Line"),
+					msg.getString("FindInFiles.Column.Text") };
+		int[] kinds = { FindInFilesTableModel.COLUMN_FILE,
+					FindInFilesTableModel.COLUMN_LINE,
+					FindInFilesTableModel.COLUMN_TEXT };
+		return new FindInFilesTableModel(names, kinds);
 	}
 
 
@@ -237,6 +237,20 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	}
 
 
+	/**
+	 * Returns the object that creates the text displayed for matches.
+	 *
+	 * @return The highlighter.
+	 * @see #setMatchHighlighter(MatchHighlighter)
+	 */
+	MatchHighlighter getMatchHighlighter() {
+		if (highlighter==null) {
+			setMatchHighlighter(new MatchHighlighter(null, null));
+		}
+		return highlighter;
+	}
+
+
 	/**
 	 * Returns the match data displayed in the specified row.
 	 *
@@ -245,7 +259,7 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	 */
 	public MatchData getMatchDataForRow(int row) {
 		row = sorter.modelIndex(row);
-		return (MatchData)matchDatas.get(row);
+		return tableModel.getMatchData(row);
 	}
 
 
@@ -308,11 +322,6 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	}
 
 
-	private static final boolean isFileSeparatorChar(char ch) {
-		return ch=='\\' || ch=='/';
-	}
-
-
 	/**
 	 * Allows the results component to update its appearance after
 	 * having lots of data added to it.
@@ -332,6 +341,8 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 		int columnCount = getColumnCount();
 		int width;
 		int rowCount = getRowCount();
+		int measuredCount = Math.min(rowCount, MAX_ROWS_TO_MEASURE);
+		columnWidthsIncomplete = false;
 
 		for (int j=0; j<columnCount; j++) {
 
@@ -345,16 +356,28 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 			width = c.getPreferredSize().width;
 
 			// Loop through all cells in the column to find the longest.
-			for (int i=0; i<rowCount; i++) {
+			for (int i=0; i<measuredCount; i++) {
 
 				TableCellRenderer renderer = getCellRenderer(i, j);
 
 				// If we're in the HTML column and there are a lot of results,
 				// we'll get the value of the non-HTML text to speed things up
-				// a little.
-				String value = (String)getValueAt(i, j);
-				if (rowCount>3000 && value.startsWith("<html>")) {
-					value = Util.stripHtml(value);
+				// a little.  Text that hasn't been created yet is only
+				// created for the first few matches.
+				Object value = getValueAt(i, j);
+				if (value instanceof MatchData) {
+					if (i>=MAX_LAZY_ROWS_TO_MEASURE) {
+						continue;
+					}
+					value = getMatchHighlighter().getHtml((MatchData)value);
+					if (value==null) { // Measured again once it's ready
+						columnWidthsIncomplete = true;
+						continue;
+					}
+				}
+				String str = (String)value;
+				if (rowCount>3000 && str.startsWith("<html>")) {
+					value = Util.stripHtml(str);
 				}
 
 				Component comp = renderer.getTableCellRendererComponent(
@@ -383,6 +406,36 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 	}
 
 
+	/**
+	 * Sets the object that creates the text displayed for matches.
+	 *
+	 * @param highlighter The new highlighter.
+	 * @see #getMatchHighlighter()
+	 */
+	void setMatchHighlighter(MatchHighlighter highlighter) {
+		if (highlightListener==null) {
+			highlightListener = new ChangeListener() {
+				public void stateChanged(ChangeEvent e) {
+					// More matched lines' text is ready.
+					if (columnWidthsIncomplete &&
+							!FindInFilesTable.this.highlighter.
+												hasPendingLines()) {
+						refreshColumnWidths();
+						revalidate();
+					}
+					repaint();
+				}
+			};
+		}
+		if (this.highlighter!=null) {
+			this.highlighter.removeChangeListener(highlightListener);
+		}
+		this.highlighter = highlighter;
+		highlighter.addChangeListener(highlightListener);
+		repaint();
+	}
+
+
 	/**
 	 * Overridden to also update the UI of custom renderers.
 	 */
@@ -445,6 +498,12 @@ public class FindInFilesTable extends JTable implements ResultsComponent {
 								Object value, boolean selected,
 								boolean focused, int row, int column) {
 
+			// Matched lines' text is only created when it's displayed, in
+			// the background; the cell is blank until it's ready.
+			if (value instanceof MatchData) {
+				value = getMatchHighlighter().getHtml((MatchData)value);
+			}
+
 			// If it's HTML and selected, don't colorize the HTML, let the
 			// text all be the table's "selected text" color.
 			if (value instanceof String) {
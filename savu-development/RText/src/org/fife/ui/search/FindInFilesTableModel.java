@@ -0,0 +1,289 @@
+/*
+ * 10/17/2026
+ *
+ * FindInFilesTableModel.java - Table model for search results in a Find in
+ * Files dialog.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+
+/**
+ * The table model behind a {@link FindInFilesTable}.<p>
+ *
+ * Rather than keeping a <code>Vector</code> per row, as
+ * <code>DefaultTableModel</code> does, results are stored column by column
+ * in growable primitive arrays.  File names are interned, so each one is
+ * stored (and made relative to the search directory) only once no matter
+ * how many matches it has, and lines and offsets are plain
+ * <code>int</code>s.  {@link MatchData} instances are only created when a
+ * row is asked for, and only rows that carry their own text (verbose
+ * output, errors and occurrence counts) keep it around.<p>
+ *
+ * Rows are appended in batches via {@link #addMatchData(List, String)},
+ * which fires a single ranged "rows inserted" event per batch.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class FindInFilesTableModel extends AbstractTableModel {
+
+	/**
+	 * A column displaying the file name, relative to the search directory.
+	 */
+	public static final int COLUMN_FILE	= 0;
+
+	/**
+	 * A column displaying the line number(s) of a match.
+	 */
+	public static final int COLUMN_LINE	= 1;
+
+	/**
+	 * A column displaying the text of a match.  For matches whose text is
+	 * created lazily, the value of cells in this column is the
+	 * {@link MatchData} itself.
+	 */
+	public static final int COLUMN_TEXT	= 2;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private String[] columnNames;
+	private int[] columnKinds;
+
+	// Interned file names.
+	private List<String> fileNames;
+	private List<String> displayNames;
+	private Map<String, Integer> fileIndices;
+
+	// The rows, one array per field.
+	private int rowCount;
+	private int[] files;
+	private int[] lines;
+	private int[] endLines;
+	private int[] startOffsets;
+	private int[] endOffsets;
+	private MatchData[] nonLazy;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param columnNames The names of the columns.
+	 * @param columnKinds What each column displays.  Each element should be
+	 *        one of {@link #COLUMN_FILE}, {@link #COLUMN_LINE} or
+	 *        {@link #COLUMN_TEXT}.
+	 */
+	public FindInFilesTableModel(String[] columnNames, int[] columnKinds) {
+		this.columnNames = columnNames;
+		this.columnKinds = columnKinds;
+		fileNames = new ArrayList<String>();
+		displayNames = new ArrayList<String>();
+		fileIndices = new HashMap<String, Integer>();
+		allocate(INITIAL_CAPACITY);
+	}
+
+
+	/**
+	 * Adds a batch of rows.
+	 *
+	 * @param data The data to add.
+	 * @param dirName The "root directory" searching was done in.  This is
+	 *        used so all file paths displayed in the table are abbreviated
+	 *        to be relative to this directory.
+	 * @see #clear()
+	 */
+	public void addMatchData(List<MatchData> data, String dirName) {
+
+		int count = data.size();
+		if (count==0) {
+			return;
+		}
+		ensureCapacity(rowCount + count);
+
+		String lowerDirName = null;
+		String lastFileName = null;
+		int lastFile = -1;
+		int first = rowCount;
+
+		for (int i=0; i<count; i++) {
+
+			MatchData md = data.get(i);
+
+			// Results for a file come in together, so usually we're
+			// looking at the same file as the previous row.
+			String fileName = md.getFileName();
+			if (!fileName.equals(lastFileName)) {
+				Integer index = fileIndices.get(fileName);
+				if (index==null) {
+					if (lowerDirName==null) {
+						lowerDirName = dirName.toLowerCase();
+					}
+					index = Integer.valueOf(fileNames.size());
+					fileNames.add(fileName);
+					displayNames.add(getRelativeName(fileName, lowerDirName));
+					fileIndices.put(fileName, index);
+				}
+				lastFileName = fileName;
+				lastFile = index.intValue();
+			}
+
+			files[rowCount] = lastFile;
+			if (md.isLazy()) {
+				lines[rowCount] = md.getLine();
+				endLines[rowCount] = md.getEndLine();
+				startOffsets[rowCount] = md.getStartOffset();
+				endOffsets[rowCount] = md.getEndOffset();
+			}
+			else {
+				nonLazy[rowCount] = md;
+			}
+			rowCount++;
+
+		}
+
+		fireTableRowsInserted(first, rowCount-1);
+
+	}
+
+
+	private void allocate(int capacity) {
+		files = new int[capacity];
+		lines = new int[capacity];
+		endLines = new int[capacity];
+		startOffsets = new int[capacity];
+		endOffsets = new int[capacity];
+		nonLazy = new MatchData[capacity];
+	}
+
+
+	/**
+	 * Removes all rows.
+	 */
+	public void clear() {
+		int oldCount = rowCount;
+		rowCount = 0;
+		fileNames.clear();
+		displayNames.clear();
+		fileIndices.clear();
+		allocate(INITIAL_CAPACITY);
+		if (oldCount>0) {
+			fireTableRowsDeleted(0, oldCount-1);
+		}
+	}
+
+
+	private void ensureCapacity(int capacity) {
+		int size = files.length;
+		if (capacity>size) {
+			int newSize = Math.max(capacity, size + (size>>1));
+			files = grow(files, newSize);
+			lines = grow(lines, newSize);
+			endLines = grow(endLines, newSize);
+			startOffsets = grow(startOffsets, newSize);
+			endOffsets = grow(endOffsets, newSize);
+			MatchData[] temp = new MatchData[newSize];
+			System.arraycopy(nonLazy, 0, temp, 0, rowCount);
+			nonLazy = temp;
+		}
+	}
+
+
+	@Override
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+
+	@Override
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+
+	/**
+	 * Returns the match data for a row.
+	 *
+	 * @param row The row in the model.
+	 * @return The match data.
+	 */
+	public MatchData getMatchData(int row) {
+		MatchData md = nonLazy[row];
+		if (md==null) {
+			md = new MatchData(fileNames.get(files[row]), lines[row],
+						endLines[row], startOffsets[row], endOffsets[row]);
+		}
+		return md;
+	}
+
+
+	/**
+	 * Returns a file name relative to the directory searched in.
+	 */
+	private static String getRelativeName(String fileName,
+									String lowerDirName) {
+		int pos = 0;
+		String lowerFileName = fileName.toLowerCase();
+		int dirNameLength = Math.min(lowerDirName.length(),
+								lowerFileName.length());
+		while (pos<dirNameLength &&
+					(lowerFileName.charAt(pos)==lowerDirName.charAt(pos) ||
+					isFileSeparatorChar(lowerFileName.charAt(pos)))) {
+			pos++;
+		}
+		if (pos<lowerFileName.length() &&
+				isFileSeparatorChar(lowerFileName.charAt(pos))) {
+			pos++;
+		}
+		return fileName.substring(pos);
+	}
+
+
+	@Override
+	public int getRowCount() {
+		return rowCount;
+	}
+
+
+	@Override
+	public Object getValueAt(int row, int column) {
+		switch (columnKinds[column]) {
+			case COLUMN_FILE:
+				return displayNames.get(files[row]);
+			case COLUMN_LINE:
+				MatchData md = nonLazy[row];
+				if (md!=null) {
+					return md.getLineNumber();
+				}
+				int line = lines[row];
+				int endLine = endLines[row];
+				return line==endLine ? Integer.toString(line+1) :
+							((line+1) + "-" + (endLine+1));
+			default: // COLUMN_TEXT
+				md = nonLazy[row];
+				return md!=null ? md.getLineText() : getMatchData(row);
+		}
+	}
+
+
+	private static int[] grow(int[] array, int newSize) {
+		int[] temp = new int[newSize];
+		System.arraycopy(array, 0, temp, 0, array.length);
+		return temp;
+	}
+
+
+	private static final boolean isFileSeparatorChar(char ch) {
+		return ch=='\\' || ch=='/';
+	}
+
+
+}
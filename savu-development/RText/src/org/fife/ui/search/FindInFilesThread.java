@@ -10,51 +10,86 @@
  */
 package org.fife.ui.search;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import javax.swing.text.Document;
-import javax.swing.text.Element;
-import javax.swing.text.Segment;
 
-import org.fife.io.UnicodeReader;
+import org.fife.io.IgnoreRules;
 import org.fife.rsta.ui.search.FindDialog;
 import org.fife.rtext.AbstractMainView;
 import org.fife.rtext.Savu;
 import org.fife.ui.GUIWorkerThread;
-import org.fife.ui.rsyntaxtextarea.RSyntaxDocument;
-import org.fife.ui.rsyntaxtextarea.RSyntaxTextArea;
-import org.fife.ui.rsyntaxtextarea.Token;
 
 
 /**
  * A thread created by a <code>FindInFilesDialog</code> to do the searching.
+ * The actual file system work is farmed out to a {@link FindInFilesEngine},
+ * which searches several files at once.
  *
  * @author Robert Futrell
  * @version 1.0
  * @see FindInFilesDialog
  */
-class FindInFilesThread extends GUIWorkerThread {
+class FindInFilesThread extends GUIWorkerThread
+						implements FindInFilesEngine.Callback {
 
 	protected static final String NO_LINE_NUMBER	= "--";
 
 	protected FindInFilesDialog dialog;
 	protected File directory;
 
+	// Search options, read from the dialog before searching starts.
+	protected AbstractMainView view;
+	protected String searchString;
+	protected Pattern pattern;
+	protected boolean checkSubfolders;
+	protected boolean matchingLines;
+	protected boolean matchCase;
+	protected boolean wholeWord;
+	protected boolean useRegex;
+	protected boolean doVerboseOutput;
+	protected long startMillis;
+
+	/**
+	 * If non-<code>null</code>, only these files are searched, rather than
+	 * everything in the directory.
+	 */
+	private List<File> candidateFiles;
+
+	/**
+	 * The files found to contain matches, in the order they were searched.
+	 */
+	private List<File> matchedFiles;
+
+	private String inFilesString;
+
+	/**
+	 * Scanners used to read files, one per worker thread.
+	 */
+	private ThreadLocal<FileScanner> scanners =
+							new ThreadLocal<FileScanner>() {
+		@Override
+		protected FileScanner initialValue() {
+			return createScanner();
+		}
+	};
+
 	private String verboseLabelString;
 	private String errorLabelString;
 	protected String verboseNoFiltMatchString;
 	protected String dontSearchSubfoldersString;
+	protected String verboseIgnoredString;
+	protected String verboseBinaryFileString;
 	protected String newFilesToExamineString;	
 	protected String occurrencesString;
+	protected String searchingFileString;
 
 //	private static final Pattern TAB_PATTERN	= Pattern.compile("\\t");
 
@@ -76,12 +111,101 @@ class FindInFilesThread extends GUIWorkerThread {
 							"</em>";
 		verboseNoFiltMatchString = dialog.getString2("VerboseNoFiltMatch");
 		dontSearchSubfoldersString = dialog.getString2("SearchSubFoldUnchecked");
+		verboseIgnoredString = dialog.getString2("VerboseIgnored");
+		verboseBinaryFileString = dialog.getString2("VerboseBinaryFile");
 		newFilesToExamineString = dialog.getString2("NewFilesToExamine");
 		occurrencesString = dialog.getString2("Occurrences");
+		matchedFiles = new ArrayList<File>();
 
 	}
 
 
+	/**
+	 * Constructor for searching files without a dialog, for example from a
+	 * benchmark.  Only {@link #searchFile(File)} can be called on threads
+	 * created this way.
+	 *
+	 * @param searchString The text to search for.
+	 * @param matchCase Whether the search is case sensitive.
+	 * @param wholeWord Whether to only match whole words.
+	 * @param useRegex Whether <code>searchString</code> is a regular
+	 *        expression.
+	 * @param matchingLines Whether to report each matching line, as
+	 *        opposed to just a count per file.
+	 */
+	FindInFilesThread(String searchString, boolean matchCase,
+			boolean wholeWord, boolean useRegex, boolean matchingLines) {
+
+		this.matchCase = matchCase;
+		this.wholeWord = wholeWord;
+		this.useRegex = useRegex;
+		this.matchingLines = matchingLines;
+
+		if (useRegex) {
+			int flags = matchCase ? 0 :
+						(Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+			pattern = Pattern.compile(searchString, flags);
+		}
+		else if (!matchCase) {
+			searchString = searchString.toLowerCase();
+		}
+		this.searchString = searchString;
+		matchedFiles = new ArrayList<File>();
+
+	}
+
+
+	/**
+	 * Returns entries for the candidate files that still exist.
+	 *
+	 * @return The entries.
+	 * @see #setCandidateFiles(List)
+	 */
+	private List<FindInFilesEngine.Entry> createCandidateEntries()
+									throws InterruptedException {
+		List<FindInFilesEngine.Entry> entries =
+			new ArrayList<FindInFilesEngine.Entry>(candidateFiles.size());
+		for (File file : candidateFiles) {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException();
+			}
+			try {
+				BasicFileAttributes attrs = Files.readAttributes(
+							file.toPath(), BasicFileAttributes.class);
+				if (attrs.isRegularFile()) {
+					entries.add(new FindInFilesEngine.Entry(file,
+							FindInFilesEngine.Entry.FILE, attrs));
+				}
+			} catch (IOException ioe) {
+				// The file was deleted since the last search.
+			}
+		}
+		return entries;
+	}
+
+
+	/**
+	 * Creates the scanner used to read files on a worker thread.
+	 *
+	 * @return The scanner.
+	 */
+	protected FileScanner createScanner() {
+		return new FileScanner();
+	}
+
+
+	/**
+	 * Returns the rules deciding which files and folders are skipped, as
+	 * configured in the main view.
+	 *
+	 * @return The rules, or <code>null</code> if nothing is skipped.
+	 * @see AbstractMainView#createIgnoreRules()
+	 */
+	protected IgnoreRules createIgnoreRules() {
+		return view!=null ? view.createIgnoreRules() : new IgnoreRules();
+	}
+
+
 	protected MatchData createErrorMatchData(String filePath, String msg) {
 		return new MatchData(filePath, NO_LINE_NUMBER, errorLabelString + msg,
 							MatchData.TYPE_ERROR);
@@ -101,10 +225,10 @@ class FindInFilesThread extends GUIWorkerThread {
 	public Object construct() {
 
 		Savu parent = (Savu)dialog.getOwner();
-		AbstractMainView view = parent.getMainView();
+		view = parent.getMainView();
 
 		// Get the string to search for and filters for the files to search.
-		String searchString = dialog.getSearchString();
+		searchString = dialog.getSearchString();
 		Pattern[] filterStrings = getFilterStrings();
 		if (filterStrings==null) {
 			dialog.searchCompleted("");
@@ -113,148 +237,244 @@ class FindInFilesThread extends GUIWorkerThread {
 
 		// Then, do the search.
 		dialog.clearSearchResults();
-		File[] files = directory.listFiles();
-		List<File> fileList = new ArrayList<File>();
-		fileList.addAll(Arrays.asList(files));
-
-		boolean checkSubfolders = dialog.getCheckSubfolders();
-		boolean matchingLines = dialog.getShowMatchingLines();
-		boolean matchCase = dialog.getMatchCase();
-		boolean wholeWord = dialog.getMatchWholeWord();
-		boolean useRegex = dialog.getUseRegEx();
-		boolean doVerboseOutput = dialog.getDoVerboseOutput();
-		Segment seg = new Segment();
-		String searchingFile = dialog.getString2("SearchingFile");
-
-		if (!useRegex && !matchCase)
+		initSearchOptions();
+		matchingLines = dialog.getShowMatchingLines();
+
+		if (useRegex) {
+			int flags = matchCase ? 0 :
+						(Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
+			pattern = Pattern.compile(searchString, flags);
+		}
+		else if (!matchCase) {
 			searchString = searchString.toLowerCase();
+		}
 
-		RSyntaxTextArea textArea = new RSyntaxTextArea();
-		long startMillis = System.currentTimeMillis();
+		runSearch(filterStrings);
+		return null;
 
-		// Keep looping while there are more files to search.
-		int numFiles = fileList.size();
-		for (int i=0; i<numFiles; i++) {
+	}
 
-			// If the user canceled the search...
-			if (Thread.currentThread().isInterrupted()) {
-				dialog.searchCompleted(dialog.getString2("SearchTerminated"));
-				return null;
-			}
 
-			File temp = fileList.get(i);
-			String fileFullPath = temp.getAbsolutePath();
+	/**
+	 * Called on the searching thread, in order, as each entry found by the
+	 * engine is done being searched.
+	 *
+	 * @param entry The entry.
+	 * @param index The index of the entry.
+	 * @param count The total number of entries.
+	 * @param results The results from {@link #searchFile(File)}.
+	 * @param error The error thrown while searching, if any.
+	 * @return Whether searching should continue.
+	 */
+	public boolean entryDone(FindInFilesEngine.Entry entry, int index,
+					int count, List<MatchData> results, Throwable error) {
 
-			// If temp is a regular file (i.e., non-directory) AND exists...
-			if (temp.isFile()) {
+		String fileFullPath = entry.getFile().getAbsolutePath();
 
-				// If the file doesn't match one of the filters from
-				// "In files:", skip it.
-				if (isFilteredOut(temp.getName(), filterStrings)) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-								fileFullPath, verboseNoFiltMatchString);
-						dialog.addMatchData(data);
-					}
-					continue;
+		switch (entry.getType()) {
+
+			// The file doesn't match one of the filters from "In files:".
+			case FindInFilesEngine.Entry.FILTERED_OUT:
+				if (doVerboseOutput) {
+					dialog.addMatchData(createVerboseMatchData(
+							fileFullPath, verboseNoFiltMatchString));
+				}
+				break;
+
+			// The file or directory is version control metadata, in a
+			// .gitignore, etc.
+			case FindInFilesEngine.Entry.IGNORED:
+				if (doVerboseOutput) {
+					dialog.addMatchData(createVerboseMatchData(
+							fileFullPath, verboseIgnoredString));
+				}
+				break;
+
+			// The user doesn't want to search subdirectories.
+			case FindInFilesEngine.Entry.SKIPPED_DIRECTORY:
+				if (doVerboseOutput) {
+					dialog.addMatchData(createVerboseMatchData(
+							fileFullPath, dontSearchSubfoldersString));
+				}
+				break;
+
+			case FindInFilesEngine.Entry.DIRECTORY:
+				if (doVerboseOutput) {
+					dialog.addMatchData(createVerboseMatchData(
+							fileFullPath, newFilesToExamineString +
+							": " + entry.getChildCount()));
 				}
+				break;
+
+			default: // FindInFilesEngine.Entry.FILE
 
 				// Display the file we're searching in the status bar.
 				// Note that this method postpones the update to the EDT.
-				dialog.setStatusText(searchingFile + i + "/" + numFiles +
-								": " + fileFullPath);
-
-				try {
-					// Use a UnicodeReader to auto-detect whether this
-					// is a Unicode file.
-					// FIXME:  Allow the user to specify the default
-					// encoding, instead of assuming system default,
-					// somehow.
-					Reader r = new BufferedReader(new UnicodeReader(temp));
-					String style = view.getSyntaxStyleForFile(temp.getName());
-					textArea.read(r, null);	// Clears all old text.
-					// Important!  Clear undo history, or RSTA's undo manager
-					// will keep all old text (i.e. copies of ALL previous
-					// files searched)!
-					textArea.discardAllEdits();
-					if (!style.equals(textArea.getSyntaxEditingStyle())) {
-						textArea.setSyntaxEditingStyle(style);
-					}
-					r.close();
-				} catch (IOException ioe) {
-					MatchData data = createErrorMatchData(fileFullPath,
-								"IOException reading file: " + ioe);
-					dialog.addMatchData(data);
-					continue;
-				} catch (OutOfMemoryError oome) {
+				dialog.setStatusText(searchingFileString + index + "/" +
+								count + ": " + fileFullPath);
+
+				if (error instanceof OutOfMemoryError) {
 					MatchData data = createErrorMatchData(fileFullPath,
 											"OutOfMemoryError");
 					dialog.addMatchData(data);
-					// Bail out.
+					// Bail out.  Not every file was searched, so the files
+					// that matched can't be used to narrow a later search.
+					matchedFiles = null;
 					dialog.searchCompleted(
 							System.currentTimeMillis() - startMillis);
-					return null;
+					return false;
+				}
+				else if (error instanceof IOException) {
+					MatchData data = createErrorMatchData(fileFullPath,
+								"IOException reading file: " + error);
+					dialog.addMatchData(data);
+				}
+				else if (error!=null) {
+					// Shouldn't happen...
+					error.printStackTrace();
 				}
 
-				String buffer = textArea.getText();
-
-				// If we got some text out of the file...
-				if (buffer!=null) {
-					try {
-						if (useRegex) {
-							doSearchRegex(buffer, searchString, textArea,
-								matchCase, wholeWord, matchingLines,
-								fileFullPath, seg);
-						}
-						else {
-							doSearchNoRegex(buffer, searchString, textArea,
-								matchCase, wholeWord, matchingLines,
-								fileFullPath, seg);
-						}
-					} catch (Exception e) {
-						// Shouldn't happen...
-						e.printStackTrace();
-						continue;
+				if (results!=null && results.size()>0) {
+					matchedFiles.add(entry.getFile());
+					for (MatchData data : results) {
+						dialog.addMatchData(data);
 					}
 				}
+				break;
 
-			} // End of if (temp.isFile()).
+		}
 
-			// Otherwise, if the file is a directory...
-			else if (temp.isDirectory()) {
+		return true;
 
-				// Ignore this (sub)directory if the user doesn't want
-				// to search subdirectories.
-				if (!checkSubfolders) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(
-							fileFullPath, dontSearchSubfoldersString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
+	}
 
-				// Add any files in this subdirectory to the master list
-				// of files to search.
-				List<File> moreFilesList = getFilesFromDirectory(temp);
-				int count = moreFilesList==null ? 0 : moreFilesList.size();
-				if (count>0) {
-					fileList.addAll(moreFilesList);
-					numFiles += count;
-				}
-				if (doVerboseOutput) {
-					MatchData data = createVerboseMatchData(
-						fileFullPath, newFilesToExamineString +
-						": " + count);
-					dialog.addMatchData(data);
+
+	/**
+	 * Reads the options common to Find in Files and Replace in Files from
+	 * the dialog.  This is called on the searching thread before any files
+	 * are searched, so the worker threads see these values.
+	 */
+	protected void initSearchOptions() {
+		checkSubfolders = dialog.getCheckSubfolders();
+		matchCase = dialog.getMatchCase();
+		wholeWord = dialog.getMatchWholeWord();
+		useRegex = dialog.getUseRegEx();
+		doVerboseOutput = dialog.getDoVerboseOutput();
+		searchingFileString = dialog.getString2("SearchingFile");
+	}
+
+
+	/**
+	 * Removes files that the workspace's {@link TrigramIndex} says cannot
+	 * contain a match.  Files the index doesn't know about, or that changed
+	 * since they were indexed, are kept, so this is the same as a full scan
+	 * if the index is stale or missing.
+	 *
+	 * @param entries The entries found by the engine.
+	 * @return The entries to actually search.
+	 */
+	protected List<FindInFilesEngine.Entry> narrowWithIndex(
+								List<FindInFilesEngine.Entry> entries) {
+
+		TrigramIndex index = TrigramIndex.getSharedInstance();
+		long[] trigrams = TrigramIndex.getQueryTrigrams(searchString,
+													useRegex);
+		if (trigrams==null || !index.isAvailable()) {
+			return entries;
+		}
+
+		List<FindInFilesEngine.Entry> narrowed =
+				new ArrayList<FindInFilesEngine.Entry>(entries.size());
+		for (FindInFilesEngine.Entry entry : entries) {
+			if (entry.getType()!=FindInFilesEngine.Entry.FILE ||
+					index.mayContain(entry.getFile(), entry.getLastModified(),
+									entry.getSize(), trigrams)) {
+				narrowed.add(entry);
+			}
+		}
+
+		// Pick up any files that changed since the index was last updated.
+		index.scheduleUpdate();
+		return narrowed;
+
+	}
+
+
+	/**
+	 * Walks the directory and searches all files in it, using all available
+	 * processors.  Results are added to the dialog in a stable order.
+	 *
+	 * @param filterStrings The filters for files to search.
+	 */
+	protected void runSearch(Pattern[] filterStrings) {
+
+		startMillis = System.currentTimeMillis();
+		FindInFilesEngine engine = new FindInFilesEngine();
+
+		try {
+			List<FindInFilesEngine.Entry> entries;
+			if (candidateFiles!=null) {
+				entries = createCandidateEntries();
+			}
+			else {
+				entries = engine.walk(directory, checkSubfolders,
+									filterStrings, createIgnoreRules());
+				if (!doVerboseOutput) {
+					entries = narrowWithIndex(entries);
 				}
+			}
+			if (engine.search(entries, this)) {
+				dialog.searchCompleted(
+						System.currentTimeMillis() - startMillis);
+			}
+		} catch (InterruptedException ie) {
+			// The user canceled the search.
+			dialog.searchCompleted(dialog.getString2("SearchTerminated"));
+		} finally {
+			engine.shutdown();
+		}
 
-			} // End of else if (temp.isDirectory()).
+	}
 
-		} // End of for (int i=0; i<numFiles; i++).
 
-		dialog.searchCompleted(System.currentTimeMillis() - startMillis);
-		return null;
+	/**
+	 * Searches a single file.  This is called on one of the engine's worker
+	 * threads, so it may run concurrently with other calls.
+	 *
+	 * @param file The file to search.
+	 * @return The matches found.
+	 * @throws IOException If an error occurs reading the file.
+	 */
+	public List<MatchData> searchFile(File file) throws IOException {
+
+		// FIXME:  Allow the user to specify the default encoding, instead
+		// of assuming system default, somehow.
+		FileScanner scanner = getScanner();
+		scanner.read(file);
+
+		String fileFullPath = file.getAbsolutePath();
+		List<MatchData> results = new ArrayList<MatchData>();
+		if (scanner.isBinary()) {
+			if (doVerboseOutput) {
+				results.add(createVerboseMatchData(fileFullPath,
+										verboseBinaryFileString));
+			}
+			return results;
+		}
+
+		try {
+			if (useRegex) {
+				doSearchRegex(scanner, file, results);
+			}
+			else {
+				doSearchNoRegex(scanner, file, results);
+			}
+		} catch (Exception e) {
+			// Shouldn't happen...
+			e.printStackTrace();
+		}
+
+		return results;
 
 	}
 
@@ -262,49 +482,32 @@ class FindInFilesThread extends GUIWorkerThread {
 	/**
 	 * Performs a non-regex "Find in Files" operation on a single file.
 	 */
-	private void doSearchNoRegex(String buffer, String searchString,
-							RSyntaxTextArea textArea,
-							boolean matchCase, boolean wholeWord,
-							boolean matchingLines, String fileFullPath,
-							Segment seg) {
-
-		// If search is not case-sensitive, lower-case text to search in
-		// (searchString is already done).
-		if (!matchCase)
-			buffer = buffer.toLowerCase();
-
-		// Some stuff we'll use below.
-		int bufferLength = buffer.length();
-		String lineText = null;
-		RSyntaxDocument doc = (RSyntaxDocument)textArea.getDocument();
-		Element map = doc.getDefaultRootElement();
-		Element elem = null;
-		int lineCount = map.getElementCount();
+	private void doSearchNoRegex(FileScanner scanner, File file,
+							List<MatchData> results) {
+
+		// Some stuff we'll use below.  If search is not case-sensitive,
+		// searchString is already lower case.
+		CharSequence buffer = scanner.getText();
+		String fileFullPath = file.getAbsolutePath();
+		char[] searchFor = searchString.toCharArray();
 		int i = 0;
-		int len = searchString.length();
+		int len = searchFor.length;
 		int numMatches = 0;
 
 		// Loop through all matches in the file.
-		while ((i=buffer.indexOf(searchString, i))!=-1) {
+		while ((i=scanner.indexOf(searchFor, i, matchCase))!=-1) {
 
 			// If we found a match...
 			if (!wholeWord || FindDialog.isWholeWord(buffer, i, len)) {
 
 				numMatches++;
 				if (matchingLines) {
-					int line = -1;
-					int lineEnd = bufferLength-1;
-					line = map.getElementIndex(i);
-					elem = map.getElement(line);
-					lineEnd = line==lineCount-1 ? elem.getEndOffset()-1 :
-											elem.getEndOffset();
-					Token t = textArea.getTokenListForLine(line);
-					lineText = getHtml(t, textArea);
-					dialog.addMatchData(new MatchData(fileFullPath,
-									Integer.toString(line+1), lineText));
+					int line = scanner.getLineOfOffset(i);
+					results.add(new MatchData(fileFullPath, line, line,
+									i, i+len));
 					// Since a single line may have more than one match,
 					// skip to the next line's start.
-					i = lineEnd/* + 1*/;
+					i = Math.max(i+1, scanner.getLineEndOffset(line));
 
 				}
 				else {
@@ -331,7 +534,7 @@ class FindInFilesThread extends GUIWorkerThread {
 							new Object[] { new Integer(numMatches) });
 			MatchData data = new MatchData(fileFullPath, NO_LINE_NUMBER,
 									text);
-			dialog.addMatchData(data);
+			results.add(data);
 		}
 
 	}
@@ -340,21 +543,15 @@ class FindInFilesThread extends GUIWorkerThread {
 	/**
 	 * Performs a regex "Find in Files" operation on a single file.
 	 */
-	private void doSearchRegex(String buffer, String searchString,
-							RSyntaxTextArea textArea, boolean matchCase,
-							boolean wholeWord, boolean matchingLines,
-							String fileFullPath, Segment seg) {
-
-		Document doc = textArea.getDocument();
-		Element map = doc.getDefaultRootElement();
-		Element elem = null;
-		int lineCount = map.getElementCount();
+	private void doSearchRegex(FileScanner scanner, File file,
+							List<MatchData> results) {
+
+		CharSequence buffer = scanner.getText();
+		String fileFullPath = file.getAbsolutePath();
 		int numMatches = 0;
 		int lastStartLine = -1;
 
 		// Create a Matcher to find the text we're looking for.
-		int flags = matchCase ? 0 : (Pattern.CASE_INSENSITIVE|Pattern.UNICODE_CASE);
-		Pattern pattern = Pattern.compile(searchString, flags);
 		Matcher m = pattern.matcher(buffer);
 
 		// Loop through all matches.
@@ -371,34 +568,21 @@ class FindInFilesThread extends GUIWorkerThread {
 				// If we're interested in seeing each match...
 				if (matchingLines) {
 
-					// Get the text of the first line of the match.
-					int startLine = map.getElementIndex(start);
+					// Only the location of the match is recorded; its text
+					// is rendered lazily by the results table.
+					int startLine = scanner.getLineOfOffset(start);
 					if (startLine==lastStartLine) {
 						// If a single line has > 1 match, don't show
 						// the same line multiple times.
 						continue;
 					}
 					lastStartLine = startLine;
-					int endLine = map.getElementIndex(end);
-					elem = map.getElement(startLine);
-					start = elem.getStartOffset();
-					end = startLine==lineCount-1 ? elem.getEndOffset()-1 :
-											elem.getEndOffset();
-					Token t = textArea.getTokenListForLine(startLine);
-					String text = getHtml(t, textArea);
+					int endLine = scanner.getLineOfOffset(end);
 
 					// Add an item to our results.
-					boolean oneLine = startLine==endLine;
-					String lineStr = oneLine ? Integer.toString(startLine+1) :
-								((startLine+1) + "-" + (endLine+1));
-					if (!oneLine) {
-						text += " <em>" +
-								dialog.getString2("MultiLineMatch") +
-								"</em>";
-					}
-					MatchData data = new MatchData(
-										fileFullPath, lineStr, text);
-					dialog.addMatchData(data);
+					MatchData data = new MatchData(fileFullPath,
+									startLine, endLine, start, end);
+					results.add(data);
 
 				} // End of if (matchingLines)
 		
@@ -413,26 +597,85 @@ class FindInFilesThread extends GUIWorkerThread {
 							new Object[] { new Integer(numMatches) });
 			MatchData data = new MatchData(fileFullPath,
 							NO_LINE_NUMBER, text);
-			dialog.addMatchData(data);
+			results.add(data);
 		}
 
 	}
 
 
 	/**
-	 * Returns the files contained in the specified directory as a list.
+	 * Returns the files found to contain matches.  This should only be
+	 * called after searching completes.
 	 *
-	 * @param dir The directory.
-	 * @return The files in the directory, as a list.
+	 * @return The files, in the order they were searched.
 	 */
-	protected static final List<File> getFilesFromDirectory(File dir) {
-		// Get the list of files in this directory.
-		File[] moreFiles = dir.listFiles();
-		if (moreFiles==null) {
-			// Should never happen (as dirs return empty arrays).
-			return new ArrayList<File>(0);
+	List<File> getMatchedFiles() {
+		return matchedFiles;
+	}
+
+
+	/**
+	 * Returns the text searched for.  This is lower case if the search is
+	 * not case sensitive.  This should only be called after searching
+	 * completes.
+	 *
+	 * @return The text searched for.
+	 */
+	String getSearchString() {
+		return searchString;
+	}
+
+
+	/**
+	 * Returns a key identifying the options of this search that determine
+	 * which files match it.  A search that extends this one's query and has
+	 * the same key only needs to look at the files this one matched.
+	 *
+	 * @return The key, or <code>null</code> if this search can't be used
+	 *         to narrow others.  This is only valid once searching
+	 *         completes.
+	 * @see #getMatchedFiles()
+	 * @see #setCandidateFiles(List)
+	 */
+	String getNarrowingKey() {
+		if (matchedFiles==null || inFilesString==null) {
+			return null;
+		}
+		return getNarrowingKey(directory, inFilesString, checkSubfolders,
+					matchCase, wholeWord, useRegex, doVerboseOutput);
+	}
+
+
+	/**
+	 * Returns a key identifying search options that determine which files
+	 * match a query.  Only literal searches can be narrowed: a longer
+	 * regular expression may match more, and a "whole word" match of a
+	 * longer string doesn't imply a whole word match of a prefix of it.
+	 * Verbose output reports on every file, so it can't be narrowed
+	 * either.
+	 *
+	 * @return The key, or <code>null</code> if searches with these options
+	 *         can't be narrowed.
+	 */
+	static String getNarrowingKey(File directory, String inFiles,
+				boolean subfolders, boolean matchCase, boolean wholeWord,
+				boolean regex, boolean verbose) {
+		if (regex || wholeWord || verbose || inFiles==null) {
+			return null;
 		}
-		return Arrays.asList(moreFiles);
+		return directory.getAbsolutePath() + '\n' + inFiles.trim() + '\n' +
+				subfolders + '\n' + matchCase;
+	}
+
+
+	/**
+	 * Returns the scanner to use to read files on the current thread.
+	 *
+	 * @return The scanner.
+	 * @see #createScanner()
+	 */
+	protected FileScanner getScanner() {
+		return scanners.get();
 	}
 
 
@@ -441,8 +684,8 @@ class FindInFilesThread extends GUIWorkerThread {
 		// Get the list of regular expressions to apply when deciding
 		// whether or not to look in a file.  If we're on Windows, or OS X,
 		// do case-insensitive regexes.
-		String[] tokens = dialog.getInFilesComboBoxContents().trim().
-									split("\\s*,?\\s+");
+		inFilesString = dialog.getInFilesComboBoxContents();
+		String[] tokens = inFilesString.trim().split("\\s*,?\\s+");
 		if (tokens==null || tokens.length==0) {
 			return null;
 		}
@@ -470,38 +713,6 @@ class FindInFilesThread extends GUIWorkerThread {
 	}
 
 
-	/**
-	 * Gets an HTML string for a token list, stripping off leading whitespace.
-	 *
-	 * @param t
-	 * @param textArea
-	 * @return
-	 */
-	private static final String getHtml(Token t, RSyntaxTextArea textArea) {
-
-		// HTML rendering in Swing is very slow, and we've also seen OOME's
-		// from trying render lines that were too long in the Find in Files
-		// table, so we'll limit how much we display.
-		final int maxLen = 1280;
-
-		StringBuilder sb = new StringBuilder("<html><nobr><font face=\"Monospaced\">");
-		boolean firstNonWhitespace = false; // Skip leading whitespace
-
-		while (t!=null && t.isPaintable() && sb.length()<maxLen) {
-			if (firstNonWhitespace || (firstNonWhitespace |= !t.isWhitespace())) {
-				t.appendHTMLRepresentation(sb, textArea, false);
-			}
-			t = t.getNextToken();
-		}
-
-		if (sb.length()>=maxLen) {
-			sb.append("...");
-		}
-		return sb.toString();
-
-	}
-
-
 	/**
 	 * Converts a <code>String</code> representing a wildcard file filter into
 	 * another <code>String</code> containing a regular expression good for
@@ -546,4 +757,17 @@ class FindInFilesThread extends GUIWorkerThread {
 	}
 
 
+	/**
+	 * Restricts the search to a known set of files, instead of walking the
+	 * directory.  This is used when searching as the user types, to search
+	 * only the files that matched a query the new one extends.  This must
+	 * be called before the thread is started.
+	 *
+	 * @param files The files to search.
+	 */
+	void setCandidateFiles(List<File> files) {
+		candidateFiles = files;
+	}
+
+
 }
\ No newline at end of file
@@ -11,7 +11,14 @@
 package org.fife.ui.search;
 
 /**
- * Information on a match found when searching a document.
+ * Information on a match found when searching a document.<p>
+ *
+ * To keep memory use down when there are lots of results, a match on a
+ * line only records where it was found: the file, its line(s), and the
+ * offsets of the matched text.  The (syntax highlighted) text of the line
+ * is created on demand, only when it is actually displayed; see
+ * {@link MatchHighlighter}.  Verbose output, errors, and occurrence counts
+ * carry their text with them.
  * 
  * @author Robert Futrell
  * @version 1.0
@@ -22,6 +29,10 @@ public class MatchData {
 	private String lineNumber;
 	private String lineText;
 	private int type;
+	private int line;
+	private int endLine;
+	private int startOffset;
+	private int endOffset;
 
 	public static final int TYPE_MATCH = 0;
 	public static final int TYPE_VERBOSE = 1;
@@ -37,24 +48,112 @@ public class MatchData {
 		this.lineNumber = lineNumber;
 		this.lineText = lineText;
 		this.type = type;
+		line = endLine = -1;
+		startOffset = endOffset = -1;
+	}
+
+	/**
+	 * Creates match data for a match whose line text will be created
+	 * lazily.
+	 *
+	 * @param fileName The file the match was found in.
+	 * @param line The 0-based line the match starts on.
+	 * @param endLine The 0-based line the match ends on.
+	 * @param startOffset The offset of the start of the match.
+	 * @param endOffset The offset of the end of the match.
+	 */
+	public MatchData(String fileName, int line, int endLine,
+			int startOffset, int endOffset) {
+		this.fileName = fileName;
+		this.type = TYPE_MATCH;
+		this.line = line;
+		this.endLine = endLine;
+		this.startOffset = startOffset;
+		this.endOffset = endOffset;
+	}
+
+	/**
+	 * Returns the 0-based line the match ends on.
+	 *
+	 * @return The line, or <code>-1</code> if this data isn't for a
+	 *         match on a specific line.
+	 * @see #getLine()
+	 */
+	public int getEndLine() {
+		return endLine;
+	}
+
+	/**
+	 * Returns the offset of the end of the matched text.
+	 *
+	 * @return The offset, or <code>-1</code> if this data isn't for a
+	 *         match on a specific line.
+	 * @see #getStartOffset()
+	 */
+	public int getEndOffset() {
+		return endOffset;
 	}
 
 	public String getFileName() {
 		return fileName;
 	}
 
+	/**
+	 * Returns the 0-based line the match starts on.
+	 *
+	 * @return The line, or <code>-1</code> if this data isn't for a
+	 *         match on a specific line.
+	 * @see #getEndLine()
+	 */
+	public int getLine() {
+		return line;
+	}
+
 	public String getLineNumber() {
+		if (lineNumber==null) {
+			lineNumber = line==endLine ? Integer.toString(line+1) :
+						((line+1) + "-" + (endLine+1));
+		}
 		return lineNumber;
 	}
 
+	/**
+	 * Returns the text to display for this data.
+	 *
+	 * @return The text, or <code>null</code> if this is a match whose
+	 *         line text is created lazily.
+	 * @see #isLazy()
+	 */
 	public String getLineText() {
 		return lineText;
 	}
 
+	/**
+	 * Returns the offset of the start of the matched text.
+	 *
+	 * @return The offset, or <code>-1</code> if this data isn't for a
+	 *         match on a specific line.
+	 * @see #getEndOffset()
+	 */
+	public int getStartOffset() {
+		return startOffset;
+	}
+
 	public boolean isError() {
 		return type == TYPE_ERROR;
 	}
 
+	/**
+	 * Returns whether this is a match whose line text must be created by
+	 * whoever displays it.
+	 *
+	 * @return Whether this match's text is created lazily.
+	 * @see #getLineText()
+	 */
+	public boolean isLazy() {
+		return lineText==null && line>-1;
+	}
+
 	public boolean isMatchData() {
 		return type == TYPE_MATCH;
 	}
@@ -63,4 +162,15 @@ public class MatchData {
 		return type == TYPE_VERBOSE;
 	}
 
+	/**
+	 * Returns a string representation of this data.  This is what the
+	 * results table sorts on.
+	 *
+	 * @return A string representation of this data.
+	 */
+	@Override
+	public String toString() {
+		return lineText!=null ? lineText : (fileName + ":" + getLineNumber());
+	}
+
 }
\ No newline at end of file
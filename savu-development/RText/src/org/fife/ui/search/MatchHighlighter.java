@@ -0,0 +1,605 @@
+/*
+ * 10/17/2026
+ *
+ * MatchHighlighter.java - Creates the syntax highlighted text of matched
+ * lines in a Find in Files table, on demand.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+import javax.swing.text.Segment;
+
+import org.fife.rtext.AbstractMainView;
+import org.fife.rtext.Savu;
+import org.fife.ui.rsyntaxtextarea.Style;
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.fife.ui.rsyntaxtextarea.SyntaxScheme;
+import org.fife.ui.rsyntaxtextarea.Token;
+import org.fife.ui.rsyntaxtextarea.TokenMaker;
+import org.fife.ui.rsyntaxtextarea.TokenMakerFactory;
+import org.fife.ui.rsyntaxtextarea.TokenTypes;
+
+
+/**
+ * Creates the HTML displayed for a matched line in a
+ * {@link FindInFilesTable}.  Search results only record where a match was
+ * found (see {@link MatchData}); the line's text is re-read and highlighted
+ * here, only when its row is actually painted.<p>
+ *
+ * Files are read and lines highlighted on a background thread, so painting
+ * the table never waits on the disk.  Until a line's HTML is ready,
+ * {@link #getHtml(MatchData)} returns <code>null</code>; listeners added
+ * via {@link #addChangeListener(ChangeListener)} are notified on the EDT as
+ * lines become available.<p>
+ *
+ * Lines are tokenized directly with a <code>TokenMaker</code> and colored
+ * from the application's <code>SyntaxScheme</code>, so no text component
+ * is involved.  Each line is tokenized starting in the state the previous
+ * line ended in, computed with <code>getLastTokenTypeOnLine()</code>, so
+ * matches inside multi-line strings and comments are colored as they are
+ * in the editor.  The end states of the last file read are kept, along with
+ * its text, since neighboring rows are usually from the same file.  The
+ * resulting HTML is kept in a bounded, least recently used cache keyed by
+ * file and line, so scrolling back and forth through the results doesn't
+ * redo the work.<p>
+ *
+ * Other than the background work, this class should only be used on the
+ * EDT.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+class MatchHighlighter {
+
+	/**
+	 * The maximum number of lines whose HTML is cached.
+	 */
+	static final int MAX_CACHE_SIZE = 1000;
+
+	/**
+	 * HTML rendering in Swing is very slow, and we've also seen OOME's from
+	 * trying render lines that were too long in the Find in Files table, so
+	 * we'll limit how much we display.
+	 */
+	private static final int MAX_LENGTH = 1280;
+
+	private Savu owner;
+	private String multiLineMatchString;
+	private SyntaxScheme scheme;
+	private Map<Key, String> cache;
+	private Set<Key> pending;
+	private EventListenerList listeners;
+	private ExecutorService executor;
+
+	/**
+	 * Incremented whenever cached HTML becomes stale, so HTML created for
+	 * an earlier generation is thrown away.  Only changed on the EDT.
+	 */
+	private volatile int generation;
+
+	/**
+	 * Lines whose HTML the background thread has created, waiting to be
+	 * added to the cache on the EDT.  Access is synchronized on this list.
+	 */
+	private List<Result> results;
+
+	// Only used by the background thread.
+	private Map<String, TokenMaker> tokenMakers;
+	private FileScanner scanner;
+	private String scannedFile;
+	private long scannedFileModified;
+	private int scannedGeneration;
+	private int[] lineEndStates;
+	private int lineEndStateCount;
+	private Segment seg;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param owner The application.  This is used to determine each file's
+	 *        syntax style and the colors to use.  If this is
+	 *        <code>null</code>, files are not highlighted.
+	 * @param multiLineMatchString Text appended to matches that span
+	 *        multiple lines.  This may be <code>null</code>.
+	 */
+	public MatchHighlighter(Savu owner, String multiLineMatchString) {
+		this.owner = owner;
+		this.multiLineMatchString = multiLineMatchString;
+		cache = new LinkedHashMap<Key, String>(64, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, String> e) {
+				return size()>MAX_CACHE_SIZE;
+			}
+		};
+		pending = new HashSet<Key>();
+		listeners = new EventListenerList();
+		results = new ArrayList<Result>();
+		tokenMakers = new HashMap<String, TokenMaker>();
+		seg = new Segment();
+	}
+
+
+	/**
+	 * Adds a listener notified, on the EDT, when the HTML of lines that
+	 * weren't ready has been created.
+	 *
+	 * @param l The listener to add.
+	 * @see #removeChangeListener(ChangeListener)
+	 */
+	public void addChangeListener(ChangeListener l) {
+		listeners.add(ChangeListener.class, l);
+	}
+
+
+	/**
+	 * Appends the HTML for a token list, skipping leading whitespace.
+	 */
+	private static void appendHtml(Token t, SyntaxScheme scheme,
+			StringBuilder sb) {
+
+		boolean firstNonWhitespace = false; // Skip leading whitespace
+
+		while (t!=null && t.isPaintable() && sb.length()<MAX_LENGTH) {
+			if (firstNonWhitespace || (firstNonWhitespace |= !t.isWhitespace())) {
+				// Whitespace is only colored to show "visible whitespace."
+				Style style = t.isWhitespace() ? null :
+								getStyle(scheme, t.getType());
+				appendHtml(t, style, sb);
+			}
+			t = t.getNextToken();
+		}
+
+		if (sb.length()>=MAX_LENGTH) {
+			sb.append("...");
+		}
+
+	}
+
+
+	/**
+	 * Appends the HTML for a single token.
+	 */
+	private static void appendHtml(Token t, Style style, StringBuilder sb) {
+
+		Color fg = style!=null ? style.foreground : null;
+		Font font = style!=null ? style.font : null;
+		boolean bold = font!=null && font.isBold();
+		boolean italic = font!=null && font.isItalic();
+		boolean underline = style!=null && style.underline;
+
+		if (fg!=null) {
+			sb.append("<font color=\"#");
+			appendHex(fg.getRed(), sb);
+			appendHex(fg.getGreen(), sb);
+			appendHex(fg.getBlue(), sb);
+			sb.append("\">");
+		}
+		if (bold) {
+			sb.append("<b>");
+		}
+		if (italic) {
+			sb.append("<i>");
+		}
+		if (underline) {
+			sb.append("<u>");
+		}
+
+		char[] text = t.getTextArray();
+		int end = t.getTextOffset() + t.length();
+		boolean lastWasSpace = false;
+		for (int i=t.getTextOffset(); i<end; i++) {
+			char ch = text[i];
+			switch (ch) {
+				case ' ':
+					// Keep runs of spaces from collapsing.
+					sb.append(lastWasSpace ? "&nbsp;" : " ");
+					break;
+				case '\t':
+					sb.append("&nbsp;&nbsp;&nbsp;&nbsp;");
+					break;
+				case '<':
+					sb.append("&lt;");
+					break;
+				case '>':
+					sb.append("&gt;");
+					break;
+				case '&':
+					sb.append("&amp;");
+					break;
+				case '"':
+					sb.append("&quot;");
+					break;
+				default:
+					sb.append(ch);
+					break;
+			}
+			lastWasSpace = ch==' ';
+		}
+
+		if (underline) {
+			sb.append("</u>");
+		}
+		if (italic) {
+			sb.append("</i>");
+		}
+		if (bold) {
+			sb.append("</b>");
+		}
+		if (fg!=null) {
+			sb.append("</font>");
+		}
+
+	}
+
+
+	private static void appendHex(int value, StringBuilder sb) {
+		if (value<16) {
+			sb.append('0');
+		}
+		sb.append(Integer.toHexString(value));
+	}
+
+
+	/**
+	 * Forgets all cached lines.  This should be called when a new search
+	 * is started, since files may have changed since the last one.
+	 */
+	public void clear() {
+		cache.clear();
+		pending.clear();
+		generation++;
+	}
+
+
+	/**
+	 * Creates the HTML for a line.  This is called on the background
+	 * thread.
+	 */
+	private String createHtml(Request request) {
+
+		StringBuilder sb = new StringBuilder(
+						"<html><nobr><font face=\"Monospaced\">");
+
+		try {
+			FileScanner scanner = getScanner(request);
+			int line = request.key.line;
+			if (line<scanner.getLineCount()) {
+				TokenMaker tokenMaker = getTokenMaker(request.style);
+				int initialTokenType = getLineEndState(tokenMaker, line-1);
+				setSegment(line);
+				appendHtml(tokenMaker.getTokenList(seg, initialTokenType, 0),
+						request.scheme, sb);
+			}
+		} catch (IOException ioe) {
+			// The file was deleted, etc. since it was searched.
+		}
+
+		return sb.toString();
+
+	}
+
+
+	/**
+	 * Notifies listeners that the HTML of more lines is available.
+	 */
+	private void fireStateChanged() {
+		ChangeEvent e = new ChangeEvent(this);
+		ChangeListener[] list = listeners.getListeners(ChangeListener.class);
+		for (int i=list.length-1; i>=0; i--) {
+			list[i].stateChanged(e);
+		}
+	}
+
+
+	/**
+	 * Returns the HTML to display for a match.  If it hasn't been created
+	 * yet, it is created in the background, and listeners are notified when
+	 * it is ready.
+	 *
+	 * @param data The match.  This should be a "lazy" match.
+	 * @return The HTML, or <code>null</code> if it isn't ready yet.
+	 * @see MatchData#isLazy()
+	 * @see #addChangeListener(ChangeListener)
+	 */
+	public String getHtml(MatchData data) {
+
+		SyntaxScheme current = getSyntaxScheme();
+		if (current!=scheme) { // Colors changed, or first time through
+			clear();
+			scheme = current;
+		}
+
+		Key key = new Key(data.getFileName(), data.getLine());
+		String html = cache.get(key);
+		if (html==null) {
+			if (pending.add(key)) {
+				getExecutor().execute(new Request(key,
+							getSyntaxStyle(key.fileName), scheme, generation));
+			}
+			return null;
+		}
+
+		if (data.getEndLine()!=data.getLine() && multiLineMatchString!=null) {
+			html += " <em>" + multiLineMatchString + "</em>";
+		}
+		return html;
+
+	}
+
+
+	private ExecutorService getExecutor() {
+		if (executor==null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "MatchHighlighter");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+
+
+	/**
+	 * Returns the token type the scanned file's text is in at the end of a
+	 * line, computing the end states of the lines before it as needed.
+	 * This is called on the background thread.
+	 *
+	 * @param tokenMaker The token maker for the file.
+	 * @param line The line, or <code>-1</code> for the state at the start
+	 *        of the file.
+	 * @return The token type.
+	 */
+	private int getLineEndState(TokenMaker tokenMaker, int line) {
+		if (lineEndStates==null || lineEndStates.length<=line) {
+			int[] temp = new int[Math.max(line+1, lineEndStateCount*2)];
+			if (lineEndStates!=null) {
+				System.arraycopy(lineEndStates, 0, temp, 0,
+								lineEndStateCount);
+			}
+			lineEndStates = temp;
+		}
+		while (lineEndStateCount<=line) {
+			int prev = lineEndStateCount==0 ? TokenTypes.NULL :
+							lineEndStates[lineEndStateCount-1];
+			setSegment(lineEndStateCount);
+			lineEndStates[lineEndStateCount++] =
+							tokenMaker.getLastTokenTypeOnLine(seg, prev);
+		}
+		return line<0 ? TokenTypes.NULL : lineEndStates[line];
+	}
+
+
+	/**
+	 * Returns a scanner containing the contents of a file, reusing the
+	 * last one read if possible.  This is called on the background thread.
+	 */
+	private FileScanner getScanner(Request request) throws IOException {
+		String fileName = request.key.fileName;
+		File file = new File(fileName);
+		long modified = file.lastModified();
+		if (scanner==null) {
+			scanner = new FileScanner();
+		}
+		if (!fileName.equals(scannedFile) || modified!=scannedFileModified ||
+				request.generation!=scannedGeneration) {
+			scannedFile = null;
+			lineEndStateCount = 0;
+			scanner.read(file);
+			scannedFile = fileName;
+			scannedFileModified = modified;
+			scannedGeneration = request.generation;
+		}
+		return scanner;
+	}
+
+
+	private static Style getStyle(SyntaxScheme scheme, int type) {
+		return type>=0 && type<scheme.getStyleCount() ?
+				scheme.getStyle(type) : null;
+	}
+
+
+	private SyntaxScheme getSyntaxScheme() {
+		if (owner!=null) {
+			return owner.getSyntaxScheme();
+		}
+		return scheme!=null ? scheme : new SyntaxScheme(true);
+	}
+
+
+	private String getSyntaxStyle(String fileName) {
+		String style = SyntaxConstants.SYNTAX_STYLE_NONE;
+		AbstractMainView view = owner!=null ? owner.getMainView() : null;
+		if (view!=null) {
+			style = view.getSyntaxStyleForFile(new File(fileName).getName());
+		}
+		return style;
+	}
+
+
+	/**
+	 * Returns the token maker for a syntax style.  This is called on the
+	 * background thread.
+	 */
+	private TokenMaker getTokenMaker(String style) {
+		TokenMaker tokenMaker = tokenMakers.get(style);
+		if (tokenMaker==null) {
+			tokenMaker = TokenMakerFactory.getDefaultInstance().
+										getTokenMaker(style);
+			tokenMakers.put(style, tokenMaker);
+		}
+		return tokenMaker;
+	}
+
+
+	/**
+	 * Returns whether any lines' HTML is still being created.
+	 *
+	 * @return Whether lines are still being created.
+	 */
+	public boolean hasPendingLines() {
+		return !pending.isEmpty();
+	}
+
+
+	/**
+	 * Adds the lines created in the background to the cache, and lets
+	 * listeners know.  This is called on the EDT.
+	 */
+	private void publishResults() {
+		List<Result> done;
+		synchronized (results) {
+			done = new ArrayList<Result>(results);
+			results.clear();
+		}
+		boolean changed = false;
+		for (Result result : done) {
+			if (result.generation==generation) {
+				pending.remove(result.key);
+				cache.put(result.key, result.html);
+				changed = true;
+			}
+		}
+		if (changed) {
+			fireStateChanged();
+		}
+	}
+
+
+	/**
+	 * Removes a listener.
+	 *
+	 * @param l The listener to remove.
+	 * @see #addChangeListener(ChangeListener)
+	 */
+	public void removeChangeListener(ChangeListener l) {
+		listeners.remove(ChangeListener.class, l);
+	}
+
+
+	/**
+	 * Points {@link #seg} at a line of the scanned file.
+	 */
+	private void setSegment(int line) {
+		CharBuffer text = scanner.getText();
+		int start = scanner.getLineStartOffset(line);
+		seg.array = text.array();
+		seg.offset = text.arrayOffset() + start;
+		seg.count = scanner.getLineEndOffset(line) - start;
+	}
+
+
+	/**
+	 * A key into the cache.
+	 */
+	private static final class Key {
+
+		private String fileName;
+		private int line;
+
+		Key(String fileName, int line) {
+			this.fileName = fileName;
+			this.line = line;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o instanceof Key) {
+				Key key2 = (Key)o;
+				return line==key2.line && fileName.equals(key2.fileName);
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			return fileName.hashCode()*31 + line;
+		}
+
+	}
+
+
+	/**
+	 * A line whose HTML should be created in the background.  Everything
+	 * needed from the EDT is gathered when the request is made.
+	 */
+	private class Request implements Runnable {
+
+		private Key key;
+		private String style;
+		private SyntaxScheme scheme;
+		private int generation;
+
+		Request(Key key, String style, SyntaxScheme scheme, int generation) {
+			this.key = key;
+			this.style = style;
+			this.scheme = scheme;
+			this.generation = generation;
+		}
+
+		public void run() {
+			if (generation!=MatchHighlighter.this.generation) {
+				return; // A new search was started, etc.
+			}
+			Result result = new Result(key, createHtml(this), generation);
+			boolean first;
+			synchronized (results) {
+				first = results.isEmpty();
+				results.add(result);
+			}
+			if (first) { // Otherwise a publish is already queued
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						publishResults();
+					}
+				});
+			}
+		}
+
+	}
+
+
+	/**
+	 * The HTML created for a line.
+	 */
+	private static final class Result {
+
+		private Key key;
+		private String html;
+		private int generation;
+
+		Result(Key key, String html, int generation) {
+			this.key = key;
+			this.html = html;
+			this.generation = generation;
+		}
+
+	}
+
+
+}
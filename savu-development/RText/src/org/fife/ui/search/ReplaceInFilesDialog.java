@@ -31,6 +31,7 @@ import org.fife.ui.*;
 public class ReplaceInFilesDialog extends FindInFilesDialog {
 
 	private MaxWidthComboBox replaceCombo;
+	private JCheckBox previewCheckBox;
 
 
 	/**
@@ -61,6 +62,9 @@ public class ReplaceInFilesDialog extends FindInFilesDialog {
 		verboseCheckBox = new JCheckBox(getString2("Verbose"));
 		verboseCheckBox.setMnemonic((int)getString2("VerboseMnemonic").charAt(0));
 		panel.add(verboseCheckBox);
+		previewCheckBox = new JCheckBox(getString2("PreviewOnly"));
+		previewCheckBox.setMnemonic((int)getString2("PreviewOnlyMnemonic").charAt(0));
+		panel.add(previewCheckBox);
 		panel.add(Box.createVerticalGlue());
 
 		return panel;
@@ -158,6 +162,17 @@ public class ReplaceInFilesDialog extends FindInFilesDialog {
 	}
 
 
+	/**
+	 * Returns whether replacements should only be previewed, rather than
+	 * actually made.
+	 *
+	 * @return Whether to only preview replacements.
+	 */
+	public boolean getPreviewOnly() {
+		return previewCheckBox.isSelected();
+	}
+
+
 	/**
 	 * Returns the text to replace with.
 	 *
@@ -195,6 +210,7 @@ public class ReplaceInFilesDialog extends FindInFilesDialog {
 		super.setSearching(searching);
 		boolean enabled = !searching;
 		replaceCombo.setEnabled(enabled);
+		previewCheckBox.setEnabled(enabled);
 	}
 
 
@@ -11,8 +11,6 @@
 package org.fife.ui.search;
 
 import java.util.ResourceBundle;
-import java.util.Vector;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableColumnModel;
 
 /**
@@ -24,23 +22,6 @@ import javax.swing.table.TableColumnModel;
  */
 public class ReplaceInFilesTable extends FindInFilesTable {
 
-	/**
-	 * Return the vector of data to display in the table for a match data
-	 * instance.
-	 * 
-	 * @param fileName
-	 *            The (relative) filename.
-	 * @param data
-	 *            The match data.
-	 * @return The vector.
-	 */
-	protected Vector createMatchDataVector(String fileName, MatchData data) {
-		Vector v = new Vector(2);
-		v.add(fileName);
-		v.add(data.getLineText());
-		return v;
-	}
-
 	/**
 	 * Returns the table model to use.
 	 * 
@@ -48,11 +29,12 @@ public class ReplaceInFilesTable extends FindInFilesTable {
 	 *            The resource bundle.
 	 * @return The table model.
 	 */
-	protected DefaultTableModel createTableModel(ResourceBundle msg) {
-		DefaultTableModel model = new DefaultTableModel();
-		model.addColumn(msg.getString("FindInFiles.Column.File"));
-		model.addColumn(msg.getString("ReplaceInFiles.Column.Replacement"));
-		return model;
+	protected FindInFilesTableModel createTableModel(ResourceBundle msg) {
+		String[] names = { msg.getString("FindInFiles.Column.File"),
+				msg.getString("ReplaceInFiles.Column.Replacement") };
+		int[] kinds = { FindInFilesTableModel.COLUMN_FILE,
+				FindInFilesTableModel.COLUMN_TEXT };
+		return new FindInFilesTableModel(names, kinds);
 	}
 
 	/**
@@ -10,22 +10,65 @@
 package org.fife.ui.search;
 
 import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.regex.*;
 
 import org.fife.io.*;
 import org.fife.rsta.ui.search.FindDialog;
-import org.fife.ui.rtextarea.SearchEngine;
 
 /**
  * A thread created by a <code>ReplaceInFilesDialog</code> to do the replacing.
+ * <p>
+ * 
+ * Files are processed in parallel by the {@link FindInFilesEngine}. Each
+ * file's text is decoded once into a reused buffer, and the new contents are
+ * streamed to a temporary file in the same directory as the original, which
+ * is then atomically renamed over it. Thus a crash or I/O error part way
+ * through never leaves a file half-written. Files with no matches are never
+ * written at all.
+ * <p>
+ * 
+ * Since each file is decoded into memory in full, and a regular expression
+ * can't be matched against a file a piece at a time, files larger than
+ * {@link #MAX_FILE_SIZE} are reported as errors and left alone.
+ * <p>
+ * 
+ * In "preview" mode, no files are changed; instead, the number of
+ * replacements that would be made in each file is reported, along with a
+ * short before/after snippet for the first few of them.
  * 
  * @author Robert Futrell
  * @version 1.0
  */
 class ReplaceInFilesThread extends FindInFilesThread {
 
+	private String replaceString;
+	private boolean previewOnly;
+	private String previewOccurrencesString;
+	private String previewLineString;
+
+	/**
+	 * The maximum number of replacements to show snippets of, per file, in
+	 * preview mode.
+	 */
+	private static final int MAX_PREVIEWS_PER_FILE = 5;
+
+	/**
+	 * The maximum number of characters of context shown on either side of a
+	 * replacement in preview mode.
+	 */
+	private static final int PREVIEW_CONTEXT = 30;
+
+	/**
+	 * The largest file, in bytes, that replacements are made (or previewed)
+	 * in.
+	 */
+	static final long MAX_FILE_SIZE = 32 * 1024 * 1024;
+
 	/**
 	 * Constructor.
 	 * 
@@ -36,6 +79,37 @@ class ReplaceInFilesThread extends FindInFilesThread {
 	 */
 	public ReplaceInFilesThread(FindInFilesDialog dialog, File directory) {
 		super(dialog, directory);
+		previewOccurrencesString = dialog.getString2("PreviewOccurrences");
+		previewLineString = dialog.getString2("PreviewLine");
+	}
+
+	/**
+	 * Appends text to an HTML snippet, escaping it and flattening newlines.
+	 */
+	private static void appendEscaped(StringBuilder sb, CharSequence text,
+			int start, int end) {
+		for (int i = start; i < end; i++) {
+			char ch = text.charAt(i);
+			switch (ch) {
+			case '<':
+				sb.append("&lt;");
+				break;
+			case '>':
+				sb.append("&gt;");
+				break;
+			case '&':
+				sb.append("&amp;");
+				break;
+			case '\r':
+			case '\n':
+			case '\t':
+				sb.append(' ');
+				break;
+			default:
+				sb.append(ch);
+				break;
+			}
+		}
 	}
 
 	/**
@@ -44,7 +118,7 @@ class ReplaceInFilesThread extends FindInFilesThread {
 	public Object construct() {
 
 		// Get the string to search for and filters for the files to search.
-		String searchString = dialog.getSearchString();
+		searchString = dialog.getSearchString();
 		Pattern[] filterStrings = getFilterStrings();
 		if (filterStrings == null) {
 			dialog.searchCompleted("");
@@ -53,289 +127,317 @@ class ReplaceInFilesThread extends FindInFilesThread {
 
 		// Then, do the search.
 		dialog.clearSearchResults();
-		File[] files = directory.listFiles();
-		List fileList = new ArrayList();
-		fileList.addAll(Arrays.asList(files));
-
-		boolean checkSubfolders = dialog.getCheckSubfolders();
-		boolean matchCase = dialog.getMatchCase();
-		boolean wholeWord = dialog.getMatchWholeWord();
-		boolean useRegex = dialog.getUseRegEx();
-		boolean doVerboseOutput = dialog.getDoVerboseOutput();
-		String replaceString = ((ReplaceInFilesDialog) dialog)
-				.getReplaceString();
-		String searchingFile = dialog.getString2("SearchingFile");
-
-		if (!useRegex && !matchCase)
+		initSearchOptions();
+		ReplaceInFilesDialog rifd = (ReplaceInFilesDialog) dialog;
+		replaceString = rifd.getReplaceString();
+		previewOnly = rifd.getPreviewOnly();
+
+		if (useRegex) {
+			int flags = matchCase ? 0
+					: (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+			pattern = Pattern.compile(searchString, flags);
+		} else if (!matchCase) {
 			searchString = searchString.toLowerCase();
+		}
 
-		long startMillis = System.currentTimeMillis();
-		StringBuffer sb = new StringBuffer();
-		char[] buf = new char[4096];
-		StringBuffer replaceSB = new StringBuffer();
-
-		// Keep looping while there are more files to search.
-		int numFiles = fileList.size();
-		for (int i = 0; i < numFiles; i++) {
-
-			// If the user canceled the search...
-			if (Thread.currentThread().isInterrupted()) {
-				dialog.searchCompleted(dialog.getString2("SearchTerminated"));
-				return null;
-			}
-
-			File temp = (File) fileList.get(i);
-			String fileFullPath = temp.getAbsolutePath();
-
-			// If temp is a regular file (i.e., non-directory) AND exists...
-			if (temp.isFile()) {
-
-				// If the file doesn't match one of the filters from
-				// "In files:", skip it.
-				if (isFilteredOut(temp.getName(), filterStrings)) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(fileFullPath,
-								verboseNoFiltMatchString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
-
-				// Display the file we're searching in the status bar.
-				// Note that this method postpones the update to the EDT.
-				dialog.setStatusText(searchingFile + i + "/" + numFiles + ": "
-						+ fileFullPath);
-				String encoding = null;
-
-				try {
-					// Use a UnicodeReader to auto-detect whether this
-					// is a Unicode file.
-					// FIXME: Allow the user to specify the default
-					// encoding, instead of assuming system default,
-					// somehow.
-					UnicodeReader ur = new UnicodeReader(temp);
-					encoding = ur.getEncoding();
-					Reader r = new BufferedReader(ur);
-					try {
-						int count = 0;
-						sb.setLength(0);
-						while ((count = r.read(buf)) != -1) {
-							sb.append(buf, 0, count);
-						}
-					} finally {
-						r.close();
-					}
-				} catch (IOException ioe) {
-					MatchData data = createErrorMatchData(fileFullPath,
-							"IOException reading file: " + ioe);
-					dialog.addMatchData(data);
-					continue;
-				} catch (OutOfMemoryError oome) {
-					MatchData data = createErrorMatchData(fileFullPath,
-							"OutOfMemoryError");
-					dialog.addMatchData(data);
-					// Bail out.
-					dialog.searchCompleted(System.currentTimeMillis()
-							- startMillis);
-					return null;
-				}
-
-				// If we got some text out of the file...
-				if (sb.length() > 0) {
-
-					try {
-
-						int repCount = 0;
-						replaceSB.setLength(0);
-
-						if (useRegex) {
-							repCount = doSearchRegex(sb, searchString,
-									replaceString, matchCase, wholeWord,
-									fileFullPath, replaceSB);
-						} else {
-							repCount = doSearchNoRegex(sb, searchString,
-									replaceString, matchCase, wholeWord,
-									fileFullPath, replaceSB);
-						}
-
-						// If text was replaced, rewrite the file with
-						// its new contents.
-						if (repCount > 0) {
-
-							PrintWriter w = new PrintWriter(new BufferedWriter(
-									new UnicodeWriter(fileFullPath, encoding)));
-							w.print(replaceSB.toString());
-							w.close();
-
-							String text = MessageFormat.format(
-									occurrencesString,
-									new Object[] { new Integer(repCount) });
-							MatchData data = new MatchData(fileFullPath,
-									NO_LINE_NUMBER, text);
-							dialog.addMatchData(data);
-
-						} else if (doVerboseOutput) { // repCount==0
-							String text = MessageFormat.format(
-									occurrencesString,
-									new Object[] { new Integer(repCount) });
-							MatchData data = createVerboseMatchData(
-									fileFullPath, text);
-							dialog.addMatchData(data);
-						}
-
-					} catch (/* IO */Exception ioe) {
-						ioe.printStackTrace();
-						String desc = ioe.getMessage();
-						MatchData data = createErrorMatchData(fileFullPath,
-								desc);
-						dialog.addMatchData(data);
-					}
+		runSearch(filterStrings);
+		return null;
 
-				}
+	}
 
-			} // End of if (temp.isFile()).
+	/**
+	 * Creates a row previewing a single replacement.
+	 */
+	private MatchData createPreviewMatchData(FileScanner scanner,
+			String fileFullPath, int start, int end, String replacement) {
+
+		CharBuffer text = scanner.getText();
+		int line = scanner.getLineOfOffset(start);
+		int lineStart = scanner.getLineStartOffset(line);
+		int endLine = scanner.getLineOfOffset(end);
+		int lineEnd = scanner.getLineEndOffset(endLine);
+		int before = Math.max(lineStart, start - PREVIEW_CONTEXT);
+		int after = Math.min(lineEnd, end + PREVIEW_CONTEXT);
+
+		StringBuilder sb = new StringBuilder("<html><nobr>");
+		sb.append(MessageFormat.format(previewLineString,
+				new Object[] { Integer.toString(line + 1) }));
+		sb.append(' ');
+		if (before > lineStart) {
+			sb.append("...");
+		}
+		appendEscaped(sb, text, before, start);
+		sb.append("<strike>");
+		appendEscaped(sb, text, start, Math.min(end, start + 2
+				* PREVIEW_CONTEXT));
+		sb.append("</strike><b>");
+		appendEscaped(sb, replacement, 0, Math.min(replacement.length(),
+				2 * PREVIEW_CONTEXT));
+		sb.append("</b>");
+		appendEscaped(sb, text, Math.max(end, after - PREVIEW_CONTEXT), after);
+		if (after < lineEnd) {
+			sb.append("...");
+		}
 
-			// Otherwise, if the file is a directory...
-			else if (temp.isDirectory()) {
+		return new MatchData(fileFullPath, Integer.toString(line + 1), sb
+				.toString());
 
-				// Ignore this (sub)directory if the user doesn't want
-				// to search subdirectories.
-				if (!checkSubfolders) {
-					if (doVerboseOutput) {
-						MatchData data = createVerboseMatchData(fileFullPath,
-								dontSearchSubfoldersString);
-						dialog.addMatchData(data);
-					}
-					continue;
-				}
+	}
 
-				// Add any files in this subdirectory to the master list
-				// of files to search.
-				List moreFilesList = getFilesFromDirectory(temp);
-				int count = moreFilesList == null ? 0 : moreFilesList.size();
-				if (count > 0) {
-					fileList.addAll(moreFilesList);
-					numFiles += count;
-				}
-				if (doVerboseOutput) {
-					MatchData data = createVerboseMatchData(fileFullPath,
-							newFilesToExamineString + ": " + count);
-					dialog.addMatchData(data);
-				}
+	/**
+	 * Overridden to not memory-map files that may be replaced.
+	 * 
+	 * @return The scanner.
+	 */
+	protected FileScanner createScanner() {
+		FileScanner scanner = super.createScanner();
+		scanner.setMapLargeFiles(previewOnly);
+		return scanner;
+	}
 
-			} // End of else if (temp.isDirectory()).
+	/**
+	 * Returns whether this thread only previews replacements rather than
+	 * actually making them.
+	 * 
+	 * @return Whether this is a preview.
+	 */
+	public boolean isPreviewOnly() {
+		return previewOnly;
+	}
 
-		} // End of for (int i=0; i<numFiles; i++).
+	/**
+	 * Replaces a file with a temporary file, as atomically as the file
+	 * system allows.
+	 * 
+	 * @param temp
+	 *            The temporary file, in the same directory as
+	 *            <code>target</code>.
+	 * @param target
+	 *            The file to replace.
+	 * @throws IOException
+	 *             If an I/O error occurs.
+	 */
+	private static void replaceFile(Path temp, Path target)
+			throws IOException {
+
+		// Files.createTempFile() creates files only the owner can access.
+		try {
+			Set<PosixFilePermission> perms = Files
+					.getPosixFilePermissions(target);
+			Files.setPosixFilePermissions(temp, perms);
+		} catch (UnsupportedOperationException uoe) {
+			// Not a POSIX file system (e.g. Windows).
+		}
 
-		dialog.searchCompleted(System.currentTimeMillis() - startMillis);
-		return null;
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException amnse) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
 
 	}
 
 	/**
-	 * Performs a non-regex "Find in Files" operation on a single file.
+	 * Does the replacing in a single file. This is called on one of the
+	 * engine's worker threads, so it may run concurrently with other calls.
 	 * 
-	 * @return The number of replacements.
+	 * @param file
+	 *            The file to do replacements in.
+	 * @return A single entry describing the number of replacements made (and
+	 *         in preview mode, snippets of the first few replacements), or
+	 *         an empty list if nothing was replaced and verbose output is
+	 *         disabled.
+	 * @throws IOException
+	 *             If an error occurs reading the file.
 	 */
-	private static final int doSearchNoRegex(CharSequence sb,
-			String searchString, String replaceString, boolean matchCase,
-			boolean wholeWord, String fileFullPath, StringBuffer replaceSB) {
+	public List<MatchData> searchFile(File file) throws IOException {
 
-		String origBuffer = sb.toString();
-		String buffer = origBuffer;
+		String fileFullPath = file.getAbsolutePath();
+		List<MatchData> results = new ArrayList<MatchData>(1);
 
-		// If search is not case-sensitive, lower-case text to search in
-		// (searchString is already done).
-		if (!matchCase) {
-			buffer = buffer.toLowerCase();
+		long size = file.length();
+		if (size > MAX_FILE_SIZE) {
+			throw new IOException("File too large to replace in (" + size
+					+ " bytes): " + fileFullPath);
 		}
 
-		// Some stuff we'll use below.
-		int i = 0;
-		int start = 0;
-		int len = searchString.length();
-		int numMatches = 0;
-
-		// Loop through all matches in the file.
-		while ((i = buffer.indexOf(searchString, i)) != -1) {
-
-			// If we found a match...
-			if (!wholeWord || FindDialog.isWholeWord(buffer, i, len)) {
+		// FIXME: Allow the user to specify the default encoding, instead of
+		// assuming system default, somehow.
+		FileScanner scanner = getScanner();
+		scanner.read(file);
+		if (scanner.isBinary()) {
+			if (doVerboseOutput) {
+				results.add(createVerboseMatchData(fileFullPath,
+										verboseBinaryFileString));
+			}
+			return results;
+		}
 
-				replaceSB.append(origBuffer.substring(start, i));
-				replaceSB.append(replaceString);
+		// If we got some text out of the file...
+		if (scanner.getText().length() > 0) {
+
+			try {
+
+				int repCount = replace(scanner, file, results);
+
+				String text = null;
+				if (repCount > 0) {
+					String format = previewOnly ? previewOccurrencesString
+							: occurrencesString;
+					text = MessageFormat.format(format,
+							new Object[] { new Integer(repCount) });
+					results.add(0, new MatchData(fileFullPath,
+							NO_LINE_NUMBER, text));
+				} else if (doVerboseOutput) { // repCount==0
+					text = MessageFormat.format(occurrencesString,
+							new Object[] { new Integer(repCount) });
+					results.add(createVerboseMatchData(fileFullPath, text));
+				}
 
-				numMatches++;
-				i += len;
-				start = i;
-
-				// We found a potential match, but "whole word" is enabled
-				// and this match isn't "whole word."
-			} else {
-				// We could probably say "i += len" and get away with it,
-				// but it is possible for someone to search "whole word"
-				// for strings with spaces in them, in which case we
-				// should simply increment (for example, searching for
-				// "a a " in "ba a a ").
-				i++;
+			} catch (/* IO */Exception ioe) {
+				ioe.printStackTrace();
+				String desc = ioe.getMessage();
+				MatchData data = createErrorMatchData(fileFullPath, desc);
+				results.clear();
+				results.add(data);
 			}
 
 		}
 
-		// Any characters at the end.
-		if (start != buffer.length()) {
-			replaceSB.append(origBuffer.substring(start, buffer.length()));
-		}
-
-		return numMatches;
+		return results;
 
 	}
 
 	/**
-	 * Performs a regex "Find in Files" operation on a single file.
+	 * Finds all matches in a file and either streams the file's new
+	 * contents to disk, or (in preview mode) records snippets of the first
+	 * few replacements.
 	 * 
+	 * @param scanner
+	 *            The scanner containing the file's text.
+	 * @param file
+	 *            The file.
+	 * @param results
+	 *            Preview rows are added here.
 	 * @return The number of replacements.
+	 * @throws IOException
+	 *             If an I/O error occurs.
 	 */
-	private static final int doSearchRegex(StringBuffer sb,
-			String searchString, String replaceString, boolean matchCase,
-			boolean wholeWord, String fileFullPath, StringBuffer replaceSB) {
-
+	private int replace(FileScanner scanner, File file,
+			List<MatchData> results) throws IOException {
+
+		CharBuffer text = scanner.getText();
+		char[] array = text.array(); // Scanners always use heap buffers
+		int arrayOffset = text.arrayOffset();
+		String fileFullPath = file.getAbsolutePath();
+
+		Writer w = null;
+		Path temp = null;
+		Path target = null;
+		boolean success = false;
 		int numMatches = 0;
-
-		// Create a Matcher to find the text we're looking for.
-		int flags = matchCase ? 0
-				: (Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
-		Pattern pattern = Pattern.compile(searchString, flags);
-		Matcher m = pattern.matcher(sb);
 		int lastEnd = 0;
 
-		// Loop through all matches.
-		// NOTE: Instead of using m.replaceAll() (and thus
-		// m.appendReplacement() and m.appendTail()), we do this
-		// ourselves since we have our own method of getting the
-		// "replacement text" which converts "\n" to newlines and
-		// "\t" to tabs.
-		while (m.find()) {
-
-			int start = m.start();
-			int end = m.end();
-
-			// If we found a match...
-			if (!wholeWord || FindDialog.isWholeWord(sb, start, end - start)) {
-				replaceSB.append(sb.substring(lastEnd, m.start()));
-				replaceSB.append(WrappingSearchEngine.getReplacementText(m,
-						replaceString));
-				lastEnd = m.end();
+		try {
+
+			Matcher m = useRegex ? pattern.matcher(text) : null;
+			char[] searchFor = useRegex ? null : searchString.toCharArray();
+			int i = 0;
+
+			while (true) {
+
+				// Find the next match.
+				int start;
+				int end;
+				String replacement;
+				if (useRegex) {
+					// NOTE: Instead of using m.replaceAll() (and thus
+					// m.appendReplacement() and m.appendTail()), we do
+					// this ourselves since we have our own method of getting
+					// the "replacement text" which converts "\n" to
+					// newlines and "\t" to tabs.
+					if (!m.find()) {
+						break;
+					}
+					start = m.start();
+					end = m.end();
+					if (wholeWord
+							&& !FindDialog.isWholeWord(text, start, end
+									- start)) {
+						continue;
+					}
+					replacement = WrappingSearchEngine.getReplacementText(m,
+							replaceString);
+				} else {
+					i = scanner.indexOf(searchFor, i, matchCase);
+					if (i == -1) {
+						break;
+					}
+					if (wholeWord
+							&& !FindDialog.isWholeWord(text, i,
+									searchFor.length)) {
+						// It is possible for someone to search "whole
+						// word" for strings with spaces in them, so we
+						// can't simply skip the whole match (for example,
+						// searching for "a a " in "ba a a ").
+						i++;
+						continue;
+					}
+					start = i;
+					end = i = i + searchFor.length;
+					replacement = replaceString;
+				}
+
 				numMatches++;
+
+				if (previewOnly) {
+					if (numMatches <= MAX_PREVIEWS_PER_FILE) {
+						results.add(createPreviewMatchData(scanner,
+								fileFullPath, start, end, replacement));
+					}
+					continue;
+				}
+
+				// Only create the new file once there is something to
+				// replace.
+				if (w == null) {
+					target = file.toPath().toRealPath();
+					temp = Files.createTempFile(target.getParent(), "."
+							+ target.getFileName() + ".", ".tmp");
+					w = new BufferedWriter(new UnicodeWriter(
+							Files.newOutputStream(temp), scanner.getCharset()
+									.name()));
+				}
+				w.write(array, arrayOffset + lastEnd, start - lastEnd);
+				w.write(replacement);
+				lastEnd = end;
+
 			}
 
-		} // End of while (m.find())
+			if (w != null) {
+				// Any text at the end.
+				w.write(array, arrayOffset + lastEnd, text.limit() - lastEnd);
+				w.close();
+				w = null;
+				replaceFile(temp, target);
+			}
+			success = true;
 
-		// Any text at the end.
-		replaceSB.append(sb.substring(lastEnd));
+		} finally {
+			if (w != null) {
+				try {
+					w.close();
+				} catch (IOException ioe) {
+					// Already failing; report the original error.
+				}
+			}
+			if (!success && temp != null) {
+				Files.deleteIfExists(temp);
+			}
+		}
 
 		return numMatches;
 
 	}
 
-}
\ No newline at end of file
+}
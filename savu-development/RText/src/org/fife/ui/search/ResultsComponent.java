@@ -9,6 +9,8 @@
  */
 package org.fife.ui.search;
 
+import java.util.List;
+
 /**
  * Interface that identifies a component that displays search or replace
  * information in a <code>FindInFilesDialog</code> or
@@ -32,6 +34,19 @@ interface ResultsComponent {
 	 */
 	public void addMatchData(MatchData matchData, String dirName);
 
+	/**
+	 * Adds data on several matches to the component at once.
+	 * 
+	 * @param matchData
+	 *            The data.
+	 * @param dirName
+	 *            The "root directory" searching was done in. This is used so
+	 *            all file paths displayed in are abbreviated to be relative to
+	 *            this directory.
+	 * @see #addMatchData(MatchData, String)
+	 */
+	public void addMatchData(List<MatchData> matchData, String dirName);
+
 	/**
 	 * Clears all match results from the table.
 	 * 
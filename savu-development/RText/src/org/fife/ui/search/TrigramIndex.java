@@ -0,0 +1,804 @@
+/*
+ * 10/17/2026
+ *
+ * TrigramIndex.java - Persistent index used to narrow Find in Files searches.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.fife.io.IgnoreRules;
+import org.fife.io.UnicodeReader;
+import org.fife.rtext.RTextUtilities;
+
+
+/**
+ * An on-disk index of the trigrams (three-character sequences) in every
+ * text file under a set of root directories, typically the folders in the
+ * Project plugin's workspace.  Find in Files uses it to skip files that
+ * cannot possibly contain the search string, so only a handful of files
+ * have to be read and matched exactly.<p>
+ *
+ * For each file, the index keeps its last-modified time, size, and a Bloom
+ * filter of its case-folded trigrams.  A Bloom filter can give false
+ * positives but never false negatives, so the index can only ever make a
+ * search do <em>less</em> work; every candidate is still searched normally.
+ * Files whose size or modification time no longer match the index, as well
+ * as files outside of the indexed roots, are always searched.  The index is
+ * brought up to date incrementally, on a background thread, re-reading only
+ * those files that changed.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class TrigramIndex {
+
+	private File indexFile;
+	private List<File> roots;
+	private volatile Map<String, FileRecord> records;
+	private ExecutorService updater;
+	private AtomicBoolean updatePending;
+	private Object updateLock;
+
+	private static TrigramIndex sharedInstance;
+
+	private static final int VERSION				= 1;
+	private static final String INDEX_FILE_NAME	= "findInFiles.idx";
+
+	/**
+	 * Files larger than this are not indexed (and so are always searched).
+	 */
+	private static final long MAX_FILE_SIZE			= 4 * 1024 * 1024;
+
+	/**
+	 * Bloom filter bits per distinct trigram, and the number of hash
+	 * functions.  8 bits and 3 hashes gives about a 3% false positive rate
+	 * per trigram; a query with several trigrams does much better.
+	 */
+	private static final int BITS_PER_TRIGRAM		= 8;
+	private static final int HASH_COUNT				= 3;
+	private static final int MIN_BITS				= 64;
+	private static final int MAX_BITS				= 1 << 16;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param indexFile The file the index is persisted to.
+	 */
+	public TrigramIndex(File indexFile) {
+		this.indexFile = indexFile;
+		roots = new ArrayList<File>(0);
+		updatePending = new AtomicBoolean();
+		updateLock = new Object();
+		updater = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "FindInFilesIndexer");
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			}
+		});
+	}
+
+
+	/**
+	 * Adds the folded trigrams of a string to a set.
+	 */
+	private static void addTrigrams(String str, LongHashSet set) {
+		int len = str.length();
+		for (int i=0; i+2<len; i++) {
+			set.add(trigram(fold(str.charAt(i)), fold(str.charAt(i+1)),
+							fold(str.charAt(i+2))));
+		}
+	}
+
+
+	/**
+	 * Creates the Bloom filter for a set of trigrams.
+	 */
+	private static long[] createBloomFilter(LongHashSet trigrams) {
+		int bits = MIN_BITS;
+		int wanted = trigrams.size() * BITS_PER_TRIGRAM;
+		while (bits<wanted && bits<MAX_BITS) {
+			bits <<= 1;
+		}
+		long[] bloom = new long[bits>>>6];
+		long[] values = trigrams.toArray();
+		for (int i=0; i<values.length; i++) {
+			long h = mix(values[i]);
+			int h1 = (int)h;
+			int h2 = (int)(h>>>32) | 1;
+			for (int j=0; j<HASH_COUNT; j++) {
+				int bit = (h1 + j*h2) & (bits-1);
+				bloom[bit>>>6] |= 1L << bit;
+			}
+		}
+		return bloom;
+	}
+
+
+	/**
+	 * Loads the index from disk, if that hasn't been done yet.
+	 */
+	private synchronized void ensureLoaded() {
+		if (records==null) {
+			Map<String, FileRecord> map = new HashMap<String, FileRecord>();
+			if (indexFile.isFile()) {
+				try {
+					map = load(indexFile);
+				} catch (IOException ioe) {
+					// Corrupt or from an incompatible version; rebuild it.
+					ioe.printStackTrace();
+				}
+			}
+			records = map;
+		}
+	}
+
+
+	/**
+	 * Folds a character's case the same way a
+	 * <code>CASE_INSENSITIVE|UNICODE_CASE</code> regex does, so that
+	 * case-insensitive searches can use the index too.
+	 */
+	private static char fold(char ch) {
+		return Character.toLowerCase(Character.toUpperCase(ch));
+	}
+
+
+	/**
+	 * Returns the trigrams every file containing a match must contain.
+	 *
+	 * @param searchString The text being searched for.
+	 * @param regex Whether <code>searchString</code> is a regular
+	 *        expression.
+	 * @return The trigrams, or <code>null</code> if the index can't help
+	 *         with this search (e.g. the search string is too short).
+	 */
+	public static long[] getQueryTrigrams(String searchString, boolean regex) {
+		LongHashSet set = new LongHashSet();
+		if (regex) {
+			for (String literal : getRequiredLiterals(searchString)) {
+				addTrigrams(literal, set);
+			}
+		}
+		else {
+			addTrigrams(searchString, set);
+		}
+		return set.size()==0 ? null : set.toArray();
+	}
+
+
+	/**
+	 * Returns literal substrings that any match of a regular expression
+	 * must contain.  This is deliberately conservative: anything we don't
+	 * fully understand (alternation, groups, classes, quantifiers, escapes
+	 * other than escaped punctuation) simply ends the current literal run,
+	 * and if we can't tell where a construct ends (inline flags,
+	 * <code>\Q...\E</code> quoting, unknown escapes), no literals are
+	 * returned at all, so the caller falls back to scanning every file.
+	 *
+	 * @param regex The regular expression.
+	 * @return The literals.  This may be empty.
+	 */
+	static List<String> getRequiredLiterals(String regex) {
+
+		List<String> literals = new ArrayList<String>();
+		if (regex.indexOf("(?")>-1 || // Inline flags, e.g. (?x), (?i)
+				regex.indexOf("\\Q")>-1) { // Quoting may hide metachars
+			return literals;
+		}
+
+		StringBuilder run = new StringBuilder();
+		int len = regex.length();
+		int i = 0;
+
+		while (i<len) {
+
+			char ch = regex.charAt(i);
+			boolean literal = false;
+			int next = i + 1;
+
+			switch (ch) {
+				case '\\':
+					if (next<len && !Character.isLetterOrDigit(
+												regex.charAt(next))) {
+						ch = regex.charAt(next++);
+						literal = true;
+					}
+					else { // \d, \w, \x41, \1, etc.
+						next = skipEscape(regex, i);
+						if (next==-1) {
+							literals.clear();
+							return literals;
+						}
+					}
+					break;
+				case '|':
+					// Top-level alternation; no literal is required.
+					literals.clear();
+					return literals;
+				case '[':
+					next = skipBracketed(regex, i, '[', ']');
+					break;
+				case '(':
+					next = skipBracketed(regex, i, '(', ')');
+					break;
+				case '{': // Quantifier, e.g. {1,4}
+					next = skipBracketed(regex, i, '{', '}');
+					break;
+				case '.': case '^': case '$': case '?': case '*':
+				case '+': case '}': case ')': case ']':
+					break;
+				default:
+					literal = true;
+					break;
+			}
+
+			if (literal) {
+				char quantifier = next<len ? regex.charAt(next) : 0;
+				if (quantifier=='?' || quantifier=='*' || quantifier=='{') {
+					// This char is optional.
+					flushLiteral(run, literals);
+				}
+				else {
+					run.append(ch);
+					if (quantifier=='+') {
+						flushLiteral(run, literals);
+					}
+				}
+			}
+			else {
+				flushLiteral(run, literals);
+			}
+
+			i = next;
+
+		}
+
+		flushLiteral(run, literals);
+		return literals;
+
+	}
+
+
+	/**
+	 * Returns the index shared by all Find in Files dialogs.  It is stored
+	 * in the Savu preferences directory.
+	 *
+	 * @return The shared index.
+	 */
+	public static synchronized TrigramIndex getSharedInstance() {
+		if (sharedInstance==null) {
+			File file = new File(RTextUtilities.getPreferencesDirectory(),
+								INDEX_FILE_NAME);
+			sharedInstance = new TrigramIndex(file);
+		}
+		return sharedInstance;
+	}
+
+
+	private static void flushLiteral(StringBuilder run, List<String> list) {
+		if (run.length()>0) {
+			list.add(run.toString());
+			run.setLength(0);
+		}
+	}
+
+
+	/**
+	 * Creates the index record for a single file.
+	 *
+	 * @return The record, or <code>null</code> if the file shouldn't be
+	 *         indexed (e.g. it looks binary).
+	 */
+	private static FileRecord indexFile(File file, BasicFileAttributes attrs)
+										throws IOException {
+
+		LongHashSet trigrams = new LongHashSet();
+		char[] buf = new char[8192];
+		char c1 = 0, c2 = 0;
+		int seen = 0;
+
+		Reader r = new BufferedReader(new UnicodeReader(file));
+		try {
+			int count;
+			while ((count=r.read(buf))!=-1) {
+				for (int i=0; i<count; i++) {
+					char ch = buf[i];
+					if (ch==0) {
+						return null; // Binary file
+					}
+					ch = fold(ch);
+					if (++seen>=3) {
+						trigrams.add(trigram(c1, c2, ch));
+					}
+					c1 = c2;
+					c2 = ch;
+				}
+			}
+		} finally {
+			r.close();
+		}
+
+		return new FileRecord(attrs.lastModifiedTime().toMillis(),
+						attrs.size(), createBloomFilter(trigrams));
+
+	}
+
+
+	/**
+	 * Returns whether this index has ever been built.
+	 *
+	 * @return Whether this index is available.
+	 */
+	public boolean isAvailable() {
+		ensureLoaded();
+		return !records.isEmpty();
+	}
+
+
+	private static Map<String, FileRecord> load(File file) throws IOException {
+		Map<String, FileRecord> map = new HashMap<String, FileRecord>();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+										new FileInputStream(file)));
+		try {
+			if (in.readInt()!=VERSION) {
+				return map;
+			}
+			int count = in.readInt();
+			for (int i=0; i<count; i++) {
+				String path = in.readUTF();
+				long lastModified = in.readLong();
+				long size = in.readLong();
+				long[] bloom = new long[in.readInt()];
+				for (int j=0; j<bloom.length; j++) {
+					bloom[j] = in.readLong();
+				}
+				map.put(path, new FileRecord(lastModified, size, bloom));
+			}
+		} finally {
+			in.close();
+		}
+		return map;
+	}
+
+
+	/**
+	 * Returns whether a file might contain a match.  This returns
+	 * <code>true</code> for any file that isn't in the index, or whose
+	 * indexed size or modification time is stale.
+	 *
+	 * @param file The file.
+	 * @param lastModified The file's current modification time.
+	 * @param size The file's current size.
+	 * @param trigrams The trigrams returned by
+	 *        {@link #getQueryTrigrams(String, boolean)}.
+	 * @return Whether the file must be searched.
+	 */
+	public boolean mayContain(File file, long lastModified, long size,
+							long[] trigrams) {
+
+		ensureLoaded();
+		FileRecord record = records.get(file.getAbsolutePath());
+		if (record==null || record.lastModified!=lastModified ||
+				record.size!=size) {
+			return true;
+		}
+
+		long[] bloom = record.bloom;
+		int bits = bloom.length << 6;
+		for (int i=0; i<trigrams.length; i++) {
+			long h = mix(trigrams[i]);
+			int h1 = (int)h;
+			int h2 = (int)(h>>>32) | 1;
+			for (int j=0; j<HASH_COUNT; j++) {
+				int bit = (h1 + j*h2) & (bits-1);
+				if ((bloom[bit>>>6] & (1L<<bit))==0) {
+					return false;
+				}
+			}
+		}
+		return true;
+
+	}
+
+
+	/**
+	 * A 64-bit finalizer (from MurmurHash3) used to spread trigram bits.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+
+	private void save(Map<String, FileRecord> map) throws IOException {
+
+		File dir = indexFile.getParentFile();
+		if (!dir.isDirectory()) {
+			dir.mkdirs();
+		}
+
+		// Write to a temp file and move it into place so a crash never
+		// leaves a half-written index behind.
+		File temp = new File(dir, indexFile.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+										new FileOutputStream(temp)));
+		try {
+			out.writeInt(VERSION);
+			out.writeInt(map.size());
+			for (Map.Entry<String, FileRecord> entry : map.entrySet()) {
+				FileRecord record = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeLong(record.lastModified);
+				out.writeLong(record.size);
+				out.writeInt(record.bloom.length);
+				for (int i=0; i<record.bloom.length; i++) {
+					out.writeLong(record.bloom[i]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		Files.move(temp.toPath(), indexFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+	}
+
+
+	/**
+	 * Schedules an incremental update of the index on a background thread.
+	 * If an update is already waiting to run, this method does nothing.
+	 */
+	public void scheduleUpdate() {
+		if (updatePending.compareAndSet(false, true)) {
+			updater.execute(new Runnable() {
+				public void run() {
+					updatePending.set(false);
+					try {
+						update();
+					} catch (IOException ioe) {
+						ioe.printStackTrace();
+					}
+				}
+			});
+		}
+	}
+
+
+	/**
+	 * Sets the root directories to index, and schedules an update if they
+	 * changed.
+	 *
+	 * @param roots The root directories.
+	 */
+	public void setRoots(List<File> roots) {
+		List<File> copy = new ArrayList<File>(roots);
+		synchronized (this) {
+			if (copy.equals(this.roots)) {
+				return;
+			}
+			this.roots = copy;
+		}
+		scheduleUpdate();
+	}
+
+
+	/**
+	 * Skips past a bracketed construct in a regex, honoring nesting and
+	 * escapes.
+	 *
+	 * @return The offset just past the closing bracket.
+	 */
+	private static int skipBracketed(String regex, int start, char open,
+									char close) {
+		int depth = 0;
+		int len = regex.length();
+		for (int i=start; i<len; i++) {
+			char ch = regex.charAt(i);
+			if (ch=='\\') {
+				i++;
+			}
+			else if (ch==open) {
+				depth++;
+			}
+			else if (ch==close && --depth==0) {
+				return i + 1;
+			}
+		}
+		return len;
+	}
+
+
+	/**
+	 * Returns the index just past an escape sequence that is not an escaped
+	 * literal, such as <code>\d</code>, <code>\x41</code> or
+	 * <code>\p{Alpha}</code>.
+	 *
+	 * @param regex The regular expression.
+	 * @param start The index of the escape's backslash.
+	 * @return The index just past the escape, or <code>-1</code> if the
+	 *         escape isn't one we know the extent of.
+	 */
+	private static int skipEscape(String regex, int start) {
+		int len = regex.length();
+		int i = start + 1;
+		if (i==len) {
+			return len;
+		}
+		char ch = regex.charAt(i++);
+		switch (ch) {
+			case 'x': // \xhh or \x{h...h}
+				if (i<len && regex.charAt(i)=='{') {
+					return skipBracketed(regex, i, '{', '}');
+				}
+				return Math.min(len, i+2);
+			case 'u': // Four hex digits
+				return Math.min(len, i+4);
+			case '0': // \0n, \0nn or \0mnn
+				int end = Math.min(len,
+								i + (i<len && regex.charAt(i)<='3' ? 3 : 2));
+				while (i<end && regex.charAt(i)>='0' &&
+						regex.charAt(i)<='7') {
+					i++;
+				}
+				return i;
+			case 'c': // \cX
+				return Math.min(len, i+1);
+			case 'p': case 'P': // \pL or \p{Alpha}
+			case 'N': // \N{name}
+				if (i<len && regex.charAt(i)=='{') {
+					return skipBracketed(regex, i, '{', '}');
+				}
+				return ch=='N' ? -1 : Math.min(len, i+1);
+			case 'k': // \k<name>
+				int gt = regex.indexOf('>', i);
+				return gt==-1 ? len : gt+1;
+			case 'd': case 'D': case 's': case 'S': case 'w': case 'W':
+			case 'h': case 'H': case 'v': case 'V': case 'b': case 'B':
+			case 'A': case 'z': case 'Z': case 'G': case 'R': case 'X':
+			case 't': case 'n': case 'r': case 'f': case 'a': case 'e':
+			case 'E':
+				return i;
+			default:
+				if (ch>='1' && ch<='9') { // Back reference, e.g. \12
+					while (i<len && Character.isDigit(regex.charAt(i))) {
+						i++;
+					}
+					return i;
+				}
+				return -1;
+		}
+	}
+
+
+	private static long trigram(char c1, char c2, char c3) {
+		return ((long)c1<<32) | ((long)c2<<16) | c3;
+	}
+
+
+	/**
+	 * Brings the index up to date with the file system.  Only files that
+	 * are new, or whose size or modification time changed, are read.  This
+	 * is normally called on a background thread via
+	 * {@link #scheduleUpdate()}.
+	 *
+	 * @throws IOException If an error occurs saving the index.
+	 */
+	public void update() throws IOException {
+		synchronized (updateLock) {
+			updateImpl();
+		}
+	}
+
+
+	private void updateImpl() throws IOException {
+
+		ensureLoaded();
+		final Map<String, FileRecord> old = records;
+		final Map<String, FileRecord> map = new HashMap<String, FileRecord>();
+		final boolean[] changed = { false };
+		List<File> roots;
+		synchronized (this) {
+			roots = this.roots;
+		}
+
+		// Skip the same files and folders Find in Files does.
+		final IgnoreRules ignoreRules = new IgnoreRules();
+		final Deque<IgnoreRules.DirectoryRules> dirRules =
+							new ArrayDeque<IgnoreRules.DirectoryRules>();
+
+		for (File root : roots) {
+			if (!root.isDirectory()) {
+				continue;
+			}
+			final Path top = root.toPath();
+			Files.walkFileTree(top, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir,
+								BasicFileAttributes attrs) {
+					if (!dirRules.isEmpty() && dirRules.peek().isIgnored(
+								dir.getFileName().toString(), true)) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					dirRules.push(ignoreRules.getRulesFor(dir, top));
+					return FileVisitResult.CONTINUE;
+				}
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir,
+										IOException ioe) {
+					dirRules.pop();
+					return FileVisitResult.CONTINUE;
+				}
+				@Override
+				public FileVisitResult visitFile(Path path,
+								BasicFileAttributes attrs) {
+					if (!attrs.isRegularFile() || attrs.size()>MAX_FILE_SIZE ||
+							dirRules.peek().isIgnored(
+								path.getFileName().toString(), false)) {
+						return FileVisitResult.CONTINUE;
+					}
+					File file = path.toFile();
+					String key = file.getAbsolutePath();
+					FileRecord record = old.get(key);
+					if (record==null || record.size!=attrs.size() ||
+						record.lastModified!=attrs.lastModifiedTime().toMillis()) {
+						try {
+							record = indexFile(file, attrs);
+						} catch (IOException ioe) {
+							record = null; // Will always be searched
+						}
+						changed[0] = true;
+					}
+					if (record!=null) {
+						map.put(key, record);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+				@Override
+				public FileVisitResult visitFileFailed(Path path,
+										IOException ioe) {
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+
+		if (changed[0] || map.size()!=old.size()) {
+			records = map;
+			save(map);
+		}
+
+	}
+
+
+	/**
+	 * The index data for a single file.
+	 */
+	private static final class FileRecord {
+
+		private long lastModified;
+		private long size;
+		private long[] bloom;
+
+		FileRecord(long lastModified, long size, long[] bloom) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.bloom = bloom;
+		}
+
+	}
+
+
+	/**
+	 * A minimal open-addressing set of <code>long</code>s, to avoid boxing
+	 * every trigram in a file.
+	 */
+	private static final class LongHashSet {
+
+		private long[] table;
+		private boolean hasZero;
+		private int size;
+
+		LongHashSet() {
+			table = new long[256];
+		}
+
+		void add(long value) {
+			if (value==0) {
+				if (!hasZero) {
+					hasZero = true;
+					size++;
+				}
+				return;
+			}
+			int mask = table.length - 1;
+			int i = (int)mix(value) & mask;
+			while (table[i]!=0) {
+				if (table[i]==value) {
+					return;
+				}
+				i = (i+1) & mask;
+			}
+			table[i] = value;
+			if (++size*2>table.length) {
+				rehash();
+			}
+		}
+
+		private void rehash() {
+			long[] old = table;
+			table = new long[old.length*2];
+			int mask = table.length - 1;
+			for (int j=0; j<old.length; j++) {
+				long value = old[j];
+				if (value!=0) {
+					int i = (int)mix(value) & mask;
+					while (table[i]!=0) {
+						i = (i+1) & mask;
+					}
+					table[i] = value;
+				}
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		long[] toArray() {
+			long[] values = new long[size];
+			int j = 0;
+			if (hasZero) {
+				values[j++] = 0;
+			}
+			for (int i=0; i<table.length; i++) {
+				if (table[i]!=0) {
+					values[j++] = table[i];
+				}
+			}
+			Arrays.sort(values);
+			return values;
+		}
+
+	}
+
+
+}
@@ -0,0 +1,116 @@
+/*
+ * 10/17/2026
+ *
+ * IgnoreRulesTest.java - Tests for IgnoreRules.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.io;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests which ignore files {@link IgnoreRules} applies to a directory.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class IgnoreRulesTest {
+
+	private Path parent;
+	private Path searched;
+
+
+	@Before
+	public void setUp() throws IOException {
+		parent = Files.createTempDirectory("IgnoreRulesTest");
+		searched = Files.createDirectory(parent.resolve("searched"));
+		Files.createDirectory(searched.resolve("sub"));
+		writeIgnoreFile(parent, "*.log");
+		writeIgnoreFile(searched, "*.tmp");
+	}
+
+
+	@After
+	public void tearDown() throws IOException {
+		delete(parent);
+	}
+
+
+	private static void delete(Path path) throws IOException {
+		if (Files.isDirectory(path)) {
+			DirectoryStream<Path> stream = Files.newDirectoryStream(path);
+			try {
+				for (Path child : stream) {
+					delete(child);
+				}
+			} finally {
+				stream.close();
+			}
+		}
+		Files.delete(path);
+	}
+
+
+	private static void writeIgnoreFile(Path dir, String rule)
+			throws IOException {
+		Files.write(dir.resolve(".gitignore"), Arrays.asList(rule),
+				Charset.forName("UTF-8"));
+	}
+
+
+	@Test
+	public void testNoRepositoryStopsAtSearchedDirectory() {
+		IgnoreRules rules = new IgnoreRules();
+		IgnoreRules.DirectoryRules dirRules =
+				rules.getRulesFor(searched.resolve("sub"), searched);
+		assertFalse(dirRules.isIgnored("a.log", false));
+		assertTrue(dirRules.isIgnored("a.tmp", false));
+	}
+
+
+	@Test
+	public void testNoRepositoryUsesOwnIgnoreFile() {
+		IgnoreRules rules = new IgnoreRules();
+		IgnoreRules.DirectoryRules dirRules = rules.getRulesFor(searched);
+		assertFalse(dirRules.isIgnored("a.log", false));
+		assertTrue(dirRules.isIgnored("a.tmp", false));
+	}
+
+
+	@Test
+	public void testRepositoryUsesIgnoreFilesUpToRoot() throws IOException {
+		Files.createDirectory(parent.resolve(".git"));
+		IgnoreRules rules = new IgnoreRules();
+		IgnoreRules.DirectoryRules dirRules =
+				rules.getRulesFor(searched.resolve("sub"), searched);
+		assertTrue(dirRules.isIgnored("a.log", false));
+		assertTrue(dirRules.isIgnored("a.tmp", false));
+	}
+
+
+	@Test
+	public void testTopNotAParent() {
+		IgnoreRules rules = new IgnoreRules();
+		IgnoreRules.DirectoryRules dirRules =
+				rules.getRulesFor(searched, searched.resolve("sub"));
+		assertTrue(dirRules.isIgnored("a.tmp", false));
+	}
+
+
+}
@@ -0,0 +1,116 @@
+/*
+ * 10/17/2026
+ *
+ * LoadStateTest.java - Tests for LoadState.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests what a text area may do while its file is still being read in the
+ * background.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class LoadStateTest {
+
+
+	private static Runnable record(final List<String> log, final String s) {
+		return new Runnable() {
+			public void run() {
+				log.add(s);
+			}
+		};
+	}
+
+
+	@Test
+	public void testSaveIsSkippedWhileLoading() {
+		LoadState state = new LoadState(true);
+		assertTrue(state.isLoading());
+		assertFalse(state.shouldSave());
+		state.loaded();
+		assertFalse(state.isLoading());
+		assertTrue(state.shouldSave());
+	}
+
+
+	@Test
+	public void testSaveAsFailsWhileLoading() throws IOException {
+		LoadState state = new LoadState(true);
+		try {
+			state.checkSaveAs("/tmp/foo.py");
+			fail("Expected an IOException");
+		} catch (IOException ioe) {
+			assertTrue(ioe.getMessage().contains("/tmp/foo.py"));
+		}
+		state.loaded();
+		state.checkSaveAs("/tmp/foo.py");
+	}
+
+
+	@Test
+	public void testFilesReadRightAwayCanBeSaved() throws IOException {
+		LoadState state = new LoadState(false);
+		assertTrue(state.shouldSave());
+		state.checkSaveAs("/tmp/foo.py");
+	}
+
+
+	@Test
+	public void testActionsWaitUntilLoaded() {
+		List<String> log = new ArrayList<String>();
+		LoadState state = new LoadState(true);
+		state.runWhenLoaded(record(log, "select line"));
+		state.runWhenLoaded(record(log, "center"));
+		assertTrue(log.isEmpty());
+		state.loaded();
+		assertEquals(2, log.size());
+		assertEquals("select line", log.get(0));
+		assertEquals("center", log.get(1));
+		// They only run once.
+		state.loaded();
+		assertEquals(2, log.size());
+	}
+
+
+	@Test
+	public void testActionsRunRightAwayOnceLoaded() {
+		List<String> log = new ArrayList<String>();
+		LoadState state = new LoadState(false);
+		state.runWhenLoaded(record(log, "select line"));
+		assertEquals(1, log.size());
+	}
+
+
+	@Test
+	public void testActionsSeeLoadedState() {
+		final LoadState state = new LoadState(true);
+		final boolean[] loading = { true };
+		state.runWhenLoaded(new Runnable() {
+			public void run() {
+				loading[0] = state.isLoading();
+			}
+		});
+		state.loaded();
+		assertFalse(loading[0]);
+	}
+
+
+}
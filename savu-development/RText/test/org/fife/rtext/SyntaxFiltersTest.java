@@ -0,0 +1,95 @@
+/*
+ * 10/17/2026
+ *
+ * SyntaxFiltersTest.java - Tests for SyntaxFilters.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.rtext;
+
+import static org.junit.Assert.assertEquals;
+
+import org.fife.ui.rsyntaxtextarea.SyntaxConstants;
+import org.junit.Test;
+
+
+/**
+ * Tests looking up syntax styles with {@link SyntaxFilters}, including
+ * after the filters change.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class SyntaxFiltersTest {
+
+
+	@Test
+	public void testDefaultFilters() {
+		SyntaxFilters filters = new SyntaxFilters();
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_PYTHON,
+				filters.getSyntaxStyleForFile("module.py", true));
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_MAKEFILE,
+				filters.getSyntaxStyleForFile("makefile", true));
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_NONE,
+				filters.getSyntaxStyleForFile("notes.unknown", true));
+	}
+
+
+	@Test
+	public void testLookupsSeeChangedFilters() {
+
+		SyntaxFilters filters = new SyntaxFilters();
+		filters.addFileFilter("text/custom", "custom-*.cfg");
+		assertEquals("text/custom",
+				filters.getSyntaxStyleForFile("custom-1.cfg", true));
+
+		filters.setFiltersForSyntaxStyle(SyntaxConstants.SYNTAX_STYLE_PYTHON,
+				"*.pyx");
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_NONE,
+				filters.getSyntaxStyleForFile("module.py", true));
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_PYTHON,
+				filters.getSyntaxStyleForFile("module.pyx", true));
+
+		filters.restoreDefaultFileFilters();
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_PYTHON,
+				filters.getSyntaxStyleForFile("module.py", true));
+
+	}
+
+
+	@Test
+	public void testEarlierFilterWins() {
+
+		SyntaxFilters filters = new SyntaxFilters();
+		filters.setFiltersForSyntaxStyle(SyntaxConstants.SYNTAX_STYLE_XML,
+				"*.tar.gz");
+		filters.addFileFilter("text/gzip", "*.gz");
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_XML,
+				filters.getSyntaxStyleForFile("archive.tar.gz", true));
+		assertEquals("text/gzip",
+				filters.getSyntaxStyleForFile("archive.gz", true));
+
+		// Built-in filters are tried before added ones.
+		filters.setFiltersForSyntaxStyle(SyntaxConstants.SYNTAX_STYLE_XML,
+				"*.gz");
+		filters.addFileFilter("text/tar", "*.tar.gz");
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_XML,
+				filters.getSyntaxStyleForFile("archive.tar.gz", true));
+
+	}
+
+
+	@Test
+	public void testFiltersFromString() {
+		SyntaxFilters filters = new SyntaxFilters();
+		filters.setFiltersForSyntaxStyle(SyntaxConstants.SYNTAX_STYLE_PYTHON,
+				"*.py *.pyw");
+		SyntaxFilters copy = new SyntaxFilters(filters.toString());
+		assertEquals(SyntaxConstants.SYNTAX_STYLE_PYTHON,
+				copy.getSyntaxStyleForFile("script.pyw", true));
+	}
+
+
+}
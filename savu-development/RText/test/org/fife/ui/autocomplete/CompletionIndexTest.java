@@ -0,0 +1,116 @@
+/*
+ * 10/17/2026
+ *
+ * CompletionIndexTest.java - Tests for CompletionIndex.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the fuzzy lookups done by {@link CompletionIndex}.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class CompletionIndexTest {
+
+
+	private static List<String> getBest(CompletionIndex index, String clazz,
+										String text, int max) {
+		List<Completion> result = new ArrayList<Completion>();
+		index.getBestCompletions(clazz, text, max, result);
+		List<String> names = new ArrayList<String>();
+		for (Completion c : result) {
+			names.add(c.getInputText());
+		}
+		return names;
+	}
+
+
+	private static CompletionIndex createIndex(String... names) {
+		List<Completion> completions = new ArrayList<Completion>();
+		for (String name : names) {
+			completions.add(new BasicCompletion(null, name));
+		}
+		return new CompletionIndex(completions);
+	}
+
+
+	@Test
+	public void testClassPartitions() {
+
+		List<Completion> completions = new ArrayList<Completion>();
+		completions.add(new BasicCompletion(null, "bar_global"));
+		completions.add(new AttributeCompletion(null, "bar_foo", "Foo"));
+		completions.add(new AttributeCompletion(null, "bar_baz", "Baz"));
+		CompletionIndex index = new CompletionIndex(completions);
+
+		List<String> expected = new ArrayList<String>();
+		expected.add("bar_global");
+		assertEquals(expected, getBest(index, null, "bar", 10));
+		expected.set(0, "bar_foo");
+		assertEquals(expected, getBest(index, "Foo", "bar", 10));
+		expected.set(0, "bar_baz");
+		assertEquals(expected, getBest(index, "Baz", "b", 10));
+		assertTrue(getBest(index, "Unknown", "bar", 10).isEmpty());
+
+	}
+
+
+	@Test
+	public void testIgnoresCase() {
+		CompletionIndex index = createIndex("getValue", "other");
+		List<String> result = getBest(index, null, "GETV", 10);
+		assertEquals(1, result.size());
+		assertEquals("getValue", result.get(0));
+	}
+
+
+	@Test
+	public void testPrefixBeforeSubsequence() {
+		CompletionIndex index = createIndex("get_class_value",
+				"gcv_with_a_much_longer_name", "unrelated", "gcv");
+		List<String> result = getBest(index, null, "gcv", 10);
+		assertEquals(3, result.size());
+		assertEquals("gcv", result.get(0));
+		assertEquals("gcv_with_a_much_longer_name", result.get(1));
+		assertEquals("get_class_value", result.get(2));
+	}
+
+
+	@Test
+	public void testTopKLimit() {
+
+		CompletionIndex index = createIndex("item3", "item1", "item4",
+				"item0", "item2", "i_t_e_m");
+
+		// Enough prefix matches; ties are broken by input text.
+		List<String> result = getBest(index, null, "item", 3);
+		assertEquals(3, result.size());
+		assertEquals("item0", result.get(0));
+		assertEquals("item1", result.get(1));
+		assertEquals("item2", result.get(2));
+
+		// Too few prefix matches, so subsequence matches fill the rest.
+		result = getBest(index, null, "item", 6);
+		assertEquals(6, result.size());
+		assertEquals("i_t_e_m", result.get(5));
+
+		assertTrue(getBest(index, null, "item", 0).isEmpty());
+
+	}
+
+
+}
@@ -0,0 +1,104 @@
+/*
+ * 10/17/2026
+ *
+ * FuzzyMatcherTest.java - Tests for FuzzyMatcher.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * Tests how {@link FuzzyMatcher} scores completions.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class FuzzyMatcherTest {
+
+
+	private static int score(String query, String text) {
+		FuzzyMatcher matcher = new FuzzyMatcher(query);
+		return matcher.score(text.toLowerCase().toCharArray(),
+							FuzzyMatcher.wordStarts(text));
+	}
+
+
+	@Test
+	public void testNoMatch() {
+		FuzzyMatcher matcher = new FuzzyMatcher("xyz");
+		char[] text = "abc".toCharArray();
+		assertFalse(matcher.accepts(FuzzyMatcher.mask(text)));
+		assertEquals(FuzzyMatcher.NO_MATCH, score("xyz", "abc"));
+		assertEquals(FuzzyMatcher.NO_MATCH, score("cba", "abc"));
+		assertEquals(FuzzyMatcher.NO_MATCH, score("abcd", "abc"));
+	}
+
+
+	@Test
+	public void testPrefixBeforeSubsequence() {
+		int prefix = score("gcv", "gcv_is_a_very_long_name");
+		int subsequence = score("gcv", "get_class_value");
+		assertTrue(subsequence!=FuzzyMatcher.NO_MATCH);
+		assertTrue(prefix>subsequence);
+	}
+
+
+	@Test
+	public void testScorePrefixAgreesWithScore() {
+		String[] texts = { "get", "getClassValue", "get_class_value",
+				"g", "getter", "g_e_t" };
+		String[] queries = { "g", "ge", "get" };
+		for (String query : queries) {
+			FuzzyMatcher matcher = new FuzzyMatcher(query);
+			for (String text : texts) {
+				if (text.length()<query.length() ||
+						!text.startsWith(query)) {
+					continue;
+				}
+				long wordStarts = FuzzyMatcher.wordStarts(text);
+				assertEquals(query + " / " + text,
+						score(query, text),
+						matcher.scorePrefix(text.length(), wordStarts));
+			}
+		}
+		FuzzyMatcher matcher = new FuzzyMatcher("g_c");
+		assertEquals(score("g_c", "g_class"),
+				matcher.scorePrefix(7, FuzzyMatcher.wordStarts("g_class")));
+	}
+
+
+	@Test
+	public void testShorterTextsPreferred() {
+		assertTrue(score("val", "value")>score("val", "values"));
+		assertTrue(score("cv", "class_value")>
+				score("cv", "class_values"));
+	}
+
+
+	@Test
+	public void testWordStartsPreferred() {
+		// Same length, but only the first has word starts to match.
+		assertTrue(score("gcv", "get_class_value")>
+				score("gcv", "getxclassxvalue"));
+		assertTrue(score("gcv", "getClassValue")>
+				score("gcv", "getclassvalue"));
+	}
+
+
+	@Test
+	public void testWordStarts() {
+		long wordStarts = FuzzyMatcher.wordStarts("getClass_value.x");
+		assertEquals((1L<<0) | (1L<<3) | (1L<<9) | (1L<<15), wordStarts);
+	}
+
+
+}
@@ -0,0 +1,171 @@
+/*
+ * 10/17/2026
+ *
+ * PythonModuleCacheTest.java - Tests for PythonModuleCache.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests how {@link PythonModuleCache} copes with modules the introspector
+ * can't describe.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class PythonModuleCacheTest {
+
+	private File cacheRoot;
+	private FakeIntrospector introspector;
+	private PythonModuleCache cache;
+
+
+	@Before
+	public void setUp() throws IOException {
+		cacheRoot = Files.createTempDirectory("PythonModuleCacheTest").toFile();
+		introspector = new FakeIntrospector();
+		cache = new PythonModuleCache(cacheRoot, introspector);
+	}
+
+
+	@After
+	public void tearDown() {
+		delete(cacheRoot);
+	}
+
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children!=null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+
+	private File getCacheDirectory() {
+		File[] dirs = cacheRoot.listFiles();
+		assertEquals(1, dirs.length);
+		return dirs[0];
+	}
+
+
+	@Test
+	public void testFailedBatchIsRetriedOneModuleAtATime() {
+
+		for (int i=0; i<40; i++) {
+			introspector.stdlib.add(i==20 ? "broken" : ("mod" + i));
+		}
+		introspector.failing.add("broken");
+
+		cache.describeStdlib();
+
+		File dir = getCacheDirectory();
+		for (String name : introspector.stdlib) {
+			assertEquals(name, !"broken".equals(name),
+					new File(dir, name + ".json").isFile());
+		}
+		assertTrue(new File(dir, "stdlib.done").isFile());
+
+		// The module that failed isn't asked for again this session.
+		int requests = introspector.requests;
+		assertNull(cache.getModule("broken"));
+		assertEquals(requests, introspector.requests);
+		assertNotNull(cache.getModule("mod21"));
+
+	}
+
+
+	@Test
+	public void testFailedModuleIsRemembered() {
+		introspector.failing.add("slow");
+		assertNull(cache.getModule("slow"));
+		assertEquals(1, introspector.requests);
+		assertNull(cache.getModule("slow"));
+		assertEquals(1, introspector.requests);
+	}
+
+
+	@Test
+	public void testStdlibListFailureIsRetriedNextTime() {
+		introspector.stdlibFails = true;
+		cache.describeStdlib();
+		assertFalse(new File(getCacheDirectory(), "stdlib.done").exists());
+	}
+
+
+	/**
+	 * Describes modules without running Python.  Asking for a module in
+	 * <code>failing</code> fails the whole request, as a timeout does.
+	 */
+	private static class FakeIntrospector extends PythonIntrospector {
+
+		private List<String> stdlib;
+		private List<String> failing;
+		private boolean stdlibFails;
+		private int requests;
+
+		public FakeIntrospector() {
+			super("python", null);
+			stdlib = new ArrayList<String>();
+			failing = new ArrayList<String>();
+		}
+
+		@Override
+		public synchronized Map<String, String> getModules(
+				List<String> modules) throws IOException {
+			requests++;
+			Map<String, String> result = new HashMap<String, String>();
+			for (String name : modules) {
+				if (failing.contains(name)) {
+					throw new IOException("Timed out describing " + name);
+				}
+				result.put(name, "{\"name\":\"" + name + "\"," +
+						"\"kind\":\"module\",\"stdlib\":" +
+						stdlib.contains(name) + ",\"members\":[]}");
+			}
+			return result;
+		}
+
+		@Override
+		public synchronized List<String> getStdlibModules()
+				throws IOException {
+			if (stdlibFails) {
+				throw new IOException("Python didn't answer");
+			}
+			return stdlib;
+		}
+
+		@Override
+		public synchronized String[] identify() {
+			return new String[] { "/usr/bin/python", "3.0.0" };
+		}
+
+	}
+
+
+}
@@ -0,0 +1,300 @@
+/*
+ * 10/17/2026
+ *
+ * PythonSymbolTableTest.java - Tests for PythonSymbolTable.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.autocomplete;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+import org.junit.Test;
+
+
+/**
+ * Tests that {@link PythonSymbolTable} stays the same as a freshly built
+ * table as its document is edited, and that it finds the right scope for
+ * the caret.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class PythonSymbolTableTest {
+
+	private static final String PROGRAM =
+		"import os\n" +
+		"x = 1\n" +
+		"class Foo:\n" +
+		"    a = 2\n" +
+		"    def bar(self, p):\n" +
+		"        y = 3\n" +
+		"        self.b = [1,\n" +
+		"                  2]\n" +
+		"        return Foo()\n" +
+		"\n" +
+		"    def baz(self):\n" +
+		"        s = 'text'\n" +
+		"\n" +
+		"def func():\n" +
+		"    w = \\\n" +
+		"        4\n" +
+		"    return w\n" +
+		"z = Foo()\n" +
+		"v = z.bar(1)\n";
+
+	private static final String[] NAMES = { "x", "a", "y", "s", "w", "z",
+		"v", "os", "Foo", "self" };
+
+
+	private JTextArea textArea;
+	private PythonSymbolTable table;
+
+
+	/**
+	 * Checks that the table has the same symbols, scopes and classes as a
+	 * table built from scratch for the same text.
+	 */
+	private void assertSameAsFresh() {
+
+		String text = textArea.getText();
+		JTextArea freshTextArea = new JTextArea(text);
+		PythonSymbolTable fresh = new PythonSymbolTable();
+		fresh.install(freshTextArea);
+
+		assertEquals(text, fresh.getClassAttributes(),
+				table.getClassAttributes());
+
+		Element root = textArea.getDocument().getDefaultRootElement();
+		for (int i=0; i<root.getElementCount(); i++) {
+			Element line = root.getElement(i);
+			int start = line.getStartOffset();
+			int end = line.getEndOffset() - 1;
+			for (int offset=start; offset<=end;
+					offset+=Math.max(1, end-start)) {
+				String where = text + "\n@" + offset;
+				assertEquals(where, fresh.getLocalSymbols(offset),
+						table.getLocalSymbols(offset));
+				assertEquals(where, fresh.getGlobalSymbols(offset),
+						table.getGlobalSymbols(offset));
+				for (String name : NAMES) {
+					assertEquals(where + " " + name,
+							fresh.getClassOfObject(name, offset),
+							table.getClassOfObject(name, offset));
+				}
+			}
+		}
+
+	}
+
+
+	private void create(String text) {
+		textArea = new JTextArea(text);
+		table = new PythonSymbolTable();
+		table.install(textArea);
+	}
+
+
+	private void insert(String before, String text)
+			throws BadLocationException {
+		Document doc = textArea.getDocument();
+		int offset = textArea.getText().indexOf(before);
+		assertTrue(before, offset>-1);
+		doc.insertString(offset, text, null);
+		assertSameAsFresh();
+	}
+
+
+	private void remove(String text) throws BadLocationException {
+		Document doc = textArea.getDocument();
+		int offset = textArea.getText().indexOf(text);
+		assertTrue(text, offset>-1);
+		doc.remove(offset, text.length());
+		assertSameAsFresh();
+	}
+
+
+	private void replace(String text, String with)
+			throws BadLocationException {
+		Document doc = textArea.getDocument();
+		int offset = textArea.getText().indexOf(text);
+		assertTrue(text, offset>-1);
+		doc.remove(offset, text.length());
+		doc.insertString(offset, with, null);
+		assertSameAsFresh();
+	}
+
+
+	@Test
+	public void testBackslashContinuation() throws BadLocationException {
+
+		create("a = 1\nb = 2\nc = 3\n");
+		assertEquals(Arrays.asList("a", "b", "c"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+		// "b = 2" is now part of the statement on the line above.
+		insert("\nb = 2", " + \\");
+		assertEquals(Arrays.asList("a", "c"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+		// Continuing a continued line.
+		insert("\nc = 3", " \\");
+		assertEquals(Arrays.asList("a"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+		remove(" + \\");
+		remove(" \\");
+		assertEquals(Arrays.asList("a", "b", "c"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+	}
+
+
+	@Test
+	public void testBracketContinuation() throws BadLocationException {
+
+		create("a = f(1)\nb = 2\nc = [3]\nd = 4\n");
+
+		// Opening a bracket makes the following lines part of its statement,
+		// until it is closed.
+		remove(")");
+		assertEquals(Arrays.asList("a"),
+				table.getGlobalSymbols(textArea.getText().length()));
+		insert("\nc = [3]", ")");
+		assertEquals(Arrays.asList("a", "c", "d"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+		// Brackets in strings and comments don't count.
+		insert("\nc = [3]", " # (");
+		insert("\nd = 4", " + ')'");
+		assertEquals(Arrays.asList("a", "c", "d"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+	}
+
+
+	@Test
+	public void testDedent() throws BadLocationException {
+
+		create("class A:\n    x = 1\n    y = 2\nz = 3\n");
+		int end = textArea.getText().length();
+		assertEquals(Arrays.asList("A", "z"), table.getGlobalSymbols(end));
+
+		// Dedenting "y = 2" ends the class there.
+		replace("    y = 2", "y = 2");
+		assertEquals(Arrays.asList("A", "y", "z"),
+				table.getGlobalSymbols(end));
+		assertEquals(new HashSet<String>(Arrays.asList("x")),
+				table.getClassAttributes().get("A"));
+
+		// And indenting it again puts it back.
+		replace("\ny = 2", "\n    y = 2");
+		assertEquals(Arrays.asList("A", "z"), table.getGlobalSymbols(end));
+		assertEquals(new HashSet<String>(Arrays.asList("x", "y")),
+				table.getClassAttributes().get("A"));
+
+	}
+
+
+	@Test
+	public void testScopeAtCaret() {
+
+		create(PROGRAM);
+		String text = textArea.getText();
+
+		// Inside bar(), after y is assigned.
+		int offset = text.indexOf("        self.b");
+		List<String> local = table.getLocalSymbols(offset);
+		assertEquals(Arrays.asList("y", "a", "bar(self, p)", "x", "Foo"),
+				local);
+
+		// Inside baz(), bar()'s locals aren't visible.
+		offset = text.indexOf("        s = ") + 8;
+		local = table.getLocalSymbols(offset);
+		assertFalse(local.contains("y"));
+		assertTrue(local.contains("a"));
+
+		// On a blank line, how far the caret is indented decides the scope.
+		offset = text.indexOf("\n\n    def baz") + 1;
+		assertFalse(table.getLocalSymbols(offset).contains("y"));
+
+		// Inside func(), the class's attributes aren't visible.
+		offset = text.indexOf("    return w");
+		local = table.getLocalSymbols(offset);
+		assertTrue(local.contains("w"));
+		assertFalse(local.contains("a"));
+
+		assertEquals(Arrays.asList("x", "Foo", "func()", "z", "v"),
+				table.getGlobalSymbols(text.length()));
+		assertEquals("Foo", table.getClassOfObject("z", text.length()));
+
+	}
+
+
+	@Test
+	public void testTripleQuotedStrings() throws BadLocationException {
+
+		create(PROGRAM);
+
+		// Opening a string hides everything after it.
+		insert("class Foo:", "s = \"\"\"\n");
+		assertEquals(Arrays.asList("x", "s"),
+				table.getGlobalSymbols(textArea.getText().length()));
+
+		// Closing it again brings back everything after the string.
+		insert("    def baz", "\"\"\"\n");
+		List<String> globals = table.getGlobalSymbols(
+									textArea.getText().length());
+		assertTrue(globals.contains("func()"));
+		assertFalse(globals.contains("Foo"));
+
+		// Removing the opening quotes makes the closing ones open a string.
+		remove("s = \"\"\"\n");
+		globals = table.getGlobalSymbols(textArea.getText().length());
+		assertTrue(globals.contains("Foo"));
+		assertFalse(globals.contains("func()"));
+
+		remove("\"\"\"\n");
+
+	}
+
+
+	@Test
+	public void testTypingAndDeletingProgram() throws BadLocationException {
+
+		create("");
+		Document doc = textArea.getDocument();
+		for (int i=0; i<PROGRAM.length(); i++) {
+			doc.insertString(i, PROGRAM.substring(i, i+1), null);
+			if (PROGRAM.charAt(i)=='\n' || PROGRAM.charAt(i)=='\\' ||
+					PROGRAM.charAt(i)=='[' || PROGRAM.charAt(i)==':') {
+				assertSameAsFresh();
+			}
+		}
+		assertSameAsFresh();
+
+		// Delete lines from the top, so every later line's start state has
+		// to be checked again.
+		while (doc.getLength()>0) {
+			Element line = doc.getDefaultRootElement().getElement(0);
+			doc.remove(0, Math.min(line.getEndOffset(), doc.getLength()));
+			assertSameAsFresh();
+		}
+
+	}
+
+
+}
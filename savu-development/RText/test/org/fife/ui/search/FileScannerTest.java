@@ -0,0 +1,113 @@
+/*
+ * 10/17/2026
+ *
+ * FileScannerTest.java - Tests for FileScanner.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests {@link FileScanner}'s handling of very large files.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class FileScannerTest {
+
+	private File file;
+
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("FileScannerTest", ".txt");
+	}
+
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+
+	private void assertTooLarge(boolean mapLargeFiles) throws IOException {
+		// A sparse file, so nothing is actually written.
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(Integer.MAX_VALUE + 1L);
+		} finally {
+			raf.close();
+		}
+		FileScanner scanner = new FileScanner();
+		scanner.setMapLargeFiles(mapLargeFiles);
+		try {
+			scanner.read(file);
+			fail("Expected an IOException");
+		} catch (IOException ioe) {
+			assertTrue(ioe.getMessage(), ioe.getMessage().contains("too large"));
+		}
+	}
+
+
+	private void write(String text) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("US-ASCII"));
+		} finally {
+			out.close();
+		}
+	}
+
+
+	@Test
+	public void testFileOver2GBIsRejectedWhenMapping() throws IOException {
+		assertTooLarge(true);
+	}
+
+
+	@Test
+	public void testFileOver2GBIsRejectedWhenNotMapping() throws IOException {
+		assertTooLarge(false);
+	}
+
+
+	@Test
+	public void testLargeBuffersAreNotKept() throws IOException {
+
+		StringBuilder sb = new StringBuilder();
+		while (sb.length()<=FileScanner.MAX_POOLED_CAPACITY) {
+			sb.append("line of text\n");
+		}
+		write(sb.toString());
+
+		FileScanner scanner = new FileScanner();
+		scanner.setMapLargeFiles(false);
+		scanner.read(file);
+		assertEquals(sb.length(), scanner.getText().length());
+		assertTrue(scanner.getText().capacity()>FileScanner.MAX_POOLED_CAPACITY);
+
+		write("small file\n");
+		scanner.read(file);
+		assertEquals("small file\n", scanner.getText().toString());
+		assertTrue(scanner.getText().capacity()<=FileScanner.MAX_POOLED_CAPACITY);
+
+	}
+
+
+}
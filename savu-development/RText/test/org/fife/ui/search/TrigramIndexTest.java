@@ -0,0 +1,142 @@
+/*
+ * 10/17/2026
+ *
+ * TrigramIndexTest.java - Tests for TrigramIndex.
+ * Copyright (C) 2026 Robert Futrell
+ * http://fifesoft.com/rtext
+ * Licensed under a modified BSD license.
+ * See the included license file for details.
+ */
+package org.fife.ui.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the literals {@link TrigramIndex} requires files to contain for
+ * regular expression searches.  Every literal returned must appear in every
+ * match, or the index rules out files that actually match.
+ *
+ * @author Robert Futrell
+ * @version 1.0
+ */
+public class TrigramIndexTest {
+
+
+	/**
+	 * Checks the literals required by a regex, and that a string the regex
+	 * matches contains each of them.
+	 */
+	private static void assertLiterals(String regex, String match,
+			String... expected) {
+		assertTrue(regex + " should match " + match,
+				Pattern.compile(regex).matcher(match).find());
+		List<String> literals = TrigramIndex.getRequiredLiterals(regex);
+		assertEquals(regex, Arrays.asList(expected), literals);
+		for (String literal : literals) {
+			assertTrue(regex + ": " + literal + " not in " + match,
+					match.contains(literal));
+		}
+	}
+
+
+	@Test
+	public void testPlainLiterals() {
+		assertLiterals("foobar", "a foobar b", "foobar");
+		assertLiterals("foo\\.bar", "foo.bar", "foo.bar");
+		assertLiterals("foo.*bar", "foo and bar", "foo", "bar");
+		assertLiterals("fooo?bar", "foobar", "foo", "bar");
+	}
+
+
+	@Test
+	public void testAlternationRequiresNothing() {
+		assertLiterals("foo|bar", "bar");
+	}
+
+
+	@Test
+	public void testQuantifierBodiesAreSkipped() {
+		assertLiterals("\\s{1,4}foo", "  foo", "foo");
+		assertLiterals("ab{2}cde", "abbcde", "a", "cde");
+		assertLiterals("(ab){0,3}cde", "cde", "cde");
+		assertLiterals("x{12}yz", "xxxxxxxxxxxxyz", "yz");
+	}
+
+
+	@Test
+	public void testHexEscapes() {
+		assertLiterals("\\x41bcd", "Abcd", "bcd");
+		assertLiterals("\\x{41}bcd", "Abcd", "bcd");
+	}
+
+
+	@Test
+	public void testUnicodeEscape() {
+		assertLiterals("\\u0041bcd", "Abcd", "bcd");
+	}
+
+
+	@Test
+	public void testPropertyEscapes() {
+		assertLiterals("\\p{Alpha}bcd", "Abcd", "bcd");
+		assertLiterals("\\pLbcd", "Abcd", "bcd");
+		assertLiterals("\\P{Digit}bcd", "Abcd", "bcd");
+	}
+
+
+	@Test
+	public void testOctalEscapes() {
+		assertLiterals("\\0101bcd", "Abcd", "bcd");
+		assertLiterals("\\041bcd", "!bcd", "bcd");
+		assertLiterals("\\07bcd", "\007bcd", "bcd");
+	}
+
+
+	@Test
+	public void testBackReferences() {
+		assertLiterals("(a)\\1bcd", "aabcd", "bcd");
+		// Named groups use (?<name>...), which turns off the index.
+		assertLiterals("(?<n>a)\\k<n>bcd", "aabcd");
+		assertEquals(Arrays.asList("abc", "def"),
+				TrigramIndex.getRequiredLiterals("abc\\k<name>def"));
+	}
+
+
+	@Test
+	public void testControlAndClassEscapes() {
+		assertLiterals("\\cAbcd", "\001bcd", "bcd");
+		assertLiterals("abc\\d+def", "abc12def", "abc", "def");
+		assertLiterals("abc\\tdef", "abc\tdef", "abc", "def");
+	}
+
+
+	@Test
+	public void testQuotingRequiresNothing() {
+		assertLiterals("\\Qa.b\\E", "a.b");
+		assertLiterals("foo\\Q(x)\\Ebar", "foo(x)bar");
+	}
+
+
+	@Test
+	public void testUnknownEscapeRequiresNothing() {
+		assertEquals(Collections.emptyList(),
+				TrigramIndex.getRequiredLiterals("abc\\ydef"));
+	}
+
+
+	@Test
+	public void testInlineFlagsRequireNothing() {
+		assertLiterals("(?i)foobar", "FOOBAR");
+	}
+
+
+}